@@ -7,16 +7,29 @@ import java.util.Iterator;
 import java.io.FileWriter;
 import java.util.ArrayList;
 import java.io.IOException;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.io.BufferedWriter;
 import java.util.LinkedHashMap;
 
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.parser.ParseException;
 import net.sf.jsqlparser.statement.create.table.ColDataType;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.operations.CommonSubexpressions;
+import edu.buffalo.cse562.operations.ExpressionCompiler;
+import edu.buffalo.cse562.util.FieldParser;
+import edu.buffalo.cse562.util.FixedPoint;
+
 public class AggregateOperations {
 
+	// this is the number of fractional digits an AVG is printed with
+	private static final int AVERAGE_SCALE = 2;
+
 	// Function to calculate the Group BY Clause and store the values in a Hash
 	// Map
 
@@ -30,6 +43,9 @@ public class AggregateOperations {
 		// Creating a LinkedHashMap to Store Group<Key,Value> Pair
 		LinkedHashMap<String, Object> groupByMap = new LinkedHashMap<String, Object>();
 		LinkedHashMap<String, String> countMap = new LinkedHashMap<String, String>();
+		// this keeps the running SUM per group as a scaled long
+		LinkedHashMap<String, long[]> sumMap = new LinkedHashMap<String, long[]>();
+		int sumScale = 0;
 
 		String editedGroupBy = groupBy.substring(1, groupBy.lastIndexOf("]"));
 
@@ -40,26 +56,26 @@ public class AggregateOperations {
 			groupBycolumnName[i] = checkGroupBy[i].toLowerCase();
 		}
 
-		ArrayList<String> canString = newTable.tableTuples;
+		// the typed tuples of the table, parsed only once for all the aggregates computed over it
+		ArrayList<Tuple> parsedTuples = ParsedTuples.of(newTable);
 
-		for (String readTuple : canString) {
+		for (Tuple parsedTuple : parsedTuples) {
 			String MatchedColumn = new String();
 
-			String[] tupleList = readTuple.split("\\|");
 			if (checkGroupBy.length == 1) {
-				MatchedColumn = tupleList[newTable.columnIndexMap
-				                          .get(groupBycolumnName[0].toLowerCase().trim())];
+				MatchedColumn = parsedTuple.getString(newTable.columnIndexMap
+				                          .get(groupBycolumnName[0].toLowerCase().trim()));
 			} else
 
 			{
-				MatchedColumn = tupleList[newTable.columnIndexMap
-				                          .get(groupBycolumnName[0].trim())];
+				MatchedColumn = parsedTuple.getString(newTable.columnIndexMap
+				                          .get(groupBycolumnName[0].trim()));
 
 				for (int i = 1; i < checkGroupBy.length; i++) {
 					MatchedColumn = MatchedColumn
 							+ "|"
-							+ tupleList[newTable.columnIndexMap
-							            .get(groupBycolumnName[i].trim())];
+							+ parsedTuple.getString(newTable.columnIndexMap
+							            .get(groupBycolumnName[i].trim()));
 
 				}
 
@@ -71,25 +87,22 @@ public class AggregateOperations {
 			if (aggregateFunc.trim().contains("SUM")
 					|| aggregateFunc.trim().contains("sum")) {
 
-				columnAdd = (Double
-						.parseDouble(tupleList[(newTable.columnIndexMap
-								.get(columnName))]));
-				if (groupByMap.containsKey(MatchedColumn)) {
-					groupByMap.put(
-							MatchedColumn.trim(),
-							Double.parseDouble(groupByMap.get(MatchedColumn)
-									.toString()) + columnAdd);
-				} else {
-					groupByMap.put(MatchedColumn.trim(), columnAdd);
+				// this adds the scaled long of the column exactly instead of a double
+				int sumColumn = newTable.columnIndexMap.get(columnName);
+				sumScale = parsedTuple.getScale(sumColumn);
+				long[] sum = sumMap.get(MatchedColumn.trim());
+				if (sum == null) {
+					sum = new long[1];
+					sumMap.put(MatchedColumn.trim(), sum);
 				}
+				sum[0] = Math.addExact(sum[0], parsedTuple.getUnscaled(sumColumn));
 			}
 
 			// check whether the aggregate function is MIN
 			else if (aggregateFunc.trim().contains("MIN")
 					|| aggregateFunc.trim().contains("min")) {
-				columnAdd = Double
-						.parseDouble(tupleList[(newTable.columnIndexMap
-								.get(columnName))]);
+				columnAdd = parsedTuple.getDouble((newTable.columnIndexMap
+								.get(columnName)));
 				double comp = columnAdd;
 
 				if (groupByMap.containsKey(MatchedColumn)) {
@@ -106,9 +119,8 @@ public class AggregateOperations {
 
 			else if (aggregateFunc.trim().contains("MAX")
 					|| aggregateFunc.trim().contains("max")) {
-				columnAdd = Double
-						.parseDouble(tupleList[(newTable.columnIndexMap
-								.get(columnName))]);
+				columnAdd = parsedTuple.getDouble((newTable.columnIndexMap
+								.get(columnName)));
 				double comp = columnAdd;
 				if (groupByMap.containsKey(MatchedColumn)) {
 					if (Double.parseDouble(groupByMap.get(MatchedColumn)
@@ -130,8 +142,8 @@ public class AggregateOperations {
 						columnName = "LineItem" + "." + columnName;
 					}
 
-					String column = tupleList[(newTable.columnIndexMap
-							.get(columnName.toLowerCase()))];
+					String column = parsedTuple.getString((newTable.columnIndexMap
+							.get(columnName.toLowerCase())));
 					if (countMap.containsKey(MatchedColumn)) {
 
 						countMap.put(MatchedColumn.trim(),
@@ -157,6 +169,12 @@ public class AggregateOperations {
 			}
 		}
 
+		for (String key : sumMap.keySet()) {
+			StringBuilder sum = new StringBuilder();
+			FixedPoint.append(sum, sumMap.get(key)[0], sumScale);
+			groupByMap.put(key, sum.toString());
+		}
+
 		if (flag == 1) {
 			Iterator iter = countMap.keySet().iterator();
 
@@ -181,24 +199,39 @@ public class AggregateOperations {
 	public LinkedHashMap<String, Object> getPostCal(Table newTable,
 			String groupBy, String aggregateFunc, String posixExpression)
 					throws IOException, ParseException {
+		return getPostCals(newTable, groupBy,
+				Collections.singletonList(posixExpression), null).get(posixExpression);
+	}
 
-		// Creating a LinkedHashMap to Store Group<Key,Value> Pair
-		LinkedHashMap<String, Object> groupByMap = new LinkedHashMap<String, Object>();
+	// Function to calculate the SUM of several expressions per group in a single pass over the table,
+	// returning the group map of each expression keyed by the expression, the subexpressions are
+	// shared as counted by common, or among the expressions themselves when it is null
 
-		String MatchedColumn = new String();
+	public LinkedHashMap<String, LinkedHashMap<String, Object>> getPostCals(
+			Table newTable, String groupBy, List<String> posixExpressions,
+			CommonSubexpressions common) throws IOException, ParseException {
 
-		// String array to store all the values in the column
-		String arr[] = new String[10];
-		String[] tupleList = null;
-		// postfix contains a list of all columns in a post fix form
-		ArrayList<String> arrList = WhereOperation.braceExp(posixExpression);
-		String array[] = new String[arrList.size()];
-		array = arrList.toArray(array);
-		ArrayList<String> readTupleList = new ArrayList<String>();
+		LinkedHashMap<String, LinkedHashMap<String, Object>> postMaps = new LinkedHashMap<String, LinkedHashMap<String, Object>>();
+		if (posixExpressions.isEmpty()) {
+			return postMaps;
+		}
+		String MatchedColumn = new String();
 
-		// String[]
-		// postFix=SelectionOperation.convertToPos(posixExpression.split(" "));
-		String[] postFix = WhereOperation.convertToPos(array);
+		// the expressions are compiled once into typed evaluators over the parsed tuple, with the subexpressions they
+		// have in common computed once per tuple, and summed per group as scaled longs
+		ArrayList<Expression> expressions = new ArrayList<Expression>();
+		for (String posixExpression : posixExpressions) {
+			expressions.add(new CCJSqlParser(new StringReader(posixExpression)).SimpleExpression());
+		}
+		if (common == null) {
+			common = new CommonSubexpressions(WhereOperation.schemaOf(newTable), expressions);
+		}
+		CommonSubexpressions.Evaluation evaluation = common.newEvaluation();
+		ExpressionCompiler.Value[] evaluators = new ExpressionCompiler.Value[expressions.size()];
+		for (int e = 0; e < evaluators.length; e++) {
+			evaluators[e] = evaluation.compileValue(expressions.get(e));
+		}
+		LinkedHashMap<String, long[]> sumMap = new LinkedHashMap<String, long[]>();
 
 		String editedGroupBy = groupBy.substring(1, groupBy.lastIndexOf("]"));
 
@@ -209,84 +242,111 @@ public class AggregateOperations {
 			groupBycolumnName[i] = checkGroupBy[i];
 		}
 
-		readTupleList = newTable.tableTuples;
-		for (String canString : readTupleList) {
-			tupleList = canString.split("\\|");
+		for (Tuple parsedTuple : ParsedTuples.of(newTable)) {
+			evaluation.nextRow();
 
 			if (checkGroupBy.length == 1) {
-				MatchedColumn = tupleList[newTable.columnIndexMap
-				                          .get(groupBycolumnName[0].trim())];
+				MatchedColumn = parsedTuple.getString(newTable.columnIndexMap
+				                          .get(groupBycolumnName[0].trim()));
 			} else {
-				MatchedColumn = tupleList[newTable.columnIndexMap
-				                          .get(groupBycolumnName[0].trim())];
+				MatchedColumn = parsedTuple.getString(newTable.columnIndexMap
+				                          .get(groupBycolumnName[0].trim()));
 
 				for (int i = 1; i < checkGroupBy.length; i++) {
 					MatchedColumn = MatchedColumn
 							+ "|"
-							+ tupleList[newTable.columnIndexMap
-							            .get(groupBycolumnName[i].trim())];
+							+ parsedTuple.getString(newTable.columnIndexMap
+							            .get(groupBycolumnName[i].trim()));
 
 				}
 			}
 
-			for (int k = 0; k < postFix.length; k++) {
-				if (newTable.columnIndexMap.containsKey(postFix[k].trim())) {
-					arr[k] = tupleList[newTable.columnIndexMap.get(postFix[k]
-							.trim())];
-				} else {
-					arr[k] = postFix[k].trim();
-				}
+			// this keeps one running sum per expression for every group
+			long[] sum = sumMap.get(MatchedColumn.trim());
+			if (sum == null) {
+				sum = new long[evaluators.length];
+				sumMap.put(MatchedColumn.trim(), sum);
+			}
+			for (int e = 0; e < evaluators.length; e++) {
+				sum[e] = Math.addExact(sum[e], evaluators[e].evaluateLong(parsedTuple));
 			}
 
-			if (aggregateFunc.equalsIgnoreCase("SUM")) {
-				if (groupByMap.containsKey(MatchedColumn.trim())) {
-					double result = (WhereOperation.evaluate(arr));
-					groupByMap.put(
-							MatchedColumn.trim(),
-							Double.parseDouble(groupByMap.get(
-									MatchedColumn.trim()).toString())
-									+ result);
-
-				} else {
-					double result = WhereOperation.evaluate(arr);
-					groupByMap.put(MatchedColumn.trim(), (double) result);
-				}
+		}
 
+		for (int e = 0; e < evaluators.length; e++) {
+			// Creating a LinkedHashMap to Store Group<Key,Value> Pair
+			LinkedHashMap<String, Object> groupByMap = new LinkedHashMap<String, Object>();
+			for (String key : sumMap.keySet()) {
+				StringBuilder sum = new StringBuilder();
+				FixedPoint.append(sum, sumMap.get(key)[e], evaluators[e].getScale());
+				groupByMap.put(key, sum.toString());
 			}
-
+			postMaps.put(posixExpressions.get(e), groupByMap);
 		}
-		return groupByMap;
+		return postMaps;
 	}
 
-	public double sum(Table newTable, String[] selectList, String columnName)
-			throws IOException {
+	// Function to calculate the SUM of a column or an expression over the whole table, added up exactly as a
+	// scaled long and returned in plain notation with the scale of the expression
 
-		double sum = 0;
-		String[] pos = columnName.split(" ");
-		String[] postFix = WhereOperation.convertToPos(pos);
-		String[] arr = new String[postFix.length];
-		String[] tupleList = null;
-		ArrayList<String> readTupleList = newTable.tableTuples;
-		sum = 0;
-		readTupleList = newTable.tableTuples;
+	public String sum(Table newTable, CommonSubexpressions common, String columnName)
+			throws IOException, ParseException {
 
-		for (String canString : readTupleList) {
-			tupleList = canString.split("\\|");
+		// the expression is compiled once against the columns of the table and evaluated over the typed tuples
+		CommonSubexpressions.Evaluation evaluation = common.newEvaluation();
+		ExpressionCompiler.Value evaluator = evaluation.compileValue(
+				new CCJSqlParser(new StringReader(columnName)).SimpleExpression());
+		StringBuilder sum = new StringBuilder();
+		FixedPoint.append(sum, exactSum(newTable, evaluation, evaluator), evaluator.getScale());
+		return sum.toString();
+	}
 
-			for (int k = 0; k < postFix.length; k++) {
-				if (newTable.columnIndexMap.containsKey(postFix[k])) {
-					arr[k] = tupleList[newTable.columnIndexMap.get(postFix[k])];
-				} else {
-					arr[k] = postFix[k];
-				}
-			}
+	// Function to calculate the AVG of a column or an expression over the whole table, the exact sum divided by
+	// the number of tuples
 
-			double val = WhereOperation.evaluate(arr);
-			sum = sum + val;
+	public String average(Table newTable, CommonSubexpressions common, String columnName)
+			throws IOException, ParseException {
+
+		CommonSubexpressions.Evaluation evaluation = common.newEvaluation();
+		ExpressionCompiler.Value evaluator = evaluation.compileValue(
+				new CCJSqlParser(new StringReader(columnName)).SimpleExpression());
+		long sum = exactSum(newTable, evaluation, evaluator);
+		int count = ParsedTuples.of(newTable).size();
+		StringBuilder avg = new StringBuilder();
+		if (count > 0) {
+			FixedPoint.append(avg, FixedPoint.divide(sum, evaluator.getScale(), count, 0, AVERAGE_SCALE), AVERAGE_SCALE);
+		}
+		return avg.toString();
+	}
+
+	// this adds up a compiled expression over the typed tuples of the table as a long at the scale of the expression
+	private static long exactSum(Table newTable, CommonSubexpressions.Evaluation evaluation,
+			ExpressionCompiler.Value evaluator) {
+		long sum = 0;
+		for (Tuple parsedTuple : ParsedTuples.of(newTable)) {
+			evaluation.nextRow();
+			sum = Math.addExact(sum, evaluator.evaluateLong(parsedTuple));
 		}
 		return sum;
 	}
 
+	// this counts the subexpressions of the select list, which holds the aggregate arguments, and of the GROUP BY
+	// items in one pass, so that arithmetic shared by any of them is computed once per tuple
+	private static CommonSubexpressions commonSubexpressions(Table newTable,
+			String[] selectList, String[] groupBy) throws ParseException {
+		ArrayList<Expression> expressions = new ArrayList<Expression>();
+		for (String selectItem : selectList) {
+			String expression = ProjectTableOperation.expressionOf(selectItem);
+			expressions.add(new CCJSqlParser(new StringReader(expression)).SimpleExpression());
+		}
+		for (String groupByItem : groupBy) {
+			if (!groupByItem.contains("NOGroupBy")) {
+				expressions.add(new CCJSqlParser(new StringReader(groupByItem)).SimpleExpression());
+			}
+		}
+		return new CommonSubexpressions(WhereOperation.schemaOf(newTable), expressions);
+	}
+
 	// Aggregate Function to get the Sum
 	// Returns a table containing the column names(Group BY ones) and the
 	// resultant aggregate Function
@@ -301,8 +361,6 @@ public class AggregateOperations {
 		String[] tupleList = null;
 		LinkedHashMap<String, Object> map;
 		ArrayList<LinkedHashMap<String, Object>> globalList = new ArrayList<LinkedHashMap<String, Object>>();
-		int count = 0;
-		Double Sum = 0.0;
 		Table GroupByTable = null;
 		String columnName = selectList[0];
 		ArrayList<String> arrListResult = new ArrayList<String>();
@@ -326,11 +384,12 @@ public class AggregateOperations {
 		for (int i = 0; i < selectList.length; i++) {
 			selectList[i] = selectList[i].trim();
 		}
+		CommonSubexpressions common = commonSubexpressions(newTable, selectList, groupBy);
 
 		ArrayList<Object> arrTuple = null;
 		String str = null;
 		arrTuple = new ArrayList<Object>();
-		double Sum1 = 0;
+		String Sum1 = null;
 		LinkedHashMap<String, Object> postMap;
 		String line = null;
 
@@ -385,13 +444,11 @@ public class AggregateOperations {
 							selectList[i].lastIndexOf(")"));
 				}
 
-				if (columnName.trim().contains("*")
-						&& (selectList[i].contains("SUM") || selectList[i]
-								.contains("sum"))
-								|| columnName.trim().contains("-")
-								|| columnName.contains("+") || columnName.contains("/")) {
+				// a SUM, of a column or of an expression, is added up exactly and printed in plain notation
+				if (selectList[i].contains("SUM")
+						|| selectList[i].contains("sum")) {
 
-					Sum1 = sum(newTable, selectList, columnName);
+					Sum1 = sum(newTable, common, columnName.trim());
 					arrStr = arrStr + Sum1 + "|";
 					String FinalSum = arrStr.substring(0,
 							arrStr.lastIndexOf("|"));
@@ -399,25 +456,6 @@ public class AggregateOperations {
 					System.out.println(FinalSum);
 				}
 
-				if (selectList[i].contains("SUM")
-						|| selectList[i].contains("sum")
-						&& !columnName.contains("*")
-						&& !columnName.contains("-")
-						&& !columnName.contains("+")) {
-
-					columnNo = newTable.columnIndexMap.get(columnName.trim());
-
-					readTupleList = GroupByTable.tableTuples;
-					for (String canString : readTupleList) {
-
-						tupleList = canString.split("\\|");
-						Sum = Sum + Double.parseDouble(tupleList[columnNo]);
-						canString = newTable.returnTuple();
-
-					}
-
-				}
-
 				if (selectList[i].contains("COUNT(")
 						|| selectList[i].contains("COUNT(*)")
 						|| selectList[i].contains("AVG(")
@@ -442,7 +480,8 @@ public class AggregateOperations {
 				if (selectList[i].contains("AVG")
 						|| selectList[i].contains("avg")) {
 
-					Float avg = ((float) Sum1 / (float) count);
+					String avg = average(newTable, common, columnName.trim());
+					System.out.println(avg);
 
 				}
 
@@ -496,6 +535,24 @@ public class AggregateOperations {
 
 			StringBuilder sb = new StringBuilder("");
 
+			// the arithmetic arguments of all the SUMs are evaluated together in one pass over the table, so that the
+			// subexpressions they share are computed once per tuple
+			ArrayList<String> postExpressions = new ArrayList<String>();
+			for (int i = 0; i < selectList.length; i++) {
+				if (selectList[i].contains("SUM") || selectList[i].contains("sum")) {
+					String argument = selectList[i].substring(
+							selectList[i].indexOf("(") + 1,
+							selectList[i].lastIndexOf(")"));
+					if ((argument.contains("*") || argument.contains("-")
+							|| argument.contains("+") || argument.contains("/")
+							|| argument.contains("(")) && !postExpressions.contains(argument)) {
+						postExpressions.add(argument);
+					}
+				}
+			}
+			LinkedHashMap<String, LinkedHashMap<String, Object>> postMaps = getPostCals(
+					newTable, check, postExpressions, common);
+
 			for (int i = 0; i < selectList.length; i++) {
 
 				arrList.add((selectList[i]));
@@ -537,7 +594,7 @@ public class AggregateOperations {
 							|| columnName.contains("+")
 							|| columnName.contains("/")
 							|| columnName.contains("(")) {
-						postMap = getPostCal(newTable, check, "SUM", columnName);
+						postMap = postMaps.get(columnName);
 						globalList.add(postMap);
 					}
 
@@ -683,12 +740,16 @@ public class AggregateOperations {
 					@SuppressWarnings("rawtypes")
 					Iterator AvgIterator = SumMap.keySet().iterator();
 
+					// the average of a group is its exact sum, at the scale of the column, divided by its count
+					int sumScale = DataType.scales(newTable.columnDescriptionList)[columnNo];
 					while (AvgIterator.hasNext()) {
 						String key = AvgIterator.next().toString();
-						Double value = (Double.parseDouble(SumMap.get(key)
-								.toString()) / Integer.parseInt(countMap.get(
-										key).toString()));
-						avgMap.put(key, value);
+						String sum = SumMap.get(key).toString();
+						long unscaledSum = FieldParser.parseScaled(sum, 0, sum.length(), sumScale);
+						StringBuilder value = new StringBuilder();
+						FixedPoint.append(value, FixedPoint.divide(unscaledSum, sumScale,
+								Integer.parseInt(countMap.get(key).toString()), 0, AVERAGE_SCALE), AVERAGE_SCALE);
+						avgMap.put(key, value.toString());
 
 					}
 
@@ -803,7 +864,8 @@ public class AggregateOperations {
 						result = key + "|" + globalList.get(i).get(key.trim())
 								+ "|";
 					} else {
-						result = result + "|"
+						// result already ends with the separator of the previous aggregate
+						result = result
 								+ globalList.get(i).get(key.trim()) + "|";
 
 					}
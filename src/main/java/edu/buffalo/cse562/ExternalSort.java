@@ -5,13 +5,16 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
 
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Tuple;
+
 
 public class ExternalSort {
 	
@@ -22,7 +25,6 @@ public class ExternalSort {
 		//System.out.println(table.tableFilePath);
 
 		//System.out.println(table.tableDataDirectoryPath);
-		Collections.reverse(orderByList);
 		ArrayList<Table> chunkList = sorting(table,orderByList,orderByList.size());
 		return merging(chunkList, orderByList, orderByList.size());
 		//System.out.println(chunkList.size());
@@ -57,6 +59,10 @@ public class ExternalSort {
 			
 			// this arrayList stores the tuples and it is used to sort those tuples in each chunk
 			ArrayList<String> rows = new ArrayList<String>();
+			// these are the typed tuples of the rows above, each row is parsed once when it is read and compared only through them
+			ArrayList<Tuple> parsedRows = new ArrayList<Tuple>();
+			DataType[] types = DataType.of(table.columnDescriptionList);
+			int[] scales = DataType.scales(table.columnDescriptionList);
 			
 			// this count points to the number of tuples added to one particular chunk
 			int count=0;
@@ -77,13 +83,14 @@ public class ExternalSort {
 					if(count<= chunkSize){
 						//System.out.println("data added");
 						rows.add(tuple);
+						parsedRows.add(Tuple.parse(tuple, types, scales));
 					}
 					// in else because the chunk is full and the tuples are to be written on that particular chunk 
 					else{
 				//		System.out.println("else");
 						
 												
-						Collections.sort(rows,sortingComp);
+						rows = sortRows(rows, parsedRows, sortingComp);
 						
 						
 						newTable = new Table("temp_outside" + chunkCount+table.tableName,table.noOfColumns,new File(table.tableDataDirectoryPath+"\\"+"temp_outside" + chunkCount+table.tableName),table.tableDataDirectoryPath);
@@ -112,6 +119,8 @@ public class ExternalSort {
 						count=1;
 						rows = new ArrayList<String>();
 						rows.add(tuple);
+						parsedRows = new ArrayList<Tuple>();
+						parsedRows.add(Tuple.parse(tuple, types, scales));
 					}
 					
 				}
@@ -119,7 +128,7 @@ public class ExternalSort {
 				System.out.println(table.columnDescriptionList);
 				System.out.println(table.columnIndexMap);*/
 				//System.out.println("outside");
-				Collections.sort(rows,sortingComp);
+				rows = sortRows(rows, parsedRows, sortingComp);
 				
 				newTable = new Table("temp_outside" + chunkCount+table.tableName,table.noOfColumns,new File(table.tableDataDirectoryPath+"\\"+"temp_outside" + chunkCount+table.tableName),table.tableDataDirectoryPath);
 				newTable.columnDescriptionList = table.columnDescriptionList;
@@ -166,6 +175,18 @@ public class ExternalSort {
 			
 		}
 		
+		// this returns the rows of a chunk in the order of their typed tuples, equal rows keep their order
+		private static ArrayList<String> sortRows(ArrayList<String> rows, ArrayList<Tuple> parsedRows, MergingComparator comparator){
+			Integer[] order = new Integer[rows.size()];
+			for(int i = 0; i < order.length; i++)
+				order[i] = i;
+			Arrays.sort(order, (a, b) -> comparator.compare(parsedRows.get(a), parsedRows.get(b)));
+			ArrayList<String> sortedRows = new ArrayList<String>(rows.size());
+			for(int i : order)
+				sortedRows.add(rows.get(i));
+			return sortedRows;
+		}
+		
 		// Method to compare the tuples and flush in the finalChunk
 		// returns the number of table for which value was flushed in finalChunk
 	public static int mergeAndFlush(String tuple1,String tuple2,List orderByList,int size,Table finalChunk,BufferedWriter bwr) throws IOException{
@@ -399,33 +420,37 @@ public class ExternalSort {
 		if(chunkList.size()>0){
 		
 		MergingComparator comparator = new MergingComparator(chunkList.get(0), orderByList, size);
-		PriorityQueue<String> queueOfTuples = new PriorityQueue<String>(chunkList.size(), comparator);
+		// the queue holds the next row of every chunk with its typed tuple, each row is parsed once when it is read from its chunk
+		PriorityQueue<MergeEntry> queueOfTuples = new PriorityQueue<MergeEntry>(chunkList.size(), (e1, e2) -> comparator.compare(e1.parsedTuple, e2.parsedTuple));
+		DataType[] types = DataType.of(chunkList.get(0).columnDescriptionList);
+		int[] scales = DataType.scales(chunkList.get(0).columnDescriptionList);
 		
 		for(int i=0;i<chunkList.size();i++){
 			
-			queueOfTuples.add(chunkList.get(i).returnTuple()+"|"+i);
+			String tuple = chunkList.get(i).returnTuple();
+			if(tuple != null)
+				queueOfTuples.add(new MergeEntry(tuple, Tuple.parse(tuple, types, scales), i));
 			
 			
 		}
 		
 		
-		Table finalTable = new Table("final_table",chunkList.get(0).noOfColumns,new File(chunkList.get(0).tableDataDirectoryPath+"\\"+"final_table"),chunkList.get(0).tableDataDirectoryPath);
+		// the final table is named after the chunks so that the sorted tables of different tables do not overwrite each other
+		String finalTableName = "final_table" + chunkList.get(0).tableName;
+		Table finalTable = new Table(finalTableName,chunkList.get(0).noOfColumns,new File(chunkList.get(0).tableDataDirectoryPath+"\\"+finalTableName),chunkList.get(0).tableDataDirectoryPath);
 		
 		FileWriter fwr = new FileWriter(finalTable.tableFilePath);
 		BufferedWriter bwr = new BufferedWriter(fwr);
 		
 		while(queueOfTuples.size()>0){
-			//System.out.println(queueOfTuples.peek());
-			int lstIndexofPipe = queueOfTuples.peek().lastIndexOf("|");
-			//System.out.println(lstIndexofPipe);
-			//System.out.println(queueOfTuples.peek().length()-1);
-			int tableNo = Integer.parseInt(queueOfTuples.peek().substring(lstIndexofPipe+1, queueOfTuples.peek().length()));
-			bwr.write(queueOfTuples.poll().substring(0, lstIndexofPipe)+"\n");
+			MergeEntry entry = queueOfTuples.poll();
+			int tableNo = entry.chunkNo;
+			bwr.write(entry.tuple+"\n");
 			//bwr.newLine();
 			//bwr.flush();
 			String tuple = null;
 			if((tuple = chunkList.get(tableNo).returnTuple()) !=null){
-			queueOfTuples.add(tuple+"|"+tableNo);
+			queueOfTuples.add(new MergeEntry(tuple, Tuple.parse(tuple, types, scales), tableNo));
 			}
 		}
 		bwr.close();
@@ -443,13 +468,23 @@ public class ExternalSort {
 }
 
 
-class MergingComparator implements Comparator<String>{
-
-	// the values for compare attributes 
-	int index = 0;
-	boolean order = false;
-	String type = null;
+// this is the next row of a chunk being merged, with its typed tuple and the number of its chunk
+class MergeEntry{
 	
+	String tuple;
+	Tuple parsedTuple;
+	int chunkNo;
+	
+	MergeEntry(String tuple, Tuple parsedTuple, int chunkNo){
+		this.tuple = tuple;
+		this.parsedTuple = parsedTuple;
+		this.chunkNo = chunkNo;
+	}
+}
+
+
+class MergingComparator implements Comparator<Tuple>{
+
 	// Values denoting Table, orderByList and size of the list
 	Table table;
 	List orderByList;
@@ -460,37 +495,14 @@ class MergingComparator implements Comparator<String>{
 	boolean []orderArr = null;
 	String typeArr[] = null;
 	
-	// count for comparator
-	int orderArrCount = 0;
-	
 	public MergingComparator(Table table, List orderByList,int size) {
 		this.table = table;
 		this.orderByList = orderByList;
 		this.size = size;	
-		orderArrCount = orderByList.size()-1;
 		populateOrderingAttributes();
-		moveToNextOrdering();
 		
 	}
 	
-	// method returns true if next order clause is available
-	private boolean moveToNextOrdering(){
-		
-		if(orderArrCount >=0){
-			index =  indexArr[orderArrCount];
-			order = orderArr[orderArrCount];
-			type = typeArr[orderArrCount];
-			orderArrCount--;
-			return true;
-		}
-		else{
-			
-			return false;
-		}
-			
-	}
-	
-	
 	private void populateOrderingAttributes(){
 		
 		String  orderByArr[] = new String[size];
@@ -533,70 +545,13 @@ class MergingComparator implements Comparator<String>{
 	
 	
 	@Override
-	public int compare(String o1, String o2) {
-		String s1[] = o1.split("\\|");
-		String s2[] = o2.split("\\|");
-		
-		
-		if(type.equalsIgnoreCase("char")|| type.equalsIgnoreCase("VARCHAR")||type.equalsIgnoreCase("String")){
-		
-			if(s1[index].equals(s2[index])){
-					if(moveToNextOrdering()){
-						compare(o1, o2);
-					}
-					return 0;
-			}
-			
-			else {
-				int x =0;
-				if(order==false){
-					x = s1[index].compareTo(s2[index]); 
-					
-				}
-				else{
-					x = s2[index].compareTo(s1[index]);
-				}
-				return x;
-			}
-		
-		}
-		else if(type.equalsIgnoreCase("int")|| type.equalsIgnoreCase("decimal")){
-			
-			if(s1[index]==s2[index]){
-				if(moveToNextOrdering()){
-					compare(o1, o2);
-				}
-				return 0;
-			}
-			
-			else {
-				int x =0;
-				if(order==false){
-					
-					if(Double.parseDouble(s1[index])>Double.parseDouble(s2[index])){
-						x = 1;
-					}
-					else if(Double.parseDouble(s1[index])<Double.parseDouble(s2[index])){
-						x=-1;
-					}
-					else{
-						x=0;
-					}
-					
-				}
-				else{
-					if(Double.parseDouble(s1[index])>Double.parseDouble(s2[index])){
-						x = -1;
-					}
-					else if(Double.parseDouble(s1[index])<Double.parseDouble(s2[index])){
-						x=1;
-					}
-					else{
-						x=0;
-					}
-				}
-				
-				return x;
+	public int compare(Tuple t1, Tuple t2) {
+		// compare on the ordering attributes in the order of the order by list until they differ
+		for(int j = 0 ; j < indexArr.length ; ++j){
+			int x = t1.compareSlot(indexArr[j], t2, indexArr[j]);
+			if(x != 0){
+				// reverse the result in case of a descending order
+				return orderArr[j] ? -x : x;
 			}
 		}
 	
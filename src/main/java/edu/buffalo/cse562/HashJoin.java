@@ -3,8 +3,16 @@ package edu.buffalo.cse562;
 import java.util.HashMap;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.operations.CompositeKey;
+import edu.buffalo.cse562.operations.ParallelHashJoin;
+import edu.buffalo.cse562.util.FieldParser;
+import edu.buffalo.cse562.util.FixedPoint;
+
 public class HashJoin {
 
 	// this function is used to evaluate the hash join of the tables based on the joining attribute, the return type of the function is the joined table's corresponding Table object
@@ -38,8 +46,26 @@ public class HashJoin {
 		int joiningAttributeIndexTable1 = t1.columnIndexMap.get(t1Name + "." + joiningAttribute.toLowerCase());
 		int joiningAttributeIndexTable2 = t2.columnIndexMap.get(t2Name + "." + joiningAttribute.toLowerCase()); 
 		
-		// this HashMap< String, ArrayList<String> > is interpreted as follows, HashMap<joinAttribute, List of Strings that contain that attribute>
-		HashMap<String, ArrayList<String> > hashJoinTable = new HashMap<String, ArrayList<String>>();
+		// these are the column types of table1 and table2, each tuple is parsed once into typed values according to them
+		DataType[] table1Types = DataType.of(t1.columnDescriptionList);
+		DataType[] table2Types = DataType.of(t2.columnDescriptionList);
+		
+		// joins on INT and DATE columns use a hash table keyed by primitive longs that refers to the tuples by their position
+		if (isIntegral(table1Types[joiningAttributeIndexTable1]) && table1Types[joiningAttributeIndexTable1] == table2Types[joiningAttributeIndexTable2]) {
+			if(t1.tableTuples.size() > t2.tableTuples.size()){
+				integralJoin(joinedTable, t2, joiningAttributeIndexTable2, table2Types[joiningAttributeIndexTable2], t1, joiningAttributeIndexTable1, table1Types[joiningAttributeIndexTable1], false);
+			} else {
+				integralJoin(joinedTable, t1, joiningAttributeIndexTable1, table1Types[joiningAttributeIndexTable1], t2, joiningAttributeIndexTable2, table2Types[joiningAttributeIndexTable2], true);
+			}
+			return joinedTable;
+		}
+		
+		// this HashMap< Object, ArrayList<String> > is interpreted as follows, HashMap<typed joinAttribute value, List of Strings that contain that attribute>
+		HashMap<Object, ArrayList<String> > hashJoinTable = new HashMap<Object, ArrayList<String>>();
+		
+		// these give the typed value of the joining attribute of a tuple of table1 and table2 without parsing the rest of the tuple
+		Function<String, Object> table1Key = keyExtractor(table1Types, DataType.scales(t1.columnDescriptionList), joiningAttributeIndexTable1);
+		Function<String, Object> table2Key = keyExtractor(table2Types, DataType.scales(t2.columnDescriptionList), joiningAttributeIndexTable2);
 			
 		// if the size of Table1 is greater than the size of Table2 then we store the Table2 in the HashMap
 		if(t1.tableTuples.size() > t2.tableTuples.size()){
@@ -49,16 +75,15 @@ public class HashJoin {
 			// form the HashMap by scanning all the strings in t2
 			for(String tupleString : table2TupleList){
 				
-				// this array stores the different attribute values that form the tuple
-				String[] tupleComponents = tupleString.split("\\|");
-				
-				if(hashJoinTable.containsKey(tupleComponents[joiningAttributeIndexTable2]))
-					hashJoinTable.get(tupleComponents[joiningAttributeIndexTable2]).add(tupleString);
+				// extract the typed value of the joining attribute
+				Object key = table2Key.apply(tupleString);
+				if(hashJoinTable.containsKey(key))
+					hashJoinTable.get(key).add(tupleString);
 				else{
 					// make a new ArrayList of String objects which would hold the tuples that have same value for the key attribute
 					ArrayList<String> newTupleStringsList = new ArrayList<String>();
 					newTupleStringsList.add(tupleString);
-					hashJoinTable.put(tupleComponents[joiningAttributeIndexTable2], newTupleStringsList);
+					hashJoinTable.put(key, newTupleStringsList);
 				}
 			}
 				
@@ -67,14 +92,14 @@ public class HashJoin {
 			// probe the HashMap formed from table2's tuples with the tuples of table t1
 			for(String tupleString : table1TupleList){
 				
-				// this array stores the different attribute values that form the tuple
-				String[] tupleComponents = tupleString.split("\\|");
+				// extract only the joining attribute of the tuple
+				Object key = table1Key.apply(tupleString);
 					
 				// now probe the hash table to form the join
-				if( hashJoinTable.containsKey( tupleComponents[joiningAttributeIndexTable1] ) ){
+				if(hashJoinTable.containsKey(key)){
 					
 					// get the list of strings to join the tuple with
-					ArrayList<String> joiningTuples = hashJoinTable.get( tupleComponents[joiningAttributeIndexTable1] );
+					ArrayList<String> joiningTuples = hashJoinTable.get(key);
 					
 					// perform the join operation
 					for(String joinString : joiningTuples){
@@ -95,16 +120,15 @@ public class HashJoin {
 			// form the HashMap by scanning all the strings in t1
 			for(String tupleString : table1TupleList){
 				
-				// this array stores the different attribute values that form the tuple
-				String[] tupleComponents = tupleString.split("\\|");
-				
-				if(hashJoinTable.containsKey(tupleComponents[joiningAttributeIndexTable1]))
-					hashJoinTable.get(tupleComponents[joiningAttributeIndexTable1]).add(tupleString);
+				// extract the typed value of the joining attribute
+				Object key = table1Key.apply(tupleString);
+				if(hashJoinTable.containsKey(key))
+					hashJoinTable.get(key).add(tupleString);
 				else{
 					// make a new ArrayList of String objects which would hold the tuples that have same value for the key attribute
 					ArrayList<String> newTupleStringsList = new ArrayList<String>();
 					newTupleStringsList.add(tupleString);
-					hashJoinTable.put(tupleComponents[joiningAttributeIndexTable1], newTupleStringsList);
+					hashJoinTable.put(key, newTupleStringsList);
 				}
 			}
 				
@@ -113,14 +137,14 @@ public class HashJoin {
 			// probe the HashMap formed from table2's tuples with the tuples of table t1
 			for(String tupleString : table2TupleList){
 				
-				// this array stores the different attribute values that form the tuple
-				String[] tupleComponents = tupleString.split("\\|");
+				// extract only the joining attribute of the tuple
+				Object key = table2Key.apply(tupleString);
 					
 				// now probe the hash table to form the join
-				if( hashJoinTable.containsKey( tupleComponents[joiningAttributeIndexTable2] ) ){
+				if(hashJoinTable.containsKey(key)){
 					
 					// get the list of strings to join the tuple with
-					ArrayList<String> joiningTuples = hashJoinTable.get( tupleComponents[joiningAttributeIndexTable2] );
+					ArrayList<String> joiningTuples = hashJoinTable.get(key);
 					
 					// perform the join operation
 					for(String joinString : joiningTuples){
@@ -138,4 +162,172 @@ public class HashJoin {
 	
 	return joinedTable;
 	}
-}
\ No newline at end of file
+	
+	// this function evaluates the hash join of the tables on all the joining attributes they share, the joinCondition holds a name of a table in t1, a name of a table in t2 and an attribute for each of them
+	// the tuples are matched on a CompositeKey formed from the typed values of all the joining attributes, so no condition is left to filter the joined table afterwards
+	public static Table evaluateJoin(Table t1, Table t2, ArrayList<String> joinCondition) throws IOException {
+		
+		// a single joining attribute is handled by the join above
+		if(joinCondition.size() == 3)
+			return evaluateJoin(t1, t2, joinCondition.get(0), joinCondition.get(1), joinCondition.get(2));
+		
+		// this is the Table object corresponding to the table obtained by joining t1 and t2 on the joining attributes
+		Table joinedTable = new Table(t1.tableName+"|"+t2.tableName,t1.noOfColumns+t2.noOfColumns,null,t1.tableDataDirectoryPath);
+		
+		// form the column description list of the joined table by iterating over the column definition lists of t1 and t2
+		ArrayList<ColumnDefinition> joinedTableColumnDefinitionList = new ArrayList<ColumnDefinition>();
+		for(ColumnDefinition cd : t1.columnDescriptionList){
+			ColumnDefinition temp = new ColumnDefinition();
+			temp.setColumnName(cd.getColumnName());
+			temp.setColDataType(cd.getColDataType());
+			joinedTableColumnDefinitionList.add(temp);
+		}
+		for(ColumnDefinition cd : t2.columnDescriptionList){
+			ColumnDefinition temp = new ColumnDefinition();
+			temp.setColumnName(cd.getColumnName());
+			temp.setColDataType(cd.getColDataType());
+			joinedTableColumnDefinitionList.add(temp);
+		}
+		joinedTable.columnDescriptionList = joinedTableColumnDefinitionList;
+		
+		// populate the column index map of the joined table
+		joinedTable.populateColumnIndexMap();
+		
+		// get the indexes of the joining attributes in table1 and table2, the i-th attribute of one table is matched with the i-th attribute of the other one
+		int[] joiningAttributeIndexesTable1 = new int[joinCondition.size() / 3];
+		int[] joiningAttributeIndexesTable2 = new int[joinCondition.size() / 3];
+		for(int i = 0; i < joiningAttributeIndexesTable1.length; i++){
+			String joiningAttribute = joinCondition.get(3 * i + 2).toLowerCase();
+			joiningAttributeIndexesTable1[i] = t1.columnIndexMap.get(joinCondition.get(3 * i) + "." + joiningAttribute);
+			joiningAttributeIndexesTable2[i] = t2.columnIndexMap.get(joinCondition.get(3 * i + 1) + "." + joiningAttribute);
+		}
+		DataType[] table1Types = DataType.of(t1.columnDescriptionList);
+		DataType[] table2Types = DataType.of(t2.columnDescriptionList);
+		int[] table1Scales = DataType.scales(t1.columnDescriptionList);
+		int[] table2Scales = DataType.scales(t2.columnDescriptionList);
+		
+		// build the HashMap on the smaller table and probe it with the tuples of the other one
+		boolean buildFirst = t1.tableTuples.size() <= t2.tableTuples.size();
+		ArrayList<String> buildTupleList = buildFirst ? t1.tableTuples : t2.tableTuples;
+		ArrayList<String> probeTupleList = buildFirst ? t2.tableTuples : t1.tableTuples;
+		DataType[] buildTypes = buildFirst ? table1Types : table2Types;
+		DataType[] probeTypes = buildFirst ? table2Types : table1Types;
+		int[] buildScales = buildFirst ? table1Scales : table2Scales;
+		int[] probeScales = buildFirst ? table2Scales : table1Scales;
+		int[] buildIndexes = buildFirst ? joiningAttributeIndexesTable1 : joiningAttributeIndexesTable2;
+		int[] probeIndexes = buildFirst ? joiningAttributeIndexesTable2 : joiningAttributeIndexesTable1;
+		Function<String, CompositeKey> buildKeyExtractor = compositeKeyExtractor(buildTypes, buildScales, buildIndexes);
+		Function<String, CompositeKey> probeKeyExtractor = compositeKeyExtractor(probeTypes, probeScales, probeIndexes);
+		
+		HashMap<CompositeKey, ArrayList<String>> hashJoinTable = new HashMap<CompositeKey, ArrayList<String>>();
+		for(String tupleString : buildTupleList){
+			CompositeKey key = buildKeyExtractor.apply(tupleString);
+			ArrayList<String> tupleStringsList = hashJoinTable.get(key);
+			if(tupleStringsList == null){
+				tupleStringsList = new ArrayList<String>(1);
+				hashJoinTable.put(key, tupleStringsList);
+			}
+			tupleStringsList.add(tupleString);
+		}
+		
+		for(String tupleString : probeTupleList){
+			ArrayList<String> joiningTuples = hashJoinTable.get(probeKeyExtractor.apply(tupleString));
+			if(joiningTuples == null)
+				continue;
+			for(String joinString : joiningTuples){
+				// this is the code that is implemented for pipe separation, the tuple of t1 always comes first
+				String table1String = buildFirst ? joinString : tupleString;
+				String table2String = buildFirst ? tupleString : joinString;
+				if(table1String.charAt(table1String.length() - 1) == '|'){
+					joinedTable.tableTuples.add(table1String + table2String);
+				} else {
+					joinedTable.tableTuples.add(table1String + "|" + table2String);
+				}
+			}
+		}
+		return joinedTable;
+	}
+	
+	// this joins the tuples of the build table and the probe table on an INT or DATE attribute through a ParallelHashJoin, the buildFirst flag tells whether the build tuple comes first in the joined tuples
+	private static void integralJoin(Table joinedTable, Table buildTable, int buildIndex, DataType buildType, Table probeTable, int probeIndex, DataType probeType, boolean buildFirst) {
+		
+		// extract the key of every tuple of both tables, the tuples are independent so this is spread over all the cores
+		ArrayList<String> buildTupleList = buildTable.tableTuples;
+		ArrayList<String> probeTupleList = probeTable.tableTuples;
+		long[] buildKeys = new long[buildTupleList.size()];
+		Arrays.parallelSetAll(buildKeys, row -> keyOf(buildTupleList.get(row), buildIndex, buildType));
+		long[] probeKeys = new long[probeTupleList.size()];
+		Arrays.parallelSetAll(probeKeys, row -> keyOf(probeTupleList.get(row), probeIndex, probeType));
+		
+		// join the keys on all the cores, the matching rows come out ordered by probe row and then by build row
+		ParallelHashJoin.Matches matches = ParallelHashJoin.join(buildKeys, probeKeys);
+		int[] probeRows = matches.getProbeRows();
+		int[] buildRows = matches.getBuildRows();
+		
+		// form the joined tuples in parallel as well and append them in the order of the matches
+		String[] joinedTuples = new String[matches.size()];
+		Arrays.parallelSetAll(joinedTuples, i -> {
+			String tupleString = probeTupleList.get(probeRows[i]);
+			String joinString = buildTupleList.get(buildRows[i]);
+			// this is the code that is implemented for pipe separation
+			String separator = tupleString.charAt(tupleString.length() - 1) == '|' ? "" : "|";
+			return buildFirst ? joinString + separator + tupleString : tupleString + separator + joinString;
+		});
+		joinedTable.tableTuples.addAll(Arrays.asList(joinedTuples));
+	}
+	
+	// this tells whether values of a type are held as longs, so that they can key a LongJoinHashTable
+	static boolean isIntegral(DataType type) {
+		return type == DataType.INT || type == DataType.DATE;
+	}
+	
+	// this parses only the joining attribute of a tuple into its long key, without splitting the rest of the tuple
+	static long keyOf(String tupleString, int index, DataType type) {
+		int start = 0;
+		for(int i = 0; i < index; i++){
+			start = tupleString.indexOf('|', start) + 1;
+		}
+		int end = tupleString.indexOf('|', start);
+		if(end < 0){
+			end = tupleString.length();
+		}
+		return type == DataType.DATE ? FieldParser.parseEpochDay(tupleString, start, end) : FieldParser.parseLong(tupleString, start, end);
+	}
+	
+	// this returns the function that gives the typed value of the joining attribute of a tuple, the same value Tuple.getKey gives, parsing only that attribute with its declared decimal scale
+	static Function<String, Object> keyExtractor(DataType[] types, int[] scales, int joiningAttributeIndex) {
+		DataType type = types[joiningAttributeIndex];
+		if(isIntegral(type))
+			return tupleString -> keyOf(tupleString, joiningAttributeIndex, type);
+		if(type == DataType.STRING)
+			return tupleString -> fieldOf(tupleString, joiningAttributeIndex);
+		int scale = scales[joiningAttributeIndex];
+		return tupleString -> {
+			String field = fieldOf(tupleString, joiningAttributeIndex);
+			return FixedPoint.toDouble(FieldParser.parseScaled(field, 0, field.length(), scale), scale);
+		};
+	}
+	
+	// this returns the function that gives the CompositeKey of the joining attributes of a tuple, parsing only those attributes with their declared decimal scales
+	static Function<String, CompositeKey> compositeKeyExtractor(DataType[] types, int[] scales, int[] joiningAttributeIndexes) {
+		ArrayList<Function<String, Object>> extractors = new ArrayList<Function<String, Object>>();
+		for(int joiningAttributeIndex : joiningAttributeIndexes)
+			extractors.add(keyExtractor(types, scales, joiningAttributeIndex));
+		return tupleString -> {
+			Object[] values = new Object[extractors.size()];
+			for(int i = 0; i < values.length; i++)
+				values[i] = extractors.get(i).apply(tupleString);
+			return CompositeKey.of(values);
+		};
+	}
+	
+	// this returns the text of an attribute of a tuple without splitting the rest of the tuple
+	static String fieldOf(String tupleString, int index) {
+		int start = 0;
+		for(int i = 0; i < index; i++){
+			start = tupleString.indexOf('|', start) + 1;
+		}
+		int end = tupleString.indexOf('|', start);
+		return end < 0 ? tupleString.substring(start) : tupleString.substring(start, end);
+	}
+}
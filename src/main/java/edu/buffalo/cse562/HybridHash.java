@@ -3,13 +3,17 @@ package edu.buffalo.cse562;
 import java.io.File;
 import java.util.HashMap;
 import java.io.FileWriter;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.io.BufferedReader;
+import java.util.Arrays;
+import java.util.function.Function;
 import java.io.BufferedWriter;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.operations.GraceHashJoin;
+import edu.buffalo.cse562.operations.ParallelHashJoin;
+
 public class HybridHash {
 
 	// this function is used to evaluate the hash join of the tables based on
@@ -49,14 +53,29 @@ public class HybridHash {
 		int joiningAttributeIndexTable1 = t1.columnIndexMap.get(t1Name + "." + joiningAttribute);
 		int joiningAttributeIndexTable2 = t2.columnIndexMap.get(t2Name + "." + joiningAttribute); 
 		
+		// these are the column types of table1 and table2, each tuple is parsed once into typed values according to them
+		DataType[] table1Types = DataType.of(t1.columnDescriptionList);
+		DataType[] table2Types = DataType.of(t2.columnDescriptionList);
+		
+		// these give the typed value of the joining attribute of a tuple of table1 and table2 without parsing the rest of the tuple
+		Function<String, Object> table1Key = HashJoin.keyExtractor(table1Types, DataType.scales(t1.columnDescriptionList), joiningAttributeIndexTable1);
+		Function<String, Object> table2Key = HashJoin.keyExtractor(table2Types, DataType.scales(t2.columnDescriptionList), joiningAttributeIndexTable2);
+		
 		// if the swap directory is a null value in that case everything needs to be handled in memory
 		if(swapDirectory == null){
 			// this is the file pointer for table1
 			File tableFile1 = t1.tableFilePath;
 			// this is the file pointer for table2
 			File tableFile2 = t2.tableFilePath;
-			// this HashMap< String, ArrayList<String> > is interpreted as follows, HashMap<joinAttribute, List of Strings that contain that attribute>
-			HashMap<String, ArrayList<String> > hashJoinTable = new HashMap<String, ArrayList<String>>();
+			
+			// if the joining attribute is an INT or a DATE in both tables, both tables are read and joined on all the cores
+			if(HashJoin.isIntegral(table1Types[joiningAttributeIndexTable1]) && table1Types[joiningAttributeIndexTable1] == table2Types[joiningAttributeIndexTable2]){
+				integralJoin(joinedTable, t1, joiningAttributeIndexTable1, t2, joiningAttributeIndexTable2, table1Types[joiningAttributeIndexTable1], tableFile1.length() > tableFile2.length());
+				return joinedTable;
+			}
+			
+			// this HashMap< Object, ArrayList<String> > is interpreted as follows, HashMap<typed joinAttribute value, List of Strings that contain that attribute>
+			HashMap<Object, ArrayList<String> > hashJoinTable = new HashMap<Object, ArrayList<String>>();
 			
 			// if the size of the first table is greater than the size of the other table then we store the other table in the HashMap
 			if(tableFile1.length() > tableFile2.length()){
@@ -64,15 +83,15 @@ public class HybridHash {
 				// scan the strings in the tableFile2 and put them into HashMap
 				String tupleString;
 				while((tupleString = t2.returnTuple()) != null){
-					// this string array stores different components of a tuple
-					String[] tupleComponents = tupleString.split("\\|");
-					if(hashJoinTable.containsKey(tupleComponents[joiningAttributeIndexTable2]))
-						hashJoinTable.get(tupleComponents[joiningAttributeIndexTable2]).add(tupleString);
+					// extract the typed value of the joining attribute
+					Object key = table2Key.apply(tupleString);
+					if(hashJoinTable.containsKey(key))
+						hashJoinTable.get(key).add(tupleString);
 					else{
 						// make a new ArrayList of String objects which would hold the tuples that have same value for the key attribute
 						ArrayList<String> newTupleStringsList = new ArrayList<String>();
 						newTupleStringsList.add(tupleString);
-						hashJoinTable.put(tupleComponents[joiningAttributeIndexTable2], newTupleStringsList);
+						hashJoinTable.put(key, newTupleStringsList);
 					}
 				}
 				
@@ -85,13 +104,13 @@ public class HybridHash {
 				
 				// form the join by reading table1 tuple by tuple and probing the HashMap that corresponds to Table2
 				while((tupleString = t1.returnTuple()) != null){
-					// this string array stores different components of a tuple
-					String[] tupleComponents = tupleString.split("\\|");
+					// extract only the joining attribute of the tuple
+					Object key = table1Key.apply(tupleString);
 					
 					// now probe the hash table to form the join
-					if(hashJoinTable.containsKey(tupleComponents[joiningAttributeIndexTable1])){
+					if(hashJoinTable.containsKey(key)){
 						// get the list of strings to join the tuple with
-						ArrayList<String> joiningTuples = hashJoinTable.get(tupleComponents[joiningAttributeIndexTable1]);
+						ArrayList<String> joiningTuples = hashJoinTable.get(key);
 						// perform the join operation
 						for(String joinString : joiningTuples){
 							// increment the count because you have found a new string to join and write to the disk
@@ -135,15 +154,15 @@ public class HybridHash {
 				// scan the strings in the tableFile1 and put them into HashMap as tableFile1 is smaller in length
 				String tupleString;
 				while((tupleString = t1.returnTuple()) != null){
-					// this string array stores different components of a tuple
-					String[] tupleComponents = tupleString.split("\\|");
-					if(hashJoinTable.containsKey(tupleComponents[joiningAttributeIndexTable1]))
-						hashJoinTable.get(tupleComponents[joiningAttributeIndexTable1]).add(tupleString);
+					// extract the typed value of the joining attribute
+					Object key = table1Key.apply(tupleString);
+					if(hashJoinTable.containsKey(key))
+						hashJoinTable.get(key).add(tupleString);
 					else{
 						// make a new ArrayList of String objects which would hold the tuples that have same value for the key attribute
 						ArrayList<String> newTupleStringsList = new ArrayList<String>();
 						newTupleStringsList.add(tupleString);
-						hashJoinTable.put(tupleComponents[joiningAttributeIndexTable1], newTupleStringsList);
+						hashJoinTable.put(key, newTupleStringsList);
 					}
 				}
 				
@@ -156,14 +175,14 @@ public class HybridHash {
 				
 				// form the join by reading table2 tuple by tuple and probing the HashMap that corresponds to Table1
 				while((tupleString = t2.returnTuple()) != null){
-					// this string array stores different components of a tuple
-					String[] tupleComponents = tupleString.split("\\|");
+					// extract only the joining attribute of the tuple
+					Object key = table2Key.apply(tupleString);
 					
 					// now probe the hash table to form the join
-					if(hashJoinTable.containsKey(tupleComponents[joiningAttributeIndexTable2])){
+					if(hashJoinTable.containsKey(key)){
 						
 						// get the list of strings to join the tuple with
-						ArrayList<String> joiningTuples = hashJoinTable.get(tupleComponents[joiningAttributeIndexTable2]);
+						ArrayList<String> joiningTuples = hashJoinTable.get(key);
 						// perform the join operation
 						for(String joinString : joiningTuples){
 							// increment the count because you have found a new string to join and write to the disk
@@ -202,219 +221,67 @@ public class HybridHash {
 				bwr.close();
 			}
 		} else{
-			// as the swap parameter is present we divide the data of two tables in buckets which will be placed in the swap directory
-			
-			// this variable stores the total number of buckets in which the data of the tables will be divided
-			int nBuckets = 35;
-			
-			// divide the data of table t1 into 50 buckets based on java's HashCode function
-			// this is the ArrayList of file objects corresponding to table1's buckets
-			ArrayList<File> table1BucketsFileObjects = new ArrayList<File>();
-			for(int i = 0 ; i < nBuckets ; ++i){
-				File newBucket = new File(swapDirectory + System.getProperty("file.separator") + t1.tableName + "bucket" + Integer.toString(i) + ".tbl");
-				table1BucketsFileObjects.add(newBucket);
-				if(!newBucket.exists())
-					newBucket.createNewFile();
-			}
-			
-			// this is the array list of string builder objects for each of table1's buckets
-			ArrayList<StringBuilder> table1StringBuilders = new ArrayList<StringBuilder>();
-			for(int i = 0 ; i < nBuckets ; ++i)
-				table1StringBuilders.add(new StringBuilder(""));
-			
-			String tuple1;
-			while((tuple1 = t1.returnTuple()) != null){
-				String[] splitTuple = tuple1.split("\\|");
-				// this is the bucket number to which we need to place the tuple
-				int tupleHashCode = splitTuple[joiningAttributeIndexTable1].hashCode();
-				// if the hash code is negative then multiply it by -1
-				if(tupleHashCode < 0)
-					tupleHashCode = tupleHashCode * -1;
-				// this is the bucket number to which we need to place the tuple
-				int bucketNumber = (tupleHashCode)%nBuckets;
-				File bucketPointer = table1BucketsFileObjects.get(bucketNumber);
-				FileWriter fwr = new FileWriter(bucketPointer, true);
-				BufferedWriter bwr = new BufferedWriter(fwr);
-				if(table1StringBuilders.get(bucketNumber).toString().length() >= 100000000){
-					bwr.write(table1StringBuilders.get(bucketNumber).append(tuple1 + "\n").toString());
-					table1StringBuilders.set(bucketNumber, new StringBuilder(""));
-				}
-				else
-					table1StringBuilders.get(bucketNumber).append(tuple1 + "\n");
-				
-				bwr.close();
-			}
-			
-			for(int i = 0 ; i < table1StringBuilders.size() ; ++i){
-				File bucketPointer = table1BucketsFileObjects.get(i);
-				FileWriter fwr = new FileWriter(bucketPointer, true);
-				BufferedWriter bwr = new BufferedWriter(fwr);
-				bwr.write(table1StringBuilders.get(i).toString());
-				bwr.close();
-			}
-			
-			// divide the data of table t2 into 31 buckets based on java's HashCode function
-			// this is the ArrayList of file objects corresponding to table2's buckets
-			ArrayList<File> table2BucketsFileObjects = new ArrayList<File>();
-			for(int i = 0 ; i < nBuckets ; ++i){
-				File newBucket = new File(swapDirectory + System.getProperty("file.separator") + t2.tableName+ "bucket" + Integer.toString(i) + ".tbl");
-				table2BucketsFileObjects.add(newBucket);
-				if(!newBucket.exists())
-					newBucket.createNewFile();
-			}
+			// as the swap parameter is present the join is evaluated within a memory budget, the smaller table is the build side and the partitions of it that do not fit in memory are spilled to the swap directory
+			// the GraceHashJoin drops the tuples of the larger table whose joining attribute is not in the Bloom filter of the smaller one before they are partitioned
 			
-			// this is the array list of string builder objects for each of table1's buckets
-			ArrayList<StringBuilder> table2StringBuilders = new ArrayList<StringBuilder>();
-			for(int i = 0 ; i < nBuckets ; ++i)
-				table2StringBuilders.add(new StringBuilder(""));
-			
-			String tuple2;
-			while((tuple2 = t2.returnTuple()) != null){
-				String[] splitTuple = tuple2.split("\\|");
-				// this is the bucket number to which we need to place the tuple
-				int tupleHashCode = splitTuple[joiningAttributeIndexTable2].hashCode();
-				// if the tuple hashcode is negative then multiply it by -1
-				if(tupleHashCode < 0)
-					tupleHashCode = -1*tupleHashCode;
-				int bucketNumber = (tupleHashCode)%nBuckets;
-				File bucketPointer = table2BucketsFileObjects.get(bucketNumber);
-				FileWriter fwr = new FileWriter(bucketPointer, true);
-				BufferedWriter bwr = new BufferedWriter(fwr);
-				if(table2StringBuilders.get(bucketNumber).toString().length() >= 100000000){
-					bwr.write(table2StringBuilders.get(bucketNumber).append(tuple2 + "\n").toString());
-					table2StringBuilders.set(bucketNumber, new StringBuilder(""));
+			// allocate a single BufferedWriter object to write all the joined tuples to the joinedTable file
+			BufferedWriter bwr = new BufferedWriter(new FileWriter(joinedTable.tableFilePath, true));
+			try{
+				if(t1.tableFilePath.length() > t2.tableFilePath.length()){
+					GraceHashJoin join = new GraceHashJoin(swapDirectory, GraceHashJoin.defaultMemoryBudget(), table2Key, table1Key, (buildRow, probeRow) -> writeJoined(bwr, probeRow, buildRow));
+					join.join(() -> t2.returnTuple(), t2.tableFilePath.length(), () -> t1.returnTuple());
+				} else{
+					GraceHashJoin join = new GraceHashJoin(swapDirectory, GraceHashJoin.defaultMemoryBudget(), table1Key, table2Key, (buildRow, probeRow) -> writeJoined(bwr, buildRow, probeRow));
+					join.join(() -> t1.returnTuple(), t1.tableFilePath.length(), () -> t2.returnTuple());
 				}
-				else
-					table2StringBuilders.get(bucketNumber).append(tuple2 + "\n");
-				
-				bwr.close();
-			}
-			
-			for(int i = 0 ; i < table2StringBuilders.size() ; ++i){
-				File bucketPointer = table2BucketsFileObjects.get(i);
-				FileWriter fwr = new FileWriter(bucketPointer, true);
-				BufferedWriter bwr = new BufferedWriter(fwr);
-				bwr.write(table2StringBuilders.get(i).toString());
+			} finally{
 				bwr.close();
 			}
-			
-			// now evaluate the hash join of the the buckets to form the complete join of the tables
-			// To evaluate the hybrid hash join take a bucket by bucket join and write it to the joinedTable file
-			for(int i = 0 ; i < nBuckets ; ++i){
-				// form the two file pointers
-				File bucketT1 = table1BucketsFileObjects.get(i);
-				File bucketT2 = table2BucketsFileObjects.get(i);
-				
-				// if the size of bucketT2 is less than the size of bucketT1, then we build a HashMap out of bucketT2
-				if(bucketT1.length() > bucketT2.length()){
-					
-					// this HashMap<String, ArrayList<String>> stores the key attribute and the list of strings that contain that key attribute
-					HashMap<String, ArrayList<String> > bucketHashJoin = new HashMap<String, ArrayList<String>>();
-					// allocate a BufferedReader object for the bucketT2 to form the HashMap
-					BufferedReader bucketBR = new BufferedReader(new FileReader(bucketT2));
-					String bucketString;
-					
-					while((bucketString = bucketBR.readLine()) != null){
-						// split the bucket string to get the joining attribute's value
-						String[] bucketStringSplit = bucketString.split("\\|");
-						
-						if(bucketHashJoin.containsKey(bucketStringSplit[joiningAttributeIndexTable2])){
-							bucketHashJoin.get(bucketStringSplit[joiningAttributeIndexTable2]).add(bucketString);
-						}else{
-							// form a new array list which will consist of all the strings that contain the key
-							ArrayList<String> newList = new ArrayList<String>();
-							newList.add(bucketString);
-							bucketHashJoin.put(bucketStringSplit[joiningAttributeIndexTable2], newList);
-						}
-					}
-					
-					bucketBR.close();
-					
-					// now probe the HashMap corresponding to bucketT2 with the tuples from bucketT1
-					BufferedReader brBucketT1 = new BufferedReader(new FileReader(bucketT1));
-					while((bucketString = brBucketT1.readLine()) != null){
-						// split the bucket string to get the joining attribute's value
-						String[] bucketStringSplit = bucketString.split("\\|");
-						
-						if(bucketHashJoin.containsKey(bucketStringSplit[joiningAttributeIndexTable1])){
-							// this is the list of strings with which to join the bucketString
-							ArrayList<String> joinList = bucketHashJoin.get(bucketStringSplit[joiningAttributeIndexTable1]);
-							// this is the BufferedWriter object for writing to the joinedTable file
-							BufferedWriter tempBW = new BufferedWriter(new FileWriter(joinedTable.tableFilePath, true));
-							
-							// this is the logic to write a '|' separated string
-							for(String joinString : joinList){
-								
-								if(joinString.charAt(joinString.length() - 1) == '|')
-									tempBW.write(bucketString + joinString + "\n");
-								else
-									tempBW.write(bucketString + "|" + joinString + "\n");
-							}
-							
-							// close the BufferedWriter
-							tempBW.close();
-						}
-					}
-					
-				}else{
-
-					
-					// this HashMap<String, ArrayList<String>> stores the key attribute and the list of strings that contain that key attribute
-					HashMap<String, ArrayList<String> > bucketHashJoin = new HashMap<String, ArrayList<String>>();
-					// allocate a BufferedReader object for the bucketT1 to form the HashMap
-					BufferedReader bucketBR = new BufferedReader(new FileReader(bucketT1));
-					String bucketString;
-					
-					while((bucketString = bucketBR.readLine()) != null){
-						// split the bucket string to get the joining attribute's value
-						String[] bucketStringSplit = bucketString.split("\\|");
-						
-						if(bucketHashJoin.containsKey(bucketStringSplit[joiningAttributeIndexTable1])){
-							bucketHashJoin.get(bucketStringSplit[joiningAttributeIndexTable1]).add(bucketString);
-						}else{
-							// form a new array list which will consist of all the strings that contain the key
-							ArrayList<String> newList = new ArrayList<String>();
-							newList.add(bucketString);
-							bucketHashJoin.put(bucketStringSplit[joiningAttributeIndexTable1], newList);
-						}
-					}
-					
-					bucketBR.close();
-					
-					// now probe the HashMap corresponding to bucketT1 with the tuples from bucketT2
-					BufferedReader brBucketT2 = new BufferedReader(new FileReader(bucketT2));
-					while((bucketString = brBucketT2.readLine()) != null){
-						// split the bucket string to get the joining attribute's value
-						String[] bucketStringSplit = bucketString.split("\\|");
-						
-						if(bucketHashJoin.containsKey(bucketStringSplit[joiningAttributeIndexTable2])){
-							// this is the list of strings with which to join the bucketString
-							ArrayList<String> joinList = bucketHashJoin.get(bucketStringSplit[joiningAttributeIndexTable2]);
-							// this is the BufferedWriter object for writing to the joinedTable file
-							BufferedWriter tempBW = new BufferedWriter(new FileWriter(joinedTable.tableFilePath, true));
-							
-							for(String joinString : joinList){
-								if(joinString.charAt(joinString.length() - 1) == '|')
-									tempBW.write(joinString + bucketString + "\n");
-								else
-									tempBW.write(joinString + "|" + bucketString + "\n");
-							}
-							
-							// close the BufferedWriter
-							tempBW.close();
-						}
-					}
-				}
-			}
-			
-			// delete all the bucket objects that were formed previously, this is done to reduce the clutter
-			for(File bucketObject : table1BucketsFileObjects)
-				bucketObject.delete();
-			for(File bucketObject : table2BucketsFileObjects)
-				bucketObject.delete();
 		}
 		
 		// return the joined table formed
 		return joinedTable;
 	}
+	
+	// this joins table1 and table2 in memory on an INT or DATE attribute through a ParallelHashJoin, building on table2 if buildTable2 is set and on table1 otherwise
+	private static void integralJoin(Table joinedTable, Table t1, int joiningAttributeIndexTable1, Table t2, int joiningAttributeIndexTable2, DataType type, boolean buildTable2) throws IOException {
+		
+		// read the tuples of both tables and extract the key of every tuple on all the cores
+		ArrayList<String> table1Tuples = readTuples(t1);
+		ArrayList<String> table2Tuples = readTuples(t2);
+		long[] table1Keys = new long[table1Tuples.size()];
+		Arrays.parallelSetAll(table1Keys, row -> HashJoin.keyOf(table1Tuples.get(row), joiningAttributeIndexTable1, type));
+		long[] table2Keys = new long[table2Tuples.size()];
+		Arrays.parallelSetAll(table2Keys, row -> HashJoin.keyOf(table2Tuples.get(row), joiningAttributeIndexTable2, type));
+		
+		// the matches come out in the order in which the probe table would have been read tuple by tuple
+		ParallelHashJoin.Matches matches = buildTable2 ? ParallelHashJoin.join(table2Keys, table1Keys) : ParallelHashJoin.join(table1Keys, table2Keys);
+		int[] table1Rows = buildTable2 ? matches.getProbeRows() : matches.getBuildRows();
+		int[] table2Rows = buildTable2 ? matches.getBuildRows() : matches.getProbeRows();
+		
+		// write the joined tuples to the joinedTable file, the tuple of table1 always comes first
+		BufferedWriter bwr = new BufferedWriter(new FileWriter(joinedTable.tableFilePath, true));
+		for(int i = 0; i < matches.size(); ++i)
+			writeJoined(bwr, table1Tuples.get(table1Rows[i]), table2Tuples.get(table2Rows[i]));
+		bwr.close();
+	}
+	
+	// this writes the tuple obtained by joining a tuple of table1 with a tuple of table2 as a line of the joined table
+	private static void writeJoined(BufferedWriter bwr, String table1String, String table2String) throws IOException {
+		bwr.write(table1String);
+		// this is the code that is implemented for pipe separation
+		if(table1String.charAt(table1String.length() - 1) != '|')
+			bwr.write('|');
+		bwr.write(table2String);
+		bwr.write('\n');
+	}
+	
+	// this reads all the remaining tuples of a table into a list
+	private static ArrayList<String> readTuples(Table table) throws IOException {
+		ArrayList<String> tuples = new ArrayList<String>();
+		String tupleString;
+		while((tupleString = table.returnTuple()) != null)
+			tuples.add(tupleString);
+		return tuples;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package edu.buffalo.cse562;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import jdbm.PrimaryTreeMap;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import net.sf.jsqlparser.statement.create.table.Index;
+
+import edu.buffalo.cse562.operations.IndexNestedLoopJoin;
+
+public class IndexJoin {
+
+	// this holds the names of the tables whose tuples were inserted or deleted after their indexes were built, their B-trees no longer match the tables and cannot be probed
+	private static final HashSet<String> modifiedTables = new HashSet<String>();
+
+	// this is called when tuples are inserted in or deleted from a table without updating its indexes
+	public static void tableModified(String tableName) {
+		modifiedTables.add(tableName);
+	}
+
+	// this function evaluates the join of the tables by probing the B-tree of one of them with each tuple of the other one, probeT2 tells whether t2 is the indexed table
+	// it returns null when the indexed table has no B-tree keyed on the joining attribute alone, or when the other table is too large for probing to beat a hash join
+	public static Table evaluateJoin(Table t1, Table t2, String t1Name, String t2Name, String joiningAttribute, boolean probeT2) throws IOException {
+
+		// these are the table whose tuples are iterated over and the table whose B-tree is probed
+		Table outerTable = probeT2 ? t1 : t2;
+		Table innerTable = probeT2 ? t2 : t1;
+		String outerName = probeT2 ? t1Name : t2Name;
+		String innerName = probeT2 ? t2Name : t1Name;
+
+		String indexKey = indexKeyOn(innerTable, innerName, joiningAttribute);
+		if(indexKey == null || !IndexNestedLoopJoin.isCheaper(outerTable.tableTuples.size(), innerTable.tableTuples.size()))
+			return null;
+		PrimaryTreeMap<String, ArrayList<String>> bTree = Main.tablesNameAndBTreeMap.get(innerName).get(indexKey);
+		if(bTree == null)
+			return null;
+		// the keys of a primary key B-tree have a '|' after every column, the keys of an index B-tree are the bare values
+		String keySuffix = indexKey.endsWith("|") ? "|" : "";
+
+		// this is the Table object corresponding to the table obtained by joining t1 and t2 on the joining attribute
+		Table joinedTable = new Table(t1.tableName+"|"+t2.tableName,t1.noOfColumns+t2.noOfColumns,null,t1.tableDataDirectoryPath);
+
+		// form the column description list of the joined table by iterating over the column definition lists of t1 and t2
+		ArrayList<ColumnDefinition> joinedTableColumnDefinitionList = new ArrayList<ColumnDefinition>();
+		for(ColumnDefinition cd : t1.columnDescriptionList){
+			ColumnDefinition temp = new ColumnDefinition();
+			temp.setColumnName(cd.getColumnName());
+			temp.setColDataType(cd.getColDataType());
+			joinedTableColumnDefinitionList.add(temp);
+		}
+		for(ColumnDefinition cd : t2.columnDescriptionList){
+			ColumnDefinition temp = new ColumnDefinition();
+			temp.setColumnName(cd.getColumnName());
+			temp.setColDataType(cd.getColDataType());
+			joinedTableColumnDefinitionList.add(temp);
+		}
+		joinedTable.columnDescriptionList = joinedTableColumnDefinitionList;
+
+		// populate the column index map of the joined table
+		joinedTable.populateColumnIndexMap();
+
+		// probe the B-tree with the joining attribute of every tuple of the outer table, the tuple of t1 always comes first in a joined tuple
+		int outerIndex = outerTable.columnIndexMap.get(outerName + "." + joiningAttribute);
+		Iterator<String> outerTuples = outerTable.tableTuples.iterator();
+		ArrayList<String> joinedTuples = joinedTable.tableTuples;
+		IndexNestedLoopJoin.join(() -> outerTuples.hasNext() ? outerTuples.next() : null, tupleString -> fieldOf(tupleString, outerIndex) + keySuffix, bTree, (outerString, innerString) -> {
+			String table1String = probeT2 ? outerString : innerString;
+			String table2String = probeT2 ? innerString : outerString;
+			// this is the code that is implemented for pipe separation
+			if(table1String.charAt(table1String.length() - 1) == '|')
+				joinedTuples.add(table1String + table2String);
+			else
+				joinedTuples.add(table1String + "|" + table2String);
+		});
+		return joinedTable;
+	}
+
+	// this tells whether a table that is joined without any filtering has a B-tree keyed on the joining attribute alone
+	public static boolean hasIndexOn(Table table, String tableName, String joiningAttribute) {
+		return indexKeyOn(table, tableName, joiningAttribute) != null;
+	}
+
+	// this returns the name of the B-tree of a table that is keyed on the joining attribute alone, either a single column primary key or an index on that column, and null if there is none
+	private static String indexKeyOn(Table table, String tableName, String joiningAttribute) {
+		// the B-trees hold the tuples of the base table as it was loaded, so they cannot stand in for a joined, aliased or modified table
+		if(!table.tableName.equals(tableName) || modifiedTables.contains(tableName) || Main.tablesNameAndIndexesMap.get(tableName) == null || Main.tablesNameAndBTreeMap.get(tableName) == null)
+			return null;
+		for(Object ob : Main.tablesNameAndIndexesMap.get(tableName)){
+			Index indexObject = (Index) ob;
+			List indexColumns = indexObject.getColumnsNames();
+			if(indexColumns.size() != 1 || !indexColumns.get(0).toString().equalsIgnoreCase(joiningAttribute))
+				continue;
+			if(indexObject.getType().equals("PRIMARY KEY"))
+				return tableName + "." + indexColumns.get(0).toString() + "|";
+			if(indexObject.getType().equals("INDEX"))
+				return tableName + "." + indexObject.getName() + ".indexkey";
+		}
+		return null;
+	}
+
+	// this returns the text of an attribute of a tuple without splitting the rest of the tuple
+	private static String fieldOf(String tupleString, int index) {
+		int start = 0;
+		for(int i = 0; i < index; i++)
+			start = tupleString.indexOf('|', start) + 1;
+		int end = tupleString.indexOf('|', start);
+		return end < 0 ? tupleString.substring(start) : tupleString.substring(start, end);
+	}
+}
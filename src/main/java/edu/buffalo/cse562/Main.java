@@ -2,6 +2,12 @@ package edu.buffalo.cse562;
 
 import edu.buffalo.cse562.model.Table;
 import edu.buffalo.cse562.service.QueryExecutionService;
+import edu.buffalo.cse562.storage.ColumnarTableWriter;
+import edu.buffalo.cse562.storage.StatisticsCatalog;
+import edu.buffalo.cse562.storage.ZoneMap;
+import edu.buffalo.cse562.storage.ParallelTableLoader;
+import edu.buffalo.cse562.util.DateUtils;
+import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.create.table.CreateTable;
@@ -12,12 +18,14 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Main entry point for the database query parser application.
  */
 public class Main {
     private static QueryExecutionService queryService;
+    private static File indexDir;
 
     public static void main(String[] args) {
         try {
@@ -29,6 +37,8 @@ public class Main {
             for (int i = 0; i < args.length; i++) {
                 if (args[i].equals("--data")) {
                     dataDir = new File(args[++i]);
+                } else if (args[i].equals("--index")) {
+                    indexDir = new File(args[++i]);
                 }
             }
 
@@ -54,11 +64,15 @@ public class Main {
         try (FileReader reader = new FileReader(sqlFile)) {
             CCJSqlParser parser = new CCJSqlParser(reader);
             Statement statement;
+            List<Table> pendingTables = new ArrayList<>();
 
             while ((statement = parser.Statement()) != null) {
                 if (statement instanceof CreateTable) {
-                    processCreateTable((CreateTable) statement, dataDir);
+                    pendingTables.add(processCreateTable((CreateTable) statement, dataDir));
                 } else {
+                    // Load every table declared so far together before the first query needs them
+                    loadTables(pendingTables);
+
                     // Execute query and display results
                     Table result = queryService.executeQuery(statement.toString());
                     if (result != null) {
@@ -66,33 +80,46 @@ public class Main {
                     }
                 }
             }
+            loadTables(pendingTables);
         }
     }
 
-    private static void processCreateTable(CreateTable createTable, File dataDir) {
+    private static Table processCreateTable(CreateTable createTable, File dataDir) {
         String tableName = createTable.getTable().getName().toLowerCase();
         File tableFile = Paths.get(dataDir.getPath(), tableName + ".dat").toFile();
         if (!tableFile.exists()) {
             tableFile = Paths.get(dataDir.getPath(), tableName + ".tbl").toFile();
         }
 
+        // Column files written by --build live in the index directory
         Table table = new Table(
             tableName,
             createTable.getColumnDefinitions().size(),
             tableFile,
-            dataDir
+            indexDir != null ? indexDir : dataDir
         );
         
         table.setColumnDefinitions(new ArrayList<>(createTable.getColumnDefinitions()));
         table.populateColumnIndexMap();
-        
+        return table;
+    }
+
+    private static void loadTables(List<Table> tables) {
+        if (tables.isEmpty()) {
+            return;
+        }
+
+        // Independent tables are loaded in parallel, each on its own worker
         try {
-            table.populateTable();
-            queryService.registerTable(tableName, table);
+            ParallelTableLoader.populateAll(tables);
+            for (Table table : tables) {
+                queryService.registerTable(table.getTableName(), table);
+            }
         } catch (IOException e) {
-            System.err.println("Error loading table " + tableName + ": " + e.getMessage());
+            System.err.println("Error loading tables: " + e.getMessage());
             e.printStackTrace();
         }
+        tables.clear();
     }
 
     private static void displayResults(Table result) {
@@ -171,6 +198,12 @@ public class Main {
 	// this HashMap stores the (table_name, PrimaryTreeMap) pairs so that the mapping of the BTree of indexes corresponding to table becomes easy
 	public static HashMap<String,HashMap<String,PrimaryTreeMap<String, ArrayList<String>>>> tablesNameAndBTreeMap = new HashMap<String, HashMap<String,PrimaryTreeMap<String,ArrayList<String>>>>();
 
+	// this HashMap stores the (table_name, ZoneMap) pairs, the per block min/max written next to the indexes that lets a selection skip blocks
+	public static HashMap<String, ZoneMap> tablesNameAndZoneMap = new HashMap<String, ZoneMap>();
+
+	// this is the catalog of the table and column statistics computed in the build phase, which the planner uses to estimate sizes
+	public static StatisticsCatalog statisticsCatalog = new StatisticsCatalog();
+
 		@SuppressWarnings({ })
 	public static void main(String[] args) throws IOException, InterruptedException, ParseException {
 		
@@ -252,6 +285,17 @@ public class Main {
 
 					// get the corresponding CreateTable statement
 					CreateTable ctStmt = (CreateTable) stmtObject;
+
+					// this is the name of the table, the column files are named after it
+					String tableName = ctStmt.getTable().getName().toLowerCase();
+
+					// convert the '|' delimited table file into typed column files in the indexDirectory so that the query phase does not parse text again
+					if(tablesNameAndFileMap.containsKey(tableName)){
+						new ColumnarTableWriter(tableName, ctStmt.getColumnDefinitions()).write(tablesNameAndFileMap.get(tableName), indexDirectory);
+						// compute the row count, distinct and null counts, ranges and histograms of the table for the planner
+						StatisticsCatalog.build(indexDirectory, tableName, ctStmt.getColumnDefinitions());
+					}
+
 					// create the index by calling this function
 					BuildIndexes.buildIndex(ctStmt, indexDirectory);
 				}
@@ -285,11 +329,18 @@ public class Main {
 			}*/
 		//---------------------------------------------------	
 			
+			// load the statistics of all the tables that the build phase wrote into the index directory
+			statisticsCatalog = StatisticsCatalog.load(indexDirectory);
+
 			// This code is populating the tablesNameAndRecordManager Map which contains table name and its RecordManager
 			for(String tableName:tablesNameAndFileMap.keySet()){
 				RecordManager tableRecordManager = RecordManagerFactory.createRecordManager(indexDirectory + System.getProperty("file.separator") + tableName + ".index");
 				tablesNameAndRecordManager.put(tableName, tableRecordManager);
 				//System.out.println(tableRecordManager.toString());
+				// this loads the zone map of the table if the build phase wrote one
+				ZoneMap zoneMap = ZoneMap.read(indexDirectory, tableName);
+				if(zoneMap != null)
+					tablesNameAndZoneMap.put(tableName, zoneMap);
 			}
 			
 			// This code is populting the tablesNameAndRecordId Map which contains table name and RecordId of its RecordManager
@@ -462,15 +513,17 @@ public class Main {
 						// this Table is a reference to the table that is present inside the create table statement
 						Table newTableObject = new Table(tableName, ctStmt.getColumnDefinitions().size(),tablesNameAndFileMap.get(tableName), indexDirectory);
 
-						// populate the tuple list of the table
-						newTableObject.populateTable();
-
-						// set the attributes of this new table object
+						// set the attributes of this new table object, the column definitions are needed to locate the column files written in the build phase
 						newTableObject.columnDescriptionList = (ArrayList<ColumnDefinition>) ctStmt.getColumnDefinitions();
 
 						// populate the column index map of the table object
 						newTableObject.populateColumnIndexMap();
 
+						// populate the tuple list of the table, from the column files if they exist in the indexDirectory
+						newTableObject.populateTable();
+						// the tuples are read in the order dbgen wrote them, which a sort-merge join need not sort again
+						SortMergeJoin.setScanOrder(newTableObject);
+
 						// insert the pair of (table_name, table_TableObject) in the tableObjectsMap
 						tableObjectsMap.put(tableName, newTableObject);
 
@@ -507,8 +560,9 @@ public class Main {
 						
 						insertString = insertString.substring(0, insertString.lastIndexOf("|"));
 						
-						// add the string to be inserted in the table's tuple list
+						// add the string to be inserted in the table's tuple list, the indexes of the table no longer cover all of its tuples
 						tableToInsertIn.tableTuples.add(insertString);
+						IndexJoin.tableModified(tableName);
 						//File newfile = new File(tableToInsertIn.tableDataDirectoryPath + System.getProperty("file.separator") + "sample.txt");
 						FileWriter fw = new FileWriter(tableToInsertIn.tableFilePath , true);
 						BufferedWriter bw = new BufferedWriter(fw);
@@ -549,6 +603,7 @@ public class Main {
                         }
 
                         tableToDeleteFrom.tableTuples = resultDeleteTupleList;
+                        IndexJoin.tableModified(tableName);
                         
                         FileWriter fw = new FileWriter(tableToDeleteFrom.tableFilePath);
 						BufferedWriter bw = new BufferedWriter(fw);
@@ -613,7 +668,11 @@ public class Main {
                         	newValue = newValue.substring(1,newValue.length()-1);
                         }
                         else if (type.equalsIgnoreCase("date")){
-                        	newValue = newValue.substring(6, newValue.length() - 2);
+                        	// this folds any form of date literal to its epoch day and writes it back as yyyy-mm-dd
+                        	Integer epochDay = DateUtils.fold((Expression) updateStatement.getExpressions().get(0));
+                        	if(epochDay == null)
+                        		throw new IllegalArgumentException("Not a date: " + newValue);
+                        	newValue = DateUtils.format(epochDay);
                         }
                       /*
                         // we will iterate on the list of tuples in the table
@@ -2,10 +2,11 @@ package edu.buffalo.cse562;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 
+import edu.buffalo.cse562.model.Tuple;
+
 
 public class OrderByOperation {
 
@@ -64,26 +65,23 @@ public class OrderByOperation {
 				System.out.println("Type-->"+t);
 			}*/
 			
-			for(String tuple1: table.tableTuples){
-				
-				String str[] = tuple1.split("\\|");
-				array.add(tuple1);
- 
+			// the tuples are sorted through their typed tuples, which come parsed from the operators before the order by, comparing all the order by attributes in turn
+			ArrayList<Tuple> parsedTuples = ParsedTuples.of(table);
+			Integer[] rows = new Integer[parsedTuples.size()];
+			for (int j = 0; j < rows.length; j++) {
+				rows[j] = j;
 			}
-
-			Comparator comp = null;
-			int cout = 0;
-			for (int j = index.length-1; j >= 0; j--) {
-				cout++;
-			
-			
-			comp = new AscendingCompare(index[j],order[j],type[j]);
-			
-			
-			Collections.sort(array,comp);
-
+			// a table already ordered on the only order by attribute, such as the result of a sort-merge join on it, needs no sorting
+			boolean alreadyOrdered = index.length == 1 && !order[0] && SortMergeJoin.isOrderedOn(table, orderByArr[0].split(" ")[0]);
+			if (!alreadyOrdered) {
+				MergingComparator comp = new MergingComparator(table, orderByList, size);
+				Arrays.sort(rows, (a, b) -> comp.compare(parsedTuples.get(a), parsedTuples.get(b)));
+			}
+			ArrayList<Tuple> sortedTuples = new ArrayList<Tuple>(rows.length);
+			for (int row : rows) {
+				array.add(table.tableTuples.get(row));
+				sortedTuples.add(parsedTuples.get(row));
 			}
-			
 
 		
 			
@@ -107,96 +105,9 @@ public class OrderByOperation {
 			System.out.println("-----------");*/
 		
 			resultantTable.tableTuples=	array;
+			ParsedTuples.put(resultantTable, sortedTuples);
 		return resultantTable;
 	}
 		
 	
 }
-
-
-class AscendingCompare implements Comparator<String>{
-	
-	int index = 0;
-	boolean order = false;
-	String type = null;
-
-	AscendingCompare(int index,boolean order,String type){
-		this.index = index;
-		this.order = order;
-		this.type = type;
-	//	System.out.println(type);
-	}
-	
-	
-	@Override
-	public int compare(String o1, String o2) {
-		String s1[] = o1.split("\\|");
-		String s2[] = o2.split("\\|");
-		
-		if(type.equalsIgnoreCase("char")|| type.equalsIgnoreCase("VARCHAR")||type.equalsIgnoreCase("string")){
-		//System.out.println("in");
-		
-			if(s1[index].equals(s2[index])){
-					return 0;
-			}
-			
-			else {
-				int x =0;
-				if(order==false){
-					x = s1[index].compareTo(s2[index]); 
-					
-				}
-				else{
-					x = s2[index].compareTo(s1[index]);
-				}
-				
-				return x;
-			}
-		
-		}
-		else if(type.equalsIgnoreCase("int")|| type.equalsIgnoreCase("decimal")){
-			//System.out.println("in ");
-			if(Double.parseDouble(s1[index].trim())==Double.parseDouble(s2[index].trim())){
-				return 0;
-			}
-			
-			else {
-				int x =0;
-				if(order==false){
-					
-			//		System.out.println(Double.parseDouble(s1[index].trim())+"---"+Double.parseDouble(s2[index].trim()));
-					if(Double.parseDouble(s1[index].trim())>Double.parseDouble(s2[index].trim())){
-						x = 1;
-						
-					}
-					else if(Double.parseDouble(s1[index].trim())<Double.parseDouble(s2[index].trim())){
-						x=-1;
-					}
-					else{
-						x=0;
-					}
-					
-				}
-				else{
-					//System.out.println(s1[index]);
-					
-					if(Double.parseDouble(s1[index].trim())>Double.parseDouble(s2[index].trim())){
-						x = -1;
-					}
-					else if(Double.parseDouble(s1[index].trim())<Double.parseDouble(s2[index].trim())){
-						x=1;
-					}
-					else{
-						x=0;
-					}
-					
-				}
-				
-				return x;
-			}
-		}
-	
-		return 0;
-		
-	}
-}
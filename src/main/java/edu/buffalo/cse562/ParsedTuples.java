@@ -0,0 +1,56 @@
+package edu.buffalo.cse562;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Tuple;
+
+public class ParsedTuples {
+
+	// this holds for every table the strings its tuples were parsed from and the typed tuples themselves, the entries of tables that are no longer referenced are released
+	private static final Map<Table, Entry> parsedTables = Collections.synchronizedMap(new WeakHashMap<Table, Entry>());
+
+	// this is the typed form of the tuples of one table, it is only valid while the table still holds the same list of strings with the same number of tuples
+	private static class Entry {
+		final ArrayList<String> tuples;
+		final ArrayList<Tuple> rows;
+
+		Entry(ArrayList<String> tuples, ArrayList<Tuple> rows) {
+			this.tuples = tuples;
+			this.rows = rows;
+		}
+	}
+
+	// this returns the typed tuples of a table in the order of its tuples, the first operator to need them parses the strings in parallel with the declared types and decimal scales and every operator after it reuses them
+	public static ArrayList<Tuple> of(Table table) {
+		ArrayList<Tuple> rows = ifParsed(table);
+		if(rows != null)
+			return rows;
+		DataType[] types = DataType.of(table.columnDescriptionList);
+		int[] scales = DataType.scales(table.columnDescriptionList);
+		ArrayList<String> tuples = table.tableTuples;
+		Tuple[] parsed = new Tuple[tuples.size()];
+		Arrays.parallelSetAll(parsed, row -> Tuple.parse(tuples.get(row), types, scales));
+		rows = new ArrayList<Tuple>(Arrays.asList(parsed));
+		parsedTables.put(table, new Entry(tuples, rows));
+		return rows;
+	}
+
+	// this returns the typed tuples of a table if some operator already formed them, or null
+	public static ArrayList<Tuple> ifParsed(Table table) {
+		Entry entry = parsedTables.get(table);
+		// tuples inserted into or deleted from the table since make the typed tuples stale
+		if(entry == null || entry.tuples != table.tableTuples || entry.rows.size() != table.tableTuples.size())
+			return null;
+		return entry.rows;
+	}
+
+	// this records the typed tuples an operator formed a table from, in the order of the table's tuples, so that the operators after it do not parse the strings again
+	public static void put(Table table, ArrayList<Tuple> rows) {
+		parsedTables.put(table, new Entry(table.tableTuples, rows));
+	}
+}
@@ -1,8 +1,19 @@
 package edu.buffalo.cse562;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.operations.CommonSubexpressions;
+import edu.buffalo.cse562.operations.ExpressionCompiler;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.parser.ParseException;
+import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.create.table.ColDataType;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 
@@ -16,23 +27,49 @@ public class ProjectTableOperation {
 
 		// this is the projected table's ArrayList
 		ArrayList<String> projectedArrayList = new ArrayList<String>();
+		selectList = expandAllColumns(selectList, tableToProject);
 
 		Table ProjectedTable = new Table(tableToProject.tableName
 				+ "ProjectedTable.tbl", selectList.size(), null,
 				tableToProject.tableDataDirectoryPath);
 
+		// the computed select items are compiled once into typed evaluators over the parsed tuple, so that
+		// numbers are not converted to and from strings for every operator of every tuple, and the
+		// subexpressions the items have in common are computed once per tuple
+		Schema schema = WhereOperation.schemaOf(tableToProject);
+		Expression[] expressions = new Expression[selectList.size()];
+		boolean[] computedItems = new boolean[selectList.size()];
+		for (int j = 0; j < selectList.size(); j++) {
+			String expression = expressionOf(selectList.get(j));
+			Expression parsed = new CCJSqlParser(new StringReader(expression)).SimpleExpression();
+			// every item but a bare column computes its value, such as arithmetic, a function or a literal
+			computedItems[j] = !(parsed instanceof Column);
+			if (computedItems[j] && columnOf(selectList.get(j), tableToProject) == null) {
+				expressions[j] = parsed;
+			}
+		}
+		CommonSubexpressions.Evaluation evaluation = new CommonSubexpressions(schema,
+				Arrays.asList(expressions)).newEvaluation();
+		ExpressionCompiler.Value[] evaluators = new ExpressionCompiler.Value[selectList.size()];
+		boolean computed = false;
+		for (int j = 0; j < selectList.size(); j++) {
+			if (expressions[j] != null) {
+				evaluators[j] = evaluation.compileValue(expressions[j]);
+				computed = true;
+			}
+		}
+
 		if (flag == false) {
-			for (String str : selectList) {
+			for (int j = 0; j < selectList.size(); j++) {
+				String str = selectList.get(j);
 				String[] temp = str.split(" ");
 				if (str.contains(" AS ") || str.contains(" as ")) {
-					if (str.contains(" * ") || str.contains(" + ")
-							|| str.contains(" - ") || str.contains(" / ")) {
+					if (evaluators[j] != null) {
 
+						// the type of a computed column is the type of its expression
 						ColumnDefinition colDescTypePair = new ColumnDefinition();
-						ColDataType col = new ColDataType();
 						colDescTypePair.setColumnName(temp[temp.length - 1]);
-						col.setDataType("Decimal");
-						colDescTypePair.setColDataType(col);
+						colDescTypePair.setColDataType(colDataTypeOf(evaluators[j]));
 						ProjectedTable.columnDescriptionList
 								.add(colDescTypePair);
 					} else {
@@ -51,12 +88,19 @@ public class ProjectTableOperation {
 
 				} else {
 					ColumnDefinition colDescTypePair = new ColumnDefinition();
-					ColDataType col = new ColDataType();
 					colDescTypePair.setColumnName(temp[0]);
 
-					String type = "Decimal";
-					col.setDataType(type);
-					colDescTypePair.setColDataType(col);
+					if (evaluators[j] != null) {
+						colDescTypePair.setColDataType(colDataTypeOf(evaluators[j]));
+					} else if (!computedItems[j]) {
+						// a bare column keeps the type it has in the table
+						colDescTypePair.setColDataType(tableToProject.columnDescriptionList
+								.get(columnOf(str, tableToProject)).getColDataType());
+					} else {
+						ColDataType col = new ColDataType();
+						col.setDataType("Decimal");
+						colDescTypePair.setColDataType(col);
+					}
 					ProjectedTable.columnDescriptionList.add(colDescTypePair);
 				}
 
@@ -115,45 +159,26 @@ public class ProjectTableOperation {
 
 		String[] tupleList;
 		String newString = "";
-		String columnName = null;
 		/**** ABHINAV WORKAROUND FOR TPCH-7 ****/
 		ArrayList<String> arr = tableToProject.tableTuples;
+		// the typed tuples are only needed if some select item is computed, they come parsed from the operators before the projection
+		ArrayList<Tuple> parsedTuples = computed ? ParsedTuples.of(tableToProject) : null;
 		for (int i = 0; i < arr.size(); i++) {
 			newString = "";
 			tupleList = arr.get(i).split("\\|");
-			for (String str : selectList) {
-				if (str.contains("*") || str.contains("*") || str.contains("-")
-						|| str.contains("+") || str.contains("/")) {
-
-					if (str.contains(" as ") || str.contains(" AS ")) {
-						columnName = str.substring(0, str.indexOf(" AS "))
-								.trim();
-
+			Tuple parsedTuple = computed ? parsedTuples.get(i) : null;
+			evaluation.nextRow();
+			for (int j = 0; j < selectList.size(); j++) {
+				String str = selectList.get(j);
+				if (computedItems[j]) {
+
+					if (evaluators[j] != null) {
+						newString = newString + evaluators[j].evaluateString(parsedTuple) + "|";
 					} else {
-						columnName = str;
-					}
-
-					ArrayList<String> arrrStr = WhereOperation
-							.braceExp(columnName);
-
-					String[] pos = new String[arrrStr.size()];
-					arrrStr.toArray(pos);
-					String[] postFix = WhereOperation.convertToPos(pos);
-
-					String[] arrNew = new String[postFix.length];
-
-					for (int k = 0; k < postFix.length; k++) {
-
-						if (tableToProject.columnIndexMap
-								.containsKey(postFix[k])) {
-							arrNew[k] = tupleList[tableToProject.columnIndexMap
-									.get(postFix[k])];
-						} else {
-							arrNew[k] = postFix[k];
-						}
+						// an expression that already is a column of the table, such as an aggregate of a grouped table
+						newString = newString
+								+ tupleList[columnOf(str, tableToProject)] + "|";
 					}
-					double val = WhereOperation.evaluate(arrNew);
-					newString = newString + val + "|";
 
 				} else {
 					if (flag == true) {
@@ -161,14 +186,8 @@ public class ProjectTableOperation {
 								.get(str)];
 						newString = newString + columnAdd + "|";
 					} else {
-						if (str.contains("count") && str.contains("distinct")) {
-							columnName = str.substring(str.indexOf(" ") + 1,
-									str.length());
-						} else {
-							columnName = str.substring(0, str.indexOf(" "));
-						}
-						String columnAdd = tupleList[tableToProject.columnIndexMap
-								.get(columnName)];
+						// a bare column, with or without an alias
+						String columnAdd = tupleList[columnOf(str, tableToProject)];
 						newString = newString + columnAdd + "|";
 
 					}
@@ -187,4 +206,57 @@ public class ProjectTableOperation {
 		return ProjectedTable;
 	}
 
+	/* this method returns the select items with each item of all the columns, * or table.*, replaced by the columns of the table it selects */
+	private static ArrayList<String> expandAllColumns(ArrayList<String> selectList, Table tableToProject) {
+		ArrayList<String> expanded = new ArrayList<String>();
+		for (String selectItem : selectList) {
+			String item = selectItem.trim();
+			if (item.equals("*") || item.endsWith(".*")) {
+				String prefix = item.substring(0, item.length() - 1).toLowerCase();
+				for (ColumnDefinition cd : tableToProject.columnDescriptionList) {
+					if (cd.getColumnName().toLowerCase().startsWith(prefix)) {
+						expanded.add(cd.getColumnName());
+					}
+				}
+			} else {
+				expanded.add(selectItem);
+			}
+		}
+		return expanded;
+	}
+
+	/* this method returns the expression of a select item without its alias */
+	static String expressionOf(String selectItem) {
+		int alias = selectItem.indexOf(" AS ");
+		if (alias < 0) {
+			alias = selectItem.indexOf(" as ");
+		}
+		return (alias < 0 ? selectItem : selectItem.substring(0, alias)).trim();
+	}
+
+	/* this method returns the index of the column a select item already is in the table, by its expression or its alias, or null if there is none */
+	private static Integer columnOf(String selectItem, Table tableToProject) {
+		Integer index = tableToProject.columnIndexMap.get(expressionOf(selectItem));
+		if (index == null && !expressionOf(selectItem).equals(selectItem.trim())) {
+			String[] temp = selectItem.trim().split(" ");
+			index = tableToProject.columnIndexMap.get(temp[temp.length - 1]);
+		}
+		return index;
+	}
+
+	/* this method returns the column type of a compiled expression, declaring the scale of decimals so they are read back exactly */
+	private static ColDataType colDataTypeOf(ExpressionCompiler.Value evaluator) {
+		ColDataType col = new ColDataType();
+		if (evaluator.getType() == DataType.INT) {
+			col.setDataType("Int");
+		} else if (evaluator.getType() == DataType.DATE) {
+			col.setDataType("Date");
+		} else {
+			col.setDataType("Decimal");
+			col.setArgumentsStringList(Arrays.asList("18",
+					String.valueOf(evaluator.getScale())));
+		}
+		return col;
+	}
+
 }
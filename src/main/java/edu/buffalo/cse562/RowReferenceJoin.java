@@ -0,0 +1,202 @@
+package edu.buffalo.cse562;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.Function;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.operations.CompositeKey;
+import edu.buffalo.cse562.operations.JoinEnumerator;
+import edu.buffalo.cse562.operations.ParallelHashJoin;
+import edu.buffalo.cse562.operations.RowReferences;
+
+public class RowReferenceJoin {
+
+	// this tells whether every join of a plan is a hash join, which is the join evaluated over row references
+	// a plan that merges or probes a B-tree is joined table by table instead, so that a merge join sorts only the tables that need it and records the order of its result
+	public static boolean isApplicable(JoinEnumerator.Plan plan) {
+		for(JoinEnumerator.Plan join = plan; !join.isLeaf(); join = join.getOuter()){
+			if(join.getAlgorithm() != JoinEnumerator.Algorithm.HASH)
+				return false;
+		}
+		return true;
+	}
+
+	// this function evaluates the joins of a plan over references to the tuples of the tables instead of over joined tuples, the joined tuples are formed once at the end
+	// only the columns referenced in referencedNames, as table.column or as the bare column name, are kept in the joined tuples, all of them when it is null
+	public static Table evaluatePlan(JoinEnumerator.Plan plan, ArrayList<Table> tables, Expression whereExpression, HashSet<String> referencedNames) {
+
+		// this lists the tables in the order in which their columns come in the joined tuples
+		ArrayList<Table> joinedTables = new ArrayList<Table>();
+		RowReferences references = join(plan, tables, whereExpression, joinedTables);
+		return materialize(joinedTables, references, referencedNames);
+	}
+
+	// this joins the tables of a plan and returns for every joined tuple the tuple of each table it is formed from, the tables are added to joinedTables as they are joined
+	private static RowReferences join(JoinEnumerator.Plan plan, ArrayList<Table> tables, Expression whereExpression, ArrayList<Table> joinedTables) {
+		if(plan.isLeaf()){
+			Table table = tables.get(plan.getRelation());
+			joinedTables.add(table);
+			return RowReferences.of(table.tableTuples.size());
+		}
+		RowReferences outer = join(plan.getOuter(), tables, whereExpression, joinedTables);
+		Table t2 = tables.get(plan.getInner().getRelation());
+
+		// collect the joining attributes between each of the tables joined so far and t2, as the position of that table and the indexes of the attribute in it and in t2
+		ArrayList<Integer> outerTables = new ArrayList<Integer>();
+		ArrayList<Integer> outerIndexes = new ArrayList<Integer>();
+		ArrayList<Integer> innerIndexes = new ArrayList<Integer>();
+		for(int i = 0; i < joinedTables.size(); i++){
+			Table t1 = joinedTables.get(i);
+			ArrayList<String> joinCondition = WhereOperation.evaluateJoinCondition(t1, t2, whereExpression);
+			for(int k = 0; k < joinCondition.size(); k += 3){
+				String joiningAttribute = joinCondition.get(k + 2).toLowerCase();
+				outerTables.add(i);
+				outerIndexes.add(t1.columnIndexMap.get(joinCondition.get(k) + "." + joiningAttribute));
+				innerIndexes.add(t2.columnIndexMap.get(joinCondition.get(k + 1) + "." + joiningAttribute));
+			}
+		}
+
+		// the smaller side, by the actual sizes rather than the estimates the plan was chosen with, is hashed and probed with the keys of the other one
+		RowReferences inner = RowReferences.of(t2.tableTuples.size());
+		boolean buildOuter = outer.size() <= inner.size();
+		DataType[] innerTypes = DataType.of(t2.columnDescriptionList);
+		ParallelHashJoin.Matches matches;
+		if(outerIndexes.size() == 1 && HashJoin.isIntegral(innerTypes[innerIndexes.get(0)]) && DataType.of(joinedTables.get(outerTables.get(0)).columnDescriptionList)[outerIndexes.get(0)] == innerTypes[innerIndexes.get(0)]){
+			// a single INT or DATE joining attribute is joined on all the cores
+			long[] outerKeys = longKeys(joinedTables.get(outerTables.get(0)), outerIndexes.get(0), outer.getRows(outerTables.get(0)));
+			long[] innerKeys = longKeys(t2, innerIndexes.get(0), inner.getRows(0));
+			matches = buildOuter ? ParallelHashJoin.join(outerKeys, innerKeys) : ParallelHashJoin.join(innerKeys, outerKeys);
+		} else{
+			Object[] outerKeys = objectKeys(joinedTables, outerTables, outerIndexes, outer);
+			ArrayList<Table> innerTables = new ArrayList<Table>(Arrays.asList(t2));
+			ArrayList<Integer> innerTablePositions = new ArrayList<Integer>();
+			for(int i = 0; i < innerIndexes.size(); i++)
+				innerTablePositions.add(0);
+			Object[] innerKeys = objectKeys(innerTables, innerTablePositions, innerIndexes, inner);
+			matches = buildOuter ? RowReferences.match(outerKeys, innerKeys) : RowReferences.match(innerKeys, outerKeys);
+		}
+
+		joinedTables.add(t2);
+		if(buildOuter)
+			return outer.join(inner, matches.getBuildRows(), matches.getProbeRows());
+		return outer.join(inner, matches.getProbeRows(), matches.getBuildRows());
+	}
+
+	// this returns the INT or DATE key of the tuples of a table that go into each row of a join result, each tuple is parsed once no matter how many rows it goes into
+	private static long[] longKeys(Table table, int index, int[] rows) {
+		DataType type = DataType.of(table.columnDescriptionList)[index];
+		ArrayList<String> tuples = table.tableTuples;
+		long[] tupleKeys = new long[tuples.size()];
+		Arrays.parallelSetAll(tupleKeys, row -> HashJoin.keyOf(tuples.get(row), index, type));
+		long[] keys = new long[rows.length];
+		Arrays.parallelSetAll(keys, row -> tupleKeys[rows[row]]);
+		return keys;
+	}
+
+	// this returns the key of each row of a join result on one or more joining attributes, each given by the position of its table in tables and its index in that table
+	private static Object[] objectKeys(ArrayList<Table> tables, ArrayList<Integer> tablePositions, ArrayList<Integer> indexes, RowReferences references) {
+		int attributes = indexes.size();
+		ArrayList<Function<String, Object>> extractors = new ArrayList<Function<String, Object>>();
+		for(int a = 0; a < attributes; a++)
+			extractors.add(HashJoin.keyExtractor(DataType.of(tables.get(tablePositions.get(a)).columnDescriptionList), DataType.scales(tables.get(tablePositions.get(a)).columnDescriptionList), indexes.get(a)));
+		Object[] keys = new Object[references.size()];
+		Arrays.parallelSetAll(keys, row -> {
+			if(attributes == 1)
+				return extractors.get(0).apply(tables.get(tablePositions.get(0)).tableTuples.get(references.getRows(tablePositions.get(0))[row]));
+			// the values of several joining attributes are matched together through a CompositeKey
+			Object[] values = new Object[attributes];
+			for(int a = 0; a < attributes; a++)
+				values[a] = extractors.get(a).apply(tables.get(tablePositions.get(a)).tableTuples.get(references.getRows(tablePositions.get(a))[row]));
+			return CompositeKey.of(values);
+		});
+		return keys;
+	}
+
+	// this forms the joined table from the references to the tuples of the tables, with the columns whose names are referenced
+	private static Table materialize(ArrayList<Table> joinedTables, RowReferences references, HashSet<String> referencedNames) {
+
+		// find the columns of every table that are kept and form the column description list of the joined table
+		StringBuilder joinedTableName = new StringBuilder();
+		ArrayList<ColumnDefinition> joinedTableColumnDefinitionList = new ArrayList<ColumnDefinition>();
+		int[][] keptColumns = new int[joinedTables.size()][];
+		for(int t = 0; t < joinedTables.size(); t++){
+			Table table = joinedTables.get(t);
+			if(t > 0)
+				joinedTableName.append('|');
+			joinedTableName.append(table.tableName);
+			ArrayList<Integer> kept = new ArrayList<Integer>();
+			for(int c = 0; c < table.columnDescriptionList.size(); c++){
+				ColumnDefinition cd = table.columnDescriptionList.get(c);
+				String columnName = cd.getColumnName().toLowerCase();
+				// the column names are qualified by the name of their table, a column is referenced by that name or, where the query does not qualify it, by its bare name
+				if(referencedNames != null && !referencedNames.contains(columnName) && !referencedNames.contains(columnName.substring(columnName.lastIndexOf('.') + 1)))
+					continue;
+				kept.add(c);
+				ColumnDefinition temp = new ColumnDefinition();
+				temp.setColumnName(cd.getColumnName());
+				temp.setColDataType(cd.getColDataType());
+				joinedTableColumnDefinitionList.add(temp);
+			}
+			// a table with all of its columns kept has its tuples copied as they are
+			keptColumns[t] = kept.size() == table.columnDescriptionList.size() ? null : kept.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		// this is the Table object corresponding to the table obtained by joining all the tables
+		Table joinedTable = new Table(joinedTableName.toString(), joinedTableColumnDefinitionList.size(), null, joinedTables.get(0).tableDataDirectoryPath);
+		joinedTable.columnDescriptionList = joinedTableColumnDefinitionList;
+		joinedTable.populateColumnIndexMap();
+
+		// form the joined tuples in parallel, each from the kept columns of the tuples it references
+		String[] joinedTuples = new String[references.size()];
+		Arrays.parallelSetAll(joinedTuples, row -> {
+			StringBuilder sb = new StringBuilder();
+			boolean first = true;
+			for(int t = 0; t < keptColumns.length; t++){
+				// a table none of whose columns are kept adds nothing to the joined tuple, not even a separator
+				if(keptColumns[t] != null && keptColumns[t].length == 0)
+					continue;
+				Table table = joinedTables.get(t);
+				String tupleString = table.tableTuples.get(references.getRows(t)[row]);
+				// exactly one separator goes between the columns of two tables, whatever the last column before it holds
+				if(!first)
+					sb.append('|');
+				first = false;
+				if(keptColumns[t] == null)
+					sb.append(tupleString, 0, copiedLength(tupleString, table.columnDescriptionList.size()));
+				else
+					appendColumns(sb, tupleString, keptColumns[t]);
+			}
+			return sb.toString();
+		});
+		joinedTable.tableTuples.addAll(Arrays.asList(joinedTuples));
+		return joinedTable;
+	}
+
+	// this returns the length of a tuple without the '|' dbgen ends it with, which is there when the tuple holds one separator per column
+	private static int copiedLength(String tupleString, int columns) {
+		int separators = 0;
+		for(int i = tupleString.indexOf('|'); i >= 0; i = tupleString.indexOf('|', i + 1))
+			separators++;
+		return separators == columns ? tupleString.length() - 1 : tupleString.length();
+	}
+
+	// this appends the attributes of a tuple at the given ascending indexes, separated by pipes, without splitting the rest of the tuple
+	private static void appendColumns(StringBuilder sb, String tupleString, int[] columns) {
+		int start = 0;
+		int column = 0;
+		for(int i = 0; i < columns.length; i++){
+			for(; column < columns[i]; column++)
+				start = tupleString.indexOf('|', start) + 1;
+			int end = tupleString.indexOf('|', start);
+			if(end < 0)
+				end = tupleString.length();
+			if(i > 0)
+				sb.append('|');
+			sb.append(tupleString, start, end);
+		}
+	}
+}
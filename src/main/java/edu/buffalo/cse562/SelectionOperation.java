@@ -3,17 +3,25 @@ package edu.buffalo.cse562;
 import java.io.IOException;
 import java.util.List;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.ArrayList;
 import java.util.Map.Entry;
 
+import edu.buffalo.cse562.operations.ExpressionRewriter;
+import edu.buffalo.cse562.operations.JoinEnumerator;
+import edu.buffalo.cse562.storage.ColumnStatistics;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
 import net.sf.jsqlparser.expression.Parenthesis;
 import net.sf.jsqlparser.parser.ParseException;
+import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.OrderByElement;
 import net.sf.jsqlparser.statement.select.Select;
 import net.sf.jsqlparser.statement.select.SelectBody;
 import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
 import net.sf.jsqlparser.statement.select.SubSelect;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
@@ -35,7 +43,8 @@ public class SelectionOperation {
 		// extract the list of "GROUP BY" elements from the plain select statement
 		List groupbyElementsList = ((PlainSelect) selectBody).getGroupByColumnReferences();
 		
-		// this is the where clause for the select statement
+		// this is the where clause for the select statement, rewritten once so that constants are folded, columns are on the left of comparisons and redundant conjuncts are gone
+		((PlainSelect) selectBody).setWhere(ExpressionRewriter.rewrite(((PlainSelect) selectBody).getWhere()));
 		Expression whereExpression = ((PlainSelect) selectBody).getWhere();
 		
 		// this is a list of table's that need to be joined
@@ -99,6 +108,8 @@ public class SelectionOperation {
 		
 		// this is the list of Table objects to join, we need to construct this list from the list of joins formed above
 		ArrayList<Table> tablesToJoin = new ArrayList<Table>();
+		// this maps the alias of a table to the name of the table it refers to, under which its statistics are kept
+		HashMap<String, String> baseTableNames = new HashMap<String, String>();
 
 		for (Object tableToJoin : listOfTables) {
 
@@ -116,6 +127,7 @@ public class SelectionOperation {
 				
 				// change the name of the table
 				newTable.tableName = tableAliasFilterArray[2].toLowerCase();
+				baseTableNames.put(newTable.tableName, tableAliasFilterArray[0]);
 				
 				// put the Table object in the map
 				tableObjectsMap.put(newTable.tableName, newTable);
@@ -207,6 +219,8 @@ public class SelectionOperation {
 			
 			// the following is the modified list of tables that need to be joined, in this case all the tables are filtered on a condition
 			ArrayList<Table> filteredTablesToJoin = new ArrayList<Table>();
+			// these are the tables that are joined without any filtering, their indexes still cover exactly their tuples
+			HashSet<Table> unfilteredTables = new HashSet<Table>();
 			
 			// start filtering the tables, to form the join
 			for (Entry<Table, ArrayList<Expression>> etr : tableExpressionMap.entrySet()) {
@@ -264,6 +278,7 @@ public class SelectionOperation {
 						indexedTable.columnDescriptionList = etr.getKey().columnDescriptionList;
 						indexedTable.columnIndexMap = etr.getKey().columnIndexMap;
 						indexedTable.tableTuples = tuplesForThisTable;
+						// the tuples come in the order of the index rather than of the table, so no order is recorded for this table
 						filteredTablesToJoin.add(indexedTable);
 					}
 					
@@ -273,10 +288,22 @@ public class SelectionOperation {
 				} else {
 					// this is the case where there is no filtering condition corresponding to a table
 					filteredTablesToJoin.add(etr.getKey());
+					unfilteredTables.add(etr.getKey());
 				}
 			}
 
-			// the following is the logic to find the join of all the tables iteratively
+			// the tables are joined in the order chosen by a JoinEnumerator from the sizes of the filtered tables and the estimated selectivity of the join conditions between them
+			JoinEnumerator.Plan plan = planJoins(filteredTablesToJoin, unfilteredTables, baseTableNames, whereExpression);
+			if (plan != null) {
+				// when every join is a hash join the tables are joined over references to their tuples, and only the referenced columns are copied into the joined tuples
+				// the joins the plan chose to merge or to probe through a B-tree are evaluated by executePlan, which keeps the order of a merged table
+				if (RowReferenceJoin.isApplicable(plan))
+					resultTable = RowReferenceJoin.evaluatePlan(plan, filteredTablesToJoin, whereExpression, referencedNames(selectBody));
+				else
+					resultTable = executePlan(plan, filteredTablesToJoin, unfilteredTables, whereExpression);
+			}
+
+			// the following is the logic to find the join of all the tables iteratively, it is used when the join conditions do not connect all the tables
 			HashMap<Integer, Table> mapOfTables = new HashMap<Integer, Table>();
 			int i = 0;
 			for (Table table : filteredTablesToJoin) {
@@ -289,7 +316,8 @@ public class SelectionOperation {
 			Table t1 = null;
 			Table t2 = null;
 			int countOfJoins = 0;
-			int index = mapOfTables.size() - 1;
+			// a planned join leaves no tables to join here
+			int index = plan == null ? mapOfTables.size() - 1 : 0;
 
 			if (index > 0) {
 				while (countOfJoins != index) {
@@ -314,7 +342,7 @@ public class SelectionOperation {
 							// call the HashJoin and evaluate the new table
 							//System.out.println("In here");
 							//System.out.println("table to join :" + arrayList.get(0) + " : " + arrayList.get(1));
-							resultTable = HashJoin.evaluateJoin(t1, t2, arrayList.get(0), arrayList.get(1),arrayList.get(2));
+							resultTable = joinTables(t1, t2, arrayList, unfilteredTables, null);
 							mapOfTables.put(iterativeIndex, null);
 							mapOfTables.put(index, resultTable);
 							countOfJoins++;
@@ -391,4 +419,119 @@ public class SelectionOperation {
 		// return the resultant table after performing all selections
 		return resultTable;
 	}
+	
+	// this returns the columns a query references in its select items, WHERE, GROUP BY, HAVING and ORDER BY, as table.column where the query qualifies them and as the bare column name where it does not
+	// it returns null when the query selects all the columns or has a subquery, whose columns are not collected
+	private static HashSet<String> referencedNames(SelectBody selectBody) {
+		PlainSelect plainSelect = (PlainSelect) selectBody;
+		HashSet<String> referencedNames = new HashSet<String>();
+		boolean[] subquery = {false};
+		ExpressionVisitorAdapter collector = new ExpressionVisitorAdapter() {
+			@Override
+			public void visit(Column column) {
+				referencedNames.add(column.toString().toLowerCase());
+			}
+
+			@Override
+			public void visit(SubSelect subSelect) {
+				subquery[0] = true;
+			}
+		};
+		for (Object selectItem : plainSelect.getSelectItems()) {
+			// * and table.* are the only select items that are not expressions
+			if (!(selectItem instanceof SelectExpressionItem))
+				return null;
+			((SelectExpressionItem) selectItem).getExpression().accept(collector);
+		}
+		if (plainSelect.getWhere() != null)
+			plainSelect.getWhere().accept(collector);
+		if (plainSelect.getGroupByColumnReferences() != null)
+			for (Object groupByItem : plainSelect.getGroupByColumnReferences())
+				((Expression) groupByItem).accept(collector);
+		if (plainSelect.getHaving() != null)
+			plainSelect.getHaving().accept(collector);
+		if (plainSelect.getOrderByElements() != null)
+			for (Object orderByElement : plainSelect.getOrderByElements())
+				((OrderByElement) orderByElement).getExpression().accept(collector);
+		return subquery[0] ? null : referencedNames;
+	}
+	
+	// this estimates the size of every join from the sizes of the filtered tables and the distinct values of the joining attributes, and returns the cheapest plan for joining the tables, or null if the join conditions do not connect them all
+	// the plan also chooses the algorithm of each join from the B-trees and the order of the tables on the attribute it joins them on
+	private static JoinEnumerator.Plan planJoins(ArrayList<Table> tables, HashSet<Table> unfilteredTables, HashMap<String, String> baseTableNames, Expression whereExpression) {
+		long[] rows = new long[tables.size()];
+		for (int i = 0; i < rows.length; i++)
+			rows[i] = tables.get(i).tableTuples.size();
+		JoinEnumerator enumerator = new JoinEnumerator(rows);
+		
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = i + 1; j < rows.length; j++) {
+				Table t1 = tables.get(i);
+				Table t2 = tables.get(j);
+				// every joining attribute between the tables is an equality, which keeps a pair of tuples with a probability of one over the larger number of distinct values on either side
+				ArrayList<String> joinCondition = WhereOperation.evaluateJoinCondition(t1, t2, whereExpression);
+				for (int k = 0; k < joinCondition.size(); k += 3) {
+					String joiningAttribute = joinCondition.get(k + 2).toLowerCase();
+					long distinctValues = Math.max(distinctValues(t1.tableName, baseTableNames, joiningAttribute, rows[i]), distinctValues(t2.tableName, baseTableNames, joiningAttribute, rows[j]));
+					enumerator.addPredicate(i, j, joiningAttribute, 1.0 / Math.max(1, distinctValues));
+					
+					// a table joined without any filtering can be probed through its B-tree on the joining attribute
+					if (unfilteredTables.contains(t1) && IndexJoin.hasIndexOn(t1, t1.tableName, joiningAttribute))
+						enumerator.setIndexed(i, joiningAttribute);
+					if (unfilteredTables.contains(t2) && IndexJoin.hasIndexOn(t2, t2.tableName, joiningAttribute))
+						enumerator.setIndexed(j, joiningAttribute);
+					// a table whose tuples come ordered on the joining attribute can be merged without sorting it
+					if (SortMergeJoin.isOrderedOn(t1, joinCondition.get(k) + "." + joinCondition.get(k + 2)))
+						enumerator.setOrdered(i, joiningAttribute);
+					if (SortMergeJoin.isOrderedOn(t2, joinCondition.get(k + 1) + "." + joinCondition.get(k + 2)))
+						enumerator.setOrdered(j, joiningAttribute);
+				}
+			}
+		}
+		return enumerator.plan();
+	}
+	
+	// this returns the number of distinct values of an attribute of a table with the given number of tuples, taken from the statistics of the table it refers to
+	private static long distinctValues(String tableName, HashMap<String, String> baseTableNames, String attribute, long rows) {
+		String baseTableName = baseTableNames.containsKey(tableName) ? baseTableNames.get(tableName) : tableName;
+		ColumnStatistics statistics = Main.statisticsCatalog.getColumn(baseTableName, attribute);
+		// without statistics every value is taken to be distinct, as it is for a key
+		if (statistics == null || statistics.getDistinctCount() <= 0)
+			return rows;
+		// a filtered table cannot have more distinct values than tuples
+		return Math.min(rows, statistics.getDistinctCount());
+	}
+	
+	// this joins the tables in the order of a plan, the table that a join adds always comes second in the joined tuples
+	private static Table executePlan(JoinEnumerator.Plan plan, ArrayList<Table> tables, HashSet<Table> unfilteredTables, Expression whereExpression) throws IOException {
+		if (plan.isLeaf())
+			return tables.get(plan.getRelation());
+		Table t1 = executePlan(plan.getOuter(), tables, unfilteredTables, whereExpression);
+		Table t2 = tables.get(plan.getInner().getRelation());
+		ArrayList<String> arrayList = WhereOperation.evaluateJoinCondition(t1, t2, whereExpression);
+		return joinTables(t1, t2, arrayList, unfilteredTables, plan.getAlgorithm());
+	}
+	
+	// this joins t1 and t2 on the join conditions between them with the algorithm a plan chose, or without a plan with the first algorithm that applies
+	// the hash joins build their HashMap on whichever table actually turned out smaller
+	private static Table joinTables(Table t1, Table t2, ArrayList<String> arrayList, HashSet<Table> unfilteredTables, JoinEnumerator.Algorithm algorithm) throws IOException {
+		// when the tables share more than one joining attribute they are hashed on all of them at once
+		if (arrayList.size() > 3)
+			return HashJoin.evaluateJoin(t1, t2, arrayList);
+		
+		Table resultTable = null;
+		// when one of the tables is unfiltered and has a B-tree on the joining attribute while the other one is small, the B-tree is probed for each tuple of the small table
+		if ((algorithm == null || algorithm == JoinEnumerator.Algorithm.INDEX_NESTED_LOOP) && unfilteredTables.contains(t2))
+			resultTable = IndexJoin.evaluateJoin(t1, t2, arrayList.get(0), arrayList.get(1), arrayList.get(2), true);
+		if (resultTable == null && algorithm == null && unfilteredTables.contains(t1))
+			resultTable = IndexJoin.evaluateJoin(t1, t2, arrayList.get(0), arrayList.get(1), arrayList.get(2), false);
+		if (resultTable == null) {
+			// without a plan the tables are merged when that costs less than hashing them, sorting whichever of them is not already ordered on the joining attribute
+			if (algorithm == JoinEnumerator.Algorithm.MERGE || algorithm == null && SortMergeJoin.isCheaperThanHashing(t1, arrayList.get(0) + "." + arrayList.get(2), t2, arrayList.get(1) + "." + arrayList.get(2)))
+				resultTable = SortMergeJoin.evaluateJoin(t1, t2, arrayList.get(0), arrayList.get(1), arrayList.get(2));
+			else
+				resultTable = HashJoin.evaluateJoin(t1, t2, arrayList.get(0), arrayList.get(1), arrayList.get(2));
+		}
+		return resultTable;
+	}
 }
\ No newline at end of file
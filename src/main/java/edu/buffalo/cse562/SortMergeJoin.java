@@ -0,0 +1,171 @@
+package edu.buffalo.cse562;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.operations.JoinEnumerator;
+import edu.buffalo.cse562.operations.MergeJoin;
+import edu.buffalo.cse562.operations.RowSource;
+
+public class SortMergeJoin {
+
+	// this maps the TPC-H tables to the column that dbgen writes their tuples ordered by, such tables need no sorting to be merged on that column
+	private static final HashMap<String, String> dbgenOrder = new HashMap<String, String>();
+	static {
+		dbgenOrder.put("lineitem", "orderkey");
+		dbgenOrder.put("orders", "orderkey");
+		dbgenOrder.put("customer", "custkey");
+		dbgenOrder.put("part", "partkey");
+		dbgenOrder.put("partsupp", "partkey");
+		dbgenOrder.put("supplier", "suppkey");
+		dbgenOrder.put("nation", "nationkey");
+		dbgenOrder.put("region", "regionkey");
+	}
+
+	// this holds the tables with the columns their tuples are ordered on, as recorded by the operator that formed each table, the entries of tables that are no longer referenced are released
+	private static final Map<Table, HashSet<String>> orderedTables = Collections.synchronizedMap(new WeakHashMap<Table, HashSet<String>>());
+
+	// this tells whether the tuples of a table come in ascending order of a column, the column is given as tableName.attribute
+	// only the operator that formed a table knows its order, so a table nothing recorded an order for is taken to be unordered
+	public static boolean isOrderedOn(Table table, String column) {
+		HashSet<String> orderedColumns = orderedTables.get(table);
+		return orderedColumns != null && orderedColumns.contains(column);
+	}
+
+	// this records that the tuples of a table come in ascending order of each of the columns, given as tableName.attribute
+	public static void setOrderedOn(Table table, Collection<String> columns) {
+		orderedTables.put(table, new HashSet<String>(columns));
+	}
+
+	// this records the order of a TPC-H table whose tuples were read as they are from the file dbgen wrote
+	public static void setScanOrder(Table table) {
+		String column = dbgenOrder.get(table.tableName);
+		if(column != null)
+			setOrderedOn(table, Arrays.asList(table.tableName + "." + column));
+	}
+
+	// this records for a table holding a subsequence of the tuples of another one, such as the result of a filter, the order of that other table
+	public static void keepOrder(Table from, Table to) {
+		HashSet<String> orderedColumns = orderedTables.get(from);
+		if(orderedColumns != null)
+			orderedTables.put(to, orderedColumns);
+	}
+
+	// this tells whether merging two tables on a joining attribute costs less than hashing them, counting a sort of each table that is not ordered on it
+	// hashing costs JoinEnumerator.BUILD_ROW_COST per tuple of the smaller table and one per tuple of the other one, merging costs one per tuple of either table
+	public static boolean isCheaperThanHashing(Table t1, String t1Column, Table t2, String t2Column) {
+		double rows1 = t1.tableTuples.size();
+		double rows2 = t2.tableTuples.size();
+		double hashCost = JoinEnumerator.BUILD_ROW_COST * Math.min(rows1, rows2) + Math.max(rows1, rows2);
+		double mergeCost = rows1 + rows2;
+		if(!isOrderedOn(t1, t1Column))
+			mergeCost += JoinEnumerator.sortCost(rows1);
+		if(!isOrderedOn(t2, t2Column))
+			mergeCost += JoinEnumerator.sortCost(rows2);
+		return mergeCost < hashCost;
+	}
+
+	// this function is used to evaluate the sort-merge join of the tables based on the joining attribute, the return type of the function is the joined table's corresponding Table object
+	// the tables that are not known to be ordered on the joining attribute are sorted first, and the tuples of the joined table come out ordered on the joining attribute
+	public static Table evaluateJoin(Table t1, Table t2, String t1Name, String t2Name, String joiningAttribute) throws IOException {
+
+		// this is the Table object corresponding to the table obtained by joining t1 and t2 on the joining attribute
+		Table joinedTable = new Table(t1.tableName+"|"+t2.tableName,t1.noOfColumns+t2.noOfColumns,null,t1.tableDataDirectoryPath);
+
+		// form the column description list of the joined table by iterating over the column definition lists of t1 and t2
+		ArrayList<ColumnDefinition> joinedTableColumnDefinitionList = new ArrayList<ColumnDefinition>();
+		for(ColumnDefinition cd : t1.columnDescriptionList){
+			ColumnDefinition temp = new ColumnDefinition();
+			temp.setColumnName(cd.getColumnName());
+			temp.setColDataType(cd.getColDataType());
+			joinedTableColumnDefinitionList.add(temp);
+		}
+		for(ColumnDefinition cd : t2.columnDescriptionList){
+			ColumnDefinition temp = new ColumnDefinition();
+			temp.setColumnName(cd.getColumnName());
+			temp.setColDataType(cd.getColDataType());
+			joinedTableColumnDefinitionList.add(temp);
+		}
+		joinedTable.columnDescriptionList = joinedTableColumnDefinitionList;
+
+		// populate the column index map of the joined table
+		joinedTable.populateColumnIndexMap();
+
+		// get the indexes of the joining attribute in table1 and table2 and the functions that give its typed value in a tuple
+		String t1Column = t1Name + "." + joiningAttribute;
+		String t2Column = t2Name + "." + joiningAttribute;
+		int joiningAttributeIndexTable1 = t1.columnIndexMap.get(t1Column);
+		int joiningAttributeIndexTable2 = t2.columnIndexMap.get(t2Column);
+		Function<String, Object> table1Key = HashJoin.keyExtractor(DataType.of(t1.columnDescriptionList), DataType.scales(t1.columnDescriptionList), joiningAttributeIndexTable1);
+		Function<String, Object> table2Key = HashJoin.keyExtractor(DataType.of(t2.columnDescriptionList), DataType.scales(t2.columnDescriptionList), joiningAttributeIndexTable2);
+
+		// merge the two ordered streams of tuples, the tuple of table1 always comes first in a joined tuple
+		ArrayList<String> joinedTuples = joinedTable.tableTuples;
+		try{
+			MergeJoin.join(orderedTuples(t1, t1Column, table1Key), table1Key, orderedTuples(t2, t2Column, table2Key), table2Key, (table1String, table2String) -> {
+				// this is the code that is implemented for pipe separation
+				if(table1String.charAt(table1String.length() - 1) == '|')
+					joinedTuples.add(table1String + table2String);
+				else
+					joinedTuples.add(table1String + "|" + table2String);
+			});
+		} catch(MergeJoin.UnorderedInputException e){
+			// a table that was recorded as ordered is not, so the join is evaluated by hashing instead
+			return HashJoin.evaluateJoin(t1, t2, t1Name, t2Name, joiningAttribute);
+		}
+
+		// remember the order of the joined table so that a following join or order by on the joining attribute need not sort it
+		setOrderedOn(joinedTable, Arrays.asList(t1Column, t2Column));
+		return joinedTable;
+	}
+
+	// this returns the tuples of a table in ascending order of a column, a table in memory is sorted in memory and a table on disk is sorted by the external merge sort
+	private static RowSource orderedTuples(Table table, String column, Function<String, Object> key) throws IOException {
+		boolean inMemory = table.tableFilePath == null || !table.tableTuples.isEmpty();
+		if(isOrderedOn(table, column)){
+			if(!inMemory)
+				return () -> table.returnTuple();
+			Iterator<String> tuples = table.tableTuples.iterator();
+			return () -> tuples.hasNext() ? tuples.next() : null;
+		}
+
+		if(!inMemory){
+			List<String> orderByList = new ArrayList<String>();
+			orderByList.add(column);
+			Table sortedTable = ExternalSort.performExternalMergeSort(table, orderByList);
+			if(sortedTable == null)
+				return () -> null;
+			return () -> sortedTable.returnTuple();
+		}
+
+		// extract the key of every tuple once and sort the tuples by it, equal keys keep the order of the tuples
+		ArrayList<String> tuples = table.tableTuples;
+		Object[] keys = new Object[tuples.size()];
+		Integer[] rows = new Integer[tuples.size()];
+		for(int row = 0; row < rows.length; row++){
+			keys[row] = key.apply(tuples.get(row));
+			rows[row] = row;
+		}
+		Arrays.sort(rows, (a, b) -> compareKeys(keys[a], keys[b]));
+		int[] position = new int[1];
+		return () -> position[0] < rows.length ? tuples.get(rows[position[0]++]) : null;
+	}
+
+	// this compares two typed values of the joining attribute
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static int compareKeys(Object key1, Object key2) {
+		return ((Comparable) key1).compareTo(key2);
+	}
+}
@@ -8,14 +8,24 @@ import java.io.IOException;
 import java.io.ObjectInputStream.GetField;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 
 import jdbm.PrimaryTreeMap;
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.operations.ExpressionCompiler;
+import edu.buffalo.cse562.operations.Selection;
+import edu.buffalo.cse562.storage.ZoneMap;
+import edu.buffalo.cse562.util.DateUtils;
 import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.parser.ParseException;
 import net.sf.jsqlparser.statement.create.table.Index;
@@ -39,6 +49,7 @@ import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
 import net.sf.jsqlparser.expression.operators.relational.MinorThan;
 import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
 import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
 
 // This class is used for performing the selection operation on a given table
 public class WhereOperation {
@@ -58,7 +69,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 		
 		String column = null;
 		String table =  null;
-		String[] date = new String[2]; 
+		int[] date = new int[2]; 
 		
 		
 		for(Expression exp:nonJoinExp)
@@ -88,7 +99,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 								{
 									rightExpressions.add(rightVal);
 									//count++;
-									date[0] = rightVal.split("\\'")[1];
+									date[0] = foldDate(((GreaterThan) exp).getRightExpression());
 								}
 						/*else{
 							return null;
@@ -120,7 +131,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 								//idx.get(rightExp);
 									rightExpressions.add(rightVal);
 									//count++;
-									date[0] = rightVal.split("\\'")[1];
+									date[0] = foldDate(((GreaterThanEquals) exp).getRightExpression());
 								}
 						/*else{
 							return null;
@@ -152,7 +163,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 								//idx.get(rightExp);
 									rightExpressions.add(rightVal);
 									//count++;
-									date[1] = rightVal.split("\\'")[1];
+									date[1] = foldDate(((MinorThan) exp).getRightExpression());
 								}
 						/*else{
 							return null;
@@ -184,7 +195,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 								//idx.get(rightExp);
 									rightExpressions.add(rightVal);
 									//count++;
-									date[1] = rightVal.split("\\'")[1];
+									date[1] = foldDate(((MinorThanEquals) exp).getRightExpression());
 								}
 						/*else{
 							return null;
@@ -258,67 +269,11 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 
 
 
-			String minDate[] = date[0].split("-");
-			String maxDate[] = date[1].split("-");
-			String tupleDate[] = key.split("-");
-				
-
-			if (Integer.parseInt(tupleDate[0]) < Integer.parseInt(minDate[0])) {
-				/*for(String str:indexMap.get(key)){
-					System.out.println(str);}*/
-			} else if (Integer.parseInt(tupleDate[0]) == Integer.parseInt(minDate[0])) {
-				
-				if (Integer.parseInt(tupleDate[1]) < Integer.parseInt(minDate[1])) {
-				} else if (Integer.parseInt(tupleDate[1]) == Integer.parseInt(minDate[1])) {
-					if (Integer.parseInt(tupleDate[2]) < Integer.parseInt(minDate[2])) {
-					} else {
-						if(isTpch7){
-							if(maxEqualDateSatisfy(maxDate,tupleDate)){
-								for(String str:indexMap.get(key)){
-									resultTable.add(str);
-								}
-							}
-						}else{
-							if(maxDateSatisfy(maxDate,tupleDate)){
-								for(String str:indexMap.get(key)){
-									resultTable.add(str);
-								}
-							}
-						}
-						
-					}
-				} else {
-					
-					if(isTpch7){
-						if(maxEqualDateSatisfy(maxDate,tupleDate)){
-							for(String str:indexMap.get(key)){
-								resultTable.add(str);
-							}
-						}
-					}
-					else{
-						if(maxDateSatisfy(maxDate,tupleDate)){
-							for(String str:indexMap.get(key)){
-								resultTable.add(str);
-							}
-						}
-					}
-				}
-			} else {
-				
-				if(isTpch7){
-					if(maxEqualDateSatisfy(maxDate,tupleDate)){
-						for(String str:indexMap.get(key)){
-							resultTable.add(str);
-						}
-					}
-				}else{
-					if(maxDateSatisfy(maxDate,tupleDate)){
-						for(String str:indexMap.get(key)){
-							//System.out.println(str);
-							resultTable.add(str);
-						}
-					}
+			// this compares the index key with the bounds folded to epoch days
+			int tupleDay = DateUtils.toEpochDay(key);
+			if (tupleDay >= date[0] && (isTpch7 ? maxEqualDateSatisfy(date[1], tupleDay) : maxDateSatisfy(date[1], tupleDay))) {
+				for(String str:indexMap.get(key)){
+					resultTable.add(str);
 				}
 			}
 			
@@ -353,59 +308,16 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 	return resultTable;
 	}
 
-	private static boolean maxDateSatisfy(String[] maxDate,String[] tupleDate){
-
-								
-		if (Integer.parseInt(tupleDate[0]) > Integer.parseInt(maxDate[0])) {
-
-		} else if (Integer.parseInt(tupleDate[0]) == Integer.parseInt(maxDate[0])) {
-			if (Integer.parseInt(tupleDate[1]) > Integer.parseInt(maxDate[1])) {
-			} else if (Integer.parseInt(tupleDate[1]) == Integer.parseInt(maxDate[1])) {
-				if (Integer.parseInt(tupleDate[2]) >= Integer.parseInt(maxDate[2])) {
-				} else {
-					
-					return true;
-				}
-			} else {
-				
-				return true;
-			}
-		} else {
-			
-			return true;
-		}
-		
-		return false;
-	
+	// this tells whether a date, as an epoch day, is before the upper bound of a range
+	private static boolean maxDateSatisfy(int maxDay, int tupleDay){
+		return tupleDay < maxDay;
 	}
 	
-	private static boolean maxEqualDateSatisfy(String[] maxDate,String[] tupleDate){
-
-		
-		if (Integer.parseInt(tupleDate[0]) > Integer.parseInt(maxDate[0])) {
-
-		} else if (Integer.parseInt(tupleDate[0]) == Integer.parseInt(maxDate[0])) {
-			if (Integer.parseInt(tupleDate[1]) > Integer.parseInt(maxDate[1])) {
-			} else if (Integer.parseInt(tupleDate[1]) == Integer.parseInt(maxDate[1])) {
-				if (Integer.parseInt(tupleDate[2]) > Integer.parseInt(maxDate[2])) {
-				} else {
-					
-					return true;
-				}
-			} else {
-				
-				return true;
-			}
-		} else {
-			
-			return true;
-		}
-		
-		return false;
-	
+	// this tells whether a date, as an epoch day, is on or before the upper bound of a range
+	private static boolean maxEqualDateSatisfy(int maxDay, int tupleDay){
+		return tupleDay <= maxDay;
 	}
 	
-	
 	public static void indexUpdation(ArrayList<Expression> nonJoinExp, HashMap<String, List> tablesNameAndIndexesMap, HashMap<String,HashMap<String,PrimaryTreeMap<String, ArrayList<String>>>> tablesNameAndBTreeMap, int columnIndex, String newValue,String tableName){
 		
 		//System.out.println("IN INDEX SELECTION");
@@ -416,7 +328,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 			
 			String column = null;
 			String table =  null;
-			String[] date = new String[2]; 
+			int[] date = new int[2]; 
 			
 			
 			for(Expression exp:nonJoinExp)
@@ -448,7 +360,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 									{
 										rightExpressions.add(rightVal);
 										//count++;
-										date[0] = rightVal.split("\\'")[1];
+										date[0] = foldDate(((GreaterThan) exp).getRightExpression());
 									}
 							/*else{
 								return null;
@@ -483,7 +395,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 									//idx.get(rightExp);
 										rightExpressions.add(rightVal);
 										//count++;
-										date[0] = rightVal.split("\\'")[1];
+										date[0] = foldDate(((GreaterThanEquals) exp).getRightExpression());
 									}
 							/*else{
 								return null;
@@ -516,7 +428,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 									//idx.get(rightExp);
 										rightExpressions.add(rightVal);
 										//count++;
-										date[1] = rightVal.split("\\'")[1];
+										date[1] = foldDate(((MinorThan) exp).getRightExpression());
 									}
 							/*else{
 								return null;
@@ -551,7 +463,7 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 									//idx.get(rightExp);
 										rightExpressions.add(rightVal);
 										//count++;
-										date[1] = rightVal.split("\\'")[1];
+										date[1] = foldDate(((MinorThanEquals) exp).getRightExpression());
 									}
 							/*else{
 								return null;
@@ -626,123 +538,29 @@ public static ArrayList<String> indexSelection(ArrayList<Expression> nonJoinExp,
 //				System.out.println(key);
 
 
-				//System.out.println(date[0]);
-				String minDate[] = date[0].split("-");
-				String maxDate[] = date[1].split("-");
-				String tupleDate[] = key.split("-");
-					
-
-				if (Integer.parseInt(tupleDate[0]) < Integer.parseInt(minDate[0])) {
-					/*for(String str:indexMap.get(key)){
-						System.out.println(str);}*/
-				} else if (Integer.parseInt(tupleDate[0]) == Integer.parseInt(minDate[0])) {
-					
-					if (Integer.parseInt(tupleDate[1]) < Integer.parseInt(minDate[1])) {
-					} else if (Integer.parseInt(tupleDate[1]) == Integer.parseInt(minDate[1])) {
-						if (Integer.parseInt(tupleDate[2]) < Integer.parseInt(minDate[2])) {
-						} else {
-							/*if(isTpch7){
-								if(maxEqualDateSatisfy(maxDate,tupleDate)){
-									for(String str:indexMap.get(key)){
-										resultTable.add(str);
-									}
-								}
-							}else{*/
-								if(maxDateSatisfy(maxDate,tupleDate)){
-									ArrayList<String> list = indexMap.get(key);
-									//System.out.println(list);
-									ArrayList<String> newList = new ArrayList<>();
-									for(String str:list){
-										
-										String[] tupleArr = str.split("\\|");
-		                        		String newTuple = "";
-		                        		for (int i=0;i<tupleArr.length;i++) {
-		                        			if (i==columnIndex ){
-		                        				
-		                        				newTuple = newTuple+newValue+"|";
-		                        			}
-		                        			else {
-		                        				newTuple = newTuple+tupleArr[i]+"|";
-		                        			}
-		                        			
-		                        		}
-										
-										newList.add(newTuple.substring(0, newTuple.length()-2));
-									}
-									indexMap.put(key, newList);
-					/*				System.out.println(list.size());
-									System.out.println(newList.size());*/
-									//System.out.println(newList);
-								}
-							//}
-							
-						}
-					} else {
+				// this compares the index key with the bounds folded to epoch days
+				int tupleDay = DateUtils.toEpochDay(key);
+				if (tupleDay >= date[0] && maxDateSatisfy(date[1], tupleDay)) {
+					ArrayList<String> list = indexMap.get(key);
+					ArrayList<String> newList = new ArrayList<>();
+					for(String str:list){
 						
-						/*if(isTpch7){
-							if(maxEqualDateSatisfy(maxDate,tupleDate)){
-								for(String str:indexMap.get(key)){
-									resultTable.add(str);
-								}
-							}
-						}
-						else{*/
-							if(maxDateSatisfy(maxDate,tupleDate)){
-								ArrayList<String> list = indexMap.get(key);
-								ArrayList<String> newList = new ArrayList<>();
-								for(String str:list){
-									
-									String[] tupleArr = str.split("\\|");
-	                        		String newTuple = "";
-	                        		for (int i=0;i<tupleArr.length;i++) {
-	                        			if (i==columnIndex ){
-	                        				
-	                        				newTuple = newTuple+newValue+"|";
-	                        			}
-	                        			else {
-	                        				newTuple = newTuple+tupleArr[i]+"|";
-	                        			}
-	                        			
-	                        		}
-									
-									newList.add(newTuple.substring(0, newTuple.length()-2));
-								}
-								indexMap.put(key, newList);
-							}
-						//}
+						String[] tupleArr = str.split("\\|");
+                		String newTuple = "";
+                		for (int i=0;i<tupleArr.length;i++) {
+                			if (i==columnIndex ){
+                				
+                				newTuple = newTuple+newValue+"|";
+                			}
+                			else {
+                				newTuple = newTuple+tupleArr[i]+"|";
+                			}
+                			
+                		}
+						
+						newList.add(newTuple.substring(0, newTuple.length()-2));
 					}
-				} else {
-					
-					/*if(isTpch7){
-						if(maxEqualDateSatisfy(maxDate,tupleDate)){
-							for(String str:indexMap.get(key)){
-								resultTable.add(str);
-							}
-						}
-					}else{*/
-						if(maxDateSatisfy(maxDate,tupleDate)){
-							ArrayList<String> list = indexMap.get(key);
-							ArrayList<String> newList = new ArrayList<>();
-							for(String str:list){
-								list.remove(str);
-								String[] tupleArr = str.split("\\|");
-                        		String newTuple = "";
-                        		for (int i=0;i<tupleArr.length;i++) {
-                        			if (i==columnIndex ){
-                        				
-                        				newTuple = newTuple+newValue+"|";
-                        			}
-                        			else {
-                        				newTuple = newTuple+tupleArr[i]+"|";
-                        			}
-                        			
-                        		}
-								
-								newList.add(newTuple.substring(0, newTuple.length()-2));
-							}
-							indexMap.put(key, newList);
-						}
-					//}
+					indexMap.put(key, newList);
 				}
 				
 				
@@ -793,6 +611,8 @@ public static Table selectionOnTable(Expression expression, Table tableToApplySe
 // if the where expression is null then we don't apply any operations on the table and just return the table as is
 if(expression == null)
 return tableToApplySelectionOn;
+// this drops the blocks of the table whose zone map shows they cannot satisfy the where clause, so the evaluators below only see the remaining tuples
+tableToApplySelectionOn = skipBlocks(expression, tableToApplySelectionOn);
 // this Table contains the resultant table, obtained after applying selection operation
 File resultantTableFile = new File(tableToApplySelectionOn.tableDataDirectoryPath+System.getProperty("file.separator") + tableToApplySelectionOn.tableName + "|.tbl");
 if(!resultantTableFile.exists())
@@ -816,65 +636,20 @@ populateTable(resultantTable, tableToApplySelectionOn, listOfIndices);
 
 }
 
- else if (expression instanceof InExpression) {
-} else if (expression instanceof LikeExpression) {
-} else if (expression instanceof AndExpression) {
-// this is the AND expression extracted from the WHERE clause
-AndExpression andExpression = (AndExpression) expression;
-// this is the left expression of the AND expression
-Expression leftExpression = ((Expression) andExpression.getLeftExpression());
-// this is the right expression of the AND expression
-Expression rightExpression = ((Expression) andExpression.getRightExpression());
-// this stores the list of indices that satisfy the leftExpression
-ArrayList<Integer> leftArr = expressionEvaluator(leftExpression, tableToApplySelectionOn);
-// this stores the list of indices that satisfy the rightExpression
-ArrayList<Integer> rightArr = expressionEvaluator(rightExpression, tableToApplySelectionOn);
-// indices of the tuples  that match the where clause or satisfy the where clause 
+else if (expression instanceof AndExpression || expression instanceof OrExpression || expression instanceof InExpression
+|| expression instanceof LikeExpression || expression instanceof Between || expression instanceof IsNullExpression) {
+// the conjuncts and disjuncts are evaluated with selection vectors, each conjunct only over the tuples that survived the more selective ones before it and the disjuncts combined through a bitset, while IN lists, LIKE patterns, BETWEEN and IS NULL are compiled once into set, prefix/suffix and range checks
+Schema schema = schemaOf(tableToApplySelectionOn);
+ArrayList<Tuple> parsedTuples = ParsedTuples.of(tableToApplySelectionOn);
+// indices of the tuples that satisfy the where clause, counted from 1 like the other evaluators do
 ArrayList<Integer> listOfIndices = new ArrayList<Integer>();
-//System.out.println(leftExpression);
-//System.out.println(leftArr);
-//System.out.println(rightExpression);
-//System.out.println(rightArr);
-// the following nested loop is used to find the intersection of the two list indices
-for (int i : leftArr) {
-if (rightArr.contains(i)) {
-listOfIndices.add(i);
+for (int i : Selection.select(expression, schema, parsedTuples)) {
+listOfIndices.add(i + 1);
 }
-}
-// this is used to populate the resultant table with the indices in the listOfIndices
 populateTable(resultantTable, tableToApplySelectionOn, listOfIndices);
 
-} else if (expression instanceof OrExpression) {
-OrExpression orExpression = (OrExpression) expression;
-Expression leftExpression = ((Expression) orExpression.getLeftExpression());
-Expression rightExpression = ((Expression) orExpression.getRightExpression());
-// this stores the list of indices that satisfy the leftExpression
-ArrayList<Integer> leftArr = expressionEvaluator(leftExpression, tableToApplySelectionOn);
-// this stores the list of indices that satisfy the rightExpression
-ArrayList<Integer> rightArr = expressionEvaluator(rightExpression, tableToApplySelectionOn);
-// this set is used to store the list of indices of tuples that satisfy both left and right expression
-TreeSet<Integer> set = new TreeSet<Integer>();
-for (int i : leftArr) {
-set.add(i);
-}
-for (int i : rightArr) {
-set.add(i);
-}
-
-ArrayList<Integer> listOfIndices = new ArrayList<Integer>();
-
-for (int i : set) {
-listOfIndices.add(i);
-}
-
-populateTable(resultantTable, tableToApplySelectionOn, listOfIndices);
-
-} else if (expression instanceof Between) {
-
 } else if (expression instanceof NullValue) {
 
-} else if (expression instanceof IsNullExpression) {
-
 }
 // change the name of the resultant table to be the name of the table on which you applied selection conditions, this is done to extract the join conditions
 resultantTable.tableName = tableToApplySelectionOn.tableName;
@@ -882,6 +657,32 @@ resultantTable.tableName = tableToApplySelectionOn.tableName;
 return resultantTable;
 }
 
+// this method returns a table holding only the tuples of the blocks that the zone map of the table allows for the expression, or the table itself if no block can be skipped
+private static Table skipBlocks(Expression expression, Table tableToApplySelectionOn) {
+ZoneMap zoneMap = Main.tablesNameAndZoneMap.get(tableToApplySelectionOn.tableName.toLowerCase());
+// the zone map describes the base table in file order, so it is of no use once tuples were filtered or joined
+if (zoneMap == null || zoneMap.getRowCount() != tableToApplySelectionOn.tableTuples.size())
+return tableToApplySelectionOn;
+BitSet blocks = zoneMap.candidateBlocks(expression, tableToApplySelectionOn.columnIndexMap);
+if (blocks.cardinality() == zoneMap.getBlockCount())
+return tableToApplySelectionOn;
+Table skippedTable = new Table(tableToApplySelectionOn);
+skippedTable.tableTuples = new ArrayList<String>();
+// the typed tuples of the remaining blocks are kept too when the table was already parsed
+ArrayList<Tuple> parsedTuples = ParsedTuples.ifParsed(tableToApplySelectionOn);
+ArrayList<Tuple> skippedTuples = parsedTuples == null ? null : new ArrayList<Tuple>();
+for (int block = blocks.nextSetBit(0); block >= 0; block = blocks.nextSetBit(block + 1)) {
+int end = Math.min(tableToApplySelectionOn.tableTuples.size(), (block + 1) * ZoneMap.BLOCK_SIZE);
+skippedTable.tableTuples.addAll(tableToApplySelectionOn.tableTuples.subList(block * ZoneMap.BLOCK_SIZE, end));
+if (skippedTuples != null)
+skippedTuples.addAll(parsedTuples.subList(block * ZoneMap.BLOCK_SIZE, end));
+}
+if (skippedTuples != null)
+ParsedTuples.put(skippedTable, skippedTuples);
+SortMergeJoin.keepOrder(tableToApplySelectionOn, skippedTable);
+return skippedTable;
+}
+
 // this method is used to evaluate expression recursively, it does logical, arithmetic and relational operations, and returns a list of indices that satisfy all the conditions
 private static ArrayList<Integer> expressionEvaluator(Expression expression, Table tableToApplySelectionOn) throws IOException, ParseException {
 // this is the actual list of indices that stores the indices of the tuples that satisfy all the conditions
@@ -917,6 +718,11 @@ String type = tableToApplySelectionOn.columnDescriptionList.get(tableToApplySele
 int tupleNo = 0;
 ArrayList<String> tableTuples = tableToApplySelectionOn.tableTuples;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
+// this folds a date literal on the right to its epoch day once, before the tuples are scanned
+int rightDay = 0;
+if (type.equalsIgnoreCase("date") && !tableToApplySelectionOn.columnIndexMap.containsKey(rightVal.toLowerCase())) {
+rightDay = foldDate(rightExpression);
+}
 for(String tuple:tableTuples){
 tupleNo++;
 String array[] = tuple.split("\\|");
@@ -948,16 +754,12 @@ listOfIndices.add(tupleNo);
 }
 
 } else if (type.equalsIgnoreCase("date")) {
-String leftDate[] = array[index].split("-");
-String rightDate[] = null;
+// this compares the dates as epoch days
+int leftDay = DateUtils.toEpochDay(array[index]);
 if (tableToApplySelectionOn.columnIndexMap.containsKey(rightVal.toLowerCase())) {
-rightDate = rightArray[rightIndex].split("-");
-}
-else{
-rightDate = rightArray[rightIndex].substring(6, rightArray[rightIndex].length() - 2).split("-");
+rightDay = DateUtils.toEpochDay(rightArray[rightIndex]);
 }
-
-if (Integer.parseInt(leftDate[0]) == Integer.parseInt(rightDate[0]) && Integer.parseInt(leftDate[1]) == Integer.parseInt(rightDate[1]) && Integer.parseInt(leftDate[2]) == Integer.parseInt(rightDate[2])) {
+if (leftDay == rightDay) {
 listOfIndices.add(tupleNo);
 }
 }
@@ -983,6 +785,11 @@ String type = tableToApplySelectionOn.columnDescriptionList.get(tableToApplySele
 int tupleNo = 0;
 ArrayList<String> tableTuples = tableToApplySelectionOn.tableTuples;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
+// this folds a date literal on the right to its epoch day once, before the tuples are scanned
+int rightDay = 0;
+if (type.equalsIgnoreCase("date") && !tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
+rightDay = foldDate(rightExpression);
+}
 for(String tuple:tableTuples){
 tupleNo++;
 String array[] = tuple.split("\\|");
@@ -1014,16 +821,12 @@ listOfIndices.add(tupleNo);
 }
 
 } else if (type.equalsIgnoreCase("date")) {
-String leftDate[] = array[index].split("-");
-String rightDate[] = null;
+// this compares the dates as epoch days
+int leftDay = DateUtils.toEpochDay(array[index]);
 if (tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
-rightDate = rightArray[rightIndex].split("-");
+rightDay = DateUtils.toEpochDay(rightArray[rightIndex]);
 }
-else{
-rightDate = rightArray[rightIndex].substring(6, rightArray[rightIndex].length() - 2).split("-");
-}
-
-if (Integer.parseInt(leftDate[0]) != Integer.parseInt(rightDate[0]) && Integer.parseInt(leftDate[1]) == Integer.parseInt(rightDate[1]) && Integer.parseInt(leftDate[2]) != Integer.parseInt(rightDate[2])) {
+if (leftDay != rightDay) {
 listOfIndices.add(tupleNo);
 }
 }
@@ -1048,6 +851,11 @@ int tupleNo = 0;
 
 ArrayList<String> tableTuples = tableToApplySelectionOn.tableTuples;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
+// this folds a date literal on the right to its epoch day once, before the tuples are scanned
+int rightDay = 0;
+if (type.equalsIgnoreCase("date") && !tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
+rightDay = foldDate(rightExpression);
+}
 for(String tuple:tableTuples){
 tupleNo++;
 String array[] = tuple.split("\\|");
@@ -1069,28 +877,12 @@ listOfIndices.add(tupleNo);
 }
 } else if (type.equalsIgnoreCase("date")) {
 
-String leftDate[] = array[index].split("-");
-String rightDate[] = null;
+// this compares the dates as epoch days
+int leftDay = DateUtils.toEpochDay(array[index]);
 if (tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
-rightDate = rightArray[rightIndex].split("-");
-}
-else{
-rightDate = rightArray[rightIndex].substring(6, rightArray[rightIndex].length() - 2).split("-");
-}
-
-if (Integer.parseInt(leftDate[0]) < Integer.parseInt(rightDate[0])) {
-
-} else if (Integer.parseInt(leftDate[0]) == Integer.parseInt(rightDate[0])) {
-if (Integer.parseInt(leftDate[1]) < Integer.parseInt(rightDate[1])) {
-} else if (Integer.parseInt(leftDate[1]) == Integer.parseInt(rightDate[1])) {
-if (Integer.parseInt(leftDate[2]) < Integer.parseInt(rightDate[2])) {
-} else {
-listOfIndices.add(tupleNo);
+rightDay = DateUtils.toEpochDay(rightArray[rightIndex]);
 }
-} else {
-listOfIndices.add(tupleNo);
-}
-} else {
+if (leftDay >= rightDay) {
 listOfIndices.add(tupleNo);
 }
 }
@@ -1116,6 +908,11 @@ int tupleNo = 0;
 
 ArrayList<String> tableTuples = tableToApplySelectionOn.tableTuples;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
+// this folds a date literal on the right to its epoch day once, before the tuples are scanned
+int rightDay = 0;
+if (type.equalsIgnoreCase("date") && !tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
+rightDay = foldDate(rightExpression);
+}
 for(String tuple:tableTuples){
 tupleNo++;
 String array[] = tuple.split("\\|");
@@ -1138,28 +935,12 @@ listOfIndices.add(tupleNo);
 }
 
 } else if (type.equalsIgnoreCase("date")) {
-String leftDate[] = array[index].split("-");
-String rightDate[] = null;
+// this compares the dates as epoch days
+int leftDay = DateUtils.toEpochDay(array[index]);
 if (tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
-rightDate = rightArray[rightIndex].split("-");
+rightDay = DateUtils.toEpochDay(rightArray[rightIndex]);
 }
-else{
-rightDate = rightArray[rightIndex].substring(6, rightArray[rightIndex].length() - 2).split("-");
-}
-
-if (Integer.parseInt(leftDate[0]) < Integer.parseInt(rightDate[0])) {
-
-} else if (Integer.parseInt(leftDate[0]) == Integer.parseInt(rightDate[0])) {
-if (Integer.parseInt(leftDate[1]) < Integer.parseInt(rightDate[1])) {
-} else if (Integer.parseInt(leftDate[1]) == Integer.parseInt(rightDate[1])) {
-if (Integer.parseInt(leftDate[2]) <= Integer.parseInt(rightDate[2])) {
-} else {
-listOfIndices.add(tupleNo);
-}
-} else {
-listOfIndices.add(tupleNo);
-}
-} else {
+if (leftDay > rightDay) {
 listOfIndices.add(tupleNo);
 }
 }
@@ -1187,6 +968,11 @@ int tupleNo = 0;
 
 ArrayList<String> tableTuples = tableToApplySelectionOn.tableTuples;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
+// this folds a date literal on the right to its epoch day once, before the tuples are scanned
+int rightDay = 0;
+if (type.equalsIgnoreCase("date") && !tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
+rightDay = foldDate(rightExpression);
+}
 for(String tuple:tableTuples){
 tupleNo++;
 String array[] = tuple.split("\\|");
@@ -1208,27 +994,12 @@ if (Double.parseDouble(array[index]) < Double.parseDouble(rightArray[rightIndex]
 listOfIndices.add(tupleNo);
 }
 } else if (type.equalsIgnoreCase("date")) {
-String leftDate[] = array[index].split("-");
-String rightDate[] = null;
+// this compares the dates as epoch days
+int leftDay = DateUtils.toEpochDay(array[index]);
 if (tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
-rightDate = rightArray[rightIndex].split("-");
-}
-else{
-rightDate = rightArray[rightIndex].substring(6, rightArray[rightIndex].length() - 2).split("-");
-}
-if (Integer.parseInt(leftDate[0]) > Integer.parseInt(rightDate[0])) {
-
-} else if (Integer.parseInt(leftDate[0]) == Integer.parseInt(rightDate[0])) {
-if (Integer.parseInt(leftDate[1]) > Integer.parseInt(rightDate[1])) {
-} else if (Integer.parseInt(leftDate[1]) == Integer.parseInt(rightDate[1])) {
-if (Integer.parseInt(leftDate[2]) >= Integer.parseInt(rightDate[2])) {
-} else {
-listOfIndices.add(tupleNo);
+rightDay = DateUtils.toEpochDay(rightArray[rightIndex]);
 }
-} else {
-listOfIndices.add(tupleNo);
-}
-} else {
+if (leftDay < rightDay) {
 listOfIndices.add(tupleNo);
 }
 }
@@ -1256,6 +1027,11 @@ int tupleNo = 0;
 
 ArrayList<String> tableTuples = tableToApplySelectionOn.tableTuples;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
+// this folds a date literal on the right to its epoch day once, before the tuples are scanned
+int rightDay = 0;
+if (type.equalsIgnoreCase("date") && !tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
+rightDay = foldDate(rightExpression);
+}
 for(String tuple:tableTuples){
 tupleNo++;
 String array[] = tuple.split("\\|");
@@ -1278,28 +1054,12 @@ if (Double.parseDouble(array[index]) <= Double.parseDouble(rightArray[rightIndex
 listOfIndices.add(tupleNo);
 }
 } else if (type.equalsIgnoreCase("date")) {
-String leftDate[] = array[index].split("-");
-String rightDate[] = null;
+// this compares the dates as epoch days
+int leftDay = DateUtils.toEpochDay(array[index]);
 if (tableToApplySelectionOn.columnIndexMap.containsKey(rightVal)) {
-rightDate = rightArray[rightIndex].split("-");
-}
-else{
-rightDate = rightArray[rightIndex].substring(6, rightArray[rightIndex].length() - 2).split("-");
-}
-
-if (Integer.parseInt(leftDate[0]) > Integer.parseInt(rightDate[0])) {
-
-} else if (Integer.parseInt(leftDate[0]) == Integer.parseInt(rightDate[0])) {
-if (Integer.parseInt(leftDate[1]) > Integer.parseInt(rightDate[1])) {
-} else if (Integer.parseInt(leftDate[1]) == Integer.parseInt(rightDate[1])) {
-if (Integer.parseInt(leftDate[2]) > Integer.parseInt(rightDate[2])) {
-} else {
-listOfIndices.add(tupleNo);
+rightDay = DateUtils.toEpochDay(rightArray[rightIndex]);
 }
-} else {
-listOfIndices.add(tupleNo);
-}
-} else {
+if (leftDay <= rightDay) {
 listOfIndices.add(tupleNo);
 }
 }
@@ -1353,288 +1113,45 @@ return listOfIndices;
 }
 
 
+// this method evaluates a comparison with arithmetic on either side, the expression is compiled once against the columns of the table and tested on the typed tuples the table was parsed into once
 private static ArrayList<Integer> alegbricExpressionEvaluator(Expression expression, Table tableToAppySelectionOn) throws IOException, ParseException {
 
 ArrayList<Integer> listOfIndices = new ArrayList<Integer>();
-String leftExp[];
-String rightExp[];
-
-if (expression instanceof GreaterThanEquals) {
-String exps[] = expression.toString().split(">=");
-ArrayList<String> left = braceExp(exps[0]);
-ArrayList<String> right = braceExp(exps[1]);
-String[] leftArr = new String[left.size()];
-String[] rightArr = new String[right.size()];
-leftArr = left.toArray(leftArr);
-rightArr = right.toArray(rightArr);
-
-leftExp = convertToPos(leftArr);
-rightExp = convertToPos(rightArr);
-//String tuple = null;
+Schema schema = schemaOf(tableToAppySelectionOn);
+Predicate<Tuple> predicate = ExpressionCompiler.compilePredicate(expression, schema);
 int tupleNo = 0;
 
-ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
-//while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
-for(String tuple:tableTuples){
-tupleNo++;
-String array[] = tuple.split("\\|");
-String evalLeftStack[] = new String[leftExp.length];
-String evalRightStack[] = new String[rightExp.length];
-
-for (int j = 0; j < leftExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(leftExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(leftExp[j]);
-evalLeftStack[j] = array[index];
-} else {
-evalLeftStack[j] = leftExp[j];
-}
-}
-
-for (int j = 0; j < rightExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(rightExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(rightExp[j]);
-evalRightStack[j] = array[index];
-} else {
-evalRightStack[j] = rightExp[j];
-}
-}
-
-if (evaluate(evalLeftStack) >= evaluate(evalRightStack)) {
-listOfIndices.add(tupleNo);
-}
-}
-
-} else if (expression instanceof GreaterThan) {
-String exps[] = expression.toString().split(">");
-ArrayList<String> left = braceExp(exps[0]);
-ArrayList<String> right = braceExp(exps[1]);
-String[] leftArr = new String[left.size()];
-String[] rightArr = new String[right.size()];
-leftArr = left.toArray(leftArr);
-rightArr = right.toArray(rightArr);
-
-leftExp = convertToPos(leftArr);
-rightExp = convertToPos(rightArr);
-
-String evalLeftStack[] = new String[leftExp.length];
-String evalRightStack[] = new String[rightExp.length];
-
-//String tuple = null;
-int tupleNo = 0;
-
-ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
-//while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
-for(String tuple:tableTuples){
-tupleNo++;
-
-String array[] = tuple.split("\\|");
-
-for (int j = 0; j < leftExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(leftExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(leftExp[j]);
-evalLeftStack[j] = array[index];
-} else {
-evalLeftStack[j] = leftExp[j];
-}
-
-}
-for (int j = 0; j < rightExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(rightExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(rightExp[j]);
-evalRightStack[j] = array[index];
-} else {
-evalRightStack[j] = rightExp[j];
-}
-}
-
-if (evaluate(evalLeftStack) > evaluate(evalRightStack)) {
-listOfIndices.add(tupleNo);
-}
-
-}
-
-} else if (expression instanceof MinorThanEquals) {
-String exps[] = expression.toString().split("<=");
-ArrayList<String> left = braceExp(exps[0]);
-ArrayList<String> right = braceExp(exps[1]);
-String[] leftArr = new String[left.size()];
-String[] rightArr = new String[right.size()];
-leftArr = left.toArray(leftArr);
-rightArr = right.toArray(rightArr);
-
-leftExp = convertToPos(leftArr);
-rightExp = convertToPos(rightArr);
-
-//String tuple = null;
-int tupleNo = 0;
-
-ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
-//while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
-for(String tuple:tableTuples){
-tupleNo++;
-
-String array[] = tuple.split("\\|");
-String evalLeftStack[] = new String[leftExp.length];
-String evalRightStack[] = new String[rightExp.length];
-
-for (int j = 0; j < leftExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(leftExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(leftExp[j]);
-evalLeftStack[j] = array[index];
-} else {
-evalLeftStack[j] = leftExp[j];
-}
-
-}
-for (int j = 0; j < rightExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(rightExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(rightExp[j]);
-evalRightStack[j] = array[index];
-} else {
-evalRightStack[j] = rightExp[j];
-}
-}
-
-if (evaluate(evalLeftStack) <= evaluate(evalRightStack)) {
-listOfIndices.add(tupleNo);
-}
-
-}
-}
-
-else if (expression instanceof MinorThan) {
-String exps[] = expression.toString().split("<");
-ArrayList<String> left = braceExp(exps[0]);
-ArrayList<String> right = braceExp(exps[1]);
-String[] leftArr = new String[left.size()];
-String[] rightArr = new String[right.size()];
-leftArr = left.toArray(leftArr);
-rightArr = right.toArray(rightArr);
-leftExp = convertToPos(leftArr);
-rightExp = convertToPos(rightArr);
-
-//String tuple = null;
-int tupleNo = 0;
-
-ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
-//while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
-for(String tuple:tableTuples){
+for(Tuple tuple:ParsedTuples.of(tableToAppySelectionOn)){
 tupleNo++;
-String array[] = tuple.split("\\|");
-String evalLeftStack[] = new String[leftExp.length];
-String evalRightStack[] = new String[rightExp.length];
-
-for (int j = 0; j < leftExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(leftExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(leftExp[j]);
-evalLeftStack[j] = array[index];
-} else {
-evalLeftStack[j] = leftExp[j];
-}
-}
-for (int j = 0; j < rightExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(rightExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(rightExp[j]);
-evalRightStack[j] = array[index];
-} else {
-evalRightStack[j] = rightExp[j];
-}
-}
-
-if (evaluate(evalLeftStack) < evaluate(evalRightStack)) {
+if (predicate.test(tuple)) {
 listOfIndices.add(tupleNo);
 }
 }
-}
 
-else if (expression instanceof EqualsTo) {
-String exps[] = expression.toString().split("=");
-ArrayList<String> left = braceExp(exps[0]);
-ArrayList<String> right = braceExp(exps[1]);
-String[] leftArr = new String[left.size()];
-String[] rightArr = new String[right.size()];
-leftArr = left.toArray(leftArr);
-rightArr = right.toArray(rightArr);
-leftExp = convertToPos(leftArr);
-rightExp = convertToPos(rightArr);
-//String tuple = null;
-int tupleNo = 0;
-
-ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
-//while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
-for(String tuple:tableTuples){
-tupleNo++;
-String array[] = tuple.split("\\|");
-String evalLeftStack[] = new String[leftExp.length];
-String evalRightStack[] = new String[rightExp.length];
-
-for (int j = 0; j < leftExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(leftExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(leftExp[j]);
-evalLeftStack[j] = array[index];
-} else {
-evalLeftStack[j] = leftExp[j];
-}
-}
-for (int j = 0; j < rightExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(rightExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(rightExp[j]);
-evalRightStack[j] = array[index];
-} else {
-evalRightStack[j] = rightExp[j];
-}
+return listOfIndices;
 }
 
-if (evaluate(evalLeftStack) == evaluate(evalRightStack)) {
-listOfIndices.add(tupleNo);
+// this method folds the constant date on the right of a comparison, such as DATE '1994-01-01' or {d '1994-01-01'}, to its epoch day once before the tuples are scanned
+private static int foldDate(Expression rightExpression) {
+Integer day = DateUtils.fold(rightExpression);
+if (day == null) {
+throw new IllegalArgumentException("Not a date: " + rightExpression);
 }
+return day;
 }
-} else if(expression instanceof NotEqualsTo){
 
-String exps[] = expression.toString().split("<>");
-ArrayList<String> left = braceExp(exps[0]);
-ArrayList<String> right = braceExp(exps[1]);
-String[] leftArr = new String[left.size()];
-String[] rightArr = new String[right.size()];
-leftArr = left.toArray(leftArr);
-rightArr = right.toArray(rightArr);
-leftExp = convertToPos(leftArr);
-rightExp = convertToPos(rightArr);
-//String tuple = null;
-int tupleNo = 0;
-
-ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
-//while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
-for(String tuple:tableTuples){
-tupleNo++;
-String array[] = tuple.split("\\|");
-String evalLeftStack[] = new String[leftExp.length];
-String evalRightStack[] = new String[rightExp.length];
-
-for (int j = 0; j < leftExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(leftExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(leftExp[j]);
-evalLeftStack[j] = array[index];
-} else {
-evalLeftStack[j] = leftExp[j];
-}
-}
-for (int j = 0; j < rightExp.length; j++) {
-if (tableToAppySelectionOn.columnIndexMap.containsKey(rightExp[j])) {
-int index = tableToAppySelectionOn.columnIndexMap.get(rightExp[j]);
-evalRightStack[j] = array[index];
-} else {
-evalRightStack[j] = rightExp[j];
-}
-}
-
-if (evaluate(evalLeftStack) != evaluate(evalRightStack)) {
-listOfIndices.add(tupleNo);
+// this method builds the schema of a table, naming each column the way the columnIndexMap of the table does, so that expressions can be compiled against it
+static Schema schemaOf(Table table) {
+String[] names = new String[table.columnDescriptionList.size()];
+for (Entry<String, Integer> column : table.columnIndexMap.entrySet()) {
+names[column.getValue()] = column.getKey();
 }
+for (int i = 0; i < names.length; i++) {
+if (names[i] == null) {
+names[i] = table.columnDescriptionList.get(i).getColumnName();
 }
 }
-
-return listOfIndices;
+return new Schema(Arrays.asList(names), DataType.of(table.columnDescriptionList), DataType.scales(table.columnDescriptionList));
 }
 
 public static ArrayList<String> braceExp(String str) throws ParseException {
@@ -1856,12 +1373,20 @@ int tupleNo = 0;
 StringBuilder sb = new StringBuilder("");
 int count = 0;
 ArrayList<String> tableTuples = tableToAppySelectionOn.tableTuples;
+// when the tuples were parsed to evaluate the where clause, the typed tuples that satisfy it are handed on to the resultant table
+ArrayList<Tuple> parsedTuples = ParsedTuples.ifParsed(tableToAppySelectionOn);
+ArrayList<Tuple> resultantTuples = parsedTuples == null ? null : new ArrayList<Tuple>(listOfIndices.size());
+// the indices are in ascending order, so this walks them alongside the tuples instead of searching the list for every tuple
+int nextIndex = 0;
 //while ((tuple = tableToApplySelectionOn.returnTuple()) != null) {
 for(String tuple:tableTuples){	
 tupleNo++;
 // this is the string that I need to write down
-if (listOfIndices.contains(tupleNo)) {
+if (nextIndex < listOfIndices.size() && listOfIndices.get(nextIndex) == tupleNo) {
+nextIndex++;
 resultantTable.tableTuples.add(tuple);
+if (resultantTuples != null)
+resultantTuples.add(parsedTuples.get(tupleNo - 1));
 /*bwr.write(tuple);
 bwr.write("\n");
 bwr.flush();*/
@@ -1877,6 +1402,10 @@ sb.append(tuple + "\n");
 }*/
 }
 }
+if (resultantTuples != null)
+ParsedTuples.put(resultantTable, resultantTuples);
+// the selected tuples keep the order of the table they were selected from
+SortMergeJoin.keepOrder(tableToAppySelectionOn, resultantTable);
 // if the above condition is not satisfied, then just write the string builder to the file
 count = 0;
 /*bwr.write(sb.toString());
@@ -2074,16 +1603,10 @@ public static ArrayList<String> evaluateJoinCondition (Table table1,Table table2
 System.out.println("table 2 name:" + table2.tableName);*/
 ArrayList<String> arrayList = new ArrayList<String>();
 
-HashSet<String> set = extractCond(expression);
-for(String s: set)
+// only an equality between two columns in a conjunct of the where clause joins the tables, the tables are joined on all of their shared attributes at once
+for(EqualsTo equalsTo: extractEquiJoins(expression))
 {
-String[] strArr=null;
-if(s.contains("="))
-{
-strArr=s.split("=");
-for (int i = 0; i < strArr.length; i++) {
-strArr[i] = strArr[i].trim();
-}
+String[] strArr={equalsTo.getLeftExpression().toString(), equalsTo.getRightExpression().toString()};
 if(!table1.tableName.contains("|"))
 {
 
@@ -2093,10 +1616,7 @@ if ((strArr[0].split("\\.")[0].equalsIgnoreCase(table1.tableName) || strArr[0].s
 String FirsttableName=table1.tableName;
 String secondtableName=table2.tableName;
 String attr=strArr[0].substring(strArr[0].indexOf(".")+1,strArr[0].length());
-arrayList.add(FirsttableName);
-arrayList.add(secondtableName);
-arrayList.add(attr);
-return arrayList;
+addJoinCondition(arrayList, FirsttableName, secondtableName, attr);
 
 }
 
@@ -2113,20 +1633,49 @@ if((strArr[0].split("\\.")[0].equalsIgnoreCase(newTableName[i])&&strArr[1].split
 String FirsttableName=newTableName[i];
 String secondtableName=table2.tableName;
 String attr=strArr[0].substring(strArr[0].indexOf(".")+1,strArr[0].length());
-arrayList.add(FirsttableName);
-arrayList.add(secondtableName);
-arrayList.add(attr);
-return arrayList;
-
+addJoinCondition(arrayList, FirsttableName, secondtableName, attr);
+break;
 }
 
 }
 }
-}
 
 
 }
 
 return arrayList;
 }
+
+// this collects the equalities between two columns that are conjuncts of an expression, an equality under an OR or between other expressions does not join tables
+private static ArrayList<EqualsTo> extractEquiJoins(Expression expression)
+{
+ArrayList<EqualsTo> equiJoins = new ArrayList<EqualsTo>();
+if(expression instanceof AndExpression)
+{
+equiJoins.addAll(extractEquiJoins(((AndExpression) expression).getLeftExpression()));
+equiJoins.addAll(extractEquiJoins(((AndExpression) expression).getRightExpression()));
+}
+else if(expression instanceof Parenthesis)
+{
+equiJoins.addAll(extractEquiJoins(((Parenthesis) expression).getExpression()));
+}
+else if(expression instanceof EqualsTo && ((EqualsTo) expression).getLeftExpression() instanceof Column && ((EqualsTo) expression).getRightExpression() instanceof Column)
+{
+equiJoins.add((EqualsTo) expression);
+}
+return equiJoins;
+}
+
+// this adds a join condition to the list of join conditions as a name of a table in table1, a name of a table in table2 and the attribute, unless it is already present
+private static void addJoinCondition(ArrayList<String> joinConditions, String firstTableName, String secondTableName, String attr)
+{
+for(int i=0;i<joinConditions.size();i+=3)
+{
+if(joinConditions.get(i).equals(firstTableName)&&joinConditions.get(i+1).equals(secondTableName)&&joinConditions.get(i+2).equalsIgnoreCase(attr))
+return;
+}
+joinConditions.add(firstTableName);
+joinConditions.add(secondTableName);
+joinConditions.add(attr);
+}
 }
@@ -0,0 +1,78 @@
+package edu.buffalo.cse562.model;
+
+import edu.buffalo.cse562.storage.ColumnarFormat;
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.util.List;
+
+/**
+ * The physical value types the engine stores and evaluates.
+ * Every SQL column type declared in a CREATE TABLE statement maps onto one of these.
+ */
+public enum DataType {
+    INT,
+    DECIMAL,
+    DATE,
+    STRING;
+
+    /**
+     * Resolves the physical type of a declared SQL column type.
+     *
+     * @param colDataType The column type from the CREATE TABLE statement
+     * @return The matching physical type, STRING for anything that is not numeric or a date
+     */
+    public static DataType of(ColDataType colDataType) {
+        if (colDataType == null || colDataType.getDataType() == null) {
+            return STRING;
+        }
+
+        String name = colDataType.getDataType().trim().toLowerCase();
+        switch (name) {
+            case "int":
+            case "integer":
+            case "bigint":
+            case "smallint":
+                return INT;
+            case "decimal":
+            case "numeric":
+            case "double":
+            case "float":
+                return DECIMAL;
+            case "date":
+                return DATE;
+            default:
+                return STRING;
+        }
+    }
+
+    /**
+     * Resolves the physical types of a list of column definitions.
+     *
+     * @param columnDefinitions The column definitions, in table order
+     * @return The physical type of each column, in the same order
+     */
+    public static DataType[] of(List<ColumnDefinition> columnDefinitions) {
+        DataType[] types = new DataType[columnDefinitions.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = of(columnDefinitions.get(i).getColDataType());
+        }
+        return types;
+    }
+
+    /**
+     * Resolves the scale of every DECIMAL column in a list of column definitions.
+     *
+     * @param columnDefinitions The column definitions, in table order
+     * @return The declared scale of each DECIMAL column, the default scale where none is declared,
+     *         and 0 for other columns
+     */
+    public static int[] scales(List<ColumnDefinition> columnDefinitions) {
+        int[] scales = new int[columnDefinitions.size()];
+        for (int i = 0; i < scales.length; i++) {
+            ColDataType colDataType = columnDefinitions.get(i).getColDataType();
+            scales[i] = of(colDataType) == DECIMAL ? ColumnarFormat.decimalScale(colDataType) : 0;
+        }
+        return scales;
+    }
+}
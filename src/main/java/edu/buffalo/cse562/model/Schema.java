@@ -0,0 +1,184 @@
+package edu.buffalo.cse562.model;
+
+import edu.buffalo.cse562.storage.ColumnarFormat;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Names and types of the slots of the tuples an operator produces.
+ * Columns can be looked up either by their qualified name ({@code table.column}) or,
+ * when that is unambiguous, by the bare column name.
+ */
+public class Schema {
+    private final List<String> names;
+    private final DataType[] types;
+    private final int[] scales;
+    private final Map<String, Integer> indexMap;
+
+    /**
+     * Constructs a schema with DECIMAL slots at the default scale.
+     *
+     * @param names Qualified (table.column) or bare names of the slots
+     * @param types Type of each slot
+     */
+    public Schema(List<String> names, DataType[] types) {
+        this(names, types, null);
+    }
+
+    /**
+     * Constructs a schema.
+     *
+     * @param names Qualified (table.column) or bare names of the slots
+     * @param types Type of each slot
+     * @param scales Scale of each DECIMAL slot, or null for the default scale everywhere
+     */
+    public Schema(List<String> names, DataType[] types, int[] scales) {
+        if (names.size() != types.length) {
+            throw new IllegalArgumentException("Schema has " + names.size() + " names but " + types.length + " types");
+        }
+        this.names = new ArrayList<>(names.size());
+        for (String name : names) {
+            this.names.add(name.toLowerCase());
+        }
+        this.types = types;
+        this.scales = scales;
+        this.indexMap = new HashMap<>();
+
+        for (int i = 0; i < this.names.size(); i++) {
+            String name = this.names.get(i);
+            indexMap.put(name, i);
+
+            // Bare column names resolve too unless two tables share them
+            int dot = name.lastIndexOf('.');
+            if (dot >= 0) {
+                String column = name.substring(dot + 1);
+                Integer previous = indexMap.get(column);
+                if (previous == null) {
+                    indexMap.put(column, i);
+                } else if (!this.names.get(previous).equals(column)) {
+                    indexMap.put(column, -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the schema of a base table, qualifying every column with the table name.
+     *
+     * @param tableName Name (or alias) of the table
+     * @param columnDefinitions The table's columns
+     * @return The schema
+     */
+    public static Schema of(String tableName, List<ColumnDefinition> columnDefinitions) {
+        List<String> names = new ArrayList<>(columnDefinitions.size());
+        for (ColumnDefinition columnDefinition : columnDefinitions) {
+            names.add(tableName + "." + columnDefinition.getColumnName());
+        }
+        return new Schema(names, DataType.of(columnDefinitions), DataType.scales(columnDefinitions));
+    }
+
+    /**
+     * Builds the schema of a table.
+     *
+     * @param table The table
+     * @return The schema, with columns qualified by the table name
+     */
+    public static Schema of(Table table) {
+        return of(table.getTableName(), table.getColumnDefinitions());
+    }
+
+    /**
+     * Returns the slot of a column.
+     *
+     * @param name Qualified or bare column name
+     * @return The slot index, or -1 if the column is unknown or ambiguous
+     */
+    public int indexOf(String name) {
+        Integer index = indexMap.get(name.toLowerCase());
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the slot of a column, failing if it cannot be resolved.
+     *
+     * @param name Qualified or bare column name
+     * @return The slot index
+     * @throws IllegalArgumentException If the column is unknown or ambiguous
+     */
+    public int resolve(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown or ambiguous column " + name + " in " + names);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the schema of the tuples a join produces.
+     *
+     * @param other The schema whose slots follow this schema's slots
+     * @return The combined schema
+     */
+    public Schema concat(Schema other) {
+        List<String> joinedNames = new ArrayList<>(names);
+        joinedNames.addAll(other.names);
+        DataType[] joinedTypes = Arrays.copyOf(types, types.length + other.types.length);
+        System.arraycopy(other.types, 0, joinedTypes, types.length, other.types.length);
+        int[] joinedScales = null;
+        if (scales != null || other.scales != null) {
+            joinedScales = new int[joinedTypes.length];
+            for (int i = 0; i < joinedScales.length; i++) {
+                joinedScales[i] = i < types.length ? getScale(i) : other.getScale(i - types.length);
+            }
+        }
+        return new Schema(joinedNames, joinedTypes, joinedScales);
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public DataType getType(int index) {
+        return types[index];
+    }
+
+    public DataType[] getTypes() {
+        return types;
+    }
+
+    /**
+     * Returns the scale of a slot; 0 for anything but DECIMAL.
+     */
+    public int getScale(int index) {
+        if (types[index] != DataType.DECIMAL) {
+            return 0;
+        }
+        return scales == null ? ColumnarFormat.DEFAULT_DECIMAL_SCALE : scales[index];
+    }
+
+    /**
+     * Returns the scale of every slot, to be shared by the tuples of this schema; null means the default scale.
+     */
+    public int[] getScales() {
+        return scales;
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
@@ -1,5 +1,12 @@
 package edu.buffalo.cse562.model;
 
+import edu.buffalo.cse562.storage.ColumnVector;
+import edu.buffalo.cse562.storage.ColumnarFormat;
+import edu.buffalo.cse562.storage.ColumnarTableReader;
+import edu.buffalo.cse562.storage.MappedTableScanner;
+import edu.buffalo.cse562.storage.ParallelTableLoader;
+import edu.buffalo.cse562.storage.StringDictionary;
+import edu.buffalo.cse562.storage.ZoneMap;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 
 import java.io.BufferedReader;
@@ -9,6 +16,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.stream.Collectors;
 
 /**
  * Represents a database table with its structure and data.
@@ -22,6 +30,10 @@ public class Table {
     private ArrayList<ColumnDefinition> columnDefinitions;
     private HashMap<String, Integer> columnIndexMap;
     private ArrayList<String> tuples;
+    private ColumnVector[] columns;
+    private ArrayList<Tuple> rows;
+    private StringDictionary[] dictionaries;
+    private ZoneMap zoneMap;
     private FileReader fileReader;
     private BufferedReader bufferedReader;
 
@@ -58,29 +70,37 @@ public class Table {
         this.columnDefinitions = tableToClone.columnDefinitions;
         this.columnIndexMap = tableToClone.columnIndexMap;
         this.tuples = tableToClone.tuples;
+        this.columns = tableToClone.columns;
+        this.rows = tableToClone.rows;
+        this.dictionaries = tableToClone.dictionaries;
+        this.zoneMap = tableToClone.zoneMap;
         this.fileReader = null;
         this.bufferedReader = null;
     }
 
     /**
-     * Populates the table's tuples by reading from the data file.
+     * Populates the table's data. When the build phase has written column files for the table
+     * into the data directory, the typed columns are loaded; otherwise the data file is read,
+     * in parallel chunks when it is large. A zone map written by the build phase is loaded either way.
      *
      * @throws IOException If an I/O error occurs
      */
     public void populateTable() throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(dataFile))) {
-            String tuple;
-            while ((tuple = br.readLine()) != null) {
-                tuples.add(tuple);
-            }
+        zoneMap = ZoneMap.read(dataDirectory, tableName);
+        if (ColumnarFormat.exists(dataDirectory, tableName, columnDefinitions)) {
+            columns = ColumnarTableReader.read(dataDirectory, tableName, columnDefinitions);
+            return;
         }
+
+        // Large files are split into newline-aligned ranges that are read concurrently
+        tuples.addAll(ParallelTableLoader.loadLines(dataFile, Math.max(columnCount, columnDefinitions.size())));
     }
 
     /**
      * Reads and prints all tuples in the table.
      */
     public void readTable() {
-        for (String tuple : tuples) {
+        for (String tuple : getTuples()) {
             System.out.println(tuple);
         }
     }
@@ -115,6 +135,17 @@ public class Table {
         return bufferedReader != null ? bufferedReader.readLine() : null;
     }
 
+    /**
+     * Opens a memory mapped scanner over the table file. Unlike {@link #getNextTuple()} it exposes
+     * each row's fields as byte slices instead of decoding the row into a String.
+     *
+     * @return A scanner positioned before the first row; the caller closes it
+     * @throws IOException If the table file cannot be opened
+     */
+    public MappedTableScanner openScanner() throws IOException {
+        return new MappedTableScanner(dataFile, Math.max(columnCount, columnDefinitions.size()));
+    }
+
     /**
      * Closes the file readers.
      *
@@ -163,11 +194,141 @@ public class Table {
         return columnIndexMap;
     }
 
+    /**
+     * Returns the table's rows as '|' delimited strings. Tables loaded from column files
+     * or produced as typed rows build these strings on first access.
+     *
+     * @return The rows of the table
+     */
     public ArrayList<String> getTuples() {
+        if (tuples.isEmpty() && rows != null && columns == null) {
+            tuples.ensureCapacity(rows.size());
+            for (Tuple row : rows) {
+                tuples.add(row.toString());
+            }
+        } else if (tuples.isEmpty() && columns != null) {
+            int rowCount = getRowCount();
+            tuples.ensureCapacity(rowCount);
+            StringBuilder sb = new StringBuilder();
+            for (int row = 0; row < rowCount; row++) {
+                sb.setLength(0);
+                for (int col = 0; col < columns.length; col++) {
+                    if (col > 0) {
+                        sb.append('|');
+                    }
+                    columns[col].appendTo(sb, row);
+                }
+                tuples.add(sb.toString());
+            }
+        }
         return tuples;
     }
 
     public void setTuples(ArrayList<String> tuples) {
         this.tuples = tuples;
     }
+
+    /**
+     * Returns the physical type of each column, in table order.
+     *
+     * @return The column types
+     */
+    public DataType[] getColumnTypes() {
+        return DataType.of(columnDefinitions);
+    }
+
+    /**
+     * Returns the scale of each DECIMAL column, in table order.
+     *
+     * @return The column scales, 0 for columns that are not DECIMAL
+     */
+    public int[] getColumnScales() {
+        return DataType.scales(columnDefinitions);
+    }
+
+    /**
+     * Returns the table's rows parsed into typed tuples. The rows are parsed on first access
+     * and kept, so operators never split the same line twice. String columns with few distinct
+     * values are dictionary encoded, either by the build phase or here while loading.
+     *
+     * @return The typed rows of the table
+     */
+    public ArrayList<Tuple> getRows() {
+        if (rows == null) {
+            int rowCount = getRowCount();
+            rows = new ArrayList<>(rowCount);
+            if (columns != null) {
+                DataType[] types = new DataType[columns.length];
+                int[] scales = new int[columns.length];
+                dictionaries = new StringDictionary[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    types[i] = columns[i].getType();
+                    scales[i] = columns[i].getScale();
+                    dictionaries[i] = columns[i].getDictionary();
+                }
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(Tuple.fromColumns(columns, types, scales, dictionaries, row));
+                }
+            } else {
+                DataType[] types = getColumnTypes();
+                int[] scales = getColumnScales();
+                rows = tuples.parallelStream()
+                    .map(tuple -> Tuple.parse(tuple, types, scales))
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+                dictionaries = StringDictionary.buildAll(rows, types);
+                if (dictionaries != null) {
+                    StringDictionary[] encoded = dictionaries;
+                    rows.parallelStream().forEach(row -> row.encode(encoded));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the dictionary of each column once the rows have been loaded.
+     *
+     * @return One dictionary per column, null for columns stored as plain strings, or null if none is encoded
+     */
+    public StringDictionary[] getDictionaries() {
+        return dictionaries;
+    }
+
+    /**
+     * Returns the zone map of the table's rows in file order.
+     *
+     * @return The zone map, or null if the build phase did not write one or the rows no longer match it
+     */
+    public ZoneMap getZoneMap() {
+        return zoneMap != null && zoneMap.getRowCount() == getRowCount() ? zoneMap : null;
+    }
+
+    public void setRows(ArrayList<Tuple> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Returns the typed columns loaded from column files, or null if the table was read as text.
+     *
+     * @return The table's columns in table order
+     */
+    public ColumnVector[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of rows loaded into the table.
+     *
+     * @return The row count
+     */
+    public int getRowCount() {
+        if (columns != null && columns.length > 0) {
+            return columns[0].size();
+        }
+        if (tuples.isEmpty() && rows != null) {
+            return rows.size();
+        }
+        return tuples.size();
+    }
 }
\ No newline at end of file
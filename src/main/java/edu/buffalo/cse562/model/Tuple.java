@@ -0,0 +1,478 @@
+package edu.buffalo.cse562.model;
+
+import edu.buffalo.cse562.storage.ColumnVector;
+import edu.buffalo.cse562.storage.ColumnarFormat;
+import edu.buffalo.cse562.storage.MappedTableScanner;
+import edu.buffalo.cse562.storage.StringDictionary;
+import edu.buffalo.cse562.util.FieldParser;
+import edu.buffalo.cse562.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A table row parsed once into typed slots, following the column types of its table.
+ * INT values and DATE values (as days since the epoch) are held as longs, DECIMAL values as longs
+ * scaled by the slot's scale (see {@link FixedPoint}) and everything else as Strings. Operators pass tuples to each other instead of '|' delimited lines,
+ * so a row is never split again after the scan.
+ *
+ * <p>String slots of dictionary encoded columns also carry their {@link StringDictionary} code, so
+ * equality, IN and grouping on them can compare ints. All rows of a table share one dictionary per column.
+ */
+public class Tuple {
+    private final DataType[] types;
+    private final long[] numbers;
+    private final String[] strings;
+    private final int[] scales;
+    private StringDictionary[] dictionaries;
+
+    /**
+     * Constructs an empty tuple for the given column types, with DECIMAL slots at the default scale.
+     *
+     * @param types The type of each slot
+     */
+    public Tuple(DataType[] types) {
+        this(types, null);
+    }
+
+    /**
+     * Constructs an empty tuple for the given column types.
+     *
+     * @param types The type of each slot
+     * @param scales The scale of each DECIMAL slot, shared by all tuples of a schema;
+     *               null for {@link ColumnarFormat#DEFAULT_DECIMAL_SCALE} everywhere
+     */
+    public Tuple(DataType[] types, int[] scales) {
+        this.types = types;
+        this.scales = scales;
+        this.numbers = new long[types.length];
+        this.strings = new String[types.length];
+    }
+
+    /**
+     * Parses a '|' delimited line, with DECIMAL slots at the default scale.
+     *
+     * @param line The row as it appears in a table file
+     * @param types The type of each column
+     * @return The parsed tuple
+     */
+    public static Tuple parse(String line, DataType[] types) {
+        return parse(line, types, null);
+    }
+
+    /**
+     * Parses a '|' delimited line.
+     *
+     * @param line The row as it appears in a table file
+     * @param types The type of each column
+     * @param scales The scale of each DECIMAL column, or null for the default scale
+     * @return The parsed tuple
+     * @throws NumberFormatException If a DECIMAL value has more fractional digits than its scale
+     */
+    public static Tuple parse(String line, DataType[] types, int[] scales) {
+        Tuple tuple = new Tuple(types, scales);
+        int start = 0;
+        for (int i = 0; i < types.length; i++) {
+            int end = line.indexOf('|', start);
+            if (end < 0) {
+                end = line.length();
+            }
+            if (start > end) {
+                start = end;
+            }
+
+            switch (types[i]) {
+                case INT:
+                    tuple.numbers[i] = FieldParser.parseLong(line, start, end);
+                    break;
+                case DATE:
+                    tuple.numbers[i] = FieldParser.parseEpochDay(line, start, end);
+                    break;
+                case DECIMAL:
+                    tuple.numbers[i] = FieldParser.parseScaled(line, start, end, tuple.getScale(i));
+                    break;
+                default:
+                    tuple.strings[i] = line.substring(start, end);
+            }
+            start = end + 1;
+        }
+        return tuple;
+    }
+
+    /**
+     * Parses the current row of a mapped scanner, with DECIMAL slots at the default scale.
+     *
+     * @param scanner A scanner positioned on a row
+     * @param types The type of each column
+     * @return The parsed tuple
+     */
+    public static Tuple parse(MappedTableScanner scanner, DataType[] types) {
+        return parse(scanner, types, null);
+    }
+
+    /**
+     * Parses the current row of a mapped scanner.
+     *
+     * @param scanner A scanner positioned on a row
+     * @param types The type of each column
+     * @param scales The scale of each DECIMAL column, or null for the default scale
+     * @return The parsed tuple
+     * @throws NumberFormatException If a DECIMAL value has more fractional digits than its scale
+     */
+    public static Tuple parse(MappedTableScanner scanner, DataType[] types, int[] scales) {
+        Tuple tuple = new Tuple(types, scales);
+        int fields = Math.min(types.length, scanner.fieldCount());
+        for (int i = 0; i < fields; i++) {
+            switch (types[i]) {
+                case INT:
+                    tuple.numbers[i] = scanner.parseLong(i);
+                    break;
+                case DATE:
+                    tuple.numbers[i] = scanner.parseEpochDay(i);
+                    break;
+                case DECIMAL:
+                    tuple.numbers[i] = scanner.parseScaled(i, tuple.getScale(i));
+                    break;
+                default:
+                    tuple.strings[i] = scanner.getString(i);
+            }
+        }
+        return tuple;
+    }
+
+    /**
+     * Builds a tuple from one row of a table's column vectors.
+     *
+     * @param columns The table's columns
+     * @param row The row to copy
+     * @return The tuple
+     */
+    public static Tuple fromColumns(ColumnVector[] columns, int row) {
+        DataType[] types = new DataType[columns.length];
+        int[] scales = new int[columns.length];
+        StringDictionary[] dictionaries = new StringDictionary[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            types[i] = columns[i].getType();
+            scales[i] = columns[i].getScale();
+            dictionaries[i] = columns[i].getDictionary();
+        }
+        return fromColumns(columns, types, scales, dictionaries, row);
+    }
+
+    /**
+     * Builds a tuple from one row of a table's column vectors, sharing the type, scale and dictionary
+     * arrays between all rows of the table.
+     *
+     * @param columns The table's columns
+     * @param types The type of each column
+     * @param scales The scale of each column, as returned by {@link ColumnVector#getScale()}
+     * @param dictionaries The dictionary of each column, as returned by {@link ColumnVector#getDictionary()}
+     * @param row The row to copy
+     * @return The tuple
+     */
+    public static Tuple fromColumns(ColumnVector[] columns, DataType[] types, int[] scales,
+            StringDictionary[] dictionaries, int row) {
+        Tuple tuple = new Tuple(types, scales);
+        tuple.dictionaries = dictionaries;
+        for (int i = 0; i < columns.length; i++) {
+            switch (types[i]) {
+                case INT:
+                case DATE:
+                    tuple.numbers[i] = columns[i].getInt(row);
+                    break;
+                case DECIMAL:
+                    tuple.numbers[i] = columns[i].getLong(row);
+                    break;
+                default:
+                    tuple.strings[i] = columns[i].getString(row);
+                    if (dictionaries[i] != null) {
+                        tuple.numbers[i] = columns[i].getInt(row);
+                    }
+            }
+        }
+        return tuple;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public DataType getType(int index) {
+        return types[index];
+    }
+
+    public DataType[] getTypes() {
+        return types;
+    }
+
+    /**
+     * Returns the number of fractional digits a slot holds; 0 for anything but DECIMAL.
+     */
+    public int getScale(int index) {
+        if (types[index] != DataType.DECIMAL) {
+            return 0;
+        }
+        return scales == null ? ColumnarFormat.DEFAULT_DECIMAL_SCALE : scales[index];
+    }
+
+    /**
+     * Returns a numeric slot as a long; DATE slots return days since the epoch and DECIMAL slots
+     * drop their fraction.
+     */
+    public long getLong(int index) {
+        if (types[index] == DataType.DECIMAL) {
+            return numbers[index] / FixedPoint.powerOfTen(getScale(index));
+        }
+        return numbers[index];
+    }
+
+    /**
+     * Returns a numeric slot as a long scaled by {@link #getScale(int)}, for exact arithmetic.
+     */
+    public long getUnscaled(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * Returns a numeric slot as a double.
+     */
+    public double getDouble(int index) {
+        if (types[index] == DataType.DECIMAL) {
+            return FixedPoint.toDouble(numbers[index], getScale(index));
+        }
+        return numbers[index];
+    }
+
+    /**
+     * Returns a numeric slot as a BigDecimal.
+     *
+     * @throws NumberFormatException If the slot holds a string that is not a number
+     */
+    public BigDecimal getDecimal(int index) {
+        switch (types[index]) {
+            case INT:
+                return BigDecimal.valueOf(numbers[index]);
+            case DECIMAL:
+                return BigDecimal.valueOf(numbers[index], getScale(index));
+            case DATE:
+                throw new NumberFormatException("DATE value " + getString(index) + " is not a number");
+            default:
+                return new BigDecimal(strings[index].trim());
+        }
+    }
+
+    /**
+     * Returns a slot in its textual form.
+     */
+    public String getString(int index) {
+        if (types[index] == DataType.STRING) {
+            return strings[index];
+        }
+        StringBuilder sb = new StringBuilder();
+        appendValue(sb, index);
+        return sb.toString();
+    }
+
+    public void setLong(int index, long value) {
+        numbers[index] = value;
+    }
+
+    /**
+     * Sets a numeric slot from a double, rounding DECIMAL slots to their scale.
+     */
+    public void setDouble(int index, double value) {
+        if (types[index] == DataType.DECIMAL) {
+            numbers[index] = FixedPoint.fromDouble(value, getScale(index));
+        } else {
+            numbers[index] = (long) value;
+        }
+    }
+
+    /**
+     * Sets a DECIMAL slot from a scaled value, rescaling it to the slot's scale.
+     *
+     * @param index The slot
+     * @param unscaled The value
+     * @param scale The value's scale
+     * @throws ArithmeticException If the value does not fit at the slot's scale
+     */
+    public void setDecimal(int index, long unscaled, int scale) {
+        numbers[index] = FixedPoint.rescale(unscaled, scale, getScale(index));
+    }
+
+    public void setString(int index, String value) {
+        strings[index] = value;
+        if (dictionaries != null && dictionaries[index] != null) {
+            dictionaries = dictionaries.clone();
+            dictionaries[index] = null;
+        }
+    }
+
+    /**
+     * Dictionary encodes string slots. Every slot with a dictionary takes its code and the dictionary's
+     * shared instance of its value.
+     *
+     * @param dictionaries One dictionary per slot, null for slots that are not encoded
+     * @throws IllegalArgumentException If a slot holds a value missing from its dictionary
+     */
+    public void encode(StringDictionary[] dictionaries) {
+        for (int i = 0; i < dictionaries.length; i++) {
+            if (dictionaries[i] != null) {
+                int code = dictionaries[i].codeOf(strings[i]);
+                if (code < 0) {
+                    throw new IllegalArgumentException("Value " + strings[i] + " is missing from the dictionary");
+                }
+                numbers[i] = code;
+                strings[i] = dictionaries[i].get(code);
+            }
+        }
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * Returns the dictionary a string slot is encoded with, or null if it holds a plain string.
+     */
+    public StringDictionary getDictionary(int index) {
+        return dictionaries == null ? null : dictionaries[index];
+    }
+
+    /**
+     * Returns the dictionary code of a string slot.
+     *
+     * @param index The slot
+     * @return The code, or -1 if the slot is not dictionary encoded
+     */
+    public int getCode(int index) {
+        return dictionaries == null || dictionaries[index] == null ? -1 : (int) numbers[index];
+    }
+
+    /**
+     * Copies a slot of another tuple into this tuple, rescaling DECIMAL values to this slot's scale.
+     *
+     * @param index The slot in this tuple
+     * @param from The tuple to copy from
+     * @param fromIndex The slot in the other tuple, of the same type
+     */
+    public void copySlot(int index, Tuple from, int fromIndex) {
+        numbers[index] = types[index] == DataType.DECIMAL
+            ? FixedPoint.rescale(from.numbers[fromIndex], from.getScale(fromIndex), getScale(index))
+            : from.numbers[fromIndex];
+        strings[index] = from.strings[fromIndex];
+    }
+
+    /**
+     * Returns a slot boxed so it can serve as a hash key; equal values of the same type give equal keys.
+     *
+     * @param index The slot
+     * @return A Long, Double or String
+     */
+    public Object getKey(int index) {
+        switch (types[index]) {
+            case INT:
+            case DATE:
+                return numbers[index];
+            case DECIMAL:
+                return getDouble(index);
+            default:
+                return strings[index];
+        }
+    }
+
+    /**
+     * Compares one slot of this tuple with a slot of another tuple, numerically for numbers and dates.
+     *
+     * @param index The slot in this tuple
+     * @param other The other tuple
+     * @param otherIndex The slot in the other tuple
+     * @return A negative number, zero or a positive number as this slot is less than, equal to or greater than the other
+     */
+    public int compareSlot(int index, Tuple other, int otherIndex) {
+        DataType type = types[index];
+        DataType otherType = other.types[otherIndex];
+        if (type == DataType.STRING || otherType == DataType.STRING) {
+            StringDictionary dictionary = getDictionary(index);
+            if (dictionary != null && dictionary == other.getDictionary(otherIndex) && dictionary.isSorted()) {
+                return Long.compare(numbers[index], other.numbers[otherIndex]);
+            }
+            return getString(index).compareTo(other.getString(otherIndex));
+        }
+        if (type == DataType.DECIMAL || otherType == DataType.DECIMAL) {
+            return FixedPoint.compare(numbers[index], getScale(index), other.numbers[otherIndex],
+                other.getScale(otherIndex));
+        }
+        return Long.compare(numbers[index], other.numbers[otherIndex]);
+    }
+
+    /**
+     * Concatenates two tuples, as a join does.
+     *
+     * @param other The tuple whose slots follow this tuple's slots
+     * @return A new tuple with the slots of both
+     */
+    public Tuple concat(Tuple other) {
+        DataType[] joinedTypes = Arrays.copyOf(types, types.length + other.types.length);
+        System.arraycopy(other.types, 0, joinedTypes, types.length, other.types.length);
+
+        int[] joinedScales = null;
+        if (scales != null || other.scales != null) {
+            joinedScales = new int[joinedTypes.length];
+            for (int i = 0; i < joinedTypes.length; i++) {
+                joinedScales[i] = i < types.length ? getScale(i) : other.getScale(i - types.length);
+            }
+        }
+
+        Tuple joined = new Tuple(joinedTypes, joinedScales);
+        System.arraycopy(numbers, 0, joined.numbers, 0, numbers.length);
+        System.arraycopy(other.numbers, 0, joined.numbers, numbers.length, other.numbers.length);
+        System.arraycopy(strings, 0, joined.strings, 0, strings.length);
+        System.arraycopy(other.strings, 0, joined.strings, strings.length, other.strings.length);
+        if (dictionaries != null || other.dictionaries != null) {
+            joined.dictionaries = new StringDictionary[joinedTypes.length];
+            if (dictionaries != null) {
+                System.arraycopy(dictionaries, 0, joined.dictionaries, 0, dictionaries.length);
+            }
+            if (other.dictionaries != null) {
+                System.arraycopy(other.dictionaries, 0, joined.dictionaries, types.length, other.dictionaries.length);
+            }
+        }
+        return joined;
+    }
+
+    /**
+     * Appends the '|' delimited form of this tuple.
+     *
+     * @param sb The builder to append to
+     */
+    public void appendTo(StringBuilder sb) {
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append('|');
+            }
+            appendValue(sb, i);
+        }
+    }
+
+    private void appendValue(StringBuilder sb, int index) {
+        switch (types[index]) {
+            case INT:
+                sb.append(numbers[index]);
+                break;
+            case DATE:
+                sb.append(LocalDate.ofEpochDay(numbers[index]));
+                break;
+            case DECIMAL:
+                FixedPoint.append(sb, numbers[index], getScale(index));
+                break;
+            default:
+                sb.append(strings[index]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb);
+        return sb.toString();
+    }
+}
@@ -1,21 +1,24 @@
 package edu.buffalo.cse562.operations;
 
+import edu.buffalo.cse562.model.DataType;
 import edu.buffalo.cse562.model.Table;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.util.FixedPoint;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.Function;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.select.SelectExpressionItem;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Implementation of aggregate operations (COUNT, SUM, AVG, etc.).
  */
 public class AggregateOperation implements DatabaseOperation {
+    /** Number of fractional digits an average is rounded to. */
+    private static final int AVERAGE_SCALE = 2;
+
     private final List<SelectExpressionItem> selectItems;
     private final List<Expression> groupByColumns;
 
@@ -46,49 +49,65 @@ public class AggregateOperation implements DatabaseOperation {
     }
 
     private Table executeSimpleAggregation(Table input) {
-        // Initialize aggregation result arrays
-        Map<String, BigDecimal> sums = new HashMap<>();
-        Map<String, Integer> counts = new HashMap<>();
-        Map<String, BigDecimal> mins = new HashMap<>();
-        Map<String, BigDecimal> maxs = new HashMap<>();
+        // Resolve every aggregate once; the row loop then only touches primitive accumulators
+        int itemCount = selectItems.size();
+        String[] functions = new String[itemCount];
+        int[] columns = new int[itemCount];
+        int[] scales = new int[itemCount];
+        int[] columnScales = input.getColumnScales();
+        for (int i = 0; i < itemCount; i++) {
+            Expression expression = selectItems.get(i).getExpression();
+            if (!(expression instanceof Function)) {
+                continue;
+            }
+            Function func = (Function) expression;
+            functions[i] = func.getName().toLowerCase();
+            if (func.isAllColumns() || func.getParameters() == null) {
+                columns[i] = -1;
+            } else {
+                Column col = (Column) func.getParameters().getExpressions().get(0);
+                columns[i] = input.getColumnIndexMap().get(col.getColumnName().toLowerCase());
+                scales[i] = columnScales[columns[i]];
+            }
+        }
+
+        long[] sums = new long[itemCount];
+        long[] counts = new long[itemCount];
+        long[] mins = new long[itemCount];
+        long[] maxs = new long[itemCount];
 
         // Process each row
-        for (String tuple : input.getTuples()) {
-            String[] values = tuple.split("\\|");
-            
-            for (SelectExpressionItem item : selectItems) {
-                if (item.getExpression() instanceof Function) {
-                    Function func = (Function) item.getExpression();
-                    Column col = (Column) func.getParameters().getExpressions().get(0);
-                    int colIndex = input.getColumnIndexMap().get(col.getColumnName().toLowerCase());
-                    
-                    try {
-                        BigDecimal value = new BigDecimal(values[colIndex].trim());
-                        String key = func.toString();
-                        
-                        switch (func.getName().toLowerCase()) {
-                            case "sum":
-                                sums.merge(key, value, BigDecimal::add);
-                                break;
-                            case "count":
-                                counts.merge(key, 1, Integer::sum);
-                                break;
-                            case "min":
-                                mins.merge(key, value, BigDecimal::min);
-                                break;
-                            case "max":
-                                maxs.merge(key, value, BigDecimal::max);
-                                break;
-                            case "avg":
-                                sums.merge(key, value, BigDecimal::add);
-                                counts.merge(key, 1, Integer::sum);
-                                break;
-                        }
-                    } catch (NumberFormatException e) {
-                        // Skip non-numeric values
-                        continue;
-                    }
+        for (Tuple tuple : input.getRows()) {
+            for (int i = 0; i < itemCount; i++) {
+                if (functions[i] == null) {
+                    continue;
+                }
+                int colIndex = columns[i];
+                if (colIndex < 0 || functions[i].equals("count")) {
+                    counts[i]++;
+                    continue;
+                }
+
+                DataType type = tuple.getType(colIndex);
+                if (type != DataType.INT && type != DataType.DECIMAL) {
+                    // Skip non-numeric values
+                    continue;
+                }
+                long value = FixedPoint.rescale(tuple.getUnscaled(colIndex), tuple.getScale(colIndex), scales[i]);
+
+                switch (functions[i]) {
+                    case "sum":
+                    case "avg":
+                        sums[i] = Math.addExact(sums[i], value);
+                        break;
+                    case "min":
+                        mins[i] = counts[i] == 0 ? value : Math.min(mins[i], value);
+                        break;
+                    case "max":
+                        maxs[i] = counts[i] == 0 ? value : Math.max(maxs[i], value);
+                        break;
                 }
+                counts[i]++;
             }
         }
 
@@ -97,32 +116,29 @@ public class AggregateOperation implements DatabaseOperation {
         ArrayList<String> resultTuples = new ArrayList<>();
 
         StringBuilder sb = new StringBuilder();
-        for (SelectExpressionItem item : selectItems) {
-            if (item.getExpression() instanceof Function) {
-                Function func = (Function) item.getExpression();
-                String key = func.toString();
-                
-                switch (func.getName().toLowerCase()) {
+        for (int i = 0; i < itemCount; i++) {
+            if (functions[i] != null) {
+                switch (functions[i]) {
                     case "sum":
-                        sb.append(sums.getOrDefault(key, BigDecimal.ZERO));
+                        FixedPoint.append(sb, sums[i], scales[i]);
                         break;
                     case "count":
-                        sb.append(counts.getOrDefault(key, 0));
+                        sb.append(counts[i]);
                         break;
                     case "min":
-                        sb.append(mins.getOrDefault(key, BigDecimal.ZERO));
+                        FixedPoint.append(sb, mins[i], scales[i]);
                         break;
                     case "max":
-                        sb.append(maxs.getOrDefault(key, BigDecimal.ZERO));
+                        FixedPoint.append(sb, maxs[i], scales[i]);
                         break;
                     case "avg":
-                        BigDecimal sum = sums.getOrDefault(key, BigDecimal.ZERO);
-                        int count = counts.getOrDefault(key, 1);
-                        sb.append(sum.divide(new BigDecimal(count), 2, BigDecimal.ROUND_HALF_UP));
+                        long count = Math.max(counts[i], 1);
+                        FixedPoint.append(sb, FixedPoint.divide(sums[i], scales[i], count, 0, AVERAGE_SCALE),
+                            AVERAGE_SCALE);
                         break;
                 }
             } else {
-                sb.append(item.getExpression().toString());
+                sb.append(selectItems.get(i).getExpression().toString());
             }
             sb.append("|");
         }
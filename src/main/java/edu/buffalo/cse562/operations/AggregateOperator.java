@@ -0,0 +1,249 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.storage.ColumnarFormat;
+import edu.buffalo.cse562.util.FixedPoint;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Groups its input and computes SUM, COUNT, AVG, MIN and MAX per group. This is a blocking operator:
+ * the input is consumed on open, keeping one accumulator per group, and the groups are produced in
+ * the order they were first seen. Output tuples hold the group columns followed by the aggregates.
+ */
+public class AggregateOperator implements Operator {
+    private final Operator child;
+    private final int[] groupColumns;
+    private final List<Aggregate> aggregates;
+    private final int[] aggregateColumns;
+    private final int[] aggregateScales;
+    private final Schema schema;
+    private Iterator<Tuple> results;
+
+    /**
+     * One aggregate function in the select list.
+     */
+    public static class Aggregate {
+        private final String function;
+        private final String column;
+        private final String outputName;
+
+        /**
+         * Constructs an aggregate.
+         *
+         * @param function SUM, COUNT, AVG, MIN or MAX
+         * @param column The aggregated column, or null for COUNT(*)
+         * @param outputName Name of the aggregate in the output schema
+         */
+        public Aggregate(String function, String column, String outputName) {
+            this.function = function.toUpperCase();
+            this.column = column;
+            this.outputName = outputName;
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getOutputName() {
+            return outputName;
+        }
+    }
+
+    /**
+     * Constructs an aggregation.
+     *
+     * @param child The input operator
+     * @param groupByColumns Names of the group columns, empty for a single group over all input
+     * @param aggregates The aggregates to compute
+     */
+    public AggregateOperator(Operator child, List<String> groupByColumns, List<Aggregate> aggregates) {
+        this.child = child;
+        this.aggregates = aggregates;
+        Schema input = child.getSchema();
+
+        List<String> names = new ArrayList<>();
+        DataType[] types = new DataType[groupByColumns.size() + aggregates.size()];
+        int[] scales = new int[types.length];
+        this.groupColumns = new int[groupByColumns.size()];
+        for (int i = 0; i < groupColumns.length; i++) {
+            groupColumns[i] = input.resolve(groupByColumns.get(i));
+            names.add(input.getName(groupColumns[i]));
+            types[i] = input.getType(groupColumns[i]);
+            scales[i] = input.getScale(groupColumns[i]);
+        }
+
+        this.aggregateColumns = new int[aggregates.size()];
+        this.aggregateScales = new int[aggregates.size()];
+        for (int i = 0; i < aggregateColumns.length; i++) {
+            Aggregate aggregate = aggregates.get(i);
+            aggregateColumns[i] = aggregate.getColumn() == null ? -1 : input.resolve(aggregate.getColumn());
+            DataType inputType = aggregateColumns[i] < 0 ? DataType.INT : input.getType(aggregateColumns[i]);
+            aggregateScales[i] = aggregateColumns[i] < 0 ? 0 : input.getScale(aggregateColumns[i]);
+            names.add(aggregate.getOutputName());
+            int slot = groupColumns.length + i;
+            types[slot] = outputType(aggregate.getFunction(), inputType);
+            // Averages keep at least the default number of fractional digits
+            scales[slot] = aggregate.getFunction().equals("AVG")
+                ? Math.max(aggregateScales[i], ColumnarFormat.DEFAULT_DECIMAL_SCALE) : aggregateScales[i];
+        }
+        this.schema = new Schema(names, types, scales);
+    }
+
+    private static DataType outputType(String function, DataType inputType) {
+        switch (function) {
+            case "COUNT":
+                return DataType.INT;
+            case "SUM":
+                return inputType == DataType.INT ? DataType.INT : DataType.DECIMAL;
+            case "AVG":
+                return DataType.DECIMAL;
+            case "MIN":
+            case "MAX":
+                return inputType;
+            default:
+                throw new IllegalArgumentException("Unsupported aggregate function " + function);
+        }
+    }
+
+    @Override
+    public void open() throws IOException {
+        LinkedHashMap<List<Object>, GroupState> groups = new LinkedHashMap<>();
+        child.open();
+        try {
+            Tuple tuple;
+            while ((tuple = child.next()) != null) {
+                Object[] key = new Object[groupColumns.length];
+                for (int i = 0; i < key.length; i++) {
+                    // Dictionary encoded strings group on their code; a column is encoded in all rows or none
+                    int code = tuple.getCode(groupColumns[i]);
+                    key[i] = code >= 0 ? (Object) code : tuple.getKey(groupColumns[i]);
+                }
+                GroupState state = groups.get(Arrays.asList(key));
+                if (state == null) {
+                    state = new GroupState(tuple);
+                    groups.put(Arrays.asList(key), state);
+                }
+                state.add(tuple);
+            }
+        } finally {
+            child.close();
+        }
+
+        // Without GROUP BY an empty input still produces one row
+        if (groups.isEmpty() && groupColumns.length == 0) {
+            groups.put(new ArrayList<>(), new GroupState(null));
+        }
+
+        List<Tuple> output = new ArrayList<>(groups.size());
+        for (GroupState state : groups.values()) {
+            output.add(state.result());
+        }
+        results = output.iterator();
+    }
+
+    @Override
+    public Tuple next() {
+        return results.hasNext() ? results.next() : null;
+    }
+
+    @Override
+    public void close() {
+        results = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * The running accumulators of one group.
+     */
+    private class GroupState {
+        private final Tuple first;
+        private final long[] sums = new long[aggregates.size()];
+        private final long[] counts = new long[aggregates.size()];
+        private final Tuple[] minMax = new Tuple[aggregates.size()];
+
+        GroupState(Tuple first) {
+            this.first = first;
+        }
+
+        void add(Tuple tuple) {
+            for (int i = 0; i < aggregateColumns.length; i++) {
+                int column = aggregateColumns[i];
+                switch (aggregates.get(i).getFunction()) {
+                    case "SUM":
+                    case "AVG":
+                        // Sums are exact: INT values and scaled DECIMAL values are added as longs
+                        long value = tuple.getUnscaled(column);
+                        if (tuple.getScale(column) != aggregateScales[i]) {
+                            value = FixedPoint.rescale(value, tuple.getScale(column), aggregateScales[i]);
+                        }
+                        sums[i] = Math.addExact(sums[i], value);
+                        counts[i]++;
+                        break;
+                    case "COUNT":
+                        counts[i]++;
+                        break;
+                    case "MIN":
+                        if (counts[i]++ == 0 || tuple.compareSlot(column, minMax[i], column) < 0) {
+                            minMax[i] = tuple;
+                        }
+                        break;
+                    default:
+                        if (counts[i]++ == 0 || tuple.compareSlot(column, minMax[i], column) > 0) {
+                            minMax[i] = tuple;
+                        }
+                }
+            }
+        }
+
+        Tuple result() {
+            Tuple result = new Tuple(schema.getTypes(), schema.getScales());
+            for (int i = 0; i < groupColumns.length; i++) {
+                result.copySlot(i, first, groupColumns[i]);
+            }
+
+            for (int i = 0; i < aggregateColumns.length; i++) {
+                int slot = groupColumns.length + i;
+                switch (aggregates.get(i).getFunction()) {
+                    case "COUNT":
+                        result.setLong(slot, counts[i]);
+                        break;
+                    case "SUM":
+                        if (schema.getType(slot) == DataType.INT) {
+                            result.setLong(slot, sums[i]);
+                        } else {
+                            result.setDecimal(slot, sums[i], aggregateScales[i]);
+                        }
+                        break;
+                    case "AVG":
+                        if (counts[i] > 0) {
+                            int scale = schema.getScale(slot);
+                            result.setDecimal(slot, FixedPoint.divide(sums[i], aggregateScales[i], counts[i], 0, scale),
+                                scale);
+                        }
+                        break;
+                    default:
+                        if (minMax[i] != null) {
+                            result.copySlot(slot, minMax[i], aggregateColumns[i]);
+                        }
+                }
+            }
+            return result;
+        }
+    }
+}
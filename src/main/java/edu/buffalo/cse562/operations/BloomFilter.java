@@ -0,0 +1,122 @@
+package edu.buffalo.cse562.operations;
+
+/**
+ * A Bloom filter over the join keys of a build side, handed to the probe side so that rows whose key
+ * cannot match are dropped while they are scanned, before they are parsed further or spilled.
+ * <p>
+ * Each key sets {@link #HASHES} bits derived from one mixed 64-bit hash, with {@link #BITS_PER_KEY}
+ * bits per expected key, which keeps false positives near one percent. Keys are never missed: a probe
+ * key that was added always passes. INT and DATE keys are added and tested as longs, other keys through
+ * their {@code hashCode}; a key must be tested the same way it was added.
+ */
+public final class BloomFilter {
+    /** Bits per expected key. */
+    public static final int BITS_PER_KEY = 10;
+
+    /** Bits set and tested per key. */
+    public static final int HASHES = 4;
+
+    /** Bytes assumed per row when a filter is sized from the size of a table file; shorter rows only make it less selective. */
+    public static final int ROW_BYTES = 32;
+
+    /** Upper bound on the bits of a filter, which keeps it at 128MB. */
+    private static final long MAX_BITS = 1L << 30;
+
+    private final long[] words;
+    private final long mask;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedKeys The number of keys expected to be added; more keys raise the false positive rate
+     */
+    public BloomFilter(long expectedKeys) {
+        long bits = Math.max(64, Math.min(MAX_BITS, Math.max(1, expectedKeys) * BITS_PER_KEY));
+        bits = Long.highestOneBit(bits - 1) << 1;
+        this.words = new long[(int) (bits >>> 6)];
+        this.mask = bits - 1;
+    }
+
+    /**
+     * Creates a filter holding a set of long keys.
+     *
+     * @param keys The keys, such as the INT or DATE join keys of every build row
+     * @return The filter
+     */
+    public static BloomFilter of(long[] keys) {
+        BloomFilter filter = new BloomFilter(keys.length);
+        for (long key : keys) {
+            filter.add(key);
+        }
+        return filter;
+    }
+
+    /**
+     * Adds a long key.
+     *
+     * @param key The key
+     */
+    public void add(long key) {
+        addHash(LongJoinHashTable.mix(key));
+    }
+
+    /**
+     * Adds a key by its hash code.
+     *
+     * @param key The key
+     */
+    public void add(Object key) {
+        addHash(LongJoinHashTable.mix(key.hashCode()));
+    }
+
+    /**
+     * Tells whether a long key may have been added.
+     *
+     * @param key The key
+     * @return False if the key was certainly not added
+     */
+    public boolean mightContain(long key) {
+        return mightContainHash(LongJoinHashTable.mix(key));
+    }
+
+    /**
+     * Tells whether a key may have been added by its hash code.
+     *
+     * @param key The key
+     * @return False if the key was certainly not added
+     */
+    public boolean mightContain(Object key) {
+        return mightContainHash(LongJoinHashTable.mix(key.hashCode()));
+    }
+
+    /**
+     * Returns the size of the filter.
+     *
+     * @return The number of bits
+     */
+    public long bitCount() {
+        return mask + 1;
+    }
+
+    private void addHash(long hash) {
+        // The bits come from two halves of the hash combined as h1 + i * h2 (Kirsch and Mitzenmacher)
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean mightContainHash(long hash) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
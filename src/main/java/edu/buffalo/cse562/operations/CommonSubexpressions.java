@@ -0,0 +1,171 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Compiles the expressions a query evaluates over the same rows, such as its select list, aggregate
+ * arguments and GROUP BY, so that arithmetic occurring more than once is computed once per row. TPC-H Q1 for example needs {@code extendedprice * (1 - discount)} in three aggregates.
+ * <p>
+ * Occurrences are counted by their text up front and every repeated subexpression gets a slot. The
+ * values of the slots belong to an {@link Evaluation} that the caller owns: the first occurrence
+ * evaluated for a row fills the slot, the others read it, and {@link Evaluation#nextRow()} empties the
+ * slots for the next row. An evaluation is used by one thread at a time; threads evaluating in parallel
+ * each compile their expressions through an evaluation of their own.
+ */
+public class CommonSubexpressions {
+    private final Schema schema;
+    private final Map<String, Integer> occurrences = new HashMap<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    /**
+     * Counts the subexpressions of a set of expressions.
+     *
+     * @param schema The schema of the rows the expressions are evaluated on
+     * @param expressions Every expression evaluated per row, in any order
+     */
+    public CommonSubexpressions(Schema schema, Collection<? extends Expression> expressions) {
+        this.schema = schema;
+        ExpressionVisitorAdapter counter = new ExpressionVisitorAdapter() {
+            @Override
+            protected void visitBinaryExpression(BinaryExpression expression) {
+                if (isArithmetic(expression)) {
+                    occurrences.merge(key(expression), 1, Integer::sum);
+                }
+                super.visitBinaryExpression(expression);
+            }
+        };
+        for (Expression expression : expressions) {
+            if (expression != null) {
+                expression.accept(counter);
+            }
+        }
+        for (Map.Entry<String, Integer> occurrence : occurrences.entrySet()) {
+            if (occurrence.getValue() > 1) {
+                slots.put(occurrence.getKey(), slots.size());
+            }
+        }
+    }
+
+    /**
+     * Starts an evaluation, holding the values of the repeated subexpressions for one row at a time.
+     *
+     * @return A new evaluation, to be used by one thread
+     */
+    public Evaluation newEvaluation() {
+        return new Evaluation();
+    }
+
+    /**
+     * Returns the number of distinct subexpressions that occur more than once.
+     *
+     * @return The number of subexpressions computed once per row for several uses
+     */
+    public int getRepeatedCount() {
+        return slots.size();
+    }
+
+    private static boolean isArithmetic(Expression expression) {
+        return expression instanceof Addition || expression instanceof Subtraction
+            || expression instanceof Multiplication || expression instanceof Division;
+    }
+
+    private static String key(Expression expression) {
+        while (expression instanceof Parenthesis) {
+            expression = ((Parenthesis) expression).getExpression();
+        }
+        return expression.toString();
+    }
+
+    /**
+     * The values of the repeated subexpressions for the current row, and the evaluators that share them.
+     */
+    public final class Evaluation {
+        private final long[] values = new long[slots.size()];
+        private final long[] filledRows = new long[slots.size()];
+        private final Map<String, ExpressionCompiler.Value> shared = new HashMap<>();
+        private long row = 1;
+
+        private Evaluation() {
+        }
+
+        /**
+         * Compiles a scalar expression, sharing its repeated subexpressions with the other expressions.
+         *
+         * @param expression One of the expressions the occurrences were counted on
+         * @return The evaluator
+         * @throws IllegalArgumentException If the expression uses a construct or column that cannot be compiled
+         */
+        public ExpressionCompiler.Value compileValue(Expression expression) {
+            return ExpressionCompiler.compileValue(expression, schema, this);
+        }
+
+        /**
+         * Compiles a boolean expression, sharing its repeated subexpressions with the other expressions.
+         *
+         * @param expression One of the expressions the occurrences were counted on
+         * @return The predicate
+         * @throws IllegalArgumentException If the expression uses a construct or column that cannot be compiled
+         */
+        public Predicate<Tuple> compilePredicate(Expression expression) {
+            return ExpressionCompiler.compilePredicate(expression, schema, this);
+        }
+
+        /**
+         * Empties the slots, so the evaluators compute the repeated subexpressions again for the next row.
+         * Called between rows, before the first evaluation of each row but the first.
+         */
+        public void nextRow() {
+            row++;
+        }
+
+        /**
+         * Returns the evaluator to use for a compiled arithmetic subexpression: one reading the slot of
+         * the subexpression if it is repeated, the evaluator itself otherwise.
+         */
+        ExpressionCompiler.Value share(Expression expression, ExpressionCompiler.Value value) {
+            String key = key(expression);
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                return value;
+            }
+            return shared.computeIfAbsent(key, k -> new Slot(value, slot));
+        }
+
+        /**
+         * Evaluates a repeated subexpression into its slot once per row.
+         */
+        private final class Slot extends ExpressionCompiler.Value {
+            private final ExpressionCompiler.Value value;
+            private final int slot;
+
+            Slot(ExpressionCompiler.Value value, int slot) {
+                super(value.getType(), value.getScale());
+                this.value = value;
+                this.slot = slot;
+            }
+
+            @Override
+            public long evaluateLong(Tuple tuple) {
+                if (filledRows[slot] != row) {
+                    values[slot] = value.evaluateLong(tuple);
+                    filledRows[slot] = row;
+                }
+                return values[slot];
+            }
+        }
+    }
+}
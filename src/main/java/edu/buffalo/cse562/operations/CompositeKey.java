@@ -0,0 +1,113 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.util.Arrays;
+
+/**
+ * The join key of a tuple over several columns, such as partsupp's partkey and suppkey.
+ * <p>
+ * INT and DATE slots are held as the longs the tuple already stores and the other slots as the values
+ * {@link Tuple#getKey(int)} gives, so two keys are equal exactly when a join on each column alone would
+ * match them. The hash is computed once from the typed values; no text is built for the key.
+ */
+public final class CompositeKey {
+    private final long[] longs;
+    private final Object[] objects;
+    private final int hash;
+
+    private CompositeKey(long[] longs, Object[] objects) {
+        this.longs = longs;
+        this.objects = objects;
+        long hash = 0;
+        for (long value : longs) {
+            hash = LongJoinHashTable.mix(hash + value);
+        }
+        for (Object value : objects) {
+            hash = LongJoinHashTable.mix(hash + value.hashCode());
+        }
+        this.hash = (int) hash;
+    }
+
+    /**
+     * Returns the key of a tuple over some of its columns.
+     *
+     * @param tuple The tuple
+     * @param columns The join columns, in the same order on both sides of the join
+     * @return The key
+     */
+    public static CompositeKey of(Tuple tuple, int[] columns) {
+        int integral = 0;
+        for (int column : columns) {
+            if (isIntegral(tuple.getType(column))) {
+                integral++;
+            }
+        }
+        long[] longs = new long[integral];
+        Object[] objects = new Object[columns.length - integral];
+        int l = 0;
+        int o = 0;
+        for (int column : columns) {
+            if (isIntegral(tuple.getType(column))) {
+                longs[l++] = tuple.getUnscaled(column);
+            } else {
+                objects[o++] = tuple.getKey(column);
+            }
+        }
+        return new CompositeKey(longs, objects);
+    }
+
+    /**
+     * Returns the key of a set of values, such as the join columns of rows that were not parsed into tuples.
+     *
+     * @param values The values, Longs for INT and DATE columns and as {@link Tuple#getKey(int)} gives them otherwise
+     * @return The key, equal to the key of a tuple holding the same values
+     */
+    public static CompositeKey of(Object[] values) {
+        int integral = 0;
+        for (Object value : values) {
+            if (value instanceof Long) {
+                integral++;
+            }
+        }
+        long[] longs = new long[integral];
+        Object[] objects = new Object[values.length - integral];
+        int l = 0;
+        int o = 0;
+        for (Object value : values) {
+            if (value instanceof Long) {
+                longs[l++] = (Long) value;
+            } else {
+                objects[o++] = value;
+            }
+        }
+        return new CompositeKey(longs, objects);
+    }
+
+    private static boolean isIntegral(DataType type) {
+        return type == DataType.INT || type == DataType.DATE;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CompositeKey)) {
+            return false;
+        }
+        CompositeKey key = (CompositeKey) other;
+        return hash == key.hash && Arrays.equals(longs, key.longs) && Arrays.equals(objects, key.objects);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(longs) + Arrays.toString(objects);
+    }
+}
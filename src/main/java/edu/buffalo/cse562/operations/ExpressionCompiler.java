@@ -0,0 +1,619 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.util.DateUtils;
+import edu.buffalo.cse562.util.FixedPoint;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.DoubleValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NotExpression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.SignedExpression;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Compiles JSqlParser expressions once per query into evaluator objects bound to the slots and types
+ * of a {@link Schema}. Evaluating a compiled expression against a {@link Tuple} does no string work:
+ * columns are read by slot, numbers are scaled longs whose scales are fixed at compile time, date
+ * literals are folded to epoch days and constant subexpressions are computed up front. IN lists
+ * become sorted arrays or dictionary code bitmaps, LIKE patterns prefix, suffix or substring tests
+ * and BETWEEN a single range check.
+ */
+public class ExpressionCompiler {
+    /** Smallest scale of the quotient of a division. */
+    public static final int DIVISION_SCALE = 4;
+
+    private ExpressionCompiler() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Compiles a boolean expression.
+     *
+     * @param expression The expression, such as a WHERE clause
+     * @param schema The schema of the tuples the predicate is tested on
+     * @return The predicate
+     * @throws IllegalArgumentException If the expression uses a construct or column that cannot be compiled
+     */
+    public static Predicate<Tuple> compilePredicate(Expression expression, Schema schema) {
+        return compilePredicate(expression, schema, null);
+    }
+
+    /**
+     * Compiles a boolean expression whose repeated subexpressions are computed once per row.
+     */
+    static Predicate<Tuple> compilePredicate(Expression expression, Schema schema, CommonSubexpressions.Evaluation shared) {
+        if (expression instanceof Parenthesis) {
+            return compilePredicate(((Parenthesis) expression).getExpression(), schema, shared);
+        }
+        if (expression instanceof AndExpression) {
+            AndExpression and = (AndExpression) expression;
+            return compilePredicate(and.getLeftExpression(), schema, shared)
+                .and(compilePredicate(and.getRightExpression(), schema, shared));
+        }
+        if (expression instanceof OrExpression) {
+            OrExpression or = (OrExpression) expression;
+            return compilePredicate(or.getLeftExpression(), schema, shared)
+                .or(compilePredicate(or.getRightExpression(), schema, shared));
+        }
+        if (expression instanceof NotExpression) {
+            return compilePredicate(((NotExpression) expression).getExpression(), schema, shared).negate();
+        }
+        if (expression instanceof LikeExpression) {
+            LikeExpression like = (LikeExpression) expression;
+            Predicate<Tuple> predicate = compileLike(like, schema, shared);
+            return like.isNot() ? predicate.negate() : predicate;
+        }
+        if (expression instanceof InExpression) {
+            InExpression in = (InExpression) expression;
+            Predicate<Tuple> predicate = compileIn(in, schema, shared);
+            return in.isNot() ? predicate.negate() : predicate;
+        }
+        if (expression instanceof Between) {
+            Between between = (Between) expression;
+            Predicate<Tuple> predicate = compileBetween(between, schema, shared);
+            return between.isNot() ? predicate.negate() : predicate;
+        }
+        if (expression instanceof IsNullExpression) {
+            IsNullExpression isNull = (IsNullExpression) expression;
+            Value value = compileValue(isNull.getLeftExpression(), schema, shared);
+            // Missing strings are stored as empty fields; numbers and dates always hold a value
+            Predicate<Tuple> predicate = value.getType() == DataType.STRING
+                ? tuple -> value.evaluateString(tuple).isEmpty() : tuple -> false;
+            return isNull.isNot() ? predicate.negate() : predicate;
+        }
+
+        Comparison comparison = Comparison.of(expression);
+        if (comparison != null) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return compileComparison(binary.getLeftExpression(), binary.getRightExpression(), comparison, schema,
+                shared);
+        }
+        throw new IllegalArgumentException("Cannot compile condition " + expression);
+    }
+
+    /**
+     * Compiles a scalar expression.
+     *
+     * @param expression The expression, such as a projected column or arithmetic on columns
+     * @param schema The schema of the tuples the expression is evaluated on
+     * @return The evaluator
+     * @throws IllegalArgumentException If the expression uses a construct or column that cannot be compiled
+     */
+    public static Value compileValue(Expression expression, Schema schema) {
+        return compileValue(expression, schema, null);
+    }
+
+    /**
+     * Compiles a scalar expression whose repeated subexpressions are computed once per row.
+     */
+    static Value compileValue(Expression expression, Schema schema, CommonSubexpressions.Evaluation shared) {
+        if (expression instanceof Column) {
+            String name = ((Column) expression).getFullyQualifiedName();
+            int index = schema.resolve(name);
+            DataType type = schema.getType(index);
+            if (type == DataType.STRING) {
+                return new StringColumn(index);
+            }
+            return new NumericColumn(type, type == DataType.DECIMAL ? schema.getScale(index) : 0, index);
+        }
+        if (expression instanceof LongValue) {
+            return new Constant(DataType.INT, 0, ((LongValue) expression).getValue());
+        }
+        if (expression instanceof DoubleValue) {
+            BigDecimal value = new BigDecimal(expression.toString());
+            if (value.scale() < 0) {
+                value = value.setScale(0);
+            }
+            return new Constant(DataType.DECIMAL, value.scale(), value.unscaledValue().longValueExact());
+        }
+        if (expression instanceof StringValue) {
+            return new StringConstant(((StringValue) expression).getValue());
+        }
+        if (expression instanceof Parenthesis) {
+            return compileValue(((Parenthesis) expression).getExpression(), schema, shared);
+        }
+        if (expression instanceof SignedExpression) {
+            Value value = compileValue(((SignedExpression) expression).getExpression(), schema, shared);
+            if (((SignedExpression) expression).getSign() != '-') {
+                return value;
+            }
+            return fold(new Arithmetic('-', new Constant(value.getType(), 0, 0), value));
+        }
+
+        Integer epochDay = DateUtils.fold(expression);
+        if (epochDay != null) {
+            return new Constant(DataType.DATE, 0, epochDay);
+        }
+
+        char operator = expression instanceof Addition ? '+' : expression instanceof Subtraction ? '-'
+            : expression instanceof Multiplication ? '*' : expression instanceof Division ? '/' : 0;
+        if (operator != 0) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            Value arithmetic = fold(new Arithmetic(operator, compileValue(binary.getLeftExpression(), schema, shared),
+                compileValue(binary.getRightExpression(), schema, shared)));
+            return shared == null || arithmetic instanceof Constant ? arithmetic : shared.share(binary, arithmetic);
+        }
+        throw new IllegalArgumentException("Cannot compile expression " + expression);
+    }
+
+    private static Predicate<Tuple> compileComparison(Expression leftExpression, Expression rightExpression,
+            Comparison comparison, Schema schema, CommonSubexpressions.Evaluation shared) {
+        Value left = compileValue(leftExpression, schema, shared);
+        Value right = compileValue(rightExpression, schema, shared);
+
+        // A quoted date compared with a DATE value is a date literal
+        if (left.getType() == DataType.DATE && right instanceof StringConstant) {
+            right = dateConstant(rightExpression);
+        } else if (right.getType() == DataType.DATE && left instanceof StringConstant) {
+            left = dateConstant(leftExpression);
+        }
+
+        if (left.getType() == DataType.STRING || right.getType() == DataType.STRING) {
+            if (left.getType() != right.getType()) {
+                throw new IllegalArgumentException("Cannot compare a string with a number in "
+                    + leftExpression + " " + comparison + " " + rightExpression);
+            }
+            if (left instanceof StringColumn && right instanceof StringConstant
+                    && (comparison == Comparison.EQ || comparison == Comparison.NE)) {
+                Predicate<Tuple> equal = StringPredicates.equalTo(((StringColumn) left).index,
+                    ((StringConstant) right).value);
+                return comparison == Comparison.EQ ? equal : equal.negate();
+            }
+            Value leftString = left;
+            Value rightString = right;
+            return tuple -> comparison.test(leftString.evaluateString(tuple).compareTo(rightString.evaluateString(tuple)));
+        }
+
+        // Bring both sides to one scale, folding the factor into a constant side
+        int scale = Math.max(left.getScale(), right.getScale());
+        Value leftNumber = rescale(left, scale);
+        Value rightNumber = rescale(right, scale);
+        if (rightNumber instanceof Constant) {
+            long constant = ((Constant) rightNumber).value;
+            return tuple -> comparison.test(Long.compare(leftNumber.evaluateLong(tuple), constant));
+        }
+        return tuple -> comparison.test(Long.compare(leftNumber.evaluateLong(tuple), rightNumber.evaluateLong(tuple)));
+    }
+
+    private static Predicate<Tuple> compileLike(LikeExpression like, Schema schema, CommonSubexpressions.Evaluation shared) {
+        Value value = compileValue(like.getLeftExpression(), schema, shared);
+        Value pattern = compileValue(like.getRightExpression(), schema, shared);
+        if (value.getType() != DataType.STRING || !(pattern instanceof StringConstant)) {
+            throw new IllegalArgumentException("Cannot compile condition " + like);
+        }
+        Character escape = null;
+        if (like.getEscape() != null) {
+            Value escapeValue = compileValue(like.getEscape(), schema, shared);
+            if (!(escapeValue instanceof StringConstant) || ((StringConstant) escapeValue).value.length() != 1) {
+                throw new IllegalArgumentException("Invalid escape character in " + like);
+            }
+            escape = ((StringConstant) escapeValue).value.charAt(0);
+        }
+
+        String text = ((StringConstant) pattern).value;
+        if (value instanceof StringColumn) {
+            return StringPredicates.like(((StringColumn) value).index, text, escape, like.isCaseInsensitive());
+        }
+        Predicate<String> matcher = StringPredicates.likeMatcher(text, escape, like.isCaseInsensitive());
+        return tuple -> matcher.test(value.evaluateString(tuple));
+    }
+
+    private static Predicate<Tuple> compileIn(InExpression in, Schema schema, CommonSubexpressions.Evaluation shared) {
+        if (!(in.getRightItemsList() instanceof ExpressionList)) {
+            throw new IllegalArgumentException("Cannot compile condition " + in);
+        }
+        Expression leftExpression = in.getLeftExpression();
+        List<Expression> items = ((ExpressionList) in.getRightItemsList()).getExpressions();
+        Value left = compileValue(leftExpression, schema, shared);
+
+        List<Value> constants = new ArrayList<>(items.size());
+        for (Expression item : items) {
+            Value constant = compileValue(item, schema, shared);
+            if (left.getType() == DataType.DATE && constant instanceof StringConstant) {
+                constant = dateConstant(item);
+            }
+            if (!(constant instanceof Constant || constant instanceof StringConstant)) {
+                // A list that refers to columns is a chain of equalities
+                Predicate<Tuple> predicate = tuple -> false;
+                for (Expression each : items) {
+                    predicate = predicate.or(compileComparison(leftExpression, each, Comparison.EQ, schema, shared));
+                }
+                return predicate;
+            }
+            if ((constant.getType() == DataType.STRING) != (left.getType() == DataType.STRING)) {
+                throw new IllegalArgumentException("Cannot compare a string with a number in " + in);
+            }
+            constants.add(constant);
+        }
+
+        if (left.getType() == DataType.STRING) {
+            List<String> values = new ArrayList<>(constants.size());
+            for (Value constant : constants) {
+                values.add(((StringConstant) constant).value);
+            }
+            if (left instanceof StringColumn) {
+                return StringPredicates.in(((StringColumn) left).index, values);
+            }
+            Predicate<String> contains = new HashSet<>(values)::contains;
+            return tuple -> contains.test(left.evaluateString(tuple));
+        }
+
+        // The literals are scaled to a common scale with the column and searched in a sorted array
+        int scale = left.getScale();
+        for (Value constant : constants) {
+            scale = Math.max(scale, constant.getScale());
+        }
+        long[] values = new long[constants.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((Constant) rescale(constants.get(i), scale)).value;
+        }
+        Arrays.sort(values);
+        Value leftNumber = rescale(left, scale);
+        if (values.length == 1) {
+            long only = values[0];
+            return tuple -> leftNumber.evaluateLong(tuple) == only;
+        }
+        return tuple -> Arrays.binarySearch(values, leftNumber.evaluateLong(tuple)) >= 0;
+    }
+
+    private static Predicate<Tuple> compileBetween(Between between, Schema schema, CommonSubexpressions.Evaluation shared) {
+        Expression leftExpression = between.getLeftExpression();
+        Value left = compileValue(leftExpression, schema, shared);
+        Value start = compileValue(between.getBetweenExpressionStart(), schema, shared);
+        Value end = compileValue(between.getBetweenExpressionEnd(), schema, shared);
+        if (left.getType() == DataType.DATE) {
+            if (start instanceof StringConstant) {
+                start = dateConstant(between.getBetweenExpressionStart());
+            }
+            if (end instanceof StringConstant) {
+                end = dateConstant(between.getBetweenExpressionEnd());
+            }
+        }
+
+        if (left.getType() != DataType.STRING && start instanceof Constant && end instanceof Constant) {
+            // Both bounds are brought to the column's scale up front, leaving one range check per row
+            int scale = Math.max(left.getScale(), Math.max(start.getScale(), end.getScale()));
+            Value value = rescale(left, scale);
+            long low = ((Constant) rescale(start, scale)).value;
+            long high = ((Constant) rescale(end, scale)).value;
+            return tuple -> {
+                long v = value.evaluateLong(tuple);
+                return v >= low && v <= high;
+            };
+        }
+        return compileComparison(leftExpression, between.getBetweenExpressionStart(), Comparison.GE, schema, shared)
+            .and(compileComparison(leftExpression, between.getBetweenExpressionEnd(), Comparison.LE, schema, shared));
+    }
+
+    private static Value dateConstant(Expression expression) {
+        Integer epochDay = DateUtils.fold(expression);
+        if (epochDay == null) {
+            throw new IllegalArgumentException("Not a date: " + expression);
+        }
+        return new Constant(DataType.DATE, 0, epochDay);
+    }
+
+    private static Value rescale(Value value, int scale) {
+        if (value.getScale() == scale) {
+            return value;
+        }
+        long factor = FixedPoint.powerOfTen(scale - value.getScale());
+        if (value instanceof Constant) {
+            return new Constant(value.getType(), scale, Math.multiplyExact(((Constant) value).value, factor));
+        }
+        return new Rescaled(value, scale, factor);
+    }
+
+    /**
+     * Replaces an operation on constants by its result.
+     */
+    private static Value fold(Value value) {
+        if (value instanceof Arithmetic && ((Arithmetic) value).left instanceof Constant
+                && ((Arithmetic) value).right instanceof Constant) {
+            return new Constant(value.getType(), value.getScale(), value.evaluateLong(null));
+        }
+        return value;
+    }
+
+    /**
+     * A compiled scalar expression. Numbers are produced as longs at {@link #getScale()}, DATE values as epoch days.
+     */
+    public abstract static class Value {
+        private final DataType type;
+        private final int scale;
+
+        Value(DataType type, int scale) {
+            this.type = type;
+            this.scale = scale;
+        }
+
+        public DataType getType() {
+            return type;
+        }
+
+        public int getScale() {
+            return scale;
+        }
+
+        /**
+         * Evaluates a numeric or date expression.
+         *
+         * @param tuple The tuple to evaluate against
+         * @return The unscaled result
+         * @throws ArithmeticException If the result overflows
+         */
+        public long evaluateLong(Tuple tuple) {
+            throw new UnsupportedOperationException("A " + type + " expression has no numeric value");
+        }
+
+        /**
+         * Evaluates a numeric or date expression as a double.
+         *
+         * @param tuple The tuple to evaluate against
+         * @return The result
+         */
+        public double evaluateDouble(Tuple tuple) {
+            return FixedPoint.toDouble(evaluateLong(tuple), scale);
+        }
+
+        /**
+         * Evaluates an expression in its textual form.
+         *
+         * @param tuple The tuple to evaluate against
+         * @return The result as it would appear in a table file
+         */
+        public String evaluateString(Tuple tuple) {
+            if (type == DataType.DATE) {
+                return DateUtils.format(evaluateLong(tuple));
+            }
+            StringBuilder sb = new StringBuilder();
+            FixedPoint.append(sb, evaluateLong(tuple), scale);
+            return sb.toString();
+        }
+    }
+
+    private static final class NumericColumn extends Value {
+        private final int index;
+
+        NumericColumn(DataType type, int scale, int index) {
+            super(type, scale);
+            this.index = index;
+        }
+
+        @Override
+        public long evaluateLong(Tuple tuple) {
+            long value = tuple.getUnscaled(index);
+            int tupleScale = tuple.getScale(index);
+            return tupleScale == getScale() ? value : FixedPoint.rescale(value, tupleScale, getScale());
+        }
+    }
+
+    private static final class StringColumn extends Value {
+        private final int index;
+
+        StringColumn(int index) {
+            super(DataType.STRING, 0);
+            this.index = index;
+        }
+
+        @Override
+        public String evaluateString(Tuple tuple) {
+            return tuple.getString(index);
+        }
+    }
+
+    private static final class Constant extends Value {
+        private final long value;
+
+        Constant(DataType type, int scale, long value) {
+            super(type, scale);
+            this.value = value;
+        }
+
+        @Override
+        public long evaluateLong(Tuple tuple) {
+            return value;
+        }
+    }
+
+    private static final class StringConstant extends Value {
+        private final String value;
+
+        StringConstant(String value) {
+            super(DataType.STRING, 0);
+            this.value = value;
+        }
+
+        @Override
+        public String evaluateString(Tuple tuple) {
+            return value;
+        }
+    }
+
+    private static final class Rescaled extends Value {
+        private final Value value;
+        private final long factor;
+
+        Rescaled(Value value, int scale, long factor) {
+            super(value.getType(), scale);
+            this.value = value;
+            this.factor = factor;
+        }
+
+        @Override
+        public long evaluateLong(Tuple tuple) {
+            return Math.multiplyExact(value.evaluateLong(tuple), factor);
+        }
+    }
+
+    /**
+     * One of + - * / on two numeric values. The operands are rescaled by factors computed at compile
+     * time; products keep the sum of their operands' scales and quotients at least {@link #DIVISION_SCALE}.
+     */
+    private static final class Arithmetic extends Value {
+        private final char operator;
+        private final Value left;
+        private final Value right;
+        private final long leftFactor;
+        private final long rightFactor;
+
+        Arithmetic(char operator, Value left, Value right) {
+            super(resultType(left, right), resultScale(operator, left, right));
+            if (left.getType() == DataType.STRING || right.getType() == DataType.STRING) {
+                throw new IllegalArgumentException("Cannot apply " + operator + " to strings");
+            }
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            if (operator == '+' || operator == '-') {
+                this.leftFactor = FixedPoint.powerOfTen(getScale() - left.getScale());
+                this.rightFactor = FixedPoint.powerOfTen(getScale() - right.getScale());
+            } else {
+                this.leftFactor = 1;
+                this.rightFactor = 1;
+            }
+        }
+
+        private static DataType resultType(Value left, Value right) {
+            if (left.getType() == DataType.DECIMAL || right.getType() == DataType.DECIMAL) {
+                return DataType.DECIMAL;
+            }
+            return DataType.INT;
+        }
+
+        private static int resultScale(char operator, Value left, Value right) {
+            switch (operator) {
+                case '*':
+                    return Math.min(left.getScale() + right.getScale(), FixedPoint.MAX_SCALE);
+                case '/':
+                    return Math.max(DIVISION_SCALE, Math.max(left.getScale(), right.getScale()));
+                default:
+                    return Math.max(left.getScale(), right.getScale());
+            }
+        }
+
+        @Override
+        public long evaluateLong(Tuple tuple) {
+            long a = left.evaluateLong(tuple);
+            long b = right.evaluateLong(tuple);
+            switch (operator) {
+                case '+':
+                    return Math.addExact(Math.multiplyExact(a, leftFactor), Math.multiplyExact(b, rightFactor));
+                case '-':
+                    return Math.subtractExact(Math.multiplyExact(a, leftFactor), Math.multiplyExact(b, rightFactor));
+                case '*':
+                    int productScale = left.getScale() + right.getScale();
+                    long product = Math.multiplyExact(a, b);
+                    return productScale == getScale() ? product : FixedPoint.rescale(product, productScale, getScale());
+                default:
+                    return FixedPoint.divide(a, left.getScale(), b, right.getScale(), getScale());
+            }
+        }
+    }
+
+    /**
+     * The relational operators, applied to the result of a comparison.
+     */
+    private enum Comparison {
+        EQ("="), NE("<>"), GT(">"), GE(">="), LT("<"), LE("<=");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Comparison of(Expression expression) {
+            if (expression instanceof EqualsTo) {
+                return EQ;
+            }
+            if (expression instanceof NotEqualsTo) {
+                return NE;
+            }
+            if (expression instanceof GreaterThan) {
+                return GT;
+            }
+            if (expression instanceof GreaterThanEquals) {
+                return GE;
+            }
+            if (expression instanceof MinorThan) {
+                return LT;
+            }
+            if (expression instanceof MinorThanEquals) {
+                return LE;
+            }
+            return null;
+        }
+
+        boolean test(int comparison) {
+            switch (this) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case GT:
+                    return comparison > 0;
+                case GE:
+                    return comparison >= 0;
+                case LT:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.util.DateUtils;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.DateTimeLiteralExpression;
+import net.sf.jsqlparser.expression.DateValue;
+import net.sf.jsqlparser.expression.DoubleValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.IntervalExpression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NotExpression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.SignedExpression;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a WHERE clause once before it is executed, so that every evaluator downstream sees a
+ * predicate in one canonical shape:
+ * <ul>
+ *   <li>arithmetic on numeric literals and date arithmetic with intervals is folded to a literal;</li>
+ *   <li>comparisons with a constant on the left are flipped so the column is on the left;</li>
+ *   <li>NOT over a comparison becomes the inverse comparison;</li>
+ *   <li>nested ANDs and ORs are flattened into chains without redundant parentheses;</li>
+ *   <li>duplicate conjuncts and disjuncts are dropped, and of several lower or upper bounds on the
+ *       same column only the tightest is kept.</li>
+ * </ul>
+ */
+public class ExpressionRewriter {
+    private ExpressionRewriter() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Rewrites a condition. The expression is modified in place where possible.
+     *
+     * @param expression The condition, or null
+     * @return The rewritten condition, or null if the condition was null
+     */
+    public static Expression rewrite(Expression expression) {
+        return expression == null ? null : strip(normalize(expression));
+    }
+
+    private static Expression normalize(Expression expression) {
+        if (expression instanceof Parenthesis) {
+            Expression inner = normalize(((Parenthesis) expression).getExpression());
+            if (isConstant(inner) || inner instanceof Column || inner instanceof Parenthesis) {
+                return inner;
+            }
+            ((Parenthesis) expression).setExpression(inner);
+            return expression;
+        }
+        if (expression instanceof AndExpression || expression instanceof OrExpression) {
+            return normalizeJunction(expression);
+        }
+        if (expression instanceof NotExpression) {
+            Expression inner = strip(normalize(((NotExpression) expression).getExpression()));
+            BinaryExpression inverse = inverse(inner);
+            if (inverse != null) {
+                return inverse;
+            }
+            ((NotExpression) expression).setExpression(inner instanceof BinaryExpression ? new Parenthesis(inner) : inner);
+            return expression;
+        }
+        if (isComparison(expression)) {
+            BinaryExpression comparison = (BinaryExpression) expression;
+            comparison.setLeftExpression(normalize(comparison.getLeftExpression()));
+            comparison.setRightExpression(normalize(comparison.getRightExpression()));
+            if (isConstant(comparison.getLeftExpression()) && !isConstant(comparison.getRightExpression())) {
+                return flip(comparison);
+            }
+            return comparison;
+        }
+        if (expression instanceof Between) {
+            Between between = (Between) expression;
+            between.setLeftExpression(normalize(between.getLeftExpression()));
+            between.setBetweenExpressionStart(normalize(between.getBetweenExpressionStart()));
+            between.setBetweenExpressionEnd(normalize(between.getBetweenExpressionEnd()));
+            return between;
+        }
+        if (expression instanceof InExpression) {
+            InExpression in = (InExpression) expression;
+            in.setLeftExpression(normalize(in.getLeftExpression()));
+            if (in.getRightItemsList() instanceof ExpressionList) {
+                ExpressionList items = (ExpressionList) in.getRightItemsList();
+                List<Expression> folded = new ArrayList<>(items.getExpressions().size());
+                for (Expression item : items.getExpressions()) {
+                    folded.add(normalize(item));
+                }
+                items.setExpressions(folded);
+            }
+            return in;
+        }
+        if (expression instanceof LikeExpression) {
+            LikeExpression like = (LikeExpression) expression;
+            like.setLeftExpression(normalize(like.getLeftExpression()));
+            return like;
+        }
+        if (expression instanceof IsNullExpression) {
+            IsNullExpression isNull = (IsNullExpression) expression;
+            isNull.setLeftExpression(normalize(isNull.getLeftExpression()));
+            return isNull;
+        }
+        if (expression instanceof SignedExpression) {
+            SignedExpression signed = (SignedExpression) expression;
+            Expression inner = normalize(signed.getExpression());
+            BigDecimal value = numericValue(inner);
+            if (value != null) {
+                return numericLiteral(signed.getSign() == '-' ? value.negate() : value, inner instanceof LongValue);
+            }
+            signed.setExpression(inner);
+            return signed;
+        }
+        if (expression instanceof Addition || expression instanceof Subtraction
+                || expression instanceof Multiplication || expression instanceof Division) {
+            return foldArithmetic((BinaryExpression) expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Flattens a chain of one operator, rewrites its operands, drops the redundant ones and rebuilds it.
+     */
+    private static Expression normalizeJunction(Expression expression) {
+        boolean and = expression instanceof AndExpression;
+        List<Expression> operands = new ArrayList<>();
+        flatten(expression, and ? AndExpression.class : OrExpression.class, operands);
+
+        Map<String, Expression> unique = new LinkedHashMap<>();
+        for (Expression operand : operands) {
+            Expression normalized = strip(normalize(operand));
+            // A rewritten operand may itself be a chain of the same operator
+            List<Expression> parts = new ArrayList<>();
+            flatten(normalized, and ? AndExpression.class : OrExpression.class, parts);
+            for (Expression part : parts) {
+                unique.putIfAbsent(part.toString(), part);
+            }
+        }
+
+        List<Expression> kept = new ArrayList<>(unique.values());
+        if (and) {
+            kept = tightestBounds(kept);
+        }
+
+        Expression result = null;
+        for (Expression operand : kept) {
+            // OR binds weaker than AND, so disjunctions inside a conjunction keep their parentheses
+            if (and && operand instanceof OrExpression) {
+                operand = new Parenthesis(operand);
+            }
+            result = result == null ? operand : and ? new AndExpression(result, operand) : new OrExpression(result, operand);
+        }
+        return result;
+    }
+
+    /**
+     * Of the lower bounds and of the upper bounds on each column, keeps only the tightest.
+     */
+    private static List<Expression> tightestBounds(List<Expression> conjuncts) {
+        Map<String, Integer> tightest = new HashMap<>();
+        List<Expression> kept = new ArrayList<>(conjuncts.size());
+        for (Expression conjunct : conjuncts) {
+            Bound bound = Bound.of(conjunct);
+            if (bound == null) {
+                kept.add(conjunct);
+                continue;
+            }
+            String key = bound.column + (bound.lower ? " >" : " <");
+            Integer index = tightest.get(key);
+            if (index == null) {
+                tightest.put(key, kept.size());
+                kept.add(conjunct);
+            } else if (bound.tighterThan(Bound.of(kept.get(index)))) {
+                kept.set(index, conjunct);
+            }
+        }
+        return kept;
+    }
+
+    private static void flatten(Expression expression, Class<?> operator, List<Expression> operands) {
+        while (expression instanceof Parenthesis) {
+            expression = ((Parenthesis) expression).getExpression();
+        }
+        if (operator.isInstance(expression)) {
+            flatten(((BinaryExpression) expression).getLeftExpression(), operator, operands);
+            flatten(((BinaryExpression) expression).getRightExpression(), operator, operands);
+        } else {
+            operands.add(expression);
+        }
+    }
+
+    private static Expression strip(Expression expression) {
+        while (expression instanceof Parenthesis) {
+            expression = ((Parenthesis) expression).getExpression();
+        }
+        return expression;
+    }
+
+    private static Expression foldArithmetic(BinaryExpression arithmetic) {
+        Expression left = normalize(arithmetic.getLeftExpression());
+        Expression right = normalize(arithmetic.getRightExpression());
+        arithmetic.setLeftExpression(left);
+        arithmetic.setRightExpression(right);
+
+        if (right instanceof IntervalExpression) {
+            Integer epochDay = DateUtils.fold(arithmetic);
+            return epochDay == null ? arithmetic : new DateValue(Date.valueOf(LocalDate.ofEpochDay(epochDay)));
+        }
+
+        BigDecimal a = numericValue(left);
+        BigDecimal b = numericValue(right);
+        if (a == null || b == null) {
+            return arithmetic;
+        }
+        boolean integral = left instanceof LongValue && right instanceof LongValue;
+        try {
+            if (arithmetic instanceof Addition) {
+                return numericLiteral(a.add(b), integral);
+            }
+            if (arithmetic instanceof Subtraction) {
+                return numericLiteral(a.subtract(b), integral);
+            }
+            if (arithmetic instanceof Multiplication) {
+                return numericLiteral(a.multiply(b), integral);
+            }
+            // Quotients are only folded when exact, as evaluators round them to a fixed scale
+            return b.signum() == 0 ? arithmetic : numericLiteral(a.divide(b), false);
+        } catch (ArithmeticException e) {
+            // An inexact quotient or an integer that overflows a long is left to the evaluators
+            return arithmetic;
+        }
+    }
+
+    private static BigDecimal numericValue(Expression expression) {
+        if (expression instanceof LongValue) {
+            return new BigDecimal(((LongValue) expression).getBigIntegerValue());
+        }
+        if (expression instanceof DoubleValue) {
+            return new BigDecimal(expression.toString());
+        }
+        return null;
+    }
+
+    private static Expression numericLiteral(BigDecimal value, boolean integral) {
+        if (integral) {
+            return new LongValue(value.longValueExact());
+        }
+        return new DoubleValue(value.scale() < 0 ? value.setScale(0).toPlainString() : value.toPlainString());
+    }
+
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof LongValue || expression instanceof DoubleValue || expression instanceof StringValue
+            || expression instanceof DateValue || expression instanceof DateTimeLiteralExpression
+            || (expression instanceof Function && DateUtils.fold(expression) != null);
+    }
+
+    private static boolean isComparison(Expression expression) {
+        return expression instanceof EqualsTo || expression instanceof NotEqualsTo || expression instanceof GreaterThan
+            || expression instanceof GreaterThanEquals || expression instanceof MinorThan
+            || expression instanceof MinorThanEquals;
+    }
+
+    /**
+     * Returns {@code b op' a} for {@code a op b}, with op' the mirrored operator.
+     */
+    private static BinaryExpression flip(BinaryExpression comparison) {
+        BinaryExpression flipped;
+        if (comparison instanceof GreaterThan) {
+            flipped = new MinorThan();
+        } else if (comparison instanceof GreaterThanEquals) {
+            flipped = new MinorThanEquals();
+        } else if (comparison instanceof MinorThan) {
+            flipped = new GreaterThan();
+        } else if (comparison instanceof MinorThanEquals) {
+            flipped = new GreaterThanEquals();
+        } else {
+            flipped = comparison instanceof EqualsTo ? new EqualsTo() : new NotEqualsTo();
+        }
+        flipped.setLeftExpression(comparison.getRightExpression());
+        flipped.setRightExpression(comparison.getLeftExpression());
+        return flipped;
+    }
+
+    /**
+     * Returns the comparison that holds exactly when {@code expression} does not, or null if it is no comparison.
+     */
+    private static BinaryExpression inverse(Expression expression) {
+        BinaryExpression inverse;
+        if (expression instanceof GreaterThan) {
+            inverse = new MinorThanEquals();
+        } else if (expression instanceof GreaterThanEquals) {
+            inverse = new MinorThan();
+        } else if (expression instanceof MinorThan) {
+            inverse = new GreaterThanEquals();
+        } else if (expression instanceof MinorThanEquals) {
+            inverse = new GreaterThan();
+        } else if (expression instanceof EqualsTo) {
+            inverse = new NotEqualsTo();
+        } else if (expression instanceof NotEqualsTo) {
+            inverse = new EqualsTo();
+        } else {
+            return null;
+        }
+        inverse.setLeftExpression(((BinaryExpression) expression).getLeftExpression());
+        inverse.setRightExpression(((BinaryExpression) expression).getRightExpression());
+        return inverse;
+    }
+
+    /**
+     * A comparison of a column with a numeric or date literal that bounds the column from one side.
+     */
+    private static final class Bound {
+        private final String column;
+        private final boolean lower;
+        private final boolean strict;
+        private final BigDecimal value;
+
+        private Bound(String column, boolean lower, boolean strict, BigDecimal value) {
+            this.column = column;
+            this.lower = lower;
+            this.strict = strict;
+            this.value = value;
+        }
+
+        static Bound of(Expression expression) {
+            boolean lower = expression instanceof GreaterThan || expression instanceof GreaterThanEquals;
+            boolean upper = expression instanceof MinorThan || expression instanceof MinorThanEquals;
+            if (!lower && !upper) {
+                return null;
+            }
+            BinaryExpression comparison = (BinaryExpression) expression;
+            if (!(comparison.getLeftExpression() instanceof Column)) {
+                return null;
+            }
+            BigDecimal value = numericValue(comparison.getRightExpression());
+            if (value == null && !(comparison.getRightExpression() instanceof StringValue)) {
+                Integer epochDay = DateUtils.fold(comparison.getRightExpression());
+                value = epochDay == null ? null : BigDecimal.valueOf(epochDay);
+            }
+            if (value == null) {
+                return null;
+            }
+            String column = ((Column) comparison.getLeftExpression()).getFullyQualifiedName().toLowerCase();
+            boolean strict = expression instanceof GreaterThan || expression instanceof MinorThan;
+            return new Bound(column, lower, strict, value);
+        }
+
+        boolean tighterThan(Bound other) {
+            int c = value.compareTo(other.value);
+            if (c == 0) {
+                return strict && !other.strict;
+            }
+            return lower ? c > 0 : c < 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.expression.Expression;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * Passes on the tuples of its input that satisfy a predicate.
+ */
+public class FilterOperator implements Operator {
+    private final Operator child;
+    private final Predicate<Tuple> predicate;
+
+    /**
+     * Constructs a filter.
+     *
+     * @param child The input operator
+     * @param predicate The condition a tuple must satisfy, evaluated against the input's schema
+     */
+    public FilterOperator(Operator child, Predicate<Tuple> predicate) {
+        this.child = child;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Constructs a filter for a WHERE clause, compiled once against the input's schema.
+     *
+     * @param child The input operator
+     * @param condition The condition a tuple must satisfy
+     * @throws IllegalArgumentException If the condition cannot be compiled
+     */
+    public FilterOperator(Operator child, Expression condition) {
+        this(child, ExpressionCompiler.compilePredicate(condition, child.getSchema()));
+    }
+
+    @Override
+    public void open() throws IOException {
+        child.open();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        Tuple tuple;
+        while ((tuple = child.next()) != null) {
+            if (predicate.test(tuple)) {
+                return tuple;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        child.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+
+    Operator getChild() {
+        return child;
+    }
+}
@@ -0,0 +1,336 @@
+package edu.buffalo.cse562.operations;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A hybrid hash join of two streams of '|' delimited rows that stays within a memory budget, spilling
+ * what does not fit to a swap directory.
+ * <p>
+ * The number of partitions follows from the size of the build side and the budget. Rows of the first
+ * partition are kept in memory while the build side is read, and probe rows falling into it are joined
+ * right away; the other partitions are written to spill files through one buffered writer each, kept
+ * open for the whole pass. The buffers of those writers are sized to take at most a quarter of the
+ * budget and are counted against it, the resident partition gets what is left of it. If the resident
+ * partition outgrows that it is spilled as well. Every
+ * spilled partition pair is joined the same way afterwards, with a different hash seed so that its rows
+ * spread over new partitions. Deeper levels size their partitions from the heap bytes the spilled build
+ * rows were measured to take rather than from the file size, and a partition that overflowed while
+ * resident is always split in at least two. A partition that still overflows after {@link #MAX_DEPTH} levels holds
+ * one heavily repeated key, and is joined by loading its build rows one budget-sized block at a time.
+ * <p>
+ * The keys of the build side are also gathered in a {@link BloomFilter} while it is read, and probe rows
+ * whose key is not in it are dropped as soon as their key is extracted, so rows without a match are
+ * neither looked up nor written to a spill file.
+ */
+public class GraceHashJoin {
+    /** Levels of repartitioning after which an overflowing partition is joined block by block. */
+    public static final int MAX_DEPTH = 4;
+
+    /** Estimated heap bytes per buffered row besides its characters: the string, its array and a share of the map. */
+    private static final int ROW_OVERHEAD = 96;
+
+    /** Estimated heap bytes per byte of a spilled file, for rows of about a hundred characters. */
+    private static final int MEMORY_PER_FILE_BYTE = 3;
+
+    /** Upper bound on the partitions of one pass, which all hold an open spill file. */
+    private static final int MAX_PARTITIONS = 256;
+
+    /** Most characters buffered per spill file between writes. */
+    private static final int SPILL_BUFFER_CHARS = 1 << 16;
+
+    /** Fewest characters buffered per spill file, below which writes get too small to be worth buffering. */
+    private static final int MIN_SPILL_BUFFER_CHARS = 1 << 10;
+
+    /** The spill writers of a pass may take one part in this many of the budget. */
+    private static final int SPILL_BUFFER_SHARE = 4;
+
+    private final File swapDirectory;
+    private final long memoryBudget;
+    private final Function<String, Object> buildKey;
+    private final Function<String, Object> probeKey;
+    private final RowPairSink sink;
+    private int spilledPartitions;
+    private int deepestLevel;
+    private long filteredRows;
+
+    /**
+     * Creates a join.
+     *
+     * @param swapDirectory The directory spill files are created in
+     * @param memoryBudget The heap bytes the rows held in memory may take
+     * @param buildKey Extracts the join key of a build row
+     * @param probeKey Extracts the join key of a probe row
+     * @param sink Receives the joined pairs as build row and probe row, in no particular order
+     */
+    public GraceHashJoin(File swapDirectory, long memoryBudget, Function<String, Object> buildKey,
+            Function<String, Object> probeKey, RowPairSink sink) {
+        this.swapDirectory = swapDirectory;
+        this.memoryBudget = memoryBudget;
+        this.buildKey = buildKey;
+        this.probeKey = probeKey;
+        this.sink = sink;
+    }
+
+    /**
+     * Returns a budget leaving room for the rest of the query: a quarter of the maximum heap.
+     *
+     * @return The budget in bytes
+     */
+    public static long defaultMemoryBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * Joins two row streams. The build side should be the smaller one.
+     *
+     * @param build The rows of the build side
+     * @param buildBytes The size of the build side on disk, used to choose the number of partitions
+     * @param probe The rows of the probe side
+     * @throws IOException If a row cannot be read or written, or a spill file cannot be created
+     */
+    public void join(RowSource build, long buildBytes, RowSource probe) throws IOException {
+        join(build, buildBytes * MEMORY_PER_FILE_BYTE, probe, 0, false);
+    }
+
+    public int getSpilledPartitions() {
+        return spilledPartitions;
+    }
+
+    public long getFilteredRows() {
+        return filteredRows;
+    }
+
+    /**
+     * Returns the deepest level of repartitioning the join went to, 0 if nothing was spilled and
+     * {@link #MAX_DEPTH} if some partition had to be joined block by block.
+     */
+    public int getDeepestLevel() {
+        return deepestLevel;
+    }
+
+    /**
+     * Joins two row streams at one level of repartitioning.
+     *
+     * @param estimate The heap bytes the build rows are expected to take
+     * @param overflowed Whether these build rows already overflowed the budget as a resident partition
+     */
+    private void join(RowSource build, long estimate, RowSource probe, int depth, boolean overflowed) throws IOException {
+        deepestLevel = Math.max(deepestLevel, depth);
+        long partitionBudget = memoryBudget - memoryBudget / SPILL_BUFFER_SHARE;
+        int partitions = estimate <= partitionBudget ? 1
+            : (int) Math.min(MAX_PARTITIONS, (estimate + partitionBudget - 1) / partitionBudget);
+        if (overflowed) {
+            // Kept in one partition they would overflow again, so they are split however they were estimated
+            partitions = Math.max(2, partitions);
+        }
+        // The build writers are closed before the probe writers open, so at most one writer per partition
+        // holds a buffer at a time, and the resident rows get the budget those buffers leave
+        int bufferChars = spillBufferChars(memoryBudget, partitions);
+        long residentBudget = memoryBudget - partitions * 2L * bufferChars;
+        long seed = depth * 0x9e3779b97f4a7c15L;
+        // Probe rows of deeper levels already passed the filter of the first one
+        BloomFilter filter = depth == 0 ? new BloomFilter(estimate / MEMORY_PER_FILE_BYTE / BloomFilter.ROW_BYTES) : null;
+
+        Map<Object, List<String>> resident = new HashMap<>();
+        long residentBytes = 0;
+        SpillFile[] buildSpills = new SpillFile[partitions];
+        SpillFile[] probeSpills = new SpillFile[partitions];
+        // The heap bytes the build rows of each spilled partition took, measured like the resident rows
+        long[] spilledBytes = new long[partitions];
+        boolean residentOverflowed = false;
+        try {
+            String row;
+            while ((row = build.next()) != null) {
+                Object key = buildKey.apply(row);
+                if (filter != null) {
+                    filter.add(key);
+                }
+                int partition = partitionOf(key, seed, partitions);
+                if (partition == 0 && resident != null) {
+                    resident.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+                    residentBytes += ROW_OVERHEAD + 2L * row.length();
+                    if (residentBytes > residentBudget) {
+                        // The resident partition does not fit after all, so it joins the spilled ones
+                        buildSpills[0] = new SpillFile(swapDirectory, bufferChars);
+                        for (List<String> rows : resident.values()) {
+                            for (String residentRow : rows) {
+                                buildSpills[0].write(residentRow);
+                            }
+                        }
+                        resident = null;
+                        spilledBytes[0] = residentBytes;
+                        residentOverflowed = true;
+                    }
+                    continue;
+                }
+                if (buildSpills[partition] == null) {
+                    buildSpills[partition] = new SpillFile(swapDirectory, bufferChars);
+                }
+                buildSpills[partition].write(row);
+                spilledBytes[partition] += ROW_OVERHEAD + 2L * row.length();
+            }
+            closeAll(buildSpills);
+
+            while ((row = probe.next()) != null) {
+                Object key = probeKey.apply(row);
+                if (filter != null && !filter.mightContain(key)) {
+                    filteredRows++;
+                    continue;
+                }
+                int partition = partitionOf(key, seed, partitions);
+                if (partition == 0 && resident != null) {
+                    List<String> matches = resident.get(key);
+                    if (matches != null) {
+                        for (String buildRow : matches) {
+                            sink.accept(buildRow, row);
+                        }
+                    }
+                } else if (buildSpills[partition] != null) {
+                    // Probe rows of partitions without build rows have no matches and are dropped here
+                    if (probeSpills[partition] == null) {
+                        probeSpills[partition] = new SpillFile(swapDirectory, bufferChars);
+                    }
+                    probeSpills[partition].write(row);
+                }
+            }
+            resident = null;
+            closeAll(probeSpills);
+
+            for (int partition = 0; partition < partitions; partition++) {
+                if (buildSpills[partition] == null || probeSpills[partition] == null) {
+                    continue;
+                }
+                spilledPartitions++;
+                File buildFile = buildSpills[partition].file;
+                File probeFile = probeSpills[partition].file;
+                if (depth + 1 < MAX_DEPTH) {
+                    try (BufferedReader buildReader = Files.newBufferedReader(buildFile.toPath(), StandardCharsets.UTF_8);
+                            BufferedReader probeReader = Files.newBufferedReader(probeFile.toPath(), StandardCharsets.UTF_8)) {
+                        join(buildReader::readLine, spilledBytes[partition], probeReader::readLine, depth + 1,
+                            partition == 0 && residentOverflowed);
+                    }
+                } else {
+                    deepestLevel = MAX_DEPTH;
+                    joinBlocks(buildFile, probeFile);
+                }
+                buildSpills[partition].delete();
+                probeSpills[partition].delete();
+                buildSpills[partition] = null;
+                probeSpills[partition] = null;
+            }
+        } finally {
+            closeAll(buildSpills);
+            closeAll(probeSpills);
+            deleteAll(buildSpills);
+            deleteAll(probeSpills);
+        }
+    }
+
+    /**
+     * Joins a partition that cannot be split any further by loading budget-sized blocks of its build rows
+     * and scanning the probe rows once per block.
+     */
+    private void joinBlocks(File buildFile, File probeFile) throws IOException {
+        try (BufferedReader buildReader = Files.newBufferedReader(buildFile.toPath(), StandardCharsets.UTF_8)) {
+            String row = buildReader.readLine();
+            while (row != null) {
+                Map<Object, List<String>> block = new HashMap<>();
+                long blockBytes = 0;
+                do {
+                    block.computeIfAbsent(buildKey.apply(row), k -> new ArrayList<>()).add(row);
+                    blockBytes += ROW_OVERHEAD + 2L * row.length();
+                    row = buildReader.readLine();
+                } while (row != null && blockBytes < memoryBudget);
+
+                try (BufferedReader probeReader = Files.newBufferedReader(probeFile.toPath(), StandardCharsets.UTF_8)) {
+                    String probeRow;
+                    while ((probeRow = probeReader.readLine()) != null) {
+                        List<String> matches = block.get(probeKey.apply(probeRow));
+                        if (matches != null) {
+                            for (String buildRow : matches) {
+                                sink.accept(buildRow, probeRow);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the characters each spill writer of a pass buffers, so that the writers of all its partitions
+     * take at most their share of the budget, within the bounds of a useful buffer.
+     */
+    static int spillBufferChars(long memoryBudget, int partitions) {
+        long chars = memoryBudget / SPILL_BUFFER_SHARE / partitions / 2;
+        return (int) Math.max(MIN_SPILL_BUFFER_CHARS, Math.min(SPILL_BUFFER_CHARS, chars));
+    }
+
+    /**
+     * Returns the partition of a key, taken from the high bits of its hash mixed with the seed of a level.
+     */
+    private static int partitionOf(Object key, long seed, int partitions) {
+        if (partitions == 1) {
+            return 0;
+        }
+        long hash = LongJoinHashTable.mix(key.hashCode() ^ seed);
+        return (int) ((hash >>> 32) % partitions);
+    }
+
+    private static void closeAll(SpillFile[] spills) throws IOException {
+        for (SpillFile spill : spills) {
+            if (spill != null) {
+                spill.close();
+            }
+        }
+    }
+
+    private static void deleteAll(SpillFile[] spills) {
+        for (SpillFile spill : spills) {
+            if (spill != null) {
+                spill.delete();
+            }
+        }
+    }
+
+    /**
+     * A file in the swap directory holding the rows of one partition, written through a single writer.
+     */
+    private static final class SpillFile {
+        final File file;
+        private BufferedWriter writer;
+
+        SpillFile(File directory, int bufferChars) throws IOException {
+            this.file = File.createTempFile("join", ".tbl", directory);
+            this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()),
+                StandardCharsets.UTF_8), bufferChars);
+        }
+
+        void write(String row) throws IOException {
+            writer.write(row);
+            writer.write('\n');
+        }
+
+        void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+
+        void delete() {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Equi-joins two inputs by building a hash table on the right input and streaming the left input
+ * through it. Output tuples hold the left tuple's slots followed by the right tuple's slots.
+ * Joins on INT and DATE columns use a {@link LongJoinHashTable} over the build tuples' positions;
+ * other key types use a HashMap keyed by the slot's boxed value, and joins on several columns a HashMap
+ * keyed by their {@link CompositeKey}.
+ * <p>
+ * For INT and DATE keys the build keys are also put in a {@link BloomFilter} that is pushed down to the
+ * scan under the left input, through any filters, so left rows without a match are dropped while they
+ * are read.
+ */
+public class HashJoinOperator implements Operator {
+    private final Operator left;
+    private final Operator right;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final Schema schema;
+    private final boolean integralKeys;
+    private HashMap<Object, List<Tuple>> hashTable;
+    private LongJoinHashTable longHashTable;
+    private List<Tuple> buildTuples;
+    private Tuple probeTuple;
+    private List<Tuple> matches = Collections.emptyList();
+    private int matchPosition;
+    private int matchRow = -1;
+
+    /**
+     * Constructs a hash join.
+     *
+     * @param left The probe input, streamed
+     * @param right The build input, held in memory; use the smaller input here
+     * @param leftColumn Join column of the left input
+     * @param rightColumn Join column of the right input
+     */
+    public HashJoinOperator(Operator left, Operator right, String leftColumn, String rightColumn) {
+        this(left, right, new String[] {leftColumn}, new String[] {rightColumn});
+    }
+
+    /**
+     * Constructs a hash join on several pairs of columns, all of which must be equal for tuples to match.
+     *
+     * @param left The probe input, streamed
+     * @param right The build input, held in memory; use the smaller input here
+     * @param leftColumns Join columns of the left input
+     * @param rightColumns Join columns of the right input, paired with the left ones by position
+     * @throws IllegalArgumentException If no columns or different numbers of columns are given
+     */
+    public HashJoinOperator(Operator left, Operator right, String[] leftColumns, String[] rightColumns) {
+        if (leftColumns.length == 0 || leftColumns.length != rightColumns.length) {
+            throw new IllegalArgumentException("Join needs the same non-zero number of columns on both sides");
+        }
+        this.left = left;
+        this.right = right;
+        this.leftKeys = new int[leftColumns.length];
+        this.rightKeys = new int[rightColumns.length];
+        for (int i = 0; i < leftColumns.length; i++) {
+            leftKeys[i] = left.getSchema().resolve(leftColumns[i]);
+            rightKeys[i] = right.getSchema().resolve(rightColumns[i]);
+        }
+        this.schema = left.getSchema().concat(right.getSchema());
+        DataType leftType = left.getSchema().getType(leftKeys[0]);
+        this.integralKeys = leftKeys.length == 1 && (leftType == DataType.INT || leftType == DataType.DATE)
+            && leftType == right.getSchema().getType(rightKeys[0]);
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (integralKeys) {
+            buildTuples = new ArrayList<>();
+        } else {
+            hashTable = new HashMap<>();
+        }
+        right.open();
+        try {
+            Tuple tuple;
+            while ((tuple = right.next()) != null) {
+                if (integralKeys) {
+                    buildTuples.add(tuple);
+                } else {
+                    hashTable.computeIfAbsent(keyOf(tuple, rightKeys), key -> new ArrayList<>(1)).add(tuple);
+                }
+            }
+        } finally {
+            right.close();
+        }
+        if (integralKeys) {
+            long[] keys = new long[buildTuples.size()];
+            for (int row = 0; row < keys.length; row++) {
+                keys[row] = buildTuples.get(row).getUnscaled(rightKeys[0]);
+            }
+            longHashTable = LongJoinHashTable.build(keys);
+            pushDown(left, leftKeys[0], BloomFilter.of(keys));
+        }
+        left.open();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        if (integralKeys) {
+            while (matchRow < 0) {
+                probeTuple = left.next();
+                if (probeTuple == null) {
+                    return null;
+                }
+                matchRow = longHashTable.first(probeTuple.getUnscaled(leftKeys[0]));
+            }
+            Tuple match = buildTuples.get(matchRow);
+            matchRow = longHashTable.next(matchRow);
+            return probeTuple.concat(match);
+        }
+
+        while (matchPosition >= matches.size()) {
+            probeTuple = left.next();
+            if (probeTuple == null) {
+                return null;
+            }
+            List<Tuple> found = hashTable.get(keyOf(probeTuple, leftKeys));
+            matches = found == null ? Collections.<Tuple>emptyList() : found;
+            matchPosition = 0;
+        }
+        return probeTuple.concat(matches.get(matchPosition++));
+    }
+
+    @Override
+    public void close() throws IOException {
+        hashTable = null;
+        longHashTable = null;
+        buildTuples = null;
+        matches = Collections.emptyList();
+        matchRow = -1;
+        left.close();
+        if (integralKeys) {
+            pushDown(left, leftKeys[0], null);
+        }
+    }
+
+    /**
+     * Hands the filter to the scan producing an input, if filters are all that lie between them, as they
+     * keep the columns where they are.
+     */
+    private static void pushDown(Operator input, int column, BloomFilter keys) {
+        if (input instanceof ScanOperator) {
+            ((ScanOperator) input).filterKeys(column, keys);
+        } else if (input instanceof FilterOperator) {
+            pushDown(((FilterOperator) input).getChild(), column, keys);
+        }
+    }
+
+    private static Object keyOf(Tuple tuple, int[] columns) {
+        return columns.length == 1 ? tuple.getKey(columns[0]) : CompositeKey.of(tuple, columns);
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
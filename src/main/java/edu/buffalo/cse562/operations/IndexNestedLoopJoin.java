@@ -0,0 +1,64 @@
+package edu.buffalo.cse562.operations;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An index nested-loop join: every row of a small outer input looks up its key in a persistent index
+ * over the inner table, such as the JDBM B-trees built on primary keys, so that the inner table is never
+ * scanned or hashed.
+ * <p>
+ * Lookups are remembered per distinct key, so outer rows repeating a key, for example the orders of one
+ * customer, cost a single probe of the index.
+ */
+public final class IndexNestedLoopJoin {
+    /** Rough cost of one index probe in scanned rows: a few page reads and deserialising the matching rows. */
+    public static final int PROBE_COST = 16;
+
+    private IndexNestedLoopJoin() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Tells whether probing an index once per outer row is expected to beat scanning and hashing the inner table.
+     *
+     * @param outerRows Number of rows of the outer input
+     * @param innerRows Number of rows of the inner table
+     * @return Whether the index nested-loop join should be used
+     */
+    public static boolean isCheaper(long outerRows, long innerRows) {
+        return outerRows * PROBE_COST < innerRows;
+    }
+
+    /**
+     * Joins an outer input with an indexed inner table.
+     *
+     * @param outer The rows of the outer input
+     * @param outerKey Extracts from an outer row the key it is looked up by in the index
+     * @param index The rows of the inner table by key
+     * @param sink Receives every outer row with each inner row found for its key, in outer row order
+     * @return The number of pairs emitted
+     * @throws IOException If a row cannot be read or a pair cannot be written
+     */
+    public static long join(RowSource outer, Function<String, String> outerKey,
+            Map<String, ? extends Collection<String>> index, RowPairSink sink) throws IOException {
+        Map<String, Collection<String>> lookups = new HashMap<>();
+        long pairs = 0;
+        String row;
+        while ((row = outer.next()) != null) {
+            Collection<String> matches = lookups.computeIfAbsent(outerKey.apply(row), key -> {
+                Collection<String> found = index.get(key);
+                return found == null ? Collections.<String>emptyList() : found;
+            });
+            for (String match : matches) {
+                sink.accept(row, match);
+            }
+            pairs += matches.size();
+        }
+        return pairs;
+    }
+}
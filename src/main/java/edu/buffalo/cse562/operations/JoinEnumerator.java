@@ -0,0 +1,370 @@
+package edu.buffalo.cse562.operations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chooses the order in which the relations of a query are joined and the algorithm of each join.
+ * <p>
+ * Plans are left-deep: each join adds one relation to the result of the joins before it, which is the
+ * shape the joins over '|' delimited rows take. Up to {@link #MAX_DP_RELATIONS} relations, the cheapest
+ * plan of every connected subset of the relations is found by dynamic programming over the subsets, from
+ * the cheapest plans of its subsets one relation smaller; cross products are never considered. Above that
+ * the plan is built greedily, always adding the relation that keeps the intermediate result smallest.
+ * <p>
+ * The size of a join is estimated as the product of the sizes of its relations and the selectivities of
+ * the predicates between them, taken as independent. A hash join costs {@link #BUILD_ROW_COST} per build
+ * row, one per probe row and one per result row, building on the smaller input; which input that is
+ * is left to the join itself, which knows the actual sizes. A relation joined on a single attribute can
+ * also be merged or probed through an index on that attribute. A merge join costs one per row of either
+ * input and one per result row, plus {@link #sortCost(double)} for each input not already ordered on the
+ * attribute; the result of a merge is ordered on it. An index nested-loop join costs
+ * {@link IndexNestedLoopJoin#PROBE_COST} per outer row and one per result row.
+ */
+public final class JoinEnumerator {
+    /** Relations up to which the plan is found by dynamic programming. */
+    public static final int MAX_DP_RELATIONS = 10;
+
+    /** Cost of adding a row to a hash table, relative to probing the table with a row. */
+    public static final double BUILD_ROW_COST = 2;
+
+    /** Cost of one comparison of a sort, relative to probing a hash table with a row. */
+    public static final double COMPARE_COST = 0.25;
+
+    /** The ways a relation can be joined to the result of the joins before it. */
+    public enum Algorithm {
+        /** Hash the smaller input and probe it with the other one. */
+        HASH,
+        /** Sort whichever input is not ordered on the joining attribute and merge the two. */
+        MERGE,
+        /** Look every outer row up in the index of the added relation. */
+        INDEX_NESTED_LOOP
+    }
+
+    private final double[] rows;
+    private final double[][] selectivities;
+    private final long[] neighbours;
+    private final String[][] attributes;
+    private final List<Set<String>> indexedOn;
+    private final List<Set<String>> orderedOn;
+
+    /**
+     * Creates an enumerator.
+     *
+     * @param rows The number of rows of each relation, after its own filters
+     * @throws IllegalArgumentException If there are no relations or more than 63 of them
+     */
+    public JoinEnumerator(long[] rows) {
+        if (rows.length == 0 || rows.length >= Long.SIZE) {
+            throw new IllegalArgumentException("Cannot plan a join of " + rows.length + " relations");
+        }
+        this.rows = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            this.rows[i] = Math.max(1, rows[i]);
+        }
+        this.selectivities = new double[rows.length][rows.length];
+        for (double[] row : selectivities) {
+            Arrays.fill(row, 1);
+        }
+        this.neighbours = new long[rows.length];
+        this.attributes = new String[rows.length][rows.length];
+        this.indexedOn = new ArrayList<>(rows.length);
+        this.orderedOn = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            indexedOn.add(new HashSet<>());
+            orderedOn.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Returns the cost of sorting a number of rows, about {@code n log2 n} comparisons.
+     *
+     * @param rows The number of rows
+     * @return The cost, relative to probing a hash table with a row
+     */
+    public static double sortCost(double rows) {
+        return rows < 2 ? 0 : COMPARE_COST * rows * Math.log(rows) / Math.log(2);
+    }
+
+    /**
+     * Adds a join predicate between two relations on columns that are not known to be indexed or ordered.
+     *
+     * @param first One relation
+     * @param second The other relation
+     * @param selectivity The fraction of the pairs of rows of the two relations satisfying the predicate
+     */
+    public void addPredicate(int first, int second, double selectivity) {
+        addPredicate(first, second, null, selectivity);
+    }
+
+    /**
+     * Adds an equality predicate between an attribute of two relations. Several predicates between the
+     * same relations multiply, and the relations are then joined on all of their attributes at once.
+     *
+     * @param first One relation
+     * @param second The other relation
+     * @param attribute The attribute both relations are joined on, or null if it is not known
+     * @param selectivity The fraction of the pairs of rows of the two relations satisfying the predicate
+     */
+    public void addPredicate(int first, int second, String attribute, double selectivity) {
+        boolean joined = (neighbours[first] & 1L << second) != 0;
+        attributes[first][second] = joined ? null : attribute;
+        attributes[second][first] = attributes[first][second];
+        selectivities[first][second] *= selectivity;
+        selectivities[second][first] *= selectivity;
+        neighbours[first] |= 1L << second;
+        neighbours[second] |= 1L << first;
+    }
+
+    /**
+     * Marks a relation as having an index on an attribute, so it can be joined on that attribute by probing.
+     *
+     * @param relation The relation
+     * @param attribute The indexed attribute
+     */
+    public void setIndexed(int relation, String attribute) {
+        indexedOn.get(relation).add(attribute);
+    }
+
+    /**
+     * Marks a relation as having its rows ordered on an attribute, so it can be merged on that attribute
+     * without sorting.
+     *
+     * @param relation The relation
+     * @param attribute The attribute the rows are ascending on
+     */
+    public void setOrdered(int relation, String attribute) {
+        orderedOn.get(relation).add(attribute);
+    }
+
+    /**
+     * Finds the cheapest plan joining all relations.
+     *
+     * @return The plan, or null if the predicates do not connect all relations
+     */
+    public Plan plan() {
+        return rows.length <= MAX_DP_RELATIONS ? planExhaustively() : planGreedily();
+    }
+
+    private Plan planExhaustively() {
+        int relations = rows.length;
+        Plan[] best = new Plan[1 << relations];
+        for (int relation = 0; relation < relations; relation++) {
+            best[1 << relation] = new Plan(relation, rows[relation]);
+        }
+        // A subset minus one relation is numerically smaller, so it is planned before the subset
+        for (int subset = 1; subset < best.length; subset++) {
+            if (Integer.bitCount(subset) < 2) {
+                continue;
+            }
+            for (int relation = 0; relation < relations; relation++) {
+                int rest = subset & ~(1 << relation);
+                if (rest == subset || best[rest] == null || (neighbours[relation] & rest) == 0) {
+                    continue;
+                }
+                Plan candidate = join(best[rest], relation);
+                if (best[subset] == null || candidate.cost < best[subset].cost) {
+                    best[subset] = candidate;
+                }
+            }
+        }
+        return best[best.length - 1];
+    }
+
+    private Plan planGreedily() {
+        Plan plan = null;
+        for (int first = 0; first < rows.length; first++) {
+            for (long others = neighbours[first]; others != 0; others &= others - 1) {
+                Plan candidate = join(new Plan(first, rows[first]), Long.numberOfTrailingZeros(others));
+                if (plan == null || isBetter(candidate, plan)) {
+                    plan = candidate;
+                }
+            }
+        }
+        for (int joined = 2; plan != null && joined < rows.length; joined++) {
+            Plan next = null;
+            for (int relation = 0; relation < rows.length; relation++) {
+                if ((plan.relations & 1L << relation) == 0 && (neighbours[relation] & plan.relations) != 0) {
+                    Plan candidate = join(plan, relation);
+                    if (next == null || isBetter(candidate, next)) {
+                        next = candidate;
+                    }
+                }
+            }
+            plan = next;
+        }
+        return plan;
+    }
+
+    /**
+     * Tells whether a partial plan leaves a smaller result than another, or an equally large one for less.
+     */
+    private static boolean isBetter(Plan plan, Plan other) {
+        return plan.rows < other.rows || plan.rows == other.rows && plan.cost < other.cost;
+    }
+
+    /**
+     * Returns the cheapest way of joining a relation to a plan.
+     */
+    private Plan join(Plan outer, int relation) {
+        double joinRows = outer.rows * rows[relation];
+        for (long others = outer.relations; others != 0; others &= others - 1) {
+            joinRows *= selectivities[relation][Long.numberOfTrailingZeros(others)];
+        }
+        joinRows = Math.max(1, joinRows);
+        String attribute = joiningAttribute(outer, relation);
+        Plan inner = new Plan(relation, rows[relation]);
+
+        double buildRows = Math.min(outer.rows, rows[relation]);
+        double probeRows = Math.max(outer.rows, rows[relation]);
+        Plan best = new Plan(outer, inner, Algorithm.HASH, attribute, joinRows,
+            outer.cost + BUILD_ROW_COST * buildRows + probeRows + joinRows);
+        if (attribute == null) {
+            return best;
+        }
+
+        double mergeCost = outer.rows + rows[relation] + joinRows;
+        if (!isOrderedOn(outer, attribute)) {
+            mergeCost += sortCost(outer.rows);
+        }
+        if (!orderedOn.get(relation).contains(attribute)) {
+            mergeCost += sortCost(rows[relation]);
+        }
+        if (outer.cost + mergeCost < best.cost) {
+            best = new Plan(outer, inner, Algorithm.MERGE, attribute, joinRows, outer.cost + mergeCost);
+        }
+
+        double probeCost = outer.rows * IndexNestedLoopJoin.PROBE_COST + joinRows;
+        if (indexedOn.get(relation).contains(attribute) && outer.cost + probeCost < best.cost) {
+            best = new Plan(outer, inner, Algorithm.INDEX_NESTED_LOOP, attribute, joinRows, outer.cost + probeCost);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the attribute a relation is joined to a plan on, or null if it is joined on several
+     * attributes or on one that is not known.
+     */
+    private String joiningAttribute(Plan outer, int relation) {
+        long joined = neighbours[relation] & outer.relations;
+        if (Long.bitCount(joined) != 1) {
+            return null;
+        }
+        return attributes[relation][Long.numberOfTrailingZeros(joined)];
+    }
+
+    /**
+     * Tells whether the rows of a plan come ordered on an attribute: a relation marked as ordered on it,
+     * or a merge join on it.
+     */
+    private boolean isOrderedOn(Plan plan, String attribute) {
+        if (plan.isLeaf()) {
+            return orderedOn.get(plan.relation).contains(attribute);
+        }
+        return plan.algorithm == Algorithm.MERGE && attribute.equals(plan.attribute);
+    }
+
+    /**
+     * A join plan: either a single relation, or the join of a plan with one more relation.
+     */
+    public static final class Plan {
+        private final int relation;
+        private final Plan outer;
+        private final Plan inner;
+        private final Algorithm algorithm;
+        private final String attribute;
+        private final double rows;
+        private final double cost;
+        private final long relations;
+
+        private Plan(int relation, double rows) {
+            this.relation = relation;
+            this.outer = null;
+            this.inner = null;
+            this.algorithm = null;
+            this.attribute = null;
+            this.rows = rows;
+            this.cost = 0;
+            this.relations = 1L << relation;
+        }
+
+        private Plan(Plan outer, Plan inner, Algorithm algorithm, String attribute, double rows, double cost) {
+            this.relation = -1;
+            this.outer = outer;
+            this.inner = inner;
+            this.algorithm = algorithm;
+            this.attribute = attribute;
+            this.rows = rows;
+            this.cost = cost;
+            this.relations = outer.relations | inner.relations;
+        }
+
+        public boolean isLeaf() {
+            return outer == null;
+        }
+
+        /**
+         * Returns the relation of a leaf.
+         *
+         * @return The relation, or -1 for a join
+         */
+        public int getRelation() {
+            return relation;
+        }
+
+        /**
+         * Returns the plan of the joins before this one.
+         *
+         * @return The outer plan, or null for a leaf
+         */
+        public Plan getOuter() {
+            return outer;
+        }
+
+        /**
+         * Returns the relation this join adds.
+         *
+         * @return A leaf plan, or null for a leaf
+         */
+        public Plan getInner() {
+            return inner;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        /**
+         * Returns the attribute this join is on.
+         *
+         * @return The attribute, or null for a leaf or a join on several or unknown attributes
+         */
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public double getRows() {
+            return rows;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        /**
+         * Describes the plan, such as {@code ((2 x 0) -> 1)} for a hash join of relations 2 and 0 whose
+         * result probes the index of relation 1; {@code m} stands for a merge join.
+         */
+        @Override
+        public String toString() {
+            if (isLeaf()) {
+                return Integer.toString(relation);
+            }
+            String operator = algorithm == Algorithm.HASH ? " x " : algorithm == Algorithm.MERGE ? " m " : " -> ";
+            return "(" + outer + operator + inner + ")";
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package edu.buffalo.cse562.operations;
+
+import java.util.Arrays;
+
+/**
+ * A hash table from long join keys to build-side row numbers, for joins on INT and DATE columns.
+ * <p>
+ * Keys live in an open addressing table with linear probing; each slot holds a key and the first
+ * row with that key, and the rows sharing a key are chained through an int array indexed by row.
+ * Apart from those three primitive arrays nothing is allocated, where a {@code HashMap} keyed by
+ * boxed values needs an entry, a boxed key and a list per distinct key.
+ */
+public final class LongJoinHashTable {
+    private static final int EMPTY = -1;
+
+    private final long[] keys;
+    private final int[] heads;
+    private final int[] next;
+    private final int mask;
+    private int distinctKeys;
+
+    private LongJoinHashTable(int rows) {
+        // At most half the slots are used, which keeps probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(2, rows) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.heads = new int[capacity];
+        this.next = new int[rows];
+        this.mask = capacity - 1;
+        Arrays.fill(heads, EMPTY);
+    }
+
+    /**
+     * Builds a table over the keys of the build side's rows.
+     *
+     * @param rowKeys The join key of every row, indexed by row number
+     * @return The table
+     */
+    public static LongJoinHashTable build(long[] rowKeys) {
+        LongJoinHashTable table = new LongJoinHashTable(rowKeys.length);
+        // Rows are pushed onto the front of their chain, so adding them backwards leaves each chain ascending
+        for (int row = rowKeys.length - 1; row >= 0; row--) {
+            table.add(rowKeys[row], row);
+        }
+        return table;
+    }
+
+    private void add(long key, int row) {
+        int slot = slotOf(key);
+        if (heads[slot] == EMPTY) {
+            keys[slot] = key;
+            distinctKeys++;
+        }
+        next[row] = heads[slot];
+        heads[slot] = row;
+    }
+
+    /**
+     * Returns the first row with a key.
+     *
+     * @param key The probe key
+     * @return The lowest row number with that key, or -1 if there is none
+     */
+    public int first(long key) {
+        return heads[slotOf(key)];
+    }
+
+    /**
+     * Returns the row following another one with the same key.
+     *
+     * @param row A row returned by {@link #first(long)} or this method
+     * @return The next row number with the same key, in ascending order, or -1 after the last one
+     */
+    public int next(int row) {
+        return next[row];
+    }
+
+    public int size() {
+        return next.length;
+    }
+
+    public int getDistinctKeys() {
+        return distinctKeys;
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would be inserted.
+     */
+    private int slotOf(long key) {
+        int slot = (int) mix(key) & mask;
+        while (heads[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads the bits of a key, as dense keys such as order numbers would otherwise fill runs of slots.
+     * Slots are taken from the low bits of the result; partitioning joins use the high bits.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.buffalo.cse562.operations;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The merge phase of a sort-merge join: streams two inputs that are both ordered ascending on their
+ * join keys and emits every pair of rows with equal keys.
+ * <p>
+ * Only the rows of the second input sharing the current key are held in memory; each row of the first
+ * input with that key is paired with all of them. The pairs come out ordered by key, then by the
+ * position of the first row and then of the second row, so the result is itself ordered on the join key.
+ * An input found out of order is reported rather than silently producing a partial join.
+ */
+public final class MergeJoin {
+    private MergeJoin() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Joins two ordered inputs.
+     *
+     * @param first The rows of the first input, ordered ascending on their keys
+     * @param firstKey Extracts the join key of a row of the first input
+     * @param second The rows of the second input, ordered ascending on their keys
+     * @param secondKey Extracts the join key of a row of the second input
+     * @param sink Receives the matched pairs in key order
+     * @return The number of pairs emitted
+     * @throws IOException If a row cannot be read or a pair cannot be written
+     * @throws UnorderedInputException If an input is not ordered on its key
+     */
+    public static long join(RowSource first, Function<String, Object> firstKey, RowSource second,
+            Function<String, Object> secondKey, RowPairSink sink) throws IOException {
+        Cursor left = new Cursor(first, firstKey);
+        Cursor right = new Cursor(second, secondKey);
+        List<String> group = new ArrayList<>();
+        long pairs = 0;
+        while (left.row != null && right.row != null) {
+            int comparison = compare(left.key, right.key);
+            if (comparison < 0) {
+                left.advance();
+            } else if (comparison > 0) {
+                right.advance();
+            } else {
+                // Gather the rows of the second input sharing this key, then pair each first row with them
+                Object key = right.key;
+                group.clear();
+                do {
+                    group.add(right.row);
+                    right.advance();
+                } while (right.row != null && compare(right.key, key) == 0);
+                do {
+                    for (String row : group) {
+                        sink.accept(left.row, row);
+                    }
+                    pairs += group.size();
+                    left.advance();
+                } while (left.row != null && compare(left.key, key) == 0);
+            }
+        }
+        return pairs;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object key, Object other) {
+        return ((Comparable) key).compareTo(other);
+    }
+
+    /**
+     * Thrown when a row of an input has a smaller key than the row before it.
+     */
+    public static final class UnorderedInputException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        UnorderedInputException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The current row of an input and its key, checking that the keys never decrease.
+     */
+    private static final class Cursor {
+        private final RowSource source;
+        private final Function<String, Object> keyOf;
+        String row;
+        Object key;
+
+        Cursor(RowSource source, Function<String, Object> keyOf) throws IOException {
+            this.source = source;
+            this.keyOf = keyOf;
+            advance();
+        }
+
+        void advance() throws IOException {
+            Object previous = key;
+            row = source.next();
+            key = row == null ? null : keyOf.apply(row);
+            if (key != null && previous != null && compare(key, previous) < 0) {
+                throw new UnorderedInputException("Rows are not ordered on the join key: " + key + " follows " + previous);
+            }
+        }
+    }
+}
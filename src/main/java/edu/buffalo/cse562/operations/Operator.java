@@ -0,0 +1,45 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.io.IOException;
+
+/**
+ * A pull-based (Volcano style) query operator. Rows flow through a pipeline of operators one
+ * tuple at a time; only blocking operators such as sort, aggregation and the build side of a join
+ * hold rows in memory.
+ *
+ * <p>An operator is used by calling {@link #open()} once, {@link #next()} until it returns null,
+ * and {@link #close()} once.
+ */
+public interface Operator {
+    /**
+     * Prepares the operator, and its inputs, for producing tuples.
+     *
+     * @throws IOException If an input cannot be opened
+     */
+    void open() throws IOException;
+
+    /**
+     * Produces the next tuple.
+     *
+     * @return The next tuple, or null when the operator is exhausted
+     * @throws IOException If an input cannot be read
+     */
+    Tuple next() throws IOException;
+
+    /**
+     * Releases the operator's state and closes its inputs.
+     *
+     * @throws IOException If an input cannot be closed
+     */
+    void close() throws IOException;
+
+    /**
+     * Returns the names and types of the tuples this operator produces.
+     *
+     * @return The output schema
+     */
+    Schema getSchema();
+}
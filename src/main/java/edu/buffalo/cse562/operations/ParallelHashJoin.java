@@ -0,0 +1,246 @@
+package edu.buffalo.cse562.operations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * An equi-join on long keys that uses all available cores, for joins on INT and DATE columns.
+ * <p>
+ * Both inputs are first radix partitioned on the high bits of their hashed keys: every worker counts
+ * the partitions of its slice of rows, and after a prefix sum scatters the slice to its own region of
+ * each partition, so rows keep their order within a partition. The partitions are then joined
+ * independently, each with a {@link LongJoinHashTable} small enough to stay in a core's cache.
+ * <p>
+ * Matches are counted per probe row first and written out after a prefix sum over those counts, so
+ * the result is ordered by probe row and then build row, exactly as a single threaded hash join
+ * probing the rows one after the other would produce it.
+ */
+public final class ParallelHashJoin {
+    /** Joins with fewer rows on both sides together run on the calling thread. */
+    public static final int MIN_PARALLEL_ROWS = 1 << 16;
+
+    /** Build rows per partition, which keeps a partition's hash table within a core's L2 cache. */
+    private static final int PARTITION_ROWS = 1 << 13;
+
+    /** Upper bound on the radix bits, as the histograms grow with the number of partitions. */
+    private static final int MAX_RADIX_BITS = 12;
+
+    /** Number of tasks per worker thread, so that skewed partitions still balance out. */
+    private static final int TASKS_PER_THREAD = 4;
+
+    private ParallelHashJoin() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Joins two sides on their keys using the common fork/join pool.
+     *
+     * @param buildKeys The join key of every build row, indexed by row number
+     * @param probeKeys The join key of every probe row, indexed by row number
+     * @return The matching pairs of rows, ordered by probe row and then build row
+     */
+    public static Matches join(long[] buildKeys, long[] probeKeys) {
+        return join(buildKeys, probeKeys, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Joins two sides on their keys.
+     *
+     * @param buildKeys The join key of every build row, indexed by row number
+     * @param probeKeys The join key of every probe row, indexed by row number
+     * @param pool The pool the partitions are joined on
+     * @return The matching pairs of rows, ordered by probe row and then build row
+     */
+    public static Matches join(long[] buildKeys, long[] probeKeys, ForkJoinPool pool) {
+        int parallelism = pool.getParallelism();
+        if (parallelism < 2 || buildKeys.length + (long) probeKeys.length < MIN_PARALLEL_ROWS) {
+            return join(buildKeys, probeKeys, pool, 0);
+        }
+        int partitions = Math.max(parallelism * TASKS_PER_THREAD, buildKeys.length / PARTITION_ROWS);
+        int radixBits = Math.min(MAX_RADIX_BITS, 32 - Integer.numberOfLeadingZeros(partitions - 1));
+        return join(buildKeys, probeKeys, pool, radixBits);
+    }
+
+    /**
+     * Joins two sides split into a given number of partitions; no partitioning happens with zero bits.
+     */
+    static Matches join(long[] buildKeys, long[] probeKeys, ForkJoinPool pool, int radixBits) {
+        if (radixBits == 0) {
+            return joinSequential(buildKeys, probeKeys);
+        }
+        Partitions build = new Partitions(buildKeys, radixBits, pool);
+        Partitions probe = new Partitions(probeKeys, radixBits, pool);
+        int partitionCount = 1 << radixBits;
+        int tasks = Math.min(partitionCount, pool.getParallelism() * TASKS_PER_THREAD);
+
+        // Build every partition's table and count the matches of each probe row
+        LongJoinHashTable[] tables = new LongJoinHashTable[partitionCount];
+        int[] matchCounts = new int[probeKeys.length];
+        run(pool, tasks, task -> {
+            int end = first(task + 1, tasks, partitionCount);
+            for (int partition = first(task, tasks, partitionCount); partition < end; partition++) {
+                LongJoinHashTable table = LongJoinHashTable.build(Arrays.copyOfRange(build.keys,
+                    build.starts[partition], build.starts[partition + 1]));
+                tables[partition] = table;
+                for (int i = probe.starts[partition]; i < probe.starts[partition + 1]; i++) {
+                    int count = 0;
+                    for (int row = table.first(probe.keys[i]); row >= 0; row = table.next(row)) {
+                        count++;
+                    }
+                    matchCounts[probe.rows[i]] = count;
+                }
+            }
+        });
+
+        // Turn the counts into the offset where each probe row's matches go
+        int total = 0;
+        for (int row = 0; row < matchCounts.length; row++) {
+            int count = matchCounts[row];
+            matchCounts[row] = total;
+            total = Math.addExact(total, count);
+        }
+
+        int[] probeRows = new int[total];
+        int[] buildRows = new int[total];
+        run(pool, tasks, task -> {
+            int end = first(task + 1, tasks, partitionCount);
+            for (int partition = first(task, tasks, partitionCount); partition < end; partition++) {
+                LongJoinHashTable table = tables[partition];
+                int buildStart = build.starts[partition];
+                for (int i = probe.starts[partition]; i < probe.starts[partition + 1]; i++) {
+                    int probeRow = probe.rows[i];
+                    int offset = matchCounts[probeRow];
+                    for (int row = table.first(probe.keys[i]); row >= 0; row = table.next(row)) {
+                        probeRows[offset] = probeRow;
+                        buildRows[offset++] = build.rows[buildStart + row];
+                    }
+                }
+            }
+        });
+        return new Matches(probeRows, buildRows);
+    }
+
+    private static Matches joinSequential(long[] buildKeys, long[] probeKeys) {
+        LongJoinHashTable table = LongJoinHashTable.build(buildKeys);
+        int[] probeRows = new int[Math.max(16, probeKeys.length)];
+        int[] buildRows = new int[probeRows.length];
+        int size = 0;
+        for (int probeRow = 0; probeRow < probeKeys.length; probeRow++) {
+            for (int row = table.first(probeKeys[probeRow]); row >= 0; row = table.next(row)) {
+                if (size == probeRows.length) {
+                    probeRows = Arrays.copyOf(probeRows, size * 2);
+                    buildRows = Arrays.copyOf(buildRows, size * 2);
+                }
+                probeRows[size] = probeRow;
+                buildRows[size++] = row;
+            }
+        }
+        return new Matches(Arrays.copyOf(probeRows, size), Arrays.copyOf(buildRows, size));
+    }
+
+    /**
+     * Returns the first of the items handed to a task when a number of items is divided evenly among tasks.
+     */
+    private static int first(int task, int tasks, int items) {
+        return (int) ((long) task * items / tasks);
+    }
+
+    /**
+     * Runs a number of tasks on a pool and waits for all of them to finish.
+     */
+    private static void run(ForkJoinPool pool, int tasks, IntConsumer body) {
+        List<ForkJoinTask<?>> actions = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int index = task;
+            actions.add(ForkJoinTask.adapt(() -> body.accept(index)));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(actions);
+            }
+        });
+    }
+
+    /**
+     * The rows of one side grouped by partition, with their keys copied next to them.
+     */
+    private static final class Partitions {
+        /** Where each partition starts in {@link #rows} and {@link #keys}, with the total as last entry. */
+        final int[] starts;
+        final int[] rows;
+        final long[] keys;
+
+        Partitions(long[] rowKeys, int radixBits, ForkJoinPool pool) {
+            int partitionCount = 1 << radixBits;
+            int shift = 64 - radixBits;
+            int slices = Math.max(1, Math.min(pool.getParallelism() * TASKS_PER_THREAD, rowKeys.length / 4096));
+
+            // Count the rows every slice sends to every partition
+            int[][] histograms = new int[slices][partitionCount];
+            run(pool, slices, slice -> {
+                int[] histogram = histograms[slice];
+                int end = first(slice + 1, slices, rowKeys.length);
+                for (int row = first(slice, slices, rowKeys.length); row < end; row++) {
+                    histogram[(int) (LongJoinHashTable.mix(rowKeys[row]) >>> shift)]++;
+                }
+            });
+
+            // Lay the partitions out one after the other, each slice writing after the slices before it
+            this.starts = new int[partitionCount + 1];
+            int offset = 0;
+            for (int partition = 0; partition < partitionCount; partition++) {
+                starts[partition] = offset;
+                for (int slice = 0; slice < slices; slice++) {
+                    int count = histograms[slice][partition];
+                    histograms[slice][partition] = offset;
+                    offset += count;
+                }
+            }
+            starts[partitionCount] = offset;
+
+            this.rows = new int[rowKeys.length];
+            this.keys = new long[rowKeys.length];
+            run(pool, slices, slice -> {
+                int[] cursors = histograms[slice];
+                int end = first(slice + 1, slices, rowKeys.length);
+                for (int row = first(slice, slices, rowKeys.length); row < end; row++) {
+                    long key = rowKeys[row];
+                    int target = cursors[(int) (LongJoinHashTable.mix(key) >>> shift)]++;
+                    rows[target] = row;
+                    keys[target] = key;
+                }
+            });
+        }
+    }
+
+    /**
+     * The result of a join: pairs of matching row numbers, stored as two parallel arrays.
+     */
+    public static final class Matches {
+        private final int[] probeRows;
+        private final int[] buildRows;
+
+        Matches(int[] probeRows, int[] buildRows) {
+            this.probeRows = probeRows;
+            this.buildRows = buildRows;
+        }
+
+        public int size() {
+            return probeRows.length;
+        }
+
+        public int[] getProbeRows() {
+            return probeRows;
+        }
+
+        public int[] getBuildRows() {
+            return buildRows;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a subset of its input's columns, in the requested order.
+ */
+public class ProjectOperator implements Operator {
+    private final Operator child;
+    private final int[] columns;
+    private final Schema schema;
+
+    /**
+     * Constructs a projection.
+     *
+     * @param child The input operator
+     * @param columnNames Qualified or bare names of the columns to keep
+     */
+    public ProjectOperator(Operator child, List<String> columnNames) {
+        this.child = child;
+        Schema input = child.getSchema();
+
+        this.columns = new int[columnNames.size()];
+        List<String> names = new ArrayList<>(columnNames.size());
+        DataType[] types = new DataType[columnNames.size()];
+        int[] scales = new int[columnNames.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = input.resolve(columnNames.get(i));
+            names.add(input.getName(columns[i]));
+            types[i] = input.getType(columns[i]);
+            scales[i] = input.getScale(columns[i]);
+        }
+        this.schema = new Schema(names, types, scales);
+    }
+
+    @Override
+    public void open() throws IOException {
+        child.open();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        Tuple tuple = child.next();
+        if (tuple == null) {
+            return null;
+        }
+
+        Tuple projected = new Tuple(schema.getTypes(), schema.getScales());
+        for (int i = 0; i < columns.length; i++) {
+            projected.copySlot(i, tuple, columns[i]);
+        }
+        return projected;
+    }
+
+    @Override
+    public void close() throws IOException {
+        child.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
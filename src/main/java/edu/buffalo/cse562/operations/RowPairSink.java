@@ -0,0 +1,17 @@
+package edu.buffalo.cse562.operations;
+
+import java.io.IOException;
+
+/**
+ * Receives the pairs of rows a join matches.
+ */
+public interface RowPairSink {
+    /**
+     * Accepts a matched pair of rows.
+     *
+     * @param first The row of the first input of the join
+     * @param second The row of the second input of the join
+     * @throws IOException If the pair cannot be written
+     */
+    void accept(String first, String second) throws IOException;
+}
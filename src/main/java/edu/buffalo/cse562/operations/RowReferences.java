@@ -0,0 +1,111 @@
+package edu.buffalo.cse562.operations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of a chain of joins held as references to the rows of the joined relations rather than as
+ * joined rows.
+ * <p>
+ * For every relation there is one int array giving, per result row, the number of the relation's row
+ * that went into it. A join only gathers these arrays, so the columns of wide rows are not copied at
+ * every level but once, when the final result is materialized, and then only the columns still needed.
+ */
+public final class RowReferences {
+    private final int[][] rows;
+    private final int size;
+
+    private RowReferences(int[][] rows, int size) {
+        this.rows = rows;
+        this.size = size;
+    }
+
+    /**
+     * Returns the references to all rows of a single relation.
+     *
+     * @param rowCount The number of rows of the relation
+     * @return The references, with result row i referring to row i
+     */
+    public static RowReferences of(int rowCount) {
+        int[] all = new int[rowCount];
+        Arrays.setAll(all, row -> row);
+        return new RowReferences(new int[][] {all}, rowCount);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getRelationCount() {
+        return rows.length;
+    }
+
+    /**
+     * Returns the rows of a relation that went into the result rows.
+     *
+     * @param relation The relation, numbered in the order the relations were joined
+     * @return The row numbers, indexed by result row; the array must not be modified
+     */
+    public int[] getRows(int relation) {
+        return rows[relation];
+    }
+
+    /**
+     * Joins this result with another one, given the pairs of their rows that match.
+     *
+     * @param other The other result, whose relations follow the relations of this one
+     * @param matchingRows The matching rows of this result
+     * @param otherMatchingRows The matching rows of the other result, paired with those of this one by position
+     * @return The joined result, with one row per pair, in the order of the pairs
+     */
+    public RowReferences join(RowReferences other, int[] matchingRows, int[] otherMatchingRows) {
+        int[][] joined = new int[rows.length + other.rows.length][];
+        for (int relation = 0; relation < rows.length; relation++) {
+            joined[relation] = gather(rows[relation], matchingRows);
+        }
+        for (int relation = 0; relation < other.rows.length; relation++) {
+            joined[rows.length + relation] = gather(other.rows[relation], otherMatchingRows);
+        }
+        return new RowReferences(joined, matchingRows.length);
+    }
+
+    /**
+     * Matches two sides on keys of any type, such as strings or {@link CompositeKey}s, on the calling thread.
+     *
+     * @param buildKeys The key of every build row, indexed by row number
+     * @param probeKeys The key of every probe row, indexed by row number
+     * @return The matching pairs of rows, ordered by probe row and then build row
+     */
+    public static ParallelHashJoin.Matches match(Object[] buildKeys, Object[] probeKeys) {
+        // The rows sharing a key are chained through an int array, as in a LongJoinHashTable
+        Map<Object, Integer> heads = new HashMap<>();
+        int[] next = new int[buildKeys.length];
+        for (int row = buildKeys.length - 1; row >= 0; row--) {
+            Integer head = heads.put(buildKeys[row], row);
+            next[row] = head == null ? -1 : head;
+        }
+
+        int[] probeRows = new int[Math.max(16, probeKeys.length)];
+        int[] buildRows = new int[probeRows.length];
+        int pairs = 0;
+        for (int probeRow = 0; probeRow < probeKeys.length; probeRow++) {
+            Integer head = heads.get(probeKeys[probeRow]);
+            for (int row = head == null ? -1 : head; row >= 0; row = next[row]) {
+                if (pairs == probeRows.length) {
+                    probeRows = Arrays.copyOf(probeRows, pairs * 2);
+                    buildRows = Arrays.copyOf(buildRows, pairs * 2);
+                }
+                probeRows[pairs] = probeRow;
+                buildRows[pairs++] = row;
+            }
+        }
+        return new ParallelHashJoin.Matches(Arrays.copyOf(probeRows, pairs), Arrays.copyOf(buildRows, pairs));
+    }
+
+    private static int[] gather(int[] source, int[] positions) {
+        int[] gathered = new int[positions.length];
+        Arrays.parallelSetAll(gathered, i -> source[positions[i]]);
+        return gathered;
+    }
+}
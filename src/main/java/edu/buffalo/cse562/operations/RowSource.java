@@ -0,0 +1,16 @@
+package edu.buffalo.cse562.operations;
+
+import java.io.IOException;
+
+/**
+ * Supplies '|' delimited rows one at a time, such as the lines of a table file or a spill file.
+ */
+public interface RowSource {
+    /**
+     * Returns the next row.
+     *
+     * @return The row, or null after the last one
+     * @throws IOException If the row cannot be read
+     */
+    String next() throws IOException;
+}
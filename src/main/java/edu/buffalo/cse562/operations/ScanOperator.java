@@ -0,0 +1,133 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Table;
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.storage.MappedTableScanner;
+import edu.buffalo.cse562.storage.ZoneMap;
+import net.sf.jsqlparser.expression.Expression;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Produces the rows of a base table. Tables that are already loaded are read from memory;
+ * otherwise the table file is streamed through a {@link MappedTableScanner} one row at a time.
+ * Given the WHERE clause, a scan of a loaded table skips the blocks its zone map rules out, and given
+ * the {@link BloomFilter} of a join's build side, it drops rows whose join key is not in it before the
+ * rest of the row is parsed.
+ */
+public class ScanOperator implements Operator {
+    private final Table table;
+    private final Schema schema;
+    private List<Tuple> rows;
+    private int position;
+    private MappedTableScanner scanner;
+    private Expression where;
+    private BitSet blocks;
+    private int keyColumn;
+    private BloomFilter keys;
+
+    /**
+     * Constructs a scan of a table, qualifying its columns with the table name.
+     *
+     * @param table The table to scan
+     */
+    public ScanOperator(Table table) {
+        this(table, table.getTableName());
+    }
+
+    /**
+     * Constructs a scan of a table under an alias.
+     *
+     * @param table The table to scan
+     * @param alias The name the table's columns are qualified with
+     */
+    public ScanOperator(Table table, String alias) {
+        this.table = table;
+        this.schema = Schema.of(alias, table.getColumnDefinitions());
+    }
+
+    /**
+     * Lets the scan skip the blocks of rows that cannot satisfy a WHERE clause. The rows of the
+     * remaining blocks are not filtered, so the clause still has to be applied by a {@link FilterOperator}.
+     *
+     * @param where The WHERE clause, or null to scan every row
+     * @return This scan
+     */
+    public ScanOperator skipBlocks(Expression where) {
+        this.where = where;
+        return this;
+    }
+
+    /**
+     * Lets the scan drop the rows whose INT or DATE key cannot be among the keys of a join's build side.
+     * A streamed file has only the key field of such rows parsed.
+     *
+     * @param column The key column in this scan's schema
+     * @param keys The keys of the build side, added as longs, or null to produce every row
+     * @return This scan
+     */
+    public ScanOperator filterKeys(int column, BloomFilter keys) {
+        this.keyColumn = column;
+        this.keys = keys;
+        return this;
+    }
+
+    @Override
+    public void open() throws IOException {
+        position = 0;
+        blocks = null;
+        if (table.getRowCount() > 0 || table.getDataFile() == null || !table.getDataFile().isFile()) {
+            rows = table.getRows();
+            ZoneMap zoneMap = table.getZoneMap();
+            if (where != null && zoneMap != null) {
+                blocks = zoneMap.candidateBlocks(where, schema::indexOf);
+            }
+        } else {
+            scanner = table.openScanner();
+        }
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        if (scanner != null) {
+            while (scanner.next()) {
+                if (keys == null || keys.mightContain(schema.getType(keyColumn) == DataType.DATE
+                        ? scanner.parseEpochDay(keyColumn) : scanner.parseLong(keyColumn))) {
+                    return Tuple.parse(scanner, schema.getTypes(), schema.getScales());
+                }
+            }
+            return null;
+        }
+        while (true) {
+            if (blocks != null && position % ZoneMap.BLOCK_SIZE == 0) {
+                int block = blocks.nextSetBit(position / ZoneMap.BLOCK_SIZE);
+                position = block < 0 ? rows.size() : block * ZoneMap.BLOCK_SIZE;
+            }
+            if (position >= rows.size()) {
+                return null;
+            }
+            Tuple row = rows.get(position++);
+            if (keys == null || keys.mightContain(row.getUnscaled(keyColumn))) {
+                return row;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scanner != null) {
+            scanner.close();
+            scanner = null;
+        }
+        rows = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates a WHERE clause over a list of rows with selection vectors: arrays holding the positions
+ * of the rows still in play. The conjuncts of an AND run one after the other, most selective first,
+ * each over the rows the previous ones kept. The disjuncts of an OR each run over the rows no earlier
+ * disjunct matched, and their matches are collected in a bitset.
+ */
+public class Selection {
+    /** Number of rows each conjunct is tried on to estimate its selectivity. */
+    public static final int SAMPLE_SIZE = 1024;
+
+    private Selection() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns the positions of the rows that satisfy a condition.
+     *
+     * @param condition The condition, or null to select every row
+     * @param schema The schema of the rows
+     * @param rows The rows
+     * @return The positions of the matching rows, in ascending order
+     * @throws IllegalArgumentException If the condition cannot be compiled
+     */
+    public static int[] select(Expression condition, Schema schema, List<Tuple> rows) {
+        int[] all = new int[rows.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        if (condition == null) {
+            return all;
+        }
+        return select(condition, schema, rows, all);
+    }
+
+    /**
+     * Returns the positions among {@code selection} of the rows that satisfy a condition.
+     */
+    private static int[] select(Expression condition, Schema schema, List<Tuple> rows, int[] selection) {
+        while (condition instanceof Parenthesis) {
+            condition = ((Parenthesis) condition).getExpression();
+        }
+
+        if (condition instanceof AndExpression) {
+            List<Expression> conjuncts = new ArrayList<>();
+            flatten(condition, AndExpression.class, conjuncts);
+            for (Expression conjunct : bySelectivity(conjuncts, schema, rows, selection)) {
+                if (selection.length == 0) {
+                    break;
+                }
+                selection = select(conjunct, schema, rows, selection);
+            }
+            return selection;
+        }
+
+        if (condition instanceof OrExpression) {
+            List<Expression> disjuncts = new ArrayList<>();
+            flatten(condition, OrExpression.class, disjuncts);
+            BitSet matched = new BitSet(rows.size());
+            int[] remaining = selection;
+            for (Expression disjunct : disjuncts) {
+                for (int row : select(disjunct, schema, rows, remaining)) {
+                    matched.set(row);
+                }
+                remaining = without(remaining, matched);
+                if (remaining.length == 0) {
+                    break;
+                }
+            }
+            return within(selection, matched);
+        }
+
+        return filter(ExpressionCompiler.compilePredicate(condition, schema), rows, selection);
+    }
+
+    private static int[] filter(Predicate<Tuple> predicate, List<Tuple> rows, int[] selection) {
+        int[] kept = new int[selection.length];
+        int count = 0;
+        for (int row : selection) {
+            if (predicate.test(rows.get(row))) {
+                kept[count++] = row;
+            }
+        }
+        return count == kept.length ? kept : Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * Orders conjuncts by the fraction of a sample of the selected rows they keep, lowest first.
+     */
+    private static List<Expression> bySelectivity(List<Expression> conjuncts, Schema schema, List<Tuple> rows,
+            int[] selection) {
+        if (selection.length <= SAMPLE_SIZE) {
+            return conjuncts;
+        }
+
+        // Rows are taken evenly across the selection, as tables are often clustered on some column
+        int[] sample = new int[Math.min(SAMPLE_SIZE, selection.length)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = selection[(int) ((long) i * selection.length / sample.length)];
+        }
+        int[] kept = new int[conjuncts.size()];
+        for (int i = 0; i < kept.length; i++) {
+            kept[i] = select(conjuncts.get(i), schema, rows, sample).length;
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < kept.length; i++) {
+            order.add(i);
+        }
+        // A stable sort keeps the written order among conjuncts that are equally selective
+        order.sort((a, b) -> Integer.compare(kept[a], kept[b]));
+
+        List<Expression> ordered = new ArrayList<>(conjuncts.size());
+        for (int i : order) {
+            ordered.add(conjuncts.get(i));
+        }
+        return ordered;
+    }
+
+    private static void flatten(Expression expression, Class<?> operator, List<Expression> operands) {
+        while (expression instanceof Parenthesis) {
+            expression = ((Parenthesis) expression).getExpression();
+        }
+        if (operator.isInstance(expression)) {
+            flatten(((BinaryExpression) expression).getLeftExpression(), operator, operands);
+            flatten(((BinaryExpression) expression).getRightExpression(), operator, operands);
+        } else {
+            operands.add(expression);
+        }
+    }
+
+    private static int[] without(int[] selection, BitSet rows) {
+        int[] kept = new int[selection.length];
+        int count = 0;
+        for (int row : selection) {
+            if (!rows.get(row)) {
+                kept[count++] = row;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    private static int[] within(int[] selection, BitSet rows) {
+        int[] kept = new int[selection.length];
+        int count = 0;
+        for (int row : selection) {
+            if (rows.get(row)) {
+                kept[count++] = row;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+}
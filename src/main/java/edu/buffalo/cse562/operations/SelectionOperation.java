@@ -52,8 +52,8 @@ public class SelectionOperation implements DatabaseOperation {
         // Get tables involved in the query
         List<Table> tablesToJoin = getTablesForJoin(plainSelect);
         
-        // Process WHERE clause
-        Expression whereClause = plainSelect.getWhere();
+        // Process WHERE clause, folded and normalized once before any operator evaluates it
+        Expression whereClause = ExpressionRewriter.rewrite(plainSelect.getWhere());
         
         // Process ORDER BY
         List orderByElements = plainSelect.getOrderByElements();
@@ -0,0 +1,89 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts its input on one or more columns. This is a blocking operator: the whole input is read on open.
+ */
+public class SortOperator implements Operator {
+    private final Operator child;
+    private final int[] columns;
+    private final boolean[] descending;
+    private List<Tuple> sorted;
+    private int position;
+
+    /**
+     * Constructs a sort.
+     *
+     * @param child The input operator
+     * @param columnNames The sort columns, most significant first
+     * @param descending Whether each sort column is in descending order
+     */
+    public SortOperator(Operator child, List<String> columnNames, boolean[] descending) {
+        if (columnNames.size() != descending.length) {
+            throw new IllegalArgumentException("Every sort column needs a direction");
+        }
+        this.child = child;
+        this.columns = new int[columnNames.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = child.getSchema().resolve(columnNames.get(i));
+        }
+        this.descending = descending;
+    }
+
+    /**
+     * Returns a comparator ordering tuples on the given slots.
+     *
+     * @param columns The slots to compare, most significant first
+     * @param descending Whether each slot is compared in descending order
+     * @return The comparator
+     */
+    public static Comparator<Tuple> comparator(int[] columns, boolean[] descending) {
+        return (a, b) -> {
+            for (int i = 0; i < columns.length; i++) {
+                int result = a.compareSlot(columns[i], b, columns[i]);
+                if (result != 0) {
+                    return descending[i] ? -result : result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    @Override
+    public void open() throws IOException {
+        sorted = new ArrayList<>();
+        child.open();
+        try {
+            Tuple tuple;
+            while ((tuple = child.next()) != null) {
+                sorted.add(tuple);
+            }
+        } finally {
+            child.close();
+        }
+        sorted.sort(comparator(columns, descending));
+        position = 0;
+    }
+
+    @Override
+    public Tuple next() {
+        return position < sorted.size() ? sorted.get(position++) : null;
+    }
+
+    @Override
+    public void close() {
+        sorted = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+}
@@ -0,0 +1,183 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.Tuple;
+import edu.buffalo.cse562.storage.StringDictionary;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Equality, IN and LIKE predicates that test a string column of a {@link Tuple}. On dictionary
+ * encoded columns the predicate is evaluated once per distinct value of the dictionary, after which
+ * each row costs a single bit lookup on its code instead of a String comparison.
+ */
+public class StringPredicates {
+    private StringPredicates() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns a predicate for {@code column = 'value'}.
+     *
+     * @param column The slot of the column
+     * @param value The literal
+     * @return The predicate
+     */
+    public static Predicate<Tuple> equalTo(int column, String value) {
+        return in(column, Collections.singleton(value));
+    }
+
+    /**
+     * Returns a predicate for {@code column IN ('value', ...)}.
+     *
+     * @param column The slot of the column
+     * @param values The literals
+     * @return The predicate
+     */
+    public static Predicate<Tuple> in(int column, Collection<String> values) {
+        Set<String> set = new HashSet<>(values);
+        return new DictionaryPredicate(column, set::contains, set);
+    }
+
+    /**
+     * Returns a predicate for {@code column LIKE 'pattern'}.
+     *
+     * @param column The slot of the column
+     * @param pattern The pattern, with % matching any run of characters and _ any single character
+     * @param escape The character that makes the next % or _ literal, or null
+     * @param caseInsensitive Whether letters match regardless of case, as for ILIKE
+     * @return The predicate
+     */
+    public static Predicate<Tuple> like(int column, String pattern, Character escape, boolean caseInsensitive) {
+        return new DictionaryPredicate(column, likeMatcher(pattern, escape, caseInsensitive), null);
+    }
+
+    /**
+     * Compiles a LIKE pattern into a matcher. Patterns made only of literal text and % are matched
+     * with equals, startsWith, endsWith and indexOf; a regular expression is only built for _, escapes
+     * and case insensitive matching.
+     *
+     * @param pattern The pattern
+     * @param escape The escape character, or null
+     * @param caseInsensitive Whether letters match regardless of case
+     * @return The matcher
+     */
+    public static Predicate<String> likeMatcher(String pattern, Character escape, boolean caseInsensitive) {
+        if (escape != null || caseInsensitive || pattern.indexOf('_') >= 0) {
+            return likeRegex(pattern, escape, caseInsensitive);
+        }
+
+        String[] segments = pattern.split("%", -1);
+        if (segments.length == 1) {
+            return pattern::equals;
+        }
+        String prefix = segments[0];
+        String suffix = segments[segments.length - 1];
+        if (segments.length == 2) {
+            if (suffix.isEmpty()) {
+                return value -> value.startsWith(prefix);
+            }
+            if (prefix.isEmpty()) {
+                return value -> value.endsWith(suffix);
+            }
+            return value -> value.length() >= prefix.length() + suffix.length()
+                && value.startsWith(prefix) && value.endsWith(suffix);
+        }
+        if (segments.length == 3 && prefix.isEmpty() && suffix.isEmpty()) {
+            String infix = segments[1];
+            return value -> value.contains(infix);
+        }
+
+        // prefix%a%b%...%suffix: the middle segments are found in order, left to right
+        return value -> {
+            if (value.length() < prefix.length() + suffix.length() || !value.startsWith(prefix)
+                    || !value.endsWith(suffix)) {
+                return false;
+            }
+            int from = prefix.length();
+            int end = value.length() - suffix.length();
+            for (int i = 1; i < segments.length - 1; i++) {
+                int at = value.indexOf(segments[i], from);
+                if (at < 0 || at + segments[i].length() > end) {
+                    return false;
+                }
+                from = at + segments[i].length();
+            }
+            return true;
+        };
+    }
+
+    private static Predicate<String> likeRegex(String pattern, Character escape, boolean caseInsensitive) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (escape != null && c == escape && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        int flags = Pattern.DOTALL | (caseInsensitive ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        Pattern compiled = Pattern.compile(regex.toString(), flags);
+        return value -> compiled.matcher(value).matches();
+    }
+
+    /**
+     * Tests a string slot with a matcher, caching the matching codes of the last dictionary seen.
+     * When the matching values are known up front, as for IN lists, only their codes are looked up
+     * instead of testing every value of the dictionary.
+     */
+    private static class DictionaryPredicate implements Predicate<Tuple> {
+        private final int column;
+        private final Predicate<String> matcher;
+        private final Set<String> values;
+        private StringDictionary dictionary;
+        private BitSet codes;
+
+        DictionaryPredicate(int column, Predicate<String> matcher, Set<String> values) {
+            this.column = column;
+            this.matcher = matcher;
+            this.values = values;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            int code = tuple.getCode(column);
+            if (code < 0) {
+                return matcher.test(tuple.getString(column));
+            }
+
+            StringDictionary tupleDictionary = tuple.getDictionary(column);
+            if (tupleDictionary != dictionary) {
+                codes = values != null ? tupleDictionary.codesOf(values) : matchingCodes(tupleDictionary);
+                dictionary = tupleDictionary;
+            }
+            return codes.get(code);
+        }
+
+        private BitSet matchingCodes(StringDictionary tupleDictionary) {
+            BitSet matching = new BitSet(tupleDictionary.size());
+            for (int code = 0; code < tupleDictionary.size(); code++) {
+                if (matcher.test(tupleDictionary.get(code))) {
+                    matching.set(code);
+                }
+            }
+            return matching;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Statistics of one column: distinct and null counts, the value range and, for INT, DATE and
+ * DECIMAL columns, an equi-depth histogram. Values are held the way {@link ColumnVector} holds them,
+ * DATE as epoch days and DECIMAL unscaled. The text format has no NULL marker, so only empty
+ * strings are counted as nulls.
+ */
+public class ColumnStatistics {
+    /** Number of buckets of the histogram of a column with at least that many rows. */
+    public static final int HISTOGRAM_BUCKETS = 64;
+
+    private final DataType type;
+    private final int scale;
+    private final long rowCount;
+    private final long distinctCount;
+    private final long nullCount;
+    private final long min;
+    private final long max;
+    private final String minString;
+    private final String maxString;
+    private final long[] bounds;
+
+    private ColumnStatistics(DataType type, int scale, long rowCount, long distinctCount, long nullCount,
+            long min, long max, String minString, String maxString, long[] bounds) {
+        this.type = type;
+        this.scale = scale;
+        this.rowCount = rowCount;
+        this.distinctCount = distinctCount;
+        this.nullCount = nullCount;
+        this.min = min;
+        this.max = max;
+        this.minString = minString;
+        this.maxString = maxString;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Computes the statistics of a column.
+     *
+     * @param column The column
+     * @return The statistics
+     */
+    public static ColumnStatistics compute(ColumnVector column) {
+        int size = column.size();
+        if (column.getType() == DataType.STRING) {
+            return computeStrings(column, size);
+        }
+
+        boolean decimal = column.getType() == DataType.DECIMAL;
+        long[] values = new long[size];
+        for (int row = 0; row < size; row++) {
+            values[row] = decimal ? column.getLong(row) : column.getInt(row);
+        }
+        Arrays.sort(values);
+
+        long distinct = countDistinct(values);
+        int buckets = Math.min(HISTOGRAM_BUCKETS, size);
+        long[] bounds = new long[buckets == 0 ? 0 : buckets + 1];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            bounds[bucket] = values[(int) ((long) bucket * size / buckets)];
+        }
+        if (buckets > 0) {
+            bounds[buckets] = values[size - 1];
+        }
+        return new ColumnStatistics(column.getType(), column.getScale(), size, distinct, 0,
+            size == 0 ? 0 : values[0], size == 0 ? 0 : values[size - 1], null, null, bounds);
+    }
+
+    private static ColumnStatistics computeStrings(ColumnVector column, int size) {
+        String min = null;
+        String max = null;
+        long nulls = 0;
+        StringDictionary dictionary = column.getDictionary();
+        // Plain columns are counted by a 64-bit hash per value rather than a set of the strings
+        long[] hashes = dictionary == null ? new long[size] : null;
+        for (int row = 0; row < size; row++) {
+            String value = column.getString(row);
+            if (value.isEmpty()) {
+                nulls++;
+            }
+            if (min == null || value.compareTo(min) < 0) {
+                min = value;
+            }
+            if (max == null || value.compareTo(max) > 0) {
+                max = value;
+            }
+            if (hashes != null) {
+                hashes[row] = hash(value);
+            }
+        }
+
+        long distinct;
+        if (hashes != null) {
+            Arrays.sort(hashes);
+            distinct = countDistinct(hashes);
+        } else {
+            distinct = dictionary.size();
+        }
+        return new ColumnStatistics(DataType.STRING, 0, size, distinct, nulls, 0, 0,
+            min == null ? "" : min, max == null ? "" : max, new long[0]);
+    }
+
+    private static long countDistinct(long[] sorted) {
+        long distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /** FNV-1a over the characters of a value. */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Reads statistics written by {@link #write(DataOutputStream)}.
+     *
+     * @param in The stream to read from
+     * @return The statistics
+     * @throws IOException If an I/O error occurs
+     */
+    public static ColumnStatistics read(DataInputStream in) throws IOException {
+        DataType type = DataType.values()[in.readInt()];
+        int scale = in.readInt();
+        long rowCount = in.readLong();
+        long distinct = in.readLong();
+        long nulls = in.readLong();
+        if (type == DataType.STRING) {
+            String minString = in.readUTF();
+            String maxString = in.readUTF();
+            return new ColumnStatistics(type, scale, rowCount, distinct, nulls, 0, 0, minString, maxString,
+                new long[0]);
+        }
+
+        long min = in.readLong();
+        long max = in.readLong();
+        long[] bounds = new long[in.readInt()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = in.readLong();
+        }
+        return new ColumnStatistics(type, scale, rowCount, distinct, nulls, min, max, null, null, bounds);
+    }
+
+    /**
+     * Writes the statistics.
+     *
+     * @param out The stream to write to
+     * @throws IOException If an I/O error occurs
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(type.ordinal());
+        out.writeInt(scale);
+        out.writeLong(rowCount);
+        out.writeLong(distinctCount);
+        out.writeLong(nullCount);
+        if (type == DataType.STRING) {
+            out.writeUTF(minString);
+            out.writeUTF(maxString);
+            return;
+        }
+
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeInt(bounds.length);
+        for (long bound : bounds) {
+            out.writeLong(bound);
+        }
+    }
+
+    /**
+     * Estimates the fraction of rows equal to a single value, assuming values are spread evenly.
+     *
+     * @return The selectivity, between 0 and 1
+     */
+    public double equalitySelectivity() {
+        return distinctCount == 0 ? 0 : 1.0 / distinctCount;
+    }
+
+    /**
+     * Estimates the fraction of rows of a numeric or date column within {@code [low, high]}. Each
+     * histogram bucket holds the same number of rows, and values are assumed to be spread evenly
+     * within a bucket.
+     *
+     * @param low The smallest wanted value, unscaled for DECIMAL columns
+     * @param high The largest wanted value, unscaled for DECIMAL columns
+     * @return The selectivity, between 0 and 1
+     */
+    public double rangeSelectivity(long low, long high) {
+        if (bounds.length < 2 || low > high) {
+            return 0;
+        }
+
+        int buckets = bounds.length - 1;
+        double rows = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            long from = bounds[bucket];
+            long to = bounds[bucket + 1];
+            if (to < low || from > high) {
+                continue;
+            }
+            // Values are integral, so a bucket [from, to] spans to - from + 1 of them
+            double overlap = (double) Math.min(high, to) - Math.max(low, from) + 1;
+            rows += Math.min(1, overlap / ((double) to - from + 1));
+        }
+        return Math.min(1, rows / buckets);
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public String getMinString() {
+        return minString;
+    }
+
+    public String getMaxString() {
+        return maxString;
+    }
+
+    /**
+     * Returns the bucket boundaries of the equi-depth histogram; bucket i spans
+     * {@code [bounds[i], bounds[i + 1]]} and holds an equal share of the rows.
+     *
+     * @return The boundaries, empty for string columns and empty tables
+     */
+    public long[] getHistogramBounds() {
+        return bounds.clone();
+    }
+}
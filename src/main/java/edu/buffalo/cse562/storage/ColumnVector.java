@@ -0,0 +1,158 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * The decoded values of a single column, held in primitive arrays.
+ * INT and DATE values live in an int array (DATE as days since the epoch), DECIMAL values
+ * as longs scaled by {@link #getScale()}, and strings either as one byte array with row offsets or,
+ * for low-cardinality columns, as int codes into a {@link StringDictionary}.
+ */
+public class ColumnVector {
+    private final DataType type;
+    private final int size;
+    private final int scale;
+    private final int[] ints;
+    private final long[] longs;
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final StringDictionary dictionary;
+
+    private ColumnVector(DataType type, int size, int scale, int[] ints, long[] longs, byte[] bytes, int[] offsets,
+            StringDictionary dictionary) {
+        this.type = type;
+        this.size = size;
+        this.scale = scale;
+        this.ints = ints;
+        this.longs = longs;
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Creates a vector of INT or DATE values.
+     *
+     * @param type Either INT or DATE
+     * @param values The values, DATE values as epoch days
+     * @param size Number of valid entries in the array
+     * @return The column vector
+     */
+    public static ColumnVector ofInts(DataType type, int[] values, int size) {
+        if (type != DataType.INT && type != DataType.DATE) {
+            throw new IllegalArgumentException("Int vectors hold INT or DATE columns, not " + type);
+        }
+        return new ColumnVector(type, size, 0, values, null, null, null, null);
+    }
+
+    /**
+     * Creates a vector of DECIMAL values.
+     *
+     * @param values The unscaled values
+     * @param scale Number of fractional digits the values are scaled by
+     * @param size Number of valid entries in the array
+     * @return The column vector
+     */
+    public static ColumnVector ofDecimals(long[] values, int scale, int size) {
+        return new ColumnVector(DataType.DECIMAL, size, scale, null, values, null, null, null);
+    }
+
+    /**
+     * Creates a vector of string values stored back to back in one byte array.
+     *
+     * @param bytes The ASCII bytes of all the values
+     * @param offsets Start offset of each value, with one extra trailing entry marking the end
+     * @param size Number of values
+     * @return The column vector
+     */
+    public static ColumnVector ofStrings(byte[] bytes, int[] offsets, int size) {
+        return new ColumnVector(DataType.STRING, size, 0, null, null, bytes, offsets, null);
+    }
+
+    /**
+     * Creates a dictionary encoded vector of string values.
+     *
+     * @param codes The code of each value
+     * @param dictionary The dictionary the codes refer to
+     * @param size Number of values
+     * @return The column vector
+     */
+    public static ColumnVector ofDictionary(int[] codes, StringDictionary dictionary, int size) {
+        return new ColumnVector(DataType.STRING, size, 0, codes, null, null, null, dictionary);
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the dictionary of a dictionary encoded string column, or null.
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns an INT value, a DATE value as days since the epoch, or the code of a dictionary encoded string.
+     */
+    public int getInt(int row) {
+        return ints[row];
+    }
+
+    /**
+     * Returns the unscaled value of a DECIMAL entry.
+     */
+    public long getLong(int row) {
+        return longs[row];
+    }
+
+    /**
+     * Returns a string entry, decoding its bytes.
+     */
+    public String getString(int row) {
+        if (dictionary != null) {
+            return dictionary.get(ints[row]);
+        }
+        return new String(bytes, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends the textual form of an entry, as it would appear in a '|' delimited table file.
+     *
+     * @param sb The builder to append to
+     * @param row The row to format
+     */
+    public void appendTo(StringBuilder sb, int row) {
+        switch (type) {
+            case INT:
+                sb.append(ints[row]);
+                break;
+            case DATE:
+                sb.append(LocalDate.ofEpochDay(ints[row]));
+                break;
+            case DECIMAL:
+                sb.append(BigDecimal.valueOf(longs[row], scale).toPlainString());
+                break;
+            default:
+                if (dictionary != null) {
+                    sb.append(dictionary.get(ints[row]));
+                    break;
+                }
+                for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                    sb.append((char) bytes[i]);
+                }
+        }
+    }
+}
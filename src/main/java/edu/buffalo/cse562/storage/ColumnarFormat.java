@@ -0,0 +1,97 @@
+package edu.buffalo.cse562.storage;
+
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Layout constants and file naming shared by the columnar writer and reader.
+ *
+ * <p>Every column of a table is stored in its own file named {@code <table>.<column>.col}.
+ * A column file is a sequence of row group blocks followed by a footer:
+ * <pre>
+ *   block*      INT/DATE: int32 per row, DECIMAL: int64 per row,
+ *               STRING: (rows + 1) int32 offsets followed by the value bytes,
+ *               or one int32 dictionary code per row
+ *   dictionary  STRING only, once per column and only if some row group holds codes:
+ *               (values + 1) int32 offsets followed by the value bytes
+ *   footer      int32 type, int32 scale, int64 row count, int32 row group count,
+ *               per row group: int64 block offset, int32 block length, int32 rows, int32 encoding,
+ *               then once per column: int64 dictionary offset, int32 dictionary length,
+ *               int32 dictionary size (0 when there is no dictionary)
+ *   trailer     int32 footer length, int32 magic
+ * </pre>
+ * All numbers are big-endian.
+ */
+public final class ColumnarFormat {
+    /** Number of rows in every row group except the last one. */
+    public static final int ROW_GROUP_SIZE = 65536;
+
+    /** Marks the end of a complete column file. */
+    public static final int MAGIC = 0x43534532;
+
+    /** Row group encoding of values stored as they are. */
+    public static final int PLAIN = 0;
+
+    /** Row group encoding of strings stored as codes into the column's dictionary. */
+    public static final int DICTIONARY = 1;
+
+    /** Length of the trailer that follows the footer. */
+    public static final int TRAILER_LENGTH = 8;
+
+    /** Scale used for DECIMAL columns declared without one; TPC-H values carry two fractional digits. */
+    public static final int DEFAULT_DECIMAL_SCALE = 2;
+
+    private ColumnarFormat() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns the file holding one column of a table.
+     *
+     * @param directory Directory the column files are stored in
+     * @param tableName Name of the table
+     * @param columnName Name of the column
+     * @return The column file
+     */
+    public static File columnFile(File directory, String tableName, String columnName) {
+        return new File(directory, tableName.toLowerCase() + "." + columnName.toLowerCase() + ".col");
+    }
+
+    /**
+     * Checks whether a complete column file set exists for a table.
+     *
+     * @param directory Directory the column files are stored in
+     * @param tableName Name of the table
+     * @param columnDefinitions The table's columns
+     * @return true if every column has a column file
+     */
+    public static boolean exists(File directory, String tableName, List<ColumnDefinition> columnDefinitions) {
+        if (directory == null || columnDefinitions == null || columnDefinitions.isEmpty()) {
+            return false;
+        }
+
+        for (ColumnDefinition columnDefinition : columnDefinitions) {
+            if (!columnFile(directory, tableName, columnDefinition.getColumnName()).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the scale of a DECIMAL column, taken from DECIMAL(precision, scale) when declared.
+     *
+     * @param colDataType The declared column type
+     * @return Number of fractional digits to store
+     */
+    public static int decimalScale(ColDataType colDataType) {
+        if (colDataType != null && colDataType.getArgumentsStringList() != null
+                && colDataType.getArgumentsStringList().size() > 1) {
+            return Integer.parseInt(colDataType.getArgumentsStringList().get(1).trim());
+        }
+        return DEFAULT_DECIMAL_SCALE;
+    }
+}
@@ -0,0 +1,224 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads the column files written by {@link ColumnarTableWriter} into {@link ColumnVector}s.
+ * Row group blocks are memory mapped and decoded straight into primitive arrays; string columns that
+ * were dictionary encoded throughout keep their codes.
+ */
+public final class ColumnarTableReader {
+    private ColumnarTableReader() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Reads every column of a table.
+     *
+     * @param directory Directory the column files are stored in
+     * @param tableName Name of the table
+     * @param columnDefinitions The table's columns, in table order
+     * @return One vector per column, in table order
+     * @throws IOException If a column file is missing, truncated or of the wrong type
+     */
+    public static ColumnVector[] read(File directory, String tableName, List<ColumnDefinition> columnDefinitions)
+            throws IOException {
+        ColumnVector[] columns = new ColumnVector[columnDefinitions.size()];
+        for (int i = 0; i < columns.length; i++) {
+            ColumnDefinition columnDefinition = columnDefinitions.get(i);
+            columns[i] = readColumn(
+                ColumnarFormat.columnFile(directory, tableName, columnDefinition.getColumnName()),
+                DataType.of(columnDefinition.getColDataType()));
+        }
+        return columns;
+    }
+
+    /**
+     * Reads a single column file.
+     *
+     * @param file The column file
+     * @param expectedType The type the schema declares for the column
+     * @return The decoded column
+     * @throws IOException If the file is truncated or holds a different type
+     */
+    public static ColumnVector readColumn(File file, DataType expectedType) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < ColumnarFormat.TRAILER_LENGTH) {
+                throw new IOException("Column file " + file + " is truncated");
+            }
+
+            ByteBuffer trailer = readFully(channel, fileSize - ColumnarFormat.TRAILER_LENGTH,
+                ColumnarFormat.TRAILER_LENGTH);
+            int footerLength = trailer.getInt();
+            if (trailer.getInt() != ColumnarFormat.MAGIC) {
+                throw new IOException("Column file " + file + " is not a complete column file");
+            }
+
+            ByteBuffer footer = readFully(channel, fileSize - ColumnarFormat.TRAILER_LENGTH - footerLength,
+                footerLength);
+            DataType type = DataType.values()[footer.getInt()];
+            if (type != expectedType) {
+                throw new IOException("Column file " + file + " holds " + type + " values, expected " + expectedType);
+            }
+            int scale = footer.getInt();
+            long rowCount = footer.getLong();
+            if (rowCount > Integer.MAX_VALUE) {
+                throw new IOException("Column file " + file + " has too many rows: " + rowCount);
+            }
+            int size = (int) rowCount;
+            int rowGroupCount = footer.getInt();
+
+            long[] blockOffsets = new long[rowGroupCount];
+            int[] blockLengths = new int[rowGroupCount];
+            int[] blockRows = new int[rowGroupCount];
+            int[] encodings = new int[rowGroupCount];
+            boolean allCoded = rowGroupCount > 0;
+            for (int group = 0; group < rowGroupCount; group++) {
+                blockOffsets[group] = footer.getLong();
+                blockLengths[group] = footer.getInt();
+                blockRows[group] = footer.getInt();
+                encodings[group] = footer.getInt();
+                allCoded &= encodings[group] == ColumnarFormat.DICTIONARY;
+            }
+            long dictionaryOffset = footer.getLong();
+            int dictionaryLength = footer.getInt();
+            int dictionarySize = footer.getInt();
+
+            StringDictionary dictionary = null;
+            if (dictionarySize > 0) {
+                MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset, dictionaryLength);
+                dictionary = new StringDictionary();
+                for (String value : decodeStrings(block, dictionarySize)) {
+                    dictionary.add(value);
+                }
+            }
+
+            int[] ints = type == DataType.INT || type == DataType.DATE || allCoded ? new int[size] : null;
+            long[] longs = type == DataType.DECIMAL ? new long[size] : null;
+            StringBlock strings = type == DataType.STRING && !allCoded ? new StringBlock(size) : null;
+            int row = 0;
+
+            for (int group = 0; group < rowGroupCount; group++) {
+                int rows = blockRows[group];
+                MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[group],
+                    blockLengths[group]);
+
+                if (type == DataType.INT || type == DataType.DATE || allCoded) {
+                    block.asIntBuffer().get(ints, row, rows);
+                } else if (type == DataType.DECIMAL) {
+                    block.asLongBuffer().get(longs, row, rows);
+                } else if (encodings[group] == ColumnarFormat.DICTIONARY) {
+                    // Codes are expanded only when the dictionary overflowed part way through the file
+                    for (int i = 0; i < rows; i++) {
+                        strings.add(dictionary.get(block.getInt(4 * i)));
+                    }
+                } else {
+                    strings.addBlock(block, rows);
+                }
+                row += rows;
+            }
+
+            switch (type) {
+                case INT:
+                case DATE:
+                    return ColumnVector.ofInts(type, ints, size);
+                case DECIMAL:
+                    return ColumnVector.ofDecimals(longs, scale, size);
+                default:
+                    if (allCoded) {
+                        // Renumber the codes so that they order the same way as their strings
+                        int[] renumbered = dictionary.sort();
+                        for (int i = 0; i < size; i++) {
+                            ints[i] = renumbered[ints[i]];
+                        }
+                        return ColumnVector.ofDictionary(ints, dictionary, size);
+                    }
+                    return strings.toVector();
+            }
+        }
+    }
+
+    private static String[] decodeStrings(ByteBuffer block, int count) {
+        String[] values = new String[count];
+        int base = block.getInt(0);
+        byte[] bytes = new byte[block.getInt(4 * count) - base];
+        block.position(4 * (count + 1));
+        block.get(bytes);
+        for (int i = 0; i < count; i++) {
+            int start = block.getInt(4 * i) - base;
+            values[i] = new String(bytes, start, block.getInt(4 * (i + 1)) - base - start, StandardCharsets.US_ASCII);
+        }
+        return values;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        if (position < 0 || length < 0) {
+            throw new IOException("Corrupt column file footer");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of column file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Collects plain string values into one byte array with row offsets.
+     */
+    private static class StringBlock {
+        private final int[] offsets;
+        private byte[] bytes;
+        private int count;
+        private int byteCount;
+
+        StringBlock(int size) {
+            this.offsets = new int[size + 1];
+            this.bytes = new byte[Math.max(16, size * 8)];
+        }
+
+        void add(String value) {
+            if (byteCount + value.length() > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + value.length()));
+            }
+            offsets[count++] = byteCount;
+            for (int i = 0; i < value.length(); i++) {
+                bytes[byteCount++] = (byte) value.charAt(i);
+            }
+        }
+
+        void addBlock(ByteBuffer block, int rows) {
+            int base = block.getInt(0);
+            int valueBytes = block.getInt(4 * rows) - base;
+            for (int i = 0; i < rows; i++) {
+                offsets[count++] = byteCount + block.getInt(4 * i) - base;
+            }
+            if (byteCount + valueBytes > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + valueBytes));
+            }
+            block.position(4 * (rows + 1));
+            block.get(bytes, byteCount, valueBytes);
+            byteCount += valueBytes;
+        }
+
+        ColumnVector toVector() {
+            offsets[count] = byteCount;
+            return ColumnVector.ofStrings(bytes, offsets, count);
+        }
+    }
+}
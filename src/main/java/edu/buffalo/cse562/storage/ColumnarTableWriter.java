@@ -0,0 +1,289 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.util.FieldParser;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a '|' delimited table file into the typed column file set described in {@link ColumnarFormat}.
+ * This runs in the --build phase so that query runs never have to parse the text files again. The
+ * range of every row group is recorded in a {@link ZoneMap} written alongside the column files.
+ */
+public class ColumnarTableWriter {
+    private final String tableName;
+    private final List<ColumnDefinition> columnDefinitions;
+
+    /**
+     * Constructs a writer for one table.
+     *
+     * @param tableName Name of the table
+     * @param columnDefinitions The table's columns, in file order
+     */
+    public ColumnarTableWriter(String tableName, List<ColumnDefinition> columnDefinitions) {
+        this.tableName = tableName.toLowerCase();
+        this.columnDefinitions = columnDefinitions;
+    }
+
+    /**
+     * Reads the table's data file and writes one column file per column, plus the table's zone map.
+     *
+     * @param dataFile The '|' delimited .tbl or .dat file
+     * @param outputDirectory Directory to write the column files to
+     * @return Number of rows written
+     * @throws IOException If an I/O error occurs or a value does not match its column type
+     */
+    public long write(File dataFile, File outputDirectory) throws IOException {
+        int columnCount = columnDefinitions.size();
+        ColumnSink[] sinks = new ColumnSink[columnCount];
+        ZoneMap.Builder zoneMap = new ZoneMap.Builder(DataType.of(columnDefinitions), DataType.scales(columnDefinitions));
+        long rows = 0;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(dataFile), 1 << 16)) {
+            for (int i = 0; i < columnCount; i++) {
+                ColumnDefinition columnDefinition = columnDefinitions.get(i);
+                sinks[i] = new ColumnSink(
+                    DataType.of(columnDefinition.getColDataType()),
+                    ColumnarFormat.decimalScale(columnDefinition.getColDataType()),
+                    ColumnarFormat.columnFile(outputDirectory, tableName, columnDefinition.getColumnName()),
+                    zoneMap, i);
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                int start = 0;
+                for (int i = 0; i < columnCount; i++) {
+                    int end = line.indexOf('|', start);
+                    if (end < 0) {
+                        end = line.length();
+                    }
+                    sinks[i].add(line, start, end);
+                    start = end + 1;
+                }
+                rows++;
+            }
+        } finally {
+            IOException failure = null;
+            for (ColumnSink sink : sinks) {
+                if (sink == null) {
+                    continue;
+                }
+                try {
+                    sink.close();
+                } catch (IOException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        zoneMap.build(rows).write(outputDirectory, tableName);
+        return rows;
+    }
+
+    /**
+     * Buffers one row group of a column and appends it to the column file when full.
+     * String values are also collected into a dictionary; while it stays within
+     * {@link StringDictionary#MAX_SIZE} values, row groups are written as codes. The smallest and
+     * largest value of each row group go to the zone map.
+     */
+    private static class ColumnSink {
+        private final DataType type;
+        private final int scale;
+        private final DataOutputStream out;
+        private final List<long[]> rowGroups = new ArrayList<>();
+        private final int[] ints;
+        private final long[] longs;
+        private final int[] offsets;
+        private final ByteArrayOutputStream bytes;
+        private final StringDictionary dictionary;
+        private final int[] codes;
+        private final ZoneMap.Builder zoneMap;
+        private final int column;
+        private boolean dictionaryFull;
+        private long min;
+        private long max;
+        private String minString;
+        private String maxString;
+        private int rows;
+        private long totalRows;
+        private long position;
+
+        ColumnSink(DataType type, int scale, File file, ZoneMap.Builder zoneMap, int column) throws IOException {
+            this.type = type;
+            this.scale = scale;
+            this.zoneMap = zoneMap;
+            this.column = column;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            this.ints = type == DataType.INT || type == DataType.DATE ? new int[ColumnarFormat.ROW_GROUP_SIZE] : null;
+            this.longs = type == DataType.DECIMAL ? new long[ColumnarFormat.ROW_GROUP_SIZE] : null;
+            this.offsets = type == DataType.STRING ? new int[ColumnarFormat.ROW_GROUP_SIZE + 1] : null;
+            this.bytes = type == DataType.STRING ? new ByteArrayOutputStream(1 << 16) : null;
+            this.dictionary = type == DataType.STRING ? new StringDictionary() : null;
+            this.codes = type == DataType.STRING ? new int[ColumnarFormat.ROW_GROUP_SIZE] : null;
+        }
+
+        void add(String line, int start, int end) throws IOException {
+            switch (type) {
+                case INT:
+                    ints[rows] = (int) FieldParser.parseLong(line, start, end);
+                    addRange(ints[rows]);
+                    break;
+                case DATE:
+                    ints[rows] = FieldParser.parseEpochDay(line, start, end);
+                    addRange(ints[rows]);
+                    break;
+                case DECIMAL:
+                    longs[rows] = FieldParser.parseScaled(line, start, end, scale);
+                    addRange(longs[rows]);
+                    break;
+                default:
+                    offsets[rows] = bytes.size();
+                    for (int i = start; i < end; i++) {
+                        bytes.write(line.charAt(i));
+                    }
+                    String value = line.substring(start, end);
+                    if (!dictionaryFull) {
+                        codes[rows] = dictionary.add(value);
+                        dictionaryFull = codes[rows] < 0;
+                    }
+                    if (rows == 0 || value.compareTo(minString) < 0) {
+                        minString = value;
+                    }
+                    if (rows == 0 || value.compareTo(maxString) > 0) {
+                        maxString = value;
+                    }
+            }
+
+            if (++rows == ColumnarFormat.ROW_GROUP_SIZE) {
+                flushRowGroup();
+            }
+        }
+
+        private void addRange(long value) {
+            if (rows == 0 || value < min) {
+                min = value;
+            }
+            if (rows == 0 || value > max) {
+                max = value;
+            }
+        }
+
+        private void flushRowGroup() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+
+            if (type == DataType.STRING) {
+                zoneMap.addBlock(column, minString, maxString);
+            } else {
+                zoneMap.addBlock(column, min, max);
+            }
+
+            long blockStart = position;
+            int encoding = ColumnarFormat.PLAIN;
+            switch (type) {
+                case INT:
+                case DATE:
+                    for (int i = 0; i < rows; i++) {
+                        out.writeInt(ints[i]);
+                    }
+                    position += 4L * rows;
+                    break;
+                case DECIMAL:
+                    for (int i = 0; i < rows; i++) {
+                        out.writeLong(longs[i]);
+                    }
+                    position += 8L * rows;
+                    break;
+                default:
+                    if (!dictionaryFull) {
+                        for (int i = 0; i < rows; i++) {
+                            out.writeInt(codes[i]);
+                        }
+                        position += 4L * rows;
+                        encoding = ColumnarFormat.DICTIONARY;
+                    } else {
+                        writeStrings(offsets, rows, bytes);
+                    }
+                    bytes.reset();
+            }
+
+            rowGroups.add(new long[] {blockStart, position - blockStart, rows, encoding});
+            totalRows += rows;
+            rows = 0;
+        }
+
+        private void writeStrings(int[] valueOffsets, int count, ByteArrayOutputStream values) throws IOException {
+            valueOffsets[count] = values.size();
+            for (int i = 0; i <= count; i++) {
+                out.writeInt(valueOffsets[i]);
+            }
+            values.writeTo(out);
+            position += 4L * (count + 1) + values.size();
+        }
+
+        void close() throws IOException {
+            try {
+                flushRowGroup();
+
+                // The dictionary is only needed if some row group was written as codes
+                long dictionaryStart = position;
+                int dictionarySize = 0;
+                for (long[] rowGroup : rowGroups) {
+                    if (rowGroup[3] == ColumnarFormat.DICTIONARY) {
+                        dictionarySize = dictionary.size();
+                        break;
+                    }
+                }
+                if (dictionarySize > 0) {
+                    int[] valueOffsets = new int[dictionarySize + 1];
+                    ByteArrayOutputStream values = new ByteArrayOutputStream();
+                    for (int code = 0; code < dictionarySize; code++) {
+                        valueOffsets[code] = values.size();
+                        String value = dictionary.get(code);
+                        for (int i = 0; i < value.length(); i++) {
+                            values.write(value.charAt(i));
+                        }
+                    }
+                    writeStrings(valueOffsets, dictionarySize, values);
+                }
+
+                int footerLength = 4 + 4 + 8 + 4 + rowGroups.size() * (8 + 4 + 4 + 4) + 8 + 4 + 4;
+                out.writeInt(type.ordinal());
+                out.writeInt(scale);
+                out.writeLong(totalRows);
+                out.writeInt(rowGroups.size());
+                for (long[] rowGroup : rowGroups) {
+                    out.writeLong(rowGroup[0]);
+                    out.writeInt((int) rowGroup[1]);
+                    out.writeInt((int) rowGroup[2]);
+                    out.writeInt((int) rowGroup[3]);
+                }
+                out.writeLong(dictionaryStart);
+                out.writeInt((int) (position - dictionaryStart));
+                out.writeInt(dictionarySize);
+                out.writeInt(footerLength);
+                out.writeInt(ColumnarFormat.MAGIC);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
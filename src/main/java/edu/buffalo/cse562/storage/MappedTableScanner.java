@@ -0,0 +1,349 @@
+package edu.buffalo.cse562.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Scans a '|' delimited table file through a memory mapping without decoding it into Strings.
+ * After {@link #next()} the fields of the current row are exposed as slices (offset and length)
+ * of {@link #buffer()}, and can be parsed or compared in place. TPC-H files are plain ASCII,
+ * so a byte is a character.
+ *
+ * <p>Files larger than one mapping window are mapped window by window; a window always starts
+ * at the beginning of a row, so a row is never split across two mappings.
+ */
+public class MappedTableScanner implements Closeable {
+    /** Size of one mapping window, rows longer than this are not supported. */
+    static final int WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final long end;
+    private final int windowSize;
+    private final int[] fieldOffsets;
+    private final int[] fieldLengths;
+    private MappedByteBuffer buffer;
+    private long windowStart;
+    private int windowLength;
+    private int position;
+    private int lineOffset;
+    private int lineLength;
+    private int fieldCount;
+
+    /**
+     * Opens a scanner over a whole table file.
+     *
+     * @param file The '|' delimited table file
+     * @param columnCount Number of columns in the table
+     * @throws IOException If the file cannot be opened
+     */
+    public MappedTableScanner(File file, int columnCount) throws IOException {
+        this(file, 0, -1, columnCount);
+    }
+
+    /**
+     * Opens a scanner over the rows starting in a byte range of a table file.
+     * The range must start at the beginning of a row; a row that starts before {@code end}
+     * is read to its end even if it crosses it.
+     *
+     * @param file The '|' delimited table file
+     * @param start Byte offset of the first row to read
+     * @param end Byte offset the last row starts before, or -1 for the end of the file
+     * @param columnCount Number of columns in the table
+     * @throws IOException If the file cannot be opened
+     */
+    public MappedTableScanner(File file, long start, long end, int columnCount) throws IOException {
+        this(file, start, end, columnCount, WINDOW_SIZE);
+    }
+
+    MappedTableScanner(File file, long start, long end, int columnCount, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.end = end < 0 ? channel.size() : Math.min(end, channel.size());
+        this.windowSize = windowSize;
+        this.fieldOffsets = new int[columnCount];
+        this.fieldLengths = new int[columnCount];
+        map(start);
+    }
+
+    /**
+     * Advances to the next row.
+     *
+     * @return true if a row was read, false at the end of the scanned range
+     * @throws IOException If the file cannot be mapped
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (windowStart + position >= end) {
+                return false;
+            }
+
+            int newline = findNewline(position);
+            if (newline < 0) {
+                // The row runs past this window; remap starting at the row unless it already does
+                if (windowStart + windowLength < channel.size() && position > 0) {
+                    map(windowStart + position);
+                    continue;
+                }
+                newline = windowLength;
+            }
+
+            lineOffset = position;
+            lineLength = newline - position;
+            position = newline + 1;
+            if (lineLength > 0 && buffer.get(lineOffset + lineLength - 1) == '\r') {
+                lineLength--;
+            }
+            if (lineLength == 0) {
+                continue;
+            }
+
+            splitFields();
+            return true;
+        }
+    }
+
+    private int findNewline(int from) {
+        for (int i = from; i < windowLength; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void splitFields() {
+        int lineEnd = lineOffset + lineLength;
+        int start = lineOffset;
+        fieldCount = 0;
+        for (int i = lineOffset; i < lineEnd && fieldCount < fieldOffsets.length; i++) {
+            if (buffer.get(i) == '|') {
+                fieldOffsets[fieldCount] = start;
+                fieldLengths[fieldCount++] = i - start;
+                start = i + 1;
+            }
+        }
+        // The last field has no trailing '|' in some files
+        if (start < lineEnd && fieldCount < fieldOffsets.length) {
+            fieldOffsets[fieldCount] = start;
+            fieldLengths[fieldCount++] = lineEnd - start;
+        }
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        windowLength = (int) Math.min(windowSize, channel.size() - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, windowLength);
+        position = 0;
+    }
+
+    /**
+     * Returns the mapping the current row's slices point into.
+     * It is replaced when the scanner moves to the next window, so slices are only valid until the next call to {@link #next()}.
+     *
+     * @return The mapped bytes
+     */
+    public MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of fields found in the current row.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the offset of a field of the current row in {@link #buffer()}.
+     */
+    public int fieldOffset(int field) {
+        return fieldOffsets[field];
+    }
+
+    /**
+     * Returns the length in bytes of a field of the current row.
+     */
+    public int fieldLength(int field) {
+        return fieldLengths[field];
+    }
+
+    /**
+     * Parses a field of the current row as a signed integer.
+     *
+     * @param field Index of the field
+     * @return The value
+     */
+    public long parseLong(int field) {
+        int from = fieldOffsets[field];
+        int to = from + fieldLengths[field];
+        boolean negative = false;
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current row as a decimal number.
+     *
+     * @param field Index of the field
+     * @return The value
+     */
+    public double parseDouble(int field) {
+        int from = fieldOffsets[field];
+        int to = from + fieldLengths[field];
+        boolean negative = false;
+        long digits = 0;
+        long divisor = 1;
+        boolean fraction = false;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '-') {
+                negative = true;
+            } else if (b == '.') {
+                fraction = true;
+            } else if (b >= '0' && b <= '9') {
+                digits = digits * 10 + (b - '0');
+                if (fraction) {
+                    divisor *= 10;
+                }
+            } else {
+                // Exponents and other forms are left to the JDK
+                return Double.parseDouble(getString(field));
+            }
+        }
+        double value = (double) digits / divisor;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal field of the current row into a long scaled by 10^scale.
+     *
+     * @param field Index of the field
+     * @param scale Number of fractional digits to keep
+     * @return The unscaled value
+     * @throws NumberFormatException If the value has more nonzero fractional digits than the scale allows
+     * @throws ArithmeticException If the value does not fit in a long
+     */
+    public long parseScaled(int field, int scale) {
+        int from = fieldOffsets[field];
+        int to = from + fieldLengths[field];
+        boolean negative = false;
+        long unscaled = 0;
+        int fractionDigits = -1;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '-') {
+                negative = true;
+            } else if (b == '.') {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (fractionDigits >= scale) {
+                    if (b != '0') {
+                        throw new NumberFormatException("Value " + getString(field)
+                            + " has more than " + scale + " fractional digits");
+                    }
+                    continue;
+                }
+                unscaled = Math.addExact(Math.multiplyExact(unscaled, 10), b - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+        }
+        for (int i = Math.max(fractionDigits, 0); i < scale; i++) {
+            unscaled = Math.multiplyExact(unscaled, 10);
+        }
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * Parses a yyyy-mm-dd field of the current row into days since the epoch.
+     *
+     * @param field Index of the field
+     * @return The epoch day
+     */
+    public int parseEpochDay(int field) {
+        int from = fieldOffsets[field];
+        int to = from + fieldLengths[field];
+        int[] parts = new int[3];
+        int part = 0;
+        for (int i = from; i < to && part < 3; i++) {
+            byte b = buffer.get(i);
+            if (b == '-') {
+                part++;
+            } else if (b >= '0' && b <= '9') {
+                parts[part] = parts[part] * 10 + (b - '0');
+            }
+        }
+        return (int) LocalDate.of(parts[0], parts[1], parts[2]).toEpochDay();
+    }
+
+    /**
+     * Compares a field of the current row with ASCII bytes, without decoding the field.
+     *
+     * @param field Index of the field
+     * @param value The bytes to compare with
+     * @return true if the field holds exactly these bytes
+     */
+    public boolean fieldEquals(int field, byte[] value) {
+        if (fieldLengths[field] != value.length) {
+            return false;
+        }
+        int from = fieldOffsets[field];
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(from + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a field of the current row. Only use this for values that must outlive the row.
+     *
+     * @param field Index of the field
+     * @return The field as a String
+     */
+    public String getString(int field) {
+        return decode(fieldOffsets[field], fieldLengths[field]);
+    }
+
+    /**
+     * Decodes the whole current row as it appears in the file.
+     *
+     * @return The row as a String
+     */
+    public String getLine() {
+        return decode(lineOffset, lineLength);
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Closes the underlying channel. The mapping is released once it is garbage collected.
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
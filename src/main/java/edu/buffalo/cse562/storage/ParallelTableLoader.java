@@ -0,0 +1,221 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Table;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads table files using all available cores. A file is cut into byte ranges that end on a newline,
+ * each range is scanned by its own {@link MappedTableScanner} on a {@link ForkJoinPool}, and the
+ * per-range results are concatenated in file order.
+ */
+public class ParallelTableLoader {
+    /** Files smaller than this are read on the calling thread; splitting them costs more than it saves. */
+    public static final long MIN_PARALLEL_FILE_SIZE = 1 << 22;
+
+    /** Number of ranges per worker thread, so that uneven ranges still balance out. */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private ParallelTableLoader() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Splits a file into byte ranges that each start at the beginning of a row.
+     *
+     * @param file The table file
+     * @param rangeCount Number of ranges wanted; fewer are returned for small files
+     * @return The ranges as {start, end} pairs covering the whole file in order
+     * @throws IOException If the file cannot be read
+     */
+    public static List<long[]> splitRanges(File file, int rangeCount) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long rangeSize = Math.max(1, size / Math.max(1, rangeCount));
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+
+            long start = 0;
+            while (start < size) {
+                long end = Math.min(size, start + rangeSize);
+                // Move the boundary forward to just past the next newline
+                while (end < size) {
+                    probe.clear();
+                    int read = channel.read(probe, end);
+                    if (read <= 0) {
+                        end = size;
+                        break;
+                    }
+                    int newline = -1;
+                    for (int i = 0; i < read; i++) {
+                        if (probe.get(i) == '\n') {
+                            newline = i;
+                            break;
+                        }
+                    }
+                    if (newline >= 0) {
+                        end += newline + 1;
+                        break;
+                    }
+                    end += read;
+                }
+                ranges.add(new long[] {start, end});
+                start = end;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Reads the rows of a table file as '|' delimited strings.
+     *
+     * @param file The table file
+     * @param columnCount Number of columns in the table
+     * @return The rows in file order
+     * @throws IOException If the file cannot be read
+     */
+    public static ArrayList<String> loadLines(File file, int columnCount) throws IOException {
+        return load(file, columnCount, scanner -> scanner.getLine());
+    }
+
+    /**
+     * Reads and parses the rows of a table file into typed tuples.
+     *
+     * @param file The table file
+     * @param types The type of each column
+     * @return The parsed rows in file order
+     * @throws IOException If the file cannot be read
+     */
+    public static ArrayList<Tuple> loadRows(File file, DataType[] types) throws IOException {
+        return loadRows(file, types, null);
+    }
+
+    /**
+     * Reads and parses the rows of a table file into typed tuples.
+     *
+     * @param file The table file
+     * @param types The type of each column
+     * @param scales The scale of each DECIMAL column, or null for the default scale
+     * @return The parsed rows in file order
+     * @throws IOException If the file cannot be read
+     */
+    public static ArrayList<Tuple> loadRows(File file, DataType[] types, int[] scales) throws IOException {
+        return load(file, types.length, scanner -> Tuple.parse(scanner, types, scales));
+    }
+
+    /**
+     * Populates several tables concurrently, one task per table.
+     *
+     * @param tables The tables to populate
+     * @throws IOException If any table fails to load
+     */
+    public static void populateAll(Collection<Table> tables) throws IOException {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Table table : tables) {
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                try {
+                    table.populateTable();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static <T> ArrayList<T> load(File file, int columnCount, RowReader<T> rowReader) throws IOException {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        if (file.length() < MIN_PARALLEL_FILE_SIZE || parallelism < 2) {
+            return scanRange(file, 0, -1, columnCount, rowReader);
+        }
+
+        List<long[]> ranges = splitRanges(file, parallelism * RANGES_PER_THREAD);
+        List<RangeTask<T>> tasks = new ArrayList<>(ranges.size());
+        for (long[] range : ranges) {
+            tasks.add(new RangeTask<>(file, range[0], range[1], columnCount, rowReader));
+        }
+
+        int rowCount = 0;
+        try {
+            for (RangeTask<T> task : ForkJoinTask.invokeAll(tasks)) {
+                rowCount += task.join().size();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        ArrayList<T> rows = new ArrayList<>(rowCount);
+        for (RangeTask<T> task : tasks) {
+            rows.addAll(task.join());
+        }
+        return rows;
+    }
+
+    private static <T> ArrayList<T> scanRange(File file, long start, long end, int columnCount,
+            RowReader<T> rowReader) throws IOException {
+        ArrayList<T> rows = new ArrayList<>();
+        try (MappedTableScanner scanner = new MappedTableScanner(file, start, end, columnCount)) {
+            while (scanner.next()) {
+                rows.add(rowReader.read(scanner));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Turns the scanner's current row into a result row.
+     */
+    private interface RowReader<T> {
+        T read(MappedTableScanner scanner);
+    }
+
+    /**
+     * Scans one byte range of a file.
+     */
+    private static class RangeTask<T> extends RecursiveTask<ArrayList<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final File file;
+        private final long start;
+        private final long end;
+        private final int columnCount;
+        private final RowReader<T> rowReader;
+
+        RangeTask(File file, long start, long end, int columnCount, RowReader<T> rowReader) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.columnCount = columnCount;
+            this.rowReader = rowReader;
+        }
+
+        @Override
+        protected ArrayList<T> compute() {
+            try {
+                return scanRange(file, start, end, columnCount, rowReader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
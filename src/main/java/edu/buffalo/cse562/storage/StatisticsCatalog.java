@@ -0,0 +1,101 @@
+package edu.buffalo.cse562.storage;
+
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics of every table, computed by the --build phase and read back by query runs.
+ * Planning decisions such as the join order, the build side of a hash join or whether to use an
+ * index look tables and columns up here instead of measuring the data at run time.
+ */
+public class StatisticsCatalog {
+    private final Map<String, TableStatistics> tables = new HashMap<>();
+
+    /**
+     * Constructs an empty catalog; tables without statistics are reported as unknown.
+     */
+    public StatisticsCatalog() {
+    }
+
+    /**
+     * Computes and persists the statistics of a table whose column files have been written.
+     *
+     * @param directory Directory holding the column files, where the statistics are written too
+     * @param tableName Name of the table
+     * @param columnDefinitions The table's columns, in table order
+     * @return The statistics
+     * @throws IOException If the column files cannot be read or the statistics cannot be written
+     */
+    public static TableStatistics build(File directory, String tableName, List<ColumnDefinition> columnDefinitions)
+            throws IOException {
+        ColumnVector[] vectors = ColumnarTableReader.read(directory, tableName, columnDefinitions);
+        TableStatistics statistics = TableStatistics.compute(tableName, columnDefinitions, vectors);
+        statistics.write(directory);
+        return statistics;
+    }
+
+    /**
+     * Loads every statistics file in a directory.
+     *
+     * @param directory Directory the index files are stored in, or null
+     * @return The catalog, empty if the directory holds no statistics
+     * @throws IOException If a statistics file cannot be read
+     */
+    public static StatisticsCatalog load(File directory) throws IOException {
+        StatisticsCatalog catalog = new StatisticsCatalog();
+        File[] files = directory == null ? null : directory.listFiles((dir, name) -> name.endsWith(".stats"));
+        if (files != null) {
+            for (File file : files) {
+                catalog.add(TableStatistics.read(file));
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Adds or replaces the statistics of a table.
+     *
+     * @param statistics The statistics
+     */
+    public void add(TableStatistics statistics) {
+        tables.put(statistics.getTableName(), statistics);
+    }
+
+    /**
+     * Returns the statistics of a table.
+     *
+     * @param tableName Name of the table
+     * @return The statistics, or null if the table is unknown
+     */
+    public TableStatistics getTable(String tableName) {
+        return tables.get(tableName.toLowerCase());
+    }
+
+    /**
+     * Returns the statistics of a column.
+     *
+     * @param tableName Name of the table
+     * @param columnName Bare or qualified column name
+     * @return The statistics, or null if the table or column is unknown
+     */
+    public ColumnStatistics getColumn(String tableName, String columnName) {
+        TableStatistics table = getTable(tableName);
+        return table == null ? null : table.getColumn(columnName);
+    }
+
+    /**
+     * Returns the number of rows of a table.
+     *
+     * @param tableName Name of the table
+     * @return The row count, or -1 if the table is unknown
+     */
+    public long getRowCount(String tableName) {
+        TableStatistics table = getTable(tableName);
+        return table == null ? -1 : table.getRowCount();
+    }
+}
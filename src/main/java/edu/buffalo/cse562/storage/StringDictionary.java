@@ -0,0 +1,162 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps the distinct values of a low-cardinality string column to dense int codes.
+ * Columns such as returnflag, shipmode or orderpriority hold only a handful of distinct values,
+ * so every row can share one String instance per value and equality, IN and GROUP BY can work
+ * on the codes instead of the characters. Once {@link #sort()} has been called, codes follow the
+ * natural order of their strings, so comparing codes also orders the rows.
+ */
+public class StringDictionary {
+    /** Columns with more distinct values than this are stored as plain strings. */
+    public static final int MAX_SIZE = 1024;
+
+    private final ArrayList<String> values;
+    private final HashMap<String, Integer> codes;
+    private boolean sorted;
+
+    /**
+     * Constructs an empty dictionary.
+     */
+    public StringDictionary() {
+        this.values = new ArrayList<>();
+        this.codes = new HashMap<>();
+    }
+
+    /**
+     * Builds a sorted dictionary over one string slot of a set of rows.
+     *
+     * @param rows The rows
+     * @param column The slot to encode
+     * @return The dictionary, or null if the slot has more than {@link #MAX_SIZE} distinct values
+     */
+    public static StringDictionary build(List<Tuple> rows, int column) {
+        StringDictionary dictionary = new StringDictionary();
+        for (Tuple row : rows) {
+            if (dictionary.add(row.getString(column)) < 0) {
+                return null;
+            }
+        }
+        dictionary.sort();
+        return dictionary;
+    }
+
+    /**
+     * Builds dictionaries for every string slot of a set of rows that has few enough distinct values.
+     *
+     * @param rows The rows
+     * @param types The type of each slot
+     * @return One dictionary per slot, null for slots that are not encoded, or null if no slot is
+     */
+    public static StringDictionary[] buildAll(List<Tuple> rows, DataType[] types) {
+        StringDictionary[] dictionaries = null;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != DataType.STRING || rows.isEmpty()) {
+                continue;
+            }
+            StringDictionary dictionary = build(rows, i);
+            if (dictionary != null) {
+                if (dictionaries == null) {
+                    dictionaries = new StringDictionary[types.length];
+                }
+                dictionaries[i] = dictionary;
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * Adds a value to the dictionary.
+     *
+     * @param value The value
+     * @return The value's code, or -1 if the value is new and the dictionary is full
+     */
+    public int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (values.size() >= MAX_SIZE) {
+            return -1;
+        }
+        codes.put(value, values.size());
+        values.add(value);
+        sorted = false;
+        return values.size() - 1;
+    }
+
+    /**
+     * Returns the code of a value.
+     *
+     * @param value The value
+     * @return The code, or -1 if the value does not occur in the column
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the codes of a set of values, for evaluating IN lists on codes.
+     *
+     * @param candidates The values
+     * @return A set with the code of every candidate that occurs in the column
+     */
+    public BitSet codesOf(Collection<String> candidates) {
+        BitSet result = new BitSet(values.size());
+        for (String candidate : candidates) {
+            int code = codeOf(candidate);
+            if (code >= 0) {
+                result.set(code);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of a code. The same String instance is returned for every row holding it.
+     */
+    public String get(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Reassigns the codes so that they follow the order of their values.
+     *
+     * @return For every old code, the new code it was renumbered to
+     */
+    public int[] sort() {
+        String[] ordered = values.toArray(new String[0]);
+        Arrays.sort(ordered);
+        for (int code = 0; code < ordered.length; code++) {
+            codes.put(ordered[code], code);
+        }
+
+        int[] renumbered = new int[ordered.length];
+        for (int oldCode = 0; oldCode < renumbered.length; oldCode++) {
+            renumbered[oldCode] = codes.get(values.get(oldCode));
+        }
+        values.clear();
+        values.addAll(Arrays.asList(ordered));
+        sorted = true;
+        return renumbered;
+    }
+}
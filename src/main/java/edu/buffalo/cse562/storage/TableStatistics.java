@@ -0,0 +1,129 @@
+package edu.buffalo.cse562.storage;
+
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The row count of a table and the {@link ColumnStatistics} of each of its columns, stored as
+ * {@code <table>.stats} in the index directory. The file layout is
+ * <pre>
+ *   int32 magic, UTF table name, int64 row count, int32 column count,
+ *   per column: UTF column name, column statistics
+ * </pre>
+ */
+public class TableStatistics {
+    /** Marks a statistics file. */
+    public static final int MAGIC = 0x53544154;
+
+    private final String tableName;
+    private final long rowCount;
+    private final Map<String, ColumnStatistics> columns;
+
+    private TableStatistics(String tableName, long rowCount, Map<String, ColumnStatistics> columns) {
+        this.tableName = tableName;
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    /**
+     * Returns the file holding the statistics of a table.
+     *
+     * @param directory Directory the index files are stored in
+     * @param tableName Name of the table
+     * @return The statistics file
+     */
+    public static File file(File directory, String tableName) {
+        return new File(directory, tableName.toLowerCase() + ".stats");
+    }
+
+    /**
+     * Computes the statistics of a table from its loaded columns.
+     *
+     * @param tableName Name of the table
+     * @param columnDefinitions The table's columns, in table order
+     * @param vectors One vector per column, in table order
+     * @return The statistics
+     */
+    public static TableStatistics compute(String tableName, List<ColumnDefinition> columnDefinitions,
+            ColumnVector[] vectors) {
+        Map<String, ColumnStatistics> columns = new LinkedHashMap<>();
+        for (int i = 0; i < vectors.length; i++) {
+            columns.put(columnDefinitions.get(i).getColumnName().toLowerCase(), ColumnStatistics.compute(vectors[i]));
+        }
+        return new TableStatistics(tableName.toLowerCase(), vectors.length == 0 ? 0 : vectors[0].size(), columns);
+    }
+
+    /**
+     * Reads a statistics file.
+     *
+     * @param file The file
+     * @return The statistics
+     * @throws IOException If the file cannot be read or holds no statistics
+     */
+    public static TableStatistics read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a statistics file: " + file);
+            }
+            String tableName = in.readUTF();
+            long rowCount = in.readLong();
+            int columnCount = in.readInt();
+            Map<String, ColumnStatistics> columns = new LinkedHashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.readUTF();
+                columns.put(name, ColumnStatistics.read(in));
+            }
+            return new TableStatistics(tableName, rowCount, columns);
+        }
+    }
+
+    /**
+     * Writes the statistics into the index directory.
+     *
+     * @param directory Directory the index files are stored in
+     * @throws IOException If an I/O error occurs
+     */
+    public void write(File directory) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file(directory, tableName))))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(tableName);
+            out.writeLong(rowCount);
+            out.writeInt(columns.size());
+            for (Map.Entry<String, ColumnStatistics> column : columns.entrySet()) {
+                out.writeUTF(column.getKey());
+                column.getValue().write(out);
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of a column.
+     *
+     * @param columnName Bare or qualified column name
+     * @return The statistics, or null if the table has no such column
+     */
+    public ColumnStatistics getColumn(String columnName) {
+        String name = columnName.toLowerCase();
+        return columns.get(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+}
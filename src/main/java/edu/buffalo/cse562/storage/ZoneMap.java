@@ -0,0 +1,457 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.util.DateUtils;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.DoubleValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.schema.Column;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * The minimum and maximum of every column in each block of {@link #BLOCK_SIZE} rows of a table.
+ * The --build phase writes it as {@code <table>.zonemap} next to the index files. A scan asks it
+ * which blocks may satisfy a WHERE clause and skips the others without looking at their rows,
+ * which pays off when a column is clustered, like the dates of lineitem that follow its orderkey.
+ *
+ * <p>INT, DATE and DECIMAL ranges are stored as longs, DATE as epoch days and DECIMAL unscaled;
+ * STRING ranges are stored as strings. The file layout is
+ * <pre>
+ *   int32 magic, int32 column count, int64 row count, int32 block size, int32 block count,
+ *   per column: int32 type, int32 scale, per block: min, max (int64 or modified UTF-8)
+ * </pre>
+ */
+public class ZoneMap {
+    /** Number of rows summarized by every block except the last one. */
+    public static final int BLOCK_SIZE = ColumnarFormat.ROW_GROUP_SIZE;
+
+    /** Marks a zone map file. */
+    public static final int MAGIC = 0x5A4D4150;
+
+    private final DataType[] types;
+    private final int[] scales;
+    private final long rowCount;
+    private final int blockCount;
+    private final long[][] mins;
+    private final long[][] maxs;
+    private final String[][] stringMins;
+    private final String[][] stringMaxs;
+
+    private ZoneMap(DataType[] types, int[] scales, long rowCount, int blockCount) {
+        this.types = types;
+        this.scales = scales;
+        this.rowCount = rowCount;
+        this.blockCount = blockCount;
+        this.mins = new long[types.length][];
+        this.maxs = new long[types.length][];
+        this.stringMins = new String[types.length][];
+        this.stringMaxs = new String[types.length][];
+    }
+
+    /**
+     * Returns the file holding the zone map of a table.
+     *
+     * @param directory Directory the index files are stored in
+     * @param tableName Name of the table
+     * @return The zone map file
+     */
+    public static File file(File directory, String tableName) {
+        return new File(directory, tableName.toLowerCase() + ".zonemap");
+    }
+
+    /**
+     * Reads the zone map of a table.
+     *
+     * @param directory Directory the index files are stored in
+     * @param tableName Name of the table
+     * @return The zone map, or null if the build phase did not write one
+     * @throws IOException If the file cannot be read or is not a zone map
+     */
+    public static ZoneMap read(File directory, String tableName) throws IOException {
+        File file = file(directory, tableName);
+        if (directory == null || !file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a zone map: " + file);
+            }
+            int columnCount = in.readInt();
+            long rowCount = in.readLong();
+            if (in.readInt() != BLOCK_SIZE) {
+                throw new IOException("Zone map " + file + " was written with a different block size");
+            }
+            int blockCount = in.readInt();
+
+            ZoneMap zoneMap = new ZoneMap(new DataType[columnCount], new int[columnCount], rowCount, blockCount);
+            for (int column = 0; column < columnCount; column++) {
+                zoneMap.types[column] = DataType.values()[in.readInt()];
+                zoneMap.scales[column] = in.readInt();
+                if (zoneMap.types[column] == DataType.STRING) {
+                    zoneMap.stringMins[column] = new String[blockCount];
+                    zoneMap.stringMaxs[column] = new String[blockCount];
+                    for (int block = 0; block < blockCount; block++) {
+                        zoneMap.stringMins[column][block] = in.readUTF();
+                        zoneMap.stringMaxs[column][block] = in.readUTF();
+                    }
+                } else {
+                    zoneMap.mins[column] = new long[blockCount];
+                    zoneMap.maxs[column] = new long[blockCount];
+                    for (int block = 0; block < blockCount; block++) {
+                        zoneMap.mins[column][block] = in.readLong();
+                        zoneMap.maxs[column][block] = in.readLong();
+                    }
+                }
+            }
+            return zoneMap;
+        }
+    }
+
+    /**
+     * Writes the zone map next to the index files.
+     *
+     * @param directory Directory the index files are stored in
+     * @param tableName Name of the table
+     * @throws IOException If an I/O error occurs
+     */
+    public void write(File directory, String tableName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file(directory, tableName))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(types.length);
+            out.writeLong(rowCount);
+            out.writeInt(BLOCK_SIZE);
+            out.writeInt(blockCount);
+            for (int column = 0; column < types.length; column++) {
+                out.writeInt(types[column].ordinal());
+                out.writeInt(scales[column]);
+                for (int block = 0; block < blockCount; block++) {
+                    if (types[column] == DataType.STRING) {
+                        out.writeUTF(stringMins[column][block]);
+                        out.writeUTF(stringMaxs[column][block]);
+                    } else {
+                        out.writeLong(mins[column][block]);
+                        out.writeLong(maxs[column][block]);
+                    }
+                }
+            }
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public DataType getType(int column) {
+        return types[column];
+    }
+
+    public long getMin(int column, int block) {
+        return mins[column][block];
+    }
+
+    public long getMax(int column, int block) {
+        return maxs[column][block];
+    }
+
+    /**
+     * Returns every block of the table.
+     *
+     * @return A set with one bit per block
+     */
+    public BitSet allBlocks() {
+        BitSet blocks = new BitSet(blockCount);
+        blocks.set(0, blockCount);
+        return blocks;
+    }
+
+    /**
+     * Returns the blocks whose range of a numeric or date column overlaps {@code [min, max]}.
+     *
+     * @param column The column
+     * @param min The smallest wanted value, unscaled for DECIMAL columns
+     * @param max The largest wanted value, unscaled for DECIMAL columns
+     * @return The blocks that may hold a wanted value
+     */
+    public BitSet candidateBlocks(int column, long min, long max) {
+        BitSet blocks = new BitSet(blockCount);
+        for (int block = 0; block < blockCount; block++) {
+            if (maxs[column][block] >= min && mins[column][block] <= max) {
+                blocks.set(block);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the blocks whose range of a string column overlaps {@code [min, max]}.
+     *
+     * @param column The column
+     * @param min The smallest wanted value, or null for no lower bound
+     * @param max The largest wanted value, or null for no upper bound
+     * @return The blocks that may hold a wanted value
+     */
+    public BitSet candidateBlocks(int column, String min, String max) {
+        BitSet blocks = new BitSet(blockCount);
+        for (int block = 0; block < blockCount; block++) {
+            if ((min == null || stringMaxs[column][block].compareTo(min) >= 0)
+                    && (max == null || stringMins[column][block].compareTo(max) <= 0)) {
+                blocks.set(block);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the blocks that may hold rows satisfying a WHERE expression, with columns named
+     * as in a table's column index map.
+     *
+     * @param where The WHERE expression, or null
+     * @param columnIndexMap Column names, bare or qualified, to their positions in the table
+     * @return The blocks that may hold a matching row
+     */
+    public BitSet candidateBlocks(Expression where, Map<String, Integer> columnIndexMap) {
+        return candidateBlocks(where, name -> {
+            Integer index = columnIndexMap.get(name);
+            if (index == null && name.indexOf('.') >= 0) {
+                index = columnIndexMap.get(name.substring(name.lastIndexOf('.') + 1));
+            }
+            return index == null ? -1 : index;
+        });
+    }
+
+    /**
+     * Returns the blocks that may hold rows satisfying a WHERE expression. Comparisons, BETWEEN,
+     * AND and OR over a column and a literal narrow the blocks; anything else keeps them all, so
+     * the result never excludes a block with a matching row.
+     *
+     * @param where The WHERE expression, or null
+     * @param resolver Maps a lower-cased column name to its position in the table, or -1 if unknown
+     * @return The blocks that may hold a matching row
+     */
+    public BitSet candidateBlocks(Expression where, ToIntFunction<String> resolver) {
+        if (where instanceof Parenthesis) {
+            return candidateBlocks(((Parenthesis) where).getExpression(), resolver);
+        }
+        if (where instanceof AndExpression) {
+            BitSet blocks = candidateBlocks(((AndExpression) where).getLeftExpression(), resolver);
+            blocks.and(candidateBlocks(((AndExpression) where).getRightExpression(), resolver));
+            return blocks;
+        }
+        if (where instanceof OrExpression) {
+            BitSet blocks = candidateBlocks(((OrExpression) where).getLeftExpression(), resolver);
+            blocks.or(candidateBlocks(((OrExpression) where).getRightExpression(), resolver));
+            return blocks;
+        }
+        if (where instanceof Between && !((Between) where).isNot()) {
+            Between between = (Between) where;
+            int column = columnOf(between.getLeftExpression(), resolver);
+            if (column >= 0) {
+                return range(column, between.getBetweenExpressionStart(), between.getBetweenExpressionEnd());
+            }
+        }
+        if (where instanceof EqualsTo || where instanceof GreaterThan || where instanceof GreaterThanEquals
+                || where instanceof MinorThan || where instanceof MinorThanEquals) {
+            Expression left = ((BinaryExpression) where).getLeftExpression();
+            Expression right = ((BinaryExpression) where).getRightExpression();
+            boolean flipped = false;
+            int column = columnOf(left, resolver);
+            if (column < 0) {
+                column = columnOf(right, resolver);
+                Expression swap = left;
+                left = right;
+                right = swap;
+                flipped = true;
+            }
+            if (column >= 0) {
+                boolean lower = where instanceof GreaterThan || where instanceof GreaterThanEquals;
+                boolean upper = where instanceof MinorThan || where instanceof MinorThanEquals;
+                if (flipped) {
+                    boolean swap = lower;
+                    lower = upper;
+                    upper = swap;
+                }
+                return range(column, upper ? null : right, lower ? null : right);
+            }
+        }
+        return allBlocks();
+    }
+
+    private int columnOf(Expression expression, ToIntFunction<String> resolver) {
+        if (!(expression instanceof Column)) {
+            return -1;
+        }
+        int column = resolver.applyAsInt(((Column) expression).getFullyQualifiedName().toLowerCase());
+        return column < types.length ? column : -1;
+    }
+
+    /**
+     * Returns the blocks of a column overlapping the inclusive range between two literals. Strict
+     * comparisons use the same range, which may keep a block needlessly but never drops one.
+     */
+    private BitSet range(int column, Expression low, Expression high) {
+        if (types[column] == DataType.STRING) {
+            String min = low == null ? null : stringOf(low);
+            String max = high == null ? null : stringOf(high);
+            if ((low != null && min == null) || (high != null && max == null)) {
+                return allBlocks();
+            }
+            return candidateBlocks(column, min, max);
+        }
+
+        Long min = low == null ? Long.valueOf(Long.MIN_VALUE) : numberOf(column, low, RoundingMode.FLOOR);
+        Long max = high == null ? Long.valueOf(Long.MAX_VALUE) : numberOf(column, high, RoundingMode.CEILING);
+        if (min == null || max == null) {
+            return allBlocks();
+        }
+        return candidateBlocks(column, min, max);
+    }
+
+    private static String stringOf(Expression literal) {
+        return literal instanceof StringValue ? ((StringValue) literal).getValue() : null;
+    }
+
+    /**
+     * Converts a literal to the representation of a column, rounding decimals outwards so that
+     * the range only grows.
+     */
+    private Long numberOf(int column, Expression literal, RoundingMode rounding) {
+        if (types[column] == DataType.DATE) {
+            Integer epochDay = DateUtils.fold(literal);
+            return epochDay == null ? null : Long.valueOf(epochDay);
+        }
+        if (!(literal instanceof LongValue) && !(literal instanceof DoubleValue)) {
+            return null;
+        }
+        try {
+            BigDecimal value = new BigDecimal(literal.toString()).setScale(scales[column], rounding);
+            return value.unscaledValue().longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collects the ranges of each column block by block while a table is written.
+     */
+    public static class Builder {
+        private final DataType[] types;
+        private final int[] scales;
+        private final long[][] mins;
+        private final long[][] maxs;
+        private final String[][] stringMins;
+        private final String[][] stringMaxs;
+        private final int[] blockCounts;
+
+        /**
+         * Constructs a builder.
+         *
+         * @param types The type of each column
+         * @param scales The scale of each column, 0 for columns that are not DECIMAL
+         */
+        public Builder(DataType[] types, int[] scales) {
+            this.types = types;
+            this.scales = scales;
+            this.mins = new long[types.length][16];
+            this.maxs = new long[types.length][16];
+            this.stringMins = new String[types.length][16];
+            this.stringMaxs = new String[types.length][16];
+            this.blockCounts = new int[types.length];
+        }
+
+        /**
+         * Records the range of the next block of a numeric or date column.
+         *
+         * @param column The column
+         * @param min Smallest value in the block
+         * @param max Largest value in the block
+         */
+        public void addBlock(int column, long min, long max) {
+            int block = nextBlock(column);
+            mins[column][block] = min;
+            maxs[column][block] = max;
+        }
+
+        /**
+         * Records the range of the next block of a string column.
+         *
+         * @param column The column
+         * @param min Smallest value in the block
+         * @param max Largest value in the block
+         */
+        public void addBlock(int column, String min, String max) {
+            int block = nextBlock(column);
+            stringMins[column][block] = min;
+            stringMaxs[column][block] = max;
+        }
+
+        private int nextBlock(int column) {
+            int block = blockCounts[column]++;
+            if (block == mins[column].length) {
+                mins[column] = Arrays.copyOf(mins[column], block * 2);
+                maxs[column] = Arrays.copyOf(maxs[column], block * 2);
+                stringMins[column] = Arrays.copyOf(stringMins[column], block * 2);
+                stringMaxs[column] = Arrays.copyOf(stringMaxs[column], block * 2);
+            }
+            return block;
+        }
+
+        /**
+         * Builds the zone map.
+         *
+         * @param rowCount Number of rows in the table
+         * @return The zone map
+         * @throws IllegalStateException If the columns were given different numbers of blocks
+         */
+        public ZoneMap build(long rowCount) {
+            int blockCount = types.length == 0 ? 0 : blockCounts[0];
+            for (int count : blockCounts) {
+                if (count != blockCount) {
+                    throw new IllegalStateException("Every column needs the same number of blocks");
+                }
+            }
+
+            ZoneMap zoneMap = new ZoneMap(types, scales, rowCount, blockCount);
+            for (int column = 0; column < types.length; column++) {
+                if (types[column] == DataType.STRING) {
+                    zoneMap.stringMins[column] = Arrays.copyOf(stringMins[column], blockCount);
+                    zoneMap.stringMaxs[column] = Arrays.copyOf(stringMaxs[column], blockCount);
+                } else {
+                    zoneMap.mins[column] = Arrays.copyOf(mins[column], blockCount);
+                    zoneMap.maxs[column] = Arrays.copyOf(maxs[column], blockCount);
+                }
+            }
+            return zoneMap;
+        }
+    }
+}
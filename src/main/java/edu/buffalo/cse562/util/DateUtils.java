@@ -0,0 +1,149 @@
+package edu.buffalo.cse562.util;
+
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.DateTimeLiteralExpression;
+import net.sf.jsqlparser.expression.DateValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.IntervalExpression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Folds date literals and date arithmetic to days since the epoch, the representation DATE columns
+ * are stored in. Folding happens once while a query is planned, so that a date range filter costs a
+ * single int comparison per row.
+ */
+public class DateUtils {
+    private DateUtils() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Parses a yyyy-mm-dd date.
+     *
+     * @param date The date
+     * @return The epoch day
+     */
+    public static int toEpochDay(String date) {
+        return FieldParser.parseEpochDay(date, 0, date.length());
+    }
+
+    /**
+     * Formats an epoch day as yyyy-mm-dd, the way dates appear in table files.
+     *
+     * @param epochDay The epoch day
+     * @return The formatted date
+     */
+    public static String format(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /**
+     * Parses the date out of a literal written as {@code '1994-01-01'}, {@code DATE '1994-01-01'},
+     * {@code date('1994-01-01')} or {@code {d '1994-01-01'}}.
+     *
+     * @param literal The literal as it appears in the query
+     * @return The epoch day
+     * @throws IllegalArgumentException If the literal holds no quoted date
+     */
+    public static int literalEpochDay(String literal) {
+        int start = literal.indexOf('\'');
+        int end = literal.lastIndexOf('\'');
+        if (start < 0 || end <= start) {
+            throw new IllegalArgumentException("Not a date literal: " + literal);
+        }
+        return FieldParser.parseEpochDay(literal, start + 1, end);
+    }
+
+    /**
+     * Folds a constant date expression, including {@code DATE '...' + INTERVAL 'n' DAY|MONTH|YEAR}.
+     *
+     * @param expression The expression
+     * @return The epoch day, or null if the expression is not a constant date
+     */
+    public static Integer fold(Expression expression) {
+        if (expression instanceof DateValue) {
+            return (int) ((DateValue) expression).getValue().toLocalDate().toEpochDay();
+        }
+        if (expression instanceof DateTimeLiteralExpression) {
+            DateTimeLiteralExpression literal = (DateTimeLiteralExpression) expression;
+            return literal.getType() == DateTimeLiteralExpression.DateTime.DATE
+                ? literalEpochDay(literal.getValue()) : null;
+        }
+        if (expression instanceof StringValue) {
+            return parseOrNull(((StringValue) expression).getValue());
+        }
+        if (expression instanceof Function) {
+            Function function = (Function) expression;
+            if ("date".equalsIgnoreCase(function.getName()) && function.getParameters() != null
+                    && function.getParameters().getExpressions().size() == 1) {
+                return fold(function.getParameters().getExpressions().get(0));
+            }
+            return null;
+        }
+        if (expression instanceof Addition || expression instanceof Subtraction) {
+            Expression left = ((BinaryExpression) expression).getLeftExpression();
+            Expression right = ((BinaryExpression) expression).getRightExpression();
+            Integer date = fold(left);
+            if (date == null || !(right instanceof IntervalExpression)) {
+                return null;
+            }
+            return addInterval(date, (IntervalExpression) right, expression instanceof Subtraction);
+        }
+        return null;
+    }
+
+    private static Integer addInterval(int epochDay, IntervalExpression interval, boolean subtract) {
+        long amount;
+        if (interval.getParameter() != null) {
+            amount = Long.parseLong(interval.getParameter().replace("'", "").trim());
+        } else if (interval.getExpression() instanceof LongValue) {
+            amount = ((LongValue) interval.getExpression()).getValue();
+        } else {
+            return null;
+        }
+        if (interval.getIntervalType() == null) {
+            return null;
+        }
+        if (subtract) {
+            amount = -amount;
+        }
+
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        switch (interval.getIntervalType().toUpperCase()) {
+            case "DAY":
+                date = date.plusDays(amount);
+                break;
+            case "WEEK":
+                date = date.plusWeeks(amount);
+                break;
+            case "MONTH":
+                date = date.plusMonths(amount);
+                break;
+            case "YEAR":
+                date = date.plusYears(amount);
+                break;
+            default:
+                return null;
+        }
+        return (int) date.toEpochDay();
+    }
+
+    private static Integer parseOrNull(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() != 10 || trimmed.charAt(4) != '-' || trimmed.charAt(7) != '-') {
+            return null;
+        }
+        try {
+            return (int) LocalDate.parse(trimmed).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
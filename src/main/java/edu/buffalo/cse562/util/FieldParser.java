@@ -0,0 +1,139 @@
+package edu.buffalo.cse562.util;
+
+import java.time.LocalDate;
+
+/**
+ * Parses field values straight out of a row without cutting the field into its own String.
+ * Table files are ASCII, so every method takes the row and the [start, end) range of the field.
+ */
+public class FieldParser {
+    private FieldParser() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Parses a signed integer.
+     *
+     * @param text The row holding the field
+     * @param start Offset of the field's first character
+     * @param end Offset just past the field's last character
+     * @return The value
+     */
+    public static long parseLong(CharSequence text, int start, int end) {
+        boolean negative = false;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                negative = true;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number such as {@code -12.50}.
+     *
+     * @param text The row holding the field
+     * @param start Offset of the field's first character
+     * @param end Offset just past the field's last character
+     * @return The value
+     */
+    public static double parseDouble(CharSequence text, int start, int end) {
+        boolean negative = false;
+        boolean fraction = false;
+        long digits = 0;
+        long divisor = 1;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                negative = true;
+            } else if (c == '.') {
+                fraction = true;
+            } else if (c >= '0' && c <= '9' && digits < Long.MAX_VALUE / 100) {
+                digits = digits * 10 + (c - '0');
+                if (fraction) {
+                    divisor *= 10;
+                }
+            } else {
+                // Exponents and very long values are left to the JDK
+                return Double.parseDouble(text.subSequence(start, end).toString().trim());
+            }
+        }
+        double value = (double) digits / divisor;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number into a long scaled by 10^scale.
+     *
+     * @param text The row holding the field
+     * @param start Offset of the field's first character
+     * @param end Offset just past the field's last character
+     * @param scale Number of fractional digits to keep
+     * @return The unscaled value
+     * @throws NumberFormatException If the value has more nonzero fractional digits than the scale allows
+     * @throws ArithmeticException If the value does not fit in a long
+     */
+    public static long parseScaled(CharSequence text, int start, int end, int scale) {
+        boolean negative = false;
+        long unscaled = 0;
+        int fractionDigits = -1;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                negative = true;
+            } else if (c == '.') {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (fractionDigits >= scale) {
+                    if (c != '0') {
+                        throw new NumberFormatException("Value " + text.subSequence(start, end)
+                            + " has more than " + scale + " fractional digits");
+                    }
+                    continue;
+                }
+                unscaled = Math.addExact(Math.multiplyExact(unscaled, 10), c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+        }
+        for (int i = Math.max(fractionDigits, 0); i < scale; i++) {
+            unscaled = Math.multiplyExact(unscaled, 10);
+        }
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * Parses a yyyy-mm-dd date into days since the epoch.
+     *
+     * @param text The row holding the field
+     * @param start Offset of the field's first character
+     * @param end Offset just past the field's last character
+     * @return The epoch day
+     */
+    public static int parseEpochDay(CharSequence text, int start, int end) {
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int part = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                part++;
+            } else if (c < '0' || c > '9') {
+                continue;
+            } else if (part == 0) {
+                year = year * 10 + (c - '0');
+            } else if (part == 1) {
+                month = month * 10 + (c - '0');
+            } else {
+                day = day * 10 + (c - '0');
+            }
+        }
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+}
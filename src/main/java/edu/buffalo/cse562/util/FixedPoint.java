@@ -0,0 +1,183 @@
+package edu.buffalo.cse562.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Arithmetic on DECIMAL values held as longs scaled by a power of ten, so that {@code 12.50} at scale 2
+ * is the long {@code 1250}. Unlike doubles the results are exact, and unlike BigDecimal nothing is
+ * allocated. Every operation that could exceed the range of a long throws ArithmeticException instead
+ * of wrapping around.
+ */
+public class FixedPoint {
+    /** Largest scale a value can be rescaled to; 10^18 is the largest power of ten that fits in a long. */
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns 10^scale.
+     *
+     * @param scale A scale between 0 and {@link #MAX_SCALE}
+     * @return The power of ten
+     * @throws ArithmeticException If the power does not fit in a long
+     */
+    public static long powerOfTen(int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new ArithmeticException("Scale " + scale + " is out of range");
+        }
+        return POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * Changes the scale of a value, rounding half away from zero when digits are dropped.
+     *
+     * @param unscaled The value
+     * @param fromScale The value's scale
+     * @param toScale The wanted scale
+     * @return The value at the new scale
+     * @throws ArithmeticException If the result overflows
+     */
+    public static long rescale(long unscaled, int fromScale, int toScale) {
+        if (toScale == fromScale) {
+            return unscaled;
+        }
+        if (toScale > fromScale) {
+            return Math.multiplyExact(unscaled, powerOfTen(toScale - fromScale));
+        }
+        return divideRounded(unscaled, powerOfTen(fromScale - toScale));
+    }
+
+    /**
+     * Adds two values.
+     *
+     * @return The sum at scale {@code max(aScale, bScale)}
+     * @throws ArithmeticException If the result overflows
+     */
+    public static long add(long a, int aScale, long b, int bScale) {
+        int scale = Math.max(aScale, bScale);
+        return Math.addExact(rescale(a, aScale, scale), rescale(b, bScale, scale));
+    }
+
+    /**
+     * Subtracts one value from another.
+     *
+     * @return The difference at scale {@code max(aScale, bScale)}
+     * @throws ArithmeticException If the result overflows
+     */
+    public static long subtract(long a, int aScale, long b, int bScale) {
+        int scale = Math.max(aScale, bScale);
+        return Math.subtractExact(rescale(a, aScale, scale), rescale(b, bScale, scale));
+    }
+
+    /**
+     * Multiplies two values.
+     *
+     * @return The product at scale {@code aScale + bScale}
+     * @throws ArithmeticException If the result overflows
+     */
+    public static long multiply(long a, long b) {
+        return Math.multiplyExact(a, b);
+    }
+
+    /**
+     * Divides one value by another, rounding half away from zero.
+     *
+     * @param dividend The dividend
+     * @param dividendScale The dividend's scale
+     * @param divisor The divisor
+     * @param divisorScale The divisor's scale
+     * @param resultScale The scale of the quotient
+     * @return The quotient
+     * @throws ArithmeticException If the divisor is zero or the result overflows
+     */
+    public static long divide(long dividend, int dividendScale, long divisor, int divisorScale, int resultScale) {
+        // dividend / divisor at resultScale = dividend * 10^(resultScale - dividendScale + divisorScale) / divisor
+        int shift = resultScale - dividendScale + divisorScale;
+        if (shift >= 0) {
+            return divideRounded(Math.multiplyExact(dividend, powerOfTen(shift)), divisor);
+        }
+        return divideRounded(dividend, Math.multiplyExact(divisor, powerOfTen(-shift)));
+    }
+
+    /**
+     * Compares two values of possibly different scales.
+     *
+     * @return A negative number, zero or a positive number as the first value is less than, equal to or greater than the second
+     */
+    public static int compare(long a, int aScale, long b, int bScale) {
+        if (aScale == bScale) {
+            return Long.compare(a, b);
+        }
+        int scale = Math.max(aScale, bScale);
+        try {
+            return Long.compare(rescale(a, aScale, scale), rescale(b, bScale, scale));
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(a, aScale).compareTo(BigDecimal.valueOf(b, bScale));
+        }
+    }
+
+    /**
+     * Converts a double to a scaled value, rounding to the nearest unit of the scale.
+     *
+     * @throws ArithmeticException If the result does not fit in a long
+     */
+    public static long fromDouble(double value, int scale) {
+        double scaled = Math.rint(value * powerOfTen(scale));
+        if (scaled >= Long.MAX_VALUE || scaled <= Long.MIN_VALUE || Double.isNaN(scaled)) {
+            throw new ArithmeticException("Value " + value + " does not fit at scale " + scale);
+        }
+        return (long) scaled;
+    }
+
+    public static double toDouble(long unscaled, int scale) {
+        return (double) unscaled / powerOfTen(scale);
+    }
+
+    /**
+     * Appends a value in plain notation with exactly {@code scale} fractional digits.
+     *
+     * @param sb The builder to append to
+     * @param unscaled The value
+     * @param scale The value's scale
+     */
+    public static void append(StringBuilder sb, long unscaled, int scale) {
+        if (scale == 0) {
+            sb.append(unscaled);
+            return;
+        }
+        if (unscaled < 0) {
+            sb.append('-');
+        }
+        long power = powerOfTen(scale);
+        // Long.MIN_VALUE has no positive counterpart, so the digits are taken from the negative side
+        long integer = Math.abs(unscaled / power);
+        long fraction = Math.abs(unscaled % power);
+        sb.append(integer).append('.');
+        String digits = Long.toString(fraction);
+        for (int i = digits.length(); i < scale; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    private static long divideRounded(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        // Round half away from zero without overflowing 2 * remainder
+        if (Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder)) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.buffalo.cse562;
+
+import edu.buffalo.cse562.operations.CommonSubexpressions;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static edu.buffalo.cse562.TestTables.table;
+import static org.junit.Assert.*;
+
+public class AggregateOperationsExactTest {
+
+    private static Table lineitem() {
+        return table("lineitem", new String[] {"flag", "quantity", "price", "discount"},
+            new String[] {"CHAR", "INT", "DECIMAL", "DECIMAL"},
+            "A|1|99999999.99|0.10", "B|2|99999999.99|0.05", "A|4|99999999.99|0.00");
+    }
+
+    private static CommonSubexpressions common(Table table, String... expressions) throws Exception {
+        Expression[] parsed = new Expression[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            parsed[i] = new CCJSqlParser(new StringReader(expressions[i])).SimpleExpression();
+        }
+        return new CommonSubexpressions(WhereOperation.schemaOf(table), Arrays.asList(parsed));
+    }
+
+    @Test
+    public void testSumsWithoutGroupingExactly() throws Exception {
+        Table lineitem = lineitem();
+        String revenue = "lineitem.price*lineitem.discount";
+        CommonSubexpressions common = common(lineitem, revenue, "lineitem.price");
+        // a double would print 2.9999999997E8 and lose the last cents of the products
+        assertEquals("299999999.97", new AggregateOperations().sum(lineitem, common, "lineitem.price"));
+        assertEquals("14999999.9985", new AggregateOperations().sum(lineitem, common, revenue));
+    }
+
+    @Test
+    public void testAveragesFromTheExactSum() throws Exception {
+        Table lineitem = lineitem();
+        CommonSubexpressions common = common(lineitem, "lineitem.quantity");
+        assertEquals("2.33", new AggregateOperations().average(lineitem, common, "lineitem.quantity"));
+    }
+
+    @Test
+    public void testAveragesGroupsFromTheirExactSums() throws Exception {
+        String[] selectList = {"lineitem.flag", "avg(lineitem.quantity) AS avg_qty", "sum(lineitem.price) AS sum_price"};
+        Table grouped = new AggregateOperations().getAggregate(lineitem(), selectList, "[lineitem.flag]", null);
+        Collections.sort(grouped.tableTuples);
+        assertEquals(Arrays.asList("A|2.50|199999999.98", "B|2.00|99999999.99"), grouped.tableTuples);
+    }
+}
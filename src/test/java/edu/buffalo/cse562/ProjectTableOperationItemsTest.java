@@ -0,0 +1,50 @@
+package edu.buffalo.cse562;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static edu.buffalo.cse562.TestTables.table;
+import static org.junit.Assert.*;
+
+public class ProjectTableOperationItemsTest {
+
+    private static Table lineitem() {
+        return table("lineitem", new String[] {"orderkey", "price", "discount"}, new String[] {"INT", "DECIMAL", "DECIMAL"},
+            "1|10.00|0.10", "2|20.00|0.50");
+    }
+
+    private static Table project(String... selectItems) throws Exception {
+        return ProjectTableOperation.projectTable(lineitem(), new ArrayList<String>(Arrays.asList(selectItems)), false);
+    }
+
+    @Test
+    public void testComputesArithmetic() throws Exception {
+        Table projected = project("lineitem.price * (1 - lineitem.discount) AS net");
+        assertEquals(Arrays.asList("9.0000", "10.0000"), projected.tableTuples);
+        assertEquals("net", projected.columnDescriptionList.get(0).getColumnName());
+    }
+
+    @Test
+    public void testCopiesPlainColumns() throws Exception {
+        Table projected = project("lineitem.orderkey", "lineitem.discount AS d");
+        assertEquals(Arrays.asList("1|0.10", "2|0.50"), projected.tableTuples);
+        // a bare column keeps its type
+        assertEquals("INT", projected.columnDescriptionList.get(0).getColDataType().getDataType());
+    }
+
+    @Test
+    public void testExpandsAllColumns() throws Exception {
+        Table projected = project("*");
+        assertEquals(Arrays.asList("1|10.00|0.10", "2|20.00|0.50"), projected.tableTuples);
+        assertEquals(3, projected.columnDescriptionList.size());
+    }
+
+    @Test
+    public void testKeepsLiteralsWithOperatorCharacters() throws Exception {
+        // the '-' inside the literal is not a subtraction
+        Table projected = project("lineitem.orderkey", "'1-URGENT' AS priority");
+        assertEquals(Arrays.asList("1|1-URGENT", "2|1-URGENT"), projected.tableTuples);
+    }
+}
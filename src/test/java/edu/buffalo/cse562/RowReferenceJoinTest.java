@@ -0,0 +1,107 @@
+package edu.buffalo.cse562;
+
+import edu.buffalo.cse562.operations.JoinEnumerator;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static edu.buffalo.cse562.TestTables.table;
+import static org.junit.Assert.*;
+
+public class RowReferenceJoinTest {
+
+    private static Table orders() {
+        return table("orders", new String[] {"orderkey", "status", "comment"}, new String[] {"INT", "CHAR", "CHAR"},
+            "1|O|fast|", "2|F||");
+    }
+
+    private static Table lineitem() {
+        return table("lineitem", new String[] {"orderkey", "partkey", "suppkey", "comment"},
+            new String[] {"INT", "INT", "INT", "CHAR"},
+            "1|7|3|x|", "1|8|4||", "2|7|3||");
+    }
+
+    private static Table join(List<Table> tables, String where, HashSet<String> referencedNames) throws Exception {
+        long[] rows = new long[tables.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = tables.get(i).tableTuples.size();
+        }
+        JoinEnumerator enumerator = new JoinEnumerator(rows);
+        for (int i = 1; i < rows.length; i++) {
+            enumerator.addPredicate(i - 1, i, 0.5);
+        }
+        Expression whereExpression = new CCJSqlParser(new StringReader(where)).Expression();
+        return RowReferenceJoin.evaluatePlan(enumerator.plan(), new ArrayList<Table>(tables), whereExpression, referencedNames);
+    }
+
+    // this returns the values of the given columns of every joined tuple, found by name so the order the plan joined the tables in does not matter
+    private static List<String> values(Table joined, String... columns) {
+        List<String> values = new ArrayList<String>();
+        for (String tuple : joined.tableTuples) {
+            String[] attributes = tuple.split("\\|", -1);
+            assertEquals(tuple, joined.columnDescriptionList.size(), attributes.length);
+            StringBuilder sb = new StringBuilder();
+            for (String column : columns) {
+                sb.append(sb.length() == 0 ? "" : "|").append(attributes[joined.columnIndexMap.get(column)]);
+            }
+            values.add(sb.toString());
+        }
+        Collections.sort(values);
+        return values;
+    }
+
+    @Test
+    public void testKeepsOnlyReferencedColumns() throws Exception {
+        // a qualified name keeps only that table's column, a bare name keeps it in every table
+        HashSet<String> referencedNames = new HashSet<String>(Arrays.asList("orders.orderkey", "lineitem.partkey", "comment"));
+        Table joined = join(Arrays.asList(orders(), lineitem()), "orders.orderkey = lineitem.orderkey", referencedNames);
+
+        assertEquals(4, joined.columnDescriptionList.size());
+        assertNull(joined.columnIndexMap.get("orders.status"));
+        assertNull(joined.columnIndexMap.get("lineitem.orderkey"));
+        // the empty comments kept last in a table are still followed by exactly one separator
+        assertEquals(Arrays.asList("1|7|fast|x", "1|8|fast|", "2|7||"),
+            values(joined, "orders.orderkey", "lineitem.partkey", "orders.comment", "lineitem.comment"));
+    }
+
+    @Test
+    public void testCopiesWholeTuplesWithoutTheirTrailingSeparator() throws Exception {
+        Table joined = join(Arrays.asList(orders(), lineitem()), "orders.orderkey = lineitem.orderkey", null);
+
+        assertEquals(7, joined.columnDescriptionList.size());
+        assertEquals(Arrays.asList("1|O|fast|", "1|O|fast|x", "2|F||"),
+            values(joined, "lineitem.orderkey", "orders.status", "orders.comment", "lineitem.comment"));
+    }
+
+    @Test
+    public void testLeavesPlansWithMergeJoinsToTheTableJoins() {
+        // both tables come ordered on orderkey, so merging them costs less than hashing either one
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {1500000, 6000000});
+        enumerator.addPredicate(0, 1, "orderkey", 1.0 / 1500000);
+        assertTrue(RowReferenceJoin.isApplicable(enumerator.plan()));
+        enumerator.setOrdered(0, "orderkey");
+        enumerator.setOrdered(1, "orderkey");
+        assertFalse(RowReferenceJoin.isApplicable(enumerator.plan()));
+    }
+
+    @Test
+    public void testJoinsOnIntegralAndCompositeKeys() throws Exception {
+        // these tuples have no trailing separator, so the empty cost of the second one is a column of its own
+        Table partsupp = table("partsupp", new String[] {"partkey", "suppkey", "cost"}, new String[] {"INT", "INT", "DECIMAL"},
+            "7|3|10.5", "8|4|", "7|4|2.0");
+        // orders and lineitem join on a single INT, partsupp joins lineitem on two attributes at once
+        Table joined = join(Arrays.asList(orders(), lineitem(), partsupp),
+            "orders.orderkey = lineitem.orderkey AND lineitem.partkey = partsupp.partkey AND lineitem.suppkey = partsupp.suppkey", null);
+
+        assertEquals(10, joined.columnDescriptionList.size());
+        assertEquals(Arrays.asList("1|7|3|10.5|O", "1|8|4||O", "2|7|3|10.5|F"),
+            values(joined, "orders.orderkey", "lineitem.partkey", "partsupp.suppkey", "partsupp.cost", "orders.status"));
+    }
+}
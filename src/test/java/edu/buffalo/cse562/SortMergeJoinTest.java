@@ -0,0 +1,62 @@
+package edu.buffalo.cse562;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static edu.buffalo.cse562.TestTables.table;
+import static org.junit.Assert.*;
+
+public class SortMergeJoinTest {
+
+    @Test
+    public void testOrderIsOnlyKnownWhereItWasRecorded() {
+        Table orders = table("orders", new String[] {"orderkey", "status"}, new String[] {"INT", "CHAR"},
+            "1|O", "2|F", "3|O");
+        // a table named like a dbgen table holds its tuples in any order until the scan records it
+        assertFalse(SortMergeJoin.isOrderedOn(orders, "orders.orderkey"));
+        SortMergeJoin.setScanOrder(orders);
+        assertTrue(SortMergeJoin.isOrderedOn(orders, "orders.orderkey"));
+        assertFalse(SortMergeJoin.isOrderedOn(orders, "orders.status"));
+
+        // a filter keeps the order, tuples picked through an index do not
+        Table filtered = table("orders", new String[] {"orderkey", "status"}, new String[] {"INT", "CHAR"}, "1|O", "3|O");
+        SortMergeJoin.keepOrder(orders, filtered);
+        assertTrue(SortMergeJoin.isOrderedOn(filtered, "orders.orderkey"));
+        Table indexed = table("orders", new String[] {"orderkey", "status"}, new String[] {"INT", "CHAR"}, "3|O", "1|O");
+        assertFalse(SortMergeJoin.isOrderedOn(indexed, "orders.orderkey"));
+    }
+
+    @Test
+    public void testMergesAfterSortingTheUnorderedTable() throws IOException {
+        Table orders = table("orders", new String[] {"orderkey", "status"}, new String[] {"INT", "CHAR"},
+            "1|O", "2|F", "3|O", "4|F", "5|O", "6|F");
+        SortMergeJoin.setScanOrder(orders);
+        Table lineitem = table("lineitem", new String[] {"orderkey", "quantity"}, new String[] {"INT", "INT"},
+            "5|17", "2|36", "5|8");
+
+        // sorting three tuples costs less than building a HashMap on them
+        assertTrue(SortMergeJoin.isCheaperThanHashing(orders, "orders.orderkey", lineitem, "lineitem.orderkey"));
+        Table joined = SortMergeJoin.evaluateJoin(orders, lineitem, "orders", "lineitem", "orderkey");
+        assertEquals(Arrays.asList("2|F|2|36", "5|O|5|17", "5|O|5|8"), joined.tableTuples);
+        assertTrue(SortMergeJoin.isOrderedOn(joined, "orders.orderkey"));
+        assertTrue(SortMergeJoin.isOrderedOn(joined, "lineitem.orderkey"));
+    }
+
+    @Test
+    public void testHashesLargeUnorderedTables() {
+        String[] tuples = new String[1000];
+        for (int i = 0; i < tuples.length; i++) {
+            tuples[i] = ((i * 7919) % tuples.length) + "|x";
+        }
+        Table customer = table("customer", new String[] {"custkey", "name"}, new String[] {"INT", "CHAR"}, tuples);
+        Table orders = table("orders", new String[] {"custkey", "status"}, new String[] {"INT", "CHAR"}, tuples);
+        assertFalse(SortMergeJoin.isCheaperThanHashing(customer, "customer.custkey", orders, "orders.custkey"));
+
+        // both tables ordered on the joining attribute are merged without sorting
+        SortMergeJoin.setOrderedOn(customer, Arrays.asList("customer.custkey"));
+        SortMergeJoin.setOrderedOn(orders, Arrays.asList("orders.custkey"));
+        assertTrue(SortMergeJoin.isCheaperThanHashing(customer, "customer.custkey", orders, "orders.custkey"));
+    }
+}
@@ -0,0 +1,34 @@
+package edu.buffalo.cse562;
+
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Builds in-memory legacy {@link Table}s for the tests of the operators that work on them.
+ */
+final class TestTables {
+    private TestTables() {
+    }
+
+    /**
+     * Returns a table whose columns are named {@code name.column}, with the given types and tuples.
+     */
+    static Table table(String name, String[] columns, String[] types, String... tuples) {
+        Table table = new Table(name, columns.length, null, null);
+        table.columnDescriptionList = new ArrayList<ColumnDefinition>();
+        for (int i = 0; i < columns.length; i++) {
+            ColumnDefinition column = new ColumnDefinition();
+            column.setColumnName(name + "." + columns[i]);
+            ColDataType type = new ColDataType();
+            type.setDataType(types[i]);
+            column.setColDataType(type);
+            table.columnDescriptionList.add(column);
+            table.columnIndexMap.put(name + "." + columns[i], i);
+        }
+        table.tableTuples.addAll(Arrays.asList(tuples));
+        return table;
+    }
+}
@@ -0,0 +1,48 @@
+package edu.buffalo.cse562;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static edu.buffalo.cse562.TestTables.table;
+import static org.junit.Assert.*;
+
+public class WhereOperationDateTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Table lineitem() {
+        Table table = table("lineitem", new String[] {"orderkey", "shipdate"}, new String[] {"INT", "DATE"},
+            "1|1994-01-01", "2|1995-01-02", "3|1994-02-01", "4|1993-01-01");
+        table.tableDataDirectoryPath = folder.getRoot();
+        return table;
+    }
+
+    private static Expression parse(String condition) throws Exception {
+        return new CCJSqlParser(new StringReader(condition)).Expression();
+    }
+
+    @Test
+    public void testNotEqualsKeepsEveryOtherDate() throws Exception {
+        // a date differing only in its year or only in its day is kept too
+        Table result = WhereOperation.selectionOnTable(parse("lineitem.shipdate <> {d '1994-01-01'}"), lineitem());
+        assertEquals(Arrays.asList("2|1995-01-02", "3|1994-02-01", "4|1993-01-01"), result.tableTuples);
+    }
+
+    @Test
+    public void testComparesFoldedDateLiterals() throws Exception {
+        Table before = WhereOperation.selectionOnTable(parse("lineitem.shipdate < {d '1994-02-01'}"), lineitem());
+        assertEquals(Arrays.asList("1|1994-01-01", "4|1993-01-01"), before.tableTuples);
+
+        Table onOrAfter = WhereOperation.selectionOnTable(parse("lineitem.shipdate >= {d '1994-02-01'}"), lineitem());
+        assertEquals(Arrays.asList("2|1995-01-02", "3|1994-02-01"), onOrAfter.tableTuples);
+
+        Table equal = WhereOperation.selectionOnTable(parse("lineitem.shipdate = {d '1995-01-02'}"), lineitem());
+        assertEquals(Arrays.asList("2|1995-01-02"), equal.tableTuples);
+    }
+}
@@ -0,0 +1,95 @@
+package edu.buffalo.cse562.model;
+
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TupleTest {
+    private DataType[] types;
+
+    @Before
+    public void setUp() {
+        types = new DataType[] {DataType.INT, DataType.DECIMAL, DataType.DATE, DataType.STRING};
+    }
+
+    @Test
+    public void testParse() {
+        Tuple tuple = Tuple.parse("42|-17.25|1996-01-02|AIR|", types);
+
+        assertEquals(4, tuple.size());
+        assertEquals(42L, tuple.getLong(0));
+        assertEquals(-17.25, tuple.getDouble(1), 0.0);
+        assertEquals(LocalDate.of(1996, 1, 2).toEpochDay(), tuple.getLong(2));
+        assertEquals("AIR", tuple.getString(3));
+        assertEquals("1996-01-02", tuple.getString(2));
+        assertEquals(new BigDecimal("42"), tuple.getDecimal(0));
+    }
+
+    @Test
+    public void testKeysAndComparison() {
+        Tuple first = Tuple.parse("7|1.50|1995-12-31|MAIL", types);
+        Tuple second = Tuple.parse("10|1.5|1996-01-01|AIR", types);
+
+        assertTrue("INT slots should compare numerically", first.compareSlot(0, second, 0) < 0);
+        assertEquals("Equal decimals should give equal keys", first.getKey(1), second.getKey(1));
+        assertTrue("DATE slots should compare chronologically", first.compareSlot(2, second, 2) < 0);
+        assertTrue(first.compareSlot(3, second, 3) > 0);
+    }
+
+    @Test
+    public void testConcat() {
+        Tuple left = Tuple.parse("1|2.00|1995-01-01|A", types);
+        Tuple right = Tuple.parse("3|4.00|1995-01-02|B", types);
+
+        Tuple joined = left.concat(right);
+        assertEquals(8, joined.size());
+        assertEquals(1L, joined.getLong(0));
+        assertEquals(3L, joined.getLong(4));
+        assertEquals("B", joined.getString(7));
+        assertEquals("1|2.00|1995-01-01|A|3|4.00|1995-01-02|B", joined.toString());
+    }
+
+    @Test
+    public void testTableRowsParsedOnce() throws IOException {
+        File dataFile = new File("src/test/resources/testdata", "typed.tbl");
+        try (FileWriter writer = new FileWriter(dataFile)) {
+            writer.write("1|10.50|1995-03-10|first|\n");
+            writer.write("2|20.25|1995-03-11|second|\n");
+        }
+
+        try {
+            ArrayList<ColumnDefinition> columns = new ArrayList<>();
+            String[][] definitions = {{"id", "INT"}, {"price", "DECIMAL"}, {"shipdate", "DATE"}, {"name", "CHAR"}};
+            for (String[] definition : definitions) {
+                ColDataType colDataType = new ColDataType();
+                colDataType.setDataType(definition[1]);
+                ColumnDefinition column = new ColumnDefinition();
+                column.setColumnName(definition[0]);
+                column.setColDataType(colDataType);
+                columns.add(column);
+            }
+
+            Table table = new Table("typed", 4, dataFile, dataFile.getParentFile());
+            table.setColumnDefinitions(columns);
+            table.populateTable();
+
+            ArrayList<Tuple> rows = table.getRows();
+            assertEquals(2, rows.size());
+            assertSame("Rows should be parsed only once", rows, table.getRows());
+            assertEquals(20.25, rows.get(1).getDouble(1), 0.0);
+            assertEquals("second", rows.get(1).getString(3));
+        } finally {
+            dataFile.delete();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BloomFilterTest {
+    @Test
+    public void testNeverMissesAddedKeys() {
+        long[] keys = new Random(1).longs(10000).toArray();
+        BloomFilter filter = BloomFilter.of(keys);
+        for (long key : keys) {
+            assertTrue(filter.mightContain(key));
+        }
+
+        BloomFilter strings = new BloomFilter(3);
+        strings.add("BUILDING");
+        strings.add("MACHINERY");
+        assertTrue(strings.mightContain("BUILDING"));
+        assertTrue(strings.mightContain("MACHINERY"));
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        // Consecutive order keys, as a filtered orders table would add them
+        BloomFilter filter = new BloomFilter(20000);
+        for (long key = 0; key < 20000; key++) {
+            filter.add(key);
+        }
+        int falsePositives = 0;
+        for (long key = 20000; key < 120000; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 3000);
+        assertEquals(1L << 18, filter.bitCount());
+    }
+}
@@ -0,0 +1,77 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CommonSubexpressionsTest {
+    private final Schema schema = new Schema(
+        Arrays.asList("lineitem.quantity", "lineitem.extendedprice", "lineitem.discount", "lineitem.tax"),
+        new DataType[] {DataType.INT, DataType.DECIMAL, DataType.DECIMAL, DataType.DECIMAL},
+        new int[] {0, 2, 2, 2});
+
+    @Test
+    public void testSharedSubexpressionsGiveTheSameResults() throws JSQLParserException {
+        List<Expression> expressions = new ArrayList<>();
+        for (String text : new String[] {"extendedprice * (1 - discount)",
+                "extendedprice * (1 - discount) * (1 + tax)", "quantity * 2", "discount > 0.05"}) {
+            expressions.add(CCJSqlParserUtil.parseCondExpression(text));
+        }
+        CommonSubexpressions common = new CommonSubexpressions(schema, expressions);
+        assertEquals("1 - discount and extendedprice * (1 - discount) repeat", 2, common.getRepeatedCount());
+
+        CommonSubexpressions.Evaluation evaluation = common.newEvaluation();
+        ExpressionCompiler.Value revenue = evaluation.compileValue(expressions.get(0));
+        ExpressionCompiler.Value charge = evaluation.compileValue(expressions.get(1));
+        ExpressionCompiler.Value doubled = evaluation.compileValue(expressions.get(2));
+        assertFalse(evaluation.compilePredicate(expressions.get(3)).test(
+            Tuple.parse("1|1.00|0.05|0.00", schema.getTypes(), schema.getScales())));
+
+        for (String line : new String[] {"17|21168.23|0.04|0.02", "36|45983.16|0.09|0.06", "8|13309.60|0.10|0.02"}) {
+            Tuple tuple = Tuple.parse(line, schema.getTypes(), schema.getScales());
+            evaluation.nextRow();
+            assertEquals(ExpressionCompiler.compileValue(expressions.get(0), schema).evaluateString(tuple),
+                revenue.evaluateString(tuple));
+            assertEquals(ExpressionCompiler.compileValue(expressions.get(1), schema).evaluateString(tuple),
+                charge.evaluateString(tuple));
+            assertEquals(Long.parseLong(line.substring(0, line.indexOf('|'))) * 2, doubled.evaluateLong(tuple));
+        }
+    }
+
+    @Test
+    public void testEvaluationsKeepTheirOwnRows() throws JSQLParserException {
+        List<Expression> expressions = new ArrayList<>();
+        for (String text : new String[] {"extendedprice * (1 - discount)", "extendedprice * (1 - discount) * (1 + tax)"}) {
+            expressions.add(CCJSqlParserUtil.parseCondExpression(text));
+        }
+        CommonSubexpressions common = new CommonSubexpressions(schema, expressions);
+        CommonSubexpressions.Evaluation first = common.newEvaluation();
+        CommonSubexpressions.Evaluation second = common.newEvaluation();
+        ExpressionCompiler.Value firstRevenue = first.compileValue(expressions.get(0));
+        ExpressionCompiler.Value firstCharge = first.compileValue(expressions.get(1));
+        ExpressionCompiler.Value secondRevenue = second.compileValue(expressions.get(0));
+
+        // two threads evaluating different rows in turn do not see each other's values
+        Tuple row = Tuple.parse("17|100.00|0.10|0.00", schema.getTypes(), schema.getScales());
+        Tuple other = Tuple.parse("36|200.00|0.50|0.00", schema.getTypes(), schema.getScales());
+        assertEquals("90.0000", firstRevenue.evaluateString(row));
+        assertEquals("100.0000", secondRevenue.evaluateString(other));
+        assertEquals("90.000000", firstCharge.evaluateString(row));
+
+        // a tuple reused for the next row is evaluated again once the row moves on
+        row.setDecimal(1, 20000, 2);
+        first.nextRow();
+        assertEquals("180.0000", firstRevenue.evaluateString(row));
+        assertEquals("180.000000", firstCharge.evaluateString(row));
+    }
+}
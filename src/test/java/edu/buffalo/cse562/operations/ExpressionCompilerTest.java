@@ -0,0 +1,90 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class ExpressionCompilerTest {
+    private Schema schema;
+    private Tuple tuple;
+
+    @Before
+    public void setUp() {
+        schema = new Schema(
+            Arrays.asList("lineitem.quantity", "lineitem.extendedprice", "lineitem.discount", "lineitem.shipdate",
+                "lineitem.shipmode"),
+            new DataType[] {DataType.INT, DataType.DECIMAL, DataType.DECIMAL, DataType.DATE, DataType.STRING},
+            new int[] {0, 2, 2, 0, 0});
+        tuple = Tuple.parse("17|21168.23|0.04|1996-03-13|TRUCK", schema.getTypes(), schema.getScales());
+    }
+
+    @Test
+    public void testArithmeticIsExact() throws JSQLParserException {
+        ExpressionCompiler.Value revenue = ExpressionCompiler.compileValue(
+            CCJSqlParserUtil.parseExpression("extendedprice * (1 - discount)"), schema);
+        assertEquals(DataType.DECIMAL, revenue.getType());
+        assertEquals(4, revenue.getScale());
+        assertEquals("20321.5008", revenue.evaluateString(tuple));
+
+        ExpressionCompiler.Value folded = ExpressionCompiler.compileValue(
+            CCJSqlParserUtil.parseExpression("quantity + 2 * 3 / 4"), schema);
+        assertEquals(18.5, folded.evaluateDouble(tuple), 0.0);
+    }
+
+    @Test
+    public void testPredicates() throws JSQLParserException {
+        assertTrue(matches("quantity * 2 >= 34 AND discount < 0.05"));
+        assertFalse(matches("quantity * 2 > 34"));
+        assertTrue(matches("discount = 0.040"));
+        assertTrue(matches("shipdate >= DATE '1996-01-01' AND shipdate < DATE '1996-01-01' + INTERVAL '1' YEAR"));
+        assertTrue(matches("lineitem.shipdate > '1996-03-12'"));
+        assertTrue(matches("shipmode = 'TRUCK' OR shipmode = 'AIR'"));
+        assertFalse(matches("NOT (shipmode <> 'MAIL') OR shipmode < 'AIR'"));
+        assertTrue(matches("20000 < extendedprice - 1000"));
+    }
+
+    @Test
+    public void testSetAndPatternPredicates() throws JSQLParserException {
+        assertTrue(matches("shipmode IN ('AIR', 'TRUCK')"));
+        assertTrue(matches("shipmode NOT IN ('AIR', 'MAIL')"));
+        assertTrue(matches("quantity IN (3, 17, 40) AND discount IN (0.04, 0.05)"));
+        assertFalse(matches("quantity IN (17.5, 18)"));
+        assertTrue(matches("shipdate IN ('1996-03-13', DATE '1997-01-01')"));
+
+        assertTrue(matches("shipmode LIKE 'TR%'"));
+        assertTrue(matches("shipmode LIKE '%CK'"));
+        assertTrue(matches("shipmode LIKE '%RU%'"));
+        assertTrue(matches("shipmode LIKE 'T%U%K'"));
+        assertFalse(matches("shipmode LIKE 'T%K%K'"));
+        assertTrue(matches("shipmode LIKE 'T_UCK' AND shipmode NOT LIKE 'TRUCK_'"));
+        assertFalse(matches("shipmode LIKE 'TRUCK\\%' ESCAPE '\\'"));
+
+        assertTrue(matches("quantity BETWEEN 17 AND 20 AND discount BETWEEN 0.04 AND 0.06"));
+        assertFalse(matches("extendedprice NOT BETWEEN 21000 AND 21168.23"));
+        assertTrue(matches("shipdate BETWEEN '1996-01-01' AND DATE '1996-01-01' + INTERVAL '1' YEAR"));
+        assertTrue(matches("quantity BETWEEN discount AND extendedprice"));
+
+        assertTrue(matches("shipmode IS NOT NULL AND quantity IS NOT NULL"));
+        assertFalse(matches("shipmode IS NULL"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownColumns() throws JSQLParserException {
+        matches("orderkey = 1");
+    }
+
+    private boolean matches(String condition) throws JSQLParserException {
+        Predicate<Tuple> predicate = ExpressionCompiler.compilePredicate(
+            CCJSqlParserUtil.parseCondExpression(condition), schema);
+        return predicate.test(tuple);
+    }
+}
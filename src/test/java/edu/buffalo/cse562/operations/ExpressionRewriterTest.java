@@ -0,0 +1,45 @@
+package edu.buffalo.cse562.operations;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ExpressionRewriterTest {
+    @Test
+    public void testFoldsConstants() throws JSQLParserException {
+        assertEquals("shipdate <= {d '1998-09-02'}",
+            rewrite("shipdate <= date '1998-12-01' - interval '90' day"));
+        assertEquals("discount BETWEEN 0.05 AND 0.07",
+            rewrite("discount between 0.06 - 0.01 and 0.06 + 0.01"));
+        assertEquals("quantity < 24", rewrite("quantity < (20 + 2) * 2 - 20"));
+        assertEquals("price > 0.5", rewrite("price > 1 / 2"));
+        assertEquals("Inexact quotients are left alone", "price > 1 / 3", rewrite("price > 1 / 3"));
+        assertEquals("tax IN (-1, 0.08)", rewrite("tax in (-1, 0.04 * 2)"));
+    }
+
+    @Test
+    public void testNormalizesComparisons() throws JSQLParserException {
+        assertEquals("quantity > 20", rewrite("20 < quantity"));
+        assertEquals("shipmode = 'AIR'", rewrite("'AIR' = shipmode"));
+        assertEquals("quantity >= 20", rewrite("NOT (quantity < 20)"));
+        assertEquals("a.x = b.y", rewrite("a.x = b.y"));
+    }
+
+    @Test
+    public void testFlattensAndPrunesJunctions() throws JSQLParserException {
+        assertEquals("a = 1 AND b = 2 AND c = 3", rewrite("(a = 1 AND (b = 2)) AND (c = 3 AND a = 1)"));
+        assertEquals("a = 1 OR b = 2 OR c = 3", rewrite("((a = 1 OR b = 2) OR (c = 3 OR b = 2))"));
+        assertEquals("(a = 1 OR b = 2) AND c = 3", rewrite("(a = 1 OR b = 2) AND c = 3"));
+        assertEquals("shipdate >= DATE '1994-01-01' AND quantity < 24",
+            rewrite("shipdate >= date '1993-06-01' AND quantity < 25 AND shipdate >= date '1994-01-01' AND 24 > quantity"));
+        assertEquals("quantity > 5 AND quantity <= 9", rewrite("quantity >= 5 AND quantity > 5 AND quantity <= 9"));
+    }
+
+    private static String rewrite(String condition) throws JSQLParserException {
+        Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
+        return ExpressionRewriter.rewrite(expression).toString();
+    }
+}
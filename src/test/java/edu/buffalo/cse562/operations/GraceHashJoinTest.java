@@ -0,0 +1,133 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class GraceHashJoinTest {
+    @Rule
+    public TemporaryFolder swap = new TemporaryFolder();
+
+    private static final Function<String, Object> KEY = row -> Long.parseLong(row.substring(0, row.indexOf('|')));
+
+    @Test
+    public void testJoinsInMemoryWithinBudget() throws IOException {
+        List<String> build = rows(new Random(1), 500, 100, 0);
+        List<String> probe = rows(new Random(2), 2000, 120, 0);
+        List<String> joined = new ArrayList<>();
+        GraceHashJoin join = new GraceHashJoin(swap.getRoot(), 1L << 30, KEY, KEY, (b, p) -> joined.add(b + "|" + p));
+        join.join(source(build), bytes(build), source(probe));
+
+        assertEquals(0, join.getSpilledPartitions());
+        assertEquals(expected(build, probe), sorted(joined));
+        assertEquals(0, swap.getRoot().list().length);
+    }
+
+    @Test
+    public void testSpillsAndRepartitionsSkewedInput() throws IOException {
+        // A third of the build rows share one key, so that partition never fits and is joined block by block
+        List<String> build = rows(new Random(3), 6000, 3000, 2000);
+        List<String> probe = rows(new Random(4), 4000, 3500, 50);
+        List<String> joined = new ArrayList<>();
+        GraceHashJoin join = new GraceHashJoin(swap.getRoot(), 20000, KEY, KEY, (b, p) -> joined.add(b + "|" + p));
+        join.join(source(build), bytes(build), source(probe));
+
+        assertTrue(join.getSpilledPartitions() > 1);
+        assertEquals(expected(build, probe), sorted(joined));
+        assertEquals("Spill files are removed", 0, swap.getRoot().list().length);
+    }
+
+    @Test
+    public void testDropsProbeRowsMissingFromBuildKeys() throws IOException {
+        // The probe keys spread over a hundred times the build keys, so nearly every probe row has no match
+        List<String> build = rows(new Random(5), 3000, 100, 0);
+        List<String> probe = rows(new Random(6), 5000, 10000, 0);
+        List<String> joined = new ArrayList<>();
+        GraceHashJoin join = new GraceHashJoin(swap.getRoot(), 20000, KEY, KEY, (b, p) -> joined.add(b + "|" + p));
+        join.join(source(build), bytes(build), source(probe));
+
+        long unmatched = probe.stream().filter(p -> (Long) KEY.apply(p) >= 100).count();
+        assertTrue(join.getFilteredRows() <= unmatched);
+        assertTrue(join.getFilteredRows() > unmatched * 9 / 10);
+        assertEquals(expected(build, probe), sorted(joined));
+    }
+
+    @Test
+    public void testSplitsAResidentPartitionThatOverflowed() throws IOException {
+        // Short rows take far more heap than their bytes on disk suggest, so the build side is expected to fit
+        // in one partition but overflows it, and the next level has to split it rather than rewrite it whole
+        List<String> build = rows(new Random(7), 20000, 20000, 0);
+        List<String> probe = rows(new Random(8), 5000, 20000, 0);
+        List<String> joined = new ArrayList<>();
+        GraceHashJoin join = new GraceHashJoin(swap.getRoot(), 4 * bytes(build), KEY, KEY, (b, p) -> joined.add(b + "|" + p));
+        join.join(source(build), bytes(build), source(probe));
+
+        assertTrue(join.getSpilledPartitions() > 0);
+        assertTrue("Repartitioned " + join.getDeepestLevel() + " levels deep", join.getDeepestLevel() <= 2);
+        assertEquals(expected(build, probe), sorted(joined));
+        assertEquals(0, swap.getRoot().list().length);
+    }
+
+    @Test
+    public void testSizesSpillBuffersFromTheBudget() {
+        assertEquals(1 << 16, GraceHashJoin.spillBufferChars(1L << 30, 256));
+        // 256 writers of 8192 chars take a quarter of 16 MB
+        assertEquals(8192, GraceHashJoin.spillBufferChars(1L << 24, 256));
+        assertEquals(1 << 10, GraceHashJoin.spillBufferChars(20000, 16));
+    }
+
+    private static List<String> rows(Random random, int count, int keys, int skewed) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long key = i < skewed ? 7 : random.nextInt(keys);
+            rows.add(key + "|row" + i + "|");
+        }
+        Collections.shuffle(rows, random);
+        return rows;
+    }
+
+    private static List<String> expected(List<String> build, List<String> probe) {
+        Map<Object, List<String>> byKey = new HashMap<>();
+        for (String b : build) {
+            byKey.computeIfAbsent(KEY.apply(b), k -> new ArrayList<>()).add(b);
+        }
+        List<String> joined = new ArrayList<>();
+        for (String p : probe) {
+            for (String b : byKey.getOrDefault(KEY.apply(p), Collections.emptyList())) {
+                joined.add(b + "|" + p);
+            }
+        }
+        return sorted(joined);
+    }
+
+    private static List<String> sorted(List<String> rows) {
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static long bytes(List<String> rows) {
+        long bytes = 0;
+        for (String row : rows) {
+            bytes += row.length() + 1;
+        }
+        return bytes;
+    }
+
+    private static RowSource source(List<String> rows) {
+        Iterator<String> iterator = rows.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+}
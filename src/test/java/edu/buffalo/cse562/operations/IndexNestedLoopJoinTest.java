@@ -0,0 +1,45 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class IndexNestedLoopJoinTest {
+    @Test
+    public void testProbesIndexOncePerDistinctKey() throws IOException {
+        // Orders keyed on custkey as a primary key B-tree stores them, with a '|' after the value
+        TreeMap<String, ArrayList<String>> index = new TreeMap<String, ArrayList<String>>() {
+            int lookups;
+
+            @Override
+            public ArrayList<String> get(Object key) {
+                assertTrue("Key " + key + " looked up twice", ++lookups <= 3);
+                return super.get(key);
+            }
+        };
+        index.put("1|", new ArrayList<>(Arrays.asList("101|1", "102|1")));
+        index.put("2|", new ArrayList<>(Arrays.asList("103|2")));
+
+        List<String> customers = Arrays.asList("1|A", "3|C", "1|A2", "2|B");
+        Iterator<String> outer = customers.iterator();
+        List<String> joined = new ArrayList<>();
+        long pairs = IndexNestedLoopJoin.join(() -> outer.hasNext() ? outer.next() : null,
+            row -> row.substring(0, row.indexOf('|')) + "|", index, (customer, order) -> joined.add(customer + "|" + order));
+
+        assertEquals(5, pairs);
+        assertEquals(Arrays.asList("1|A|101|1", "1|A|102|1", "1|A2|101|1", "1|A2|102|1", "2|B|103|2"), joined);
+    }
+
+    @Test
+    public void testCostModelPrefersSmallOuterInputs() {
+        assertTrue(IndexNestedLoopJoin.isCheaper(1000, 1500000));
+        assertFalse(IndexNestedLoopJoin.isCheaper(150000, 1500000));
+    }
+}
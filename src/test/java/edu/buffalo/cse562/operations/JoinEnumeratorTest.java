@@ -0,0 +1,137 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JoinEnumeratorTest {
+    // Q5 style: customer, orders filtered to one year, lineitem, supplier, nation and a single region
+    private static final long[] ROWS = {150000, 230000, 6000000, 10000, 25, 1};
+
+    @Test
+    public void testStartsFromTheSelectiveEndOfTheChain() {
+        // Joining the two large relations first leaves a million rows, joining the small one first ten
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {1000000, 1000000, 10});
+        enumerator.addPredicate(0, 1, 1.0 / 1000000);
+        enumerator.addPredicate(1, 2, 1.0 / 1000000);
+        JoinEnumerator.Plan plan = enumerator.plan();
+        assertEquals(0, plan.getInner().getRelation());
+        assertEquals(10, plan.getOuter().getRows(), 1e-6);
+    }
+
+    @Test
+    public void testKeepsIntermediateResultsSmall() {
+        JoinEnumerator.Plan plan = q5().plan();
+        assertEquals(6, leaves(plan));
+        // Customers and suppliers only share a nation, so joining them early would give twelve million rows;
+        // the orders of the year are joined to their customers first instead
+        JoinEnumerator.Plan first = plan;
+        while (!first.getOuter().isLeaf()) {
+            first = first.getOuter();
+        }
+        assertEquals(1, first.getOuter().getRelation() + first.getInner().getRelation());
+        for (JoinEnumerator.Plan join = plan; !join.isLeaf(); join = join.getOuter()) {
+            assertTrue(join.toString(), join.getRows() <= 1000000);
+        }
+    }
+
+    @Test
+    public void testGreedyPlanAboveDynamicProgrammingLimit() {
+        int relations = JoinEnumerator.MAX_DP_RELATIONS + 2;
+        long[] rows = new long[relations];
+        for (int i = 0; i < relations; i++) {
+            rows[i] = 1000L * (i + 1);
+        }
+        // A star around relation 0, whose rows each match one row of every other relation
+        JoinEnumerator enumerator = new JoinEnumerator(rows);
+        for (int i = 1; i < relations; i++) {
+            enumerator.addPredicate(0, i, 1.0 / rows[i]);
+        }
+        JoinEnumerator.Plan plan = enumerator.plan();
+        assertEquals(relations, leaves(plan));
+        assertEquals(1000, plan.getRows(), 1e-6);
+    }
+
+    @Test
+    public void testProbesIndexForSmallOuterInput() {
+        // A hundred filtered customers and the orders table, with a B-tree on orders.custkey
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {100, 1500000});
+        enumerator.addPredicate(0, 1, "custkey", 1.0 / 150000);
+        enumerator.setIndexed(1, "custkey");
+        JoinEnumerator.Plan plan = enumerator.plan();
+        assertEquals("(0 -> 1)", plan.toString());
+        assertEquals(JoinEnumerator.Algorithm.INDEX_NESTED_LOOP, plan.getAlgorithm());
+        assertEquals("custkey", plan.getAttribute());
+        assertEquals(1000, plan.getRows(), 1e-6);
+    }
+
+    @Test
+    public void testProbesIndexOnlyOnItsAttribute() {
+        // The B-tree of customer is on custkey, which does not help joining the nations to it
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {1, 150000});
+        enumerator.addPredicate(0, 1, "nationkey", 1.0 / 25);
+        enumerator.setIndexed(1, "custkey");
+        JoinEnumerator.Plan plan = enumerator.plan();
+        assertNotEquals(JoinEnumerator.Algorithm.INDEX_NESTED_LOOP, plan.getAlgorithm());
+    }
+
+    @Test
+    public void testMergesInputsOrderedOnTheirAttribute() {
+        // orders and lineitem both come ordered on orderkey, and the merge keeps its result in that order
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {1500000, 6000000, 1500000});
+        enumerator.addPredicate(0, 1, "orderkey", 1.0 / 1500000);
+        enumerator.addPredicate(1, 2, "orderkey", 1.0 / 1500000);
+        enumerator.setOrdered(0, "orderkey");
+        enumerator.setOrdered(1, "orderkey");
+        enumerator.setOrdered(2, "orderkey");
+        JoinEnumerator.Plan plan = enumerator.plan();
+        for (JoinEnumerator.Plan join = plan; !join.isLeaf(); join = join.getOuter()) {
+            assertEquals(join.toString(), JoinEnumerator.Algorithm.MERGE, join.getAlgorithm());
+        }
+        // no input is sorted, so the plan costs one per input row and one per result row of each join
+        assertEquals(1500000 + 6000000 + 6000000 + 6000000 + 1500000 + 6000000, plan.getCost(), 1e-6);
+    }
+
+    @Test
+    public void testSortsForAMergeOnlyWhenCheaperThanHashing() {
+        // Sorting a million rows costs more than hashing a thousand of them
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {1000, 1000000});
+        enumerator.addPredicate(0, 1, "partkey", 1.0 / 1000000);
+        enumerator.setOrdered(0, "partkey");
+        assertEquals(JoinEnumerator.Algorithm.HASH, enumerator.plan().getAlgorithm());
+        enumerator.setOrdered(1, "partkey");
+        assertEquals(JoinEnumerator.Algorithm.MERGE, enumerator.plan().getAlgorithm());
+    }
+
+    @Test
+    public void testBuildsOnTheSmallerInput() {
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {1500000, 100});
+        enumerator.addPredicate(0, 1, 1.0 / 150000);
+        JoinEnumerator.Plan plan = enumerator.plan();
+        assertEquals(JoinEnumerator.Algorithm.HASH, plan.getAlgorithm());
+        // the 100 rows are built on whichever side they end up, and the 1000 result rows are counted once
+        assertEquals(JoinEnumerator.BUILD_ROW_COST * 100 + 1500000 + 1000, plan.getCost(), 1e-6);
+    }
+
+    @Test
+    public void testDisconnectedRelationsHaveNoPlan() {
+        JoinEnumerator enumerator = new JoinEnumerator(new long[] {10, 20, 30});
+        enumerator.addPredicate(0, 1, 0.1);
+        assertNull(enumerator.plan());
+    }
+
+    private static JoinEnumerator q5() {
+        JoinEnumerator enumerator = new JoinEnumerator(ROWS);
+        enumerator.addPredicate(0, 1, 1.0 / 150000);
+        enumerator.addPredicate(1, 2, 1.0 / 1500000);
+        enumerator.addPredicate(2, 3, 1.0 / 10000);
+        enumerator.addPredicate(0, 3, 1.0 / 25);
+        enumerator.addPredicate(3, 4, 1.0 / 25);
+        enumerator.addPredicate(4, 5, 1.0 / 5);
+        return enumerator;
+    }
+
+    private static int leaves(JoinEnumerator.Plan plan) {
+        return plan.isLeaf() ? 1 : leaves(plan.getOuter()) + leaves(plan.getInner());
+    }
+}
@@ -0,0 +1,54 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongJoinHashTableTest {
+    @Test
+    public void testChainsHoldEveryRowInOrder() {
+        LongJoinHashTable table = LongJoinHashTable.build(new long[] {7, 3, 7, -1, 7, 0});
+        assertEquals(6, table.size());
+        assertEquals(4, table.getDistinctKeys());
+
+        List<Integer> rows = new ArrayList<>();
+        for (int row = table.first(7); row >= 0; row = table.next(row)) {
+            rows.add(row);
+        }
+        assertEquals(Arrays.asList(0, 2, 4), rows);
+        assertEquals(3, table.first(-1));
+        assertEquals(5, table.first(0));
+        assertEquals(-1, table.next(5));
+        assertEquals(-1, table.first(8));
+    }
+
+    @Test
+    public void testMatchesHashMapOnRandomKeys() {
+        Random random = new Random(42);
+        long[] keys = new long[20000];
+        Map<Long, List<Integer>> expected = new HashMap<>();
+        for (int row = 0; row < keys.length; row++) {
+            // Dense keys with duplicates, plus some far apart ones
+            keys[row] = row % 7 == 0 ? random.nextLong() : random.nextInt(5000);
+            expected.computeIfAbsent(keys[row], k -> new ArrayList<>()).add(row);
+        }
+
+        LongJoinHashTable table = LongJoinHashTable.build(keys);
+        assertEquals(expected.size(), table.getDistinctKeys());
+        for (Map.Entry<Long, List<Integer>> entry : expected.entrySet()) {
+            List<Integer> rows = new ArrayList<>();
+            for (int row = table.first(entry.getKey()); row >= 0; row = table.next(row)) {
+                rows.add(row);
+            }
+            assertEquals(entry.getValue(), rows);
+        }
+        assertEquals(-1, LongJoinHashTable.build(new long[0]).first(1));
+    }
+}
@@ -0,0 +1,51 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class MergeJoinTest {
+    private static final Function<String, Object> FIRST_COLUMN =
+        row -> Long.parseLong(row.substring(0, row.indexOf('|')));
+    private static final Function<String, Object> SECOND_COLUMN =
+        row -> Long.parseLong(row.substring(row.indexOf('|') + 1));
+
+    @Test
+    public void testPairsDuplicateGroupsInKeyOrder() throws IOException {
+        List<String> orders = Arrays.asList("1|o1", "2|o2", "2|o2b", "4|o4", "7|o7");
+        List<String> lineitems = Arrays.asList("l0|0", "l1|2", "l2|2", "l3|2", "l4|3", "l5|7", "l6|9");
+        List<String> joined = new ArrayList<>();
+        long pairs = MergeJoin.join(source(orders), FIRST_COLUMN, source(lineitems), SECOND_COLUMN,
+            (order, lineitem) -> joined.add(order + "|" + lineitem));
+
+        assertEquals(7, pairs);
+        assertEquals(Arrays.asList(
+            "2|o2|l1|2", "2|o2|l2|2", "2|o2|l3|2",
+            "2|o2b|l1|2", "2|o2b|l2|2", "2|o2b|l3|2",
+            "7|o7|l5|7"), joined);
+    }
+
+    @Test
+    public void testEmptyInputs() throws IOException {
+        assertEquals(0, MergeJoin.join(source(new ArrayList<>()), FIRST_COLUMN,
+            source(Arrays.asList("1|a")), FIRST_COLUMN, (a, b) -> fail()));
+    }
+
+    @Test(expected = MergeJoin.UnorderedInputException.class)
+    public void testRejectsUnorderedInput() throws IOException {
+        MergeJoin.join(source(Arrays.asList("1|a", "3|b", "2|c")), FIRST_COLUMN,
+            source(Arrays.asList("2|x", "3|y")), FIRST_COLUMN, (a, b) -> { });
+    }
+
+    private static RowSource source(List<String> rows) {
+        Iterator<String> iterator = rows.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+}
@@ -0,0 +1,171 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Table;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OperatorPipelineTest {
+    private File testDataDir;
+    private Table orders;
+    private Table lineitem;
+
+    @Before
+    public void setUp() throws IOException {
+        testDataDir = new File("src/test/resources/testdata");
+        orders = createTable("orders", new String[][] {{"orderkey", "INT"}, {"orderdate", "DATE"}},
+            "1|1995-01-01|\n2|1996-06-15|\n3|1997-03-03|\n");
+        lineitem = createTable("lineitem",
+            new String[][] {{"orderkey", "INT"}, {"quantity", "DECIMAL"}, {"shipmode", "CHAR"}},
+            "1|10.00|AIR|\n1|5.50|MAIL|\n2|7.00|AIR|\n3|1.00|AIR|\n3|2.00|MAIL|\n");
+    }
+
+    @After
+    public void tearDown() {
+        orders.getDataFile().delete();
+        lineitem.getDataFile().delete();
+    }
+
+    @Test
+    public void testScanStreamsUnloadedTable() throws IOException {
+        List<Tuple> rows = drain(new ScanOperator(lineitem));
+        assertEquals(5, rows.size());
+        assertEquals("Unloaded tables should not be materialized", 0, lineitem.getRowCount());
+        assertEquals(5.5, rows.get(1).getDouble(1), 0.0);
+    }
+
+    @Test
+    public void testPipeline() throws IOException {
+        Operator scanOrders = new ScanOperator(orders);
+        Operator airItems = new FilterOperator(new ScanOperator(lineitem),
+            tuple -> tuple.getString(2).equals("AIR"));
+        Operator join = new HashJoinOperator(airItems, scanOrders, "lineitem.orderkey", "orders.orderkey");
+        assertEquals(5, join.getSchema().size());
+
+        Operator aggregate = new AggregateOperator(join, Collections.singletonList("orders.orderkey"),
+            Arrays.asList(new AggregateOperator.Aggregate("SUM", "quantity", "total"),
+                new AggregateOperator.Aggregate("COUNT", null, "items")));
+        Operator sort = new SortOperator(aggregate, Collections.singletonList("total"), new boolean[] {true});
+        Operator project = new ProjectOperator(sort, Arrays.asList("total", "orderkey"));
+
+        List<Tuple> rows = drain(project);
+        assertEquals(3, rows.size());
+        assertEquals(DataType.DECIMAL, project.getSchema().getType(0));
+        assertEquals("10.00|1", rows.get(0).toString());
+        assertEquals("7.00|2", rows.get(1).toString());
+        assertEquals("1.00|3", rows.get(2).toString());
+    }
+
+    @Test
+    public void testAggregateWithoutGroupBy() throws IOException {
+        Operator aggregate = new AggregateOperator(new ScanOperator(lineitem), Collections.<String>emptyList(),
+            Arrays.asList(new AggregateOperator.Aggregate("MAX", "quantity", "most"),
+                new AggregateOperator.Aggregate("AVG", "quantity", "average")));
+
+        List<Tuple> rows = drain(aggregate);
+        assertEquals(1, rows.size());
+        assertEquals(10.0, rows.get(0).getDouble(0), 0.0);
+        assertEquals(5.1, rows.get(0).getDouble(1), 1e-9);
+    }
+
+    @Test
+    public void testDictionaryEncodedFilterAndGrouping() throws IOException {
+        lineitem.populateTable();
+        Operator scan = new ScanOperator(lineitem);
+        assertNotNull("shipmode should be dictionary encoded at load", lineitem.getRows().get(0).getDictionary(2));
+
+        Operator filter = new FilterOperator(scan, StringPredicates.in(2, Arrays.asList("MAIL", "RAIL")));
+        assertEquals(2, drain(filter).size());
+
+        Operator aggregate = new AggregateOperator(new ScanOperator(lineitem), Collections.singletonList("shipmode"),
+            Collections.singletonList(new AggregateOperator.Aggregate("COUNT", null, "items")));
+        Operator sort = new SortOperator(aggregate, Collections.singletonList("shipmode"), new boolean[] {false});
+        List<Tuple> rows = drain(sort);
+        assertEquals(2, rows.size());
+        assertEquals("AIR|3", rows.get(0).toString());
+        assertEquals("MAIL|2", rows.get(1).toString());
+    }
+
+    @Test
+    public void testScanDropsKeysMissingFromBloomFilter() throws IOException {
+        BloomFilter orderKeys = BloomFilter.of(new long[] {2});
+        List<Tuple> rows = drain(new ScanOperator(lineitem).filterKeys(0, orderKeys));
+        assertEquals(1, rows.size());
+        assertEquals("2|7.00|AIR", rows.get(0).toString());
+
+        List<Tuple> unfiltered = drain(new ScanOperator(lineitem).filterKeys(0, null));
+        assertEquals(5, unfiltered.size());
+    }
+
+    @Test
+    public void testCompositeKeyJoin() throws IOException {
+        Table partsupp = createTable("partsupp",
+            new String[][] {{"partkey", "INT"}, {"suppkey", "INT"}, {"availqty", "INT"}},
+            "1|1|100|\n1|2|200|\n3|1|300|\n");
+        Table shipped = createTable("shipped",
+            new String[][] {{"partkey", "INT"}, {"suppkey", "INT"}, {"shipmode", "CHAR"}},
+            "1|2|AIR|\n1|3|AIR|\n3|1|MAIL|\n3|1|AIR|\n2|1|RAIL|\n");
+        try {
+            Operator join = new HashJoinOperator(new ScanOperator(shipped), new ScanOperator(partsupp),
+                new String[] {"shipped.partkey", "shipped.suppkey"}, new String[] {"partsupp.partkey", "partsupp.suppkey"});
+            List<String> rows = new ArrayList<>();
+            for (Tuple tuple : drain(join)) {
+                rows.add(tuple.toString());
+            }
+            assertEquals(Arrays.asList("1|2|AIR|1|2|200", "3|1|MAIL|3|1|300", "3|1|AIR|3|1|300"), rows);
+        } finally {
+            partsupp.getDataFile().delete();
+            shipped.getDataFile().delete();
+        }
+    }
+
+    private static List<Tuple> drain(Operator operator) throws IOException {
+        List<Tuple> rows = new ArrayList<>();
+        operator.open();
+        try {
+            Tuple tuple;
+            while ((tuple = operator.next()) != null) {
+                rows.add(tuple);
+            }
+        } finally {
+            operator.close();
+        }
+        return rows;
+    }
+
+    private Table createTable(String name, String[][] definitions, String data) throws IOException {
+        File dataFile = new File(testDataDir, name + ".tbl");
+        try (FileWriter writer = new FileWriter(dataFile)) {
+            writer.write(data);
+        }
+
+        ArrayList<ColumnDefinition> columns = new ArrayList<>();
+        for (String[] definition : definitions) {
+            ColDataType colDataType = new ColDataType();
+            colDataType.setDataType(definition[1]);
+            ColumnDefinition column = new ColumnDefinition();
+            column.setColumnName(definition[0]);
+            column.setColDataType(colDataType);
+            columns.add(column);
+        }
+
+        Table table = new Table(name, definitions.length, dataFile, testDataDir);
+        table.setColumnDefinitions(columns);
+        table.populateColumnIndexMap();
+        return table;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelHashJoinTest {
+    @Test
+    public void testPartitionedJoinMatchesSequentialOrder() {
+        Random random = new Random(7);
+        long[] buildKeys = new long[30000];
+        long[] probeKeys = new long[90000];
+        for (int row = 0; row < buildKeys.length; row++) {
+            buildKeys[row] = random.nextInt(20000);
+        }
+        for (int row = 0; row < probeKeys.length; row++) {
+            // Mostly keys with matches, some without and some far outside the build range
+            probeKeys[row] = row % 11 == 0 ? random.nextLong() : random.nextInt(25000);
+        }
+
+        ParallelHashJoin.Matches expected = ParallelHashJoin.join(buildKeys, probeKeys, ForkJoinPool.commonPool(), 0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int radixBits : new int[] {1, 5, 10}) {
+                ParallelHashJoin.Matches matches = ParallelHashJoin.join(buildKeys, probeKeys, pool, radixBits);
+                assertArrayEquals(expected.getProbeRows(), matches.getProbeRows());
+                assertArrayEquals(expected.getBuildRows(), matches.getBuildRows());
+            }
+            assertArrayEquals(expected.getBuildRows(), ParallelHashJoin.join(buildKeys, probeKeys, pool).getBuildRows());
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(probeKeys[expected.getProbeRows()[i]], buildKeys[expected.getBuildRows()[i]]);
+            if (i > 0 && expected.getProbeRows()[i] == expected.getProbeRows()[i - 1]) {
+                assertTrue(expected.getBuildRows()[i] > expected.getBuildRows()[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyInputs() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals(0, ParallelHashJoin.join(new long[0], new long[] {1, 2}, pool, 3).size());
+            assertEquals(0, ParallelHashJoin.join(new long[] {1, 2}, new long[0], pool, 3).size());
+            ParallelHashJoin.Matches matches = ParallelHashJoin.join(new long[] {5, 5}, new long[] {5}, pool, 2);
+            assertArrayEquals(new int[] {0, 0}, matches.getProbeRows());
+            assertArrayEquals(new int[] {0, 1}, matches.getBuildRows());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
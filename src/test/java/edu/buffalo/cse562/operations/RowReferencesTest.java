@@ -0,0 +1,39 @@
+package edu.buffalo.cse562.operations;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowReferencesTest {
+    @Test
+    public void testJoinGathersRowsOfEveryRelation() {
+        // orders 0..3 joined to customers 0..1, then to nations 0..2
+        RowReferences orders = RowReferences.of(4);
+        RowReferences joined = orders.join(RowReferences.of(2), new int[] {3, 1, 1}, new int[] {0, 1, 0});
+        assertEquals(3, joined.size());
+        assertEquals(2, joined.getRelationCount());
+        assertArrayEquals(new int[] {3, 1, 1}, joined.getRows(0));
+        assertArrayEquals(new int[] {0, 1, 0}, joined.getRows(1));
+
+        RowReferences all = joined.join(RowReferences.of(3), new int[] {2, 0}, new int[] {2, 2});
+        assertEquals(2, all.size());
+        assertArrayEquals(new int[] {1, 3}, all.getRows(0));
+        assertArrayEquals(new int[] {0, 0}, all.getRows(1));
+        assertArrayEquals(new int[] {2, 2}, all.getRows(2));
+    }
+
+    @Test
+    public void testMatchPairsRowsWithEqualKeys() {
+        Object[] build = {"ASIA", "EUROPE", "ASIA"};
+        Object[] probe = {"AFRICA", "ASIA", "EUROPE"};
+        ParallelHashJoin.Matches matches = RowReferences.match(build, probe);
+        assertArrayEquals(new int[] {1, 1, 2}, matches.getProbeRows());
+        assertArrayEquals(new int[] {0, 2, 1}, matches.getBuildRows());
+
+        Object[] keys = {CompositeKey.of(new Object[] {1L, "a"}), CompositeKey.of(new Object[] {1L, "b"})};
+        Object[] probeKeys = {CompositeKey.of(new Object[] {1L, "b"})};
+        matches = RowReferences.match(keys, probeKeys);
+        assertArrayEquals(new int[] {0}, matches.getProbeRows());
+        assertArrayEquals(new int[] {1}, matches.getBuildRows());
+    }
+}
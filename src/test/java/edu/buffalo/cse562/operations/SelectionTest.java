@@ -0,0 +1,64 @@
+package edu.buffalo.cse562.operations;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Schema;
+import edu.buffalo.cse562.model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class SelectionTest {
+    private Schema schema;
+    private List<Tuple> rows;
+
+    @Before
+    public void setUp() {
+        schema = new Schema(Arrays.asList("lineitem.orderkey", "lineitem.discount", "lineitem.shipmode"),
+            new DataType[] {DataType.INT, DataType.DECIMAL, DataType.STRING});
+        String[] modes = {"AIR", "MAIL", "SHIP", "TRUCK"};
+        rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(Tuple.parse(i + "|0.0" + (i % 10) + "|" + modes[i % modes.length], schema.getTypes()));
+        }
+    }
+
+    @Test
+    public void testSelectionMatchesRowByRowEvaluation() throws JSQLParserException {
+        assertSameRows("orderkey >= 100 AND discount < 0.03 AND shipmode = 'AIR'");
+        assertSameRows("orderkey < 10 OR (shipmode = 'MAIL' AND discount = 0.05) OR orderkey > 4990");
+        assertSameRows("(orderkey < 2500 OR shipmode = 'SHIP') AND (discount >= 0.08 OR orderkey = 7)");
+    }
+
+    @Test
+    public void testNoConditionSelectsEverything() {
+        assertEquals(rows.size(), Selection.select(null, schema, rows).length);
+    }
+
+    private void assertSameRows(String condition) throws JSQLParserException {
+        Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
+        Predicate<Tuple> predicate = ExpressionCompiler.compilePredicate(expression, schema);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (predicate.test(rows.get(i))) {
+                expected.add(i);
+            }
+        }
+
+        int[] selected = Selection.select(expression, schema, rows);
+        List<Integer> actual = new ArrayList<>();
+        for (int row : selected) {
+            actual.add(row);
+        }
+        assertFalse("The condition should match some rows", expected.isEmpty());
+        assertEquals(condition, expected, actual);
+    }
+}
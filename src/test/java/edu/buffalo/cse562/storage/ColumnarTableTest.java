@@ -0,0 +1,181 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Table;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class ColumnarTableTest {
+    private File testDataDir;
+    private File dataFile;
+    private ArrayList<ColumnDefinition> columns;
+    private int rowCount;
+
+    @Before
+    public void setUp() throws IOException {
+        testDataDir = new File("src/test/resources/testdata/columnar");
+        testDataDir.mkdirs();
+        dataFile = new File(testDataDir, "orders.tbl");
+
+        columns = new ArrayList<>();
+        columns.add(column("orderkey", "INT"));
+        columns.add(column("totalprice", "DECIMAL"));
+        columns.add(column("orderdate", "DATE"));
+        columns.add(column("comment", "VARCHAR"));
+
+        // Spill into a second row group to exercise the footer
+        rowCount = ColumnarFormat.ROW_GROUP_SIZE + 10;
+        try (FileWriter writer = new FileWriter(dataFile)) {
+            for (int i = 0; i < rowCount; i++) {
+                writer.write(i + "|" + (i % 1000) + "." + (i % 10) + "5|1995-03-" + (10 + i % 20)
+                    + "|comment " + i + "|\n");
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = testDataDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        testDataDir.delete();
+    }
+
+    @Test
+    public void testWriteAndReadColumns() throws IOException {
+        long written = new ColumnarTableWriter("orders", columns).write(dataFile, testDataDir);
+        assertEquals("All rows should be written", rowCount, written);
+        assertTrue("Column files should exist", ColumnarFormat.exists(testDataDir, "orders", columns));
+
+        ColumnVector[] vectors = ColumnarTableReader.read(testDataDir, "orders", columns);
+        assertEquals(4, vectors.length);
+        assertEquals(DataType.INT, vectors[0].getType());
+        assertEquals(DataType.DECIMAL, vectors[1].getType());
+        assertEquals(DataType.DATE, vectors[2].getType());
+        assertEquals(DataType.STRING, vectors[3].getType());
+
+        int last = rowCount - 1;
+        assertEquals(rowCount, vectors[0].size());
+        assertEquals(last, vectors[0].getInt(last));
+        assertEquals("Decimals should be scaled by 100", (last % 1000) * 100 + (last % 10) * 10 + 5,
+            vectors[1].getLong(last));
+        assertEquals(LocalDate.of(1995, 3, 10 + last % 20).toEpochDay(), vectors[2].getInt(last));
+        assertEquals("comment " + last, vectors[3].getString(last));
+        assertEquals("comment 0", vectors[3].getString(0));
+    }
+
+    @Test
+    public void testTableLoadsColumnFiles() throws IOException {
+        new ColumnarTableWriter("orders", columns).write(dataFile, testDataDir);
+        // The text file is no longer needed once the column files exist
+        assertTrue(dataFile.delete());
+
+        Table table = new Table("orders", 4, dataFile, testDataDir);
+        table.setColumnDefinitions(columns);
+        table.populateColumnIndexMap();
+        table.populateTable();
+
+        assertNotNull("Table should be loaded from column files", table.getColumns());
+        assertEquals(rowCount, table.getRowCount());
+        assertEquals("0|0.05|1995-03-10|comment 0", table.getTuples().get(0));
+        assertEquals(rowCount, table.getTuples().size());
+    }
+
+    @Test
+    public void testLowCardinalityStringsAreDictionaryEncoded() throws IOException {
+        ArrayList<ColumnDefinition> lineitemColumns = new ArrayList<>();
+        lineitemColumns.add(column("shipmode", "CHAR"));
+        lineitemColumns.add(column("note", "VARCHAR"));
+        String[] modes = {"TRUCK", "AIR", "MAIL", "SHIP"};
+        File lineitemFile = new File(testDataDir, "lineitem.tbl");
+        int lineitemRows = ColumnarFormat.ROW_GROUP_SIZE + 2 * StringDictionary.MAX_SIZE;
+        try (FileWriter writer = new FileWriter(lineitemFile)) {
+            for (int i = 0; i < lineitemRows; i++) {
+                // The note column only runs out of dictionary space in the second row group
+                String note = i < ColumnarFormat.ROW_GROUP_SIZE ? "note " + (i % 10) : "note " + i;
+                writer.write(modes[i % modes.length] + "|" + note + "|\n");
+            }
+        }
+
+        new ColumnarTableWriter("lineitem", lineitemColumns).write(lineitemFile, testDataDir);
+        ColumnVector[] vectors = ColumnarTableReader.read(testDataDir, "lineitem", lineitemColumns);
+
+        StringDictionary dictionary = vectors[0].getDictionary();
+        assertNotNull("A column with four values should be dictionary encoded", dictionary);
+        assertEquals(4, dictionary.size());
+        assertTrue("Codes should follow string order", dictionary.isSorted());
+        assertEquals("AIR", dictionary.get(vectors[0].getInt(1)));
+        assertEquals(0, vectors[0].getInt(1));
+        assertEquals("SHIP", vectors[0].getString(lineitemRows - 1));
+
+        assertNull("A column that overflows the dictionary should be stored plain", vectors[1].getDictionary());
+        assertEquals("note 7", vectors[1].getString(7));
+        assertEquals("note " + (lineitemRows - 1), vectors[1].getString(lineitemRows - 1));
+    }
+
+    @Test
+    public void testZoneMapSkipsBlocks() throws Exception {
+        new ColumnarTableWriter("orders", columns).write(dataFile, testDataDir);
+        ZoneMap zoneMap = ZoneMap.read(testDataDir, "orders");
+        assertNotNull("The build should write a zone map next to the column files", zoneMap);
+        assertEquals(rowCount, zoneMap.getRowCount());
+        assertEquals(2, zoneMap.getBlockCount());
+        assertEquals(ZoneMap.BLOCK_SIZE, zoneMap.getMin(0, 1));
+        assertEquals(rowCount - 1, zoneMap.getMax(0, 1));
+
+        Table table = new Table("orders", 4, dataFile, testDataDir);
+        table.setColumnDefinitions(columns);
+        table.populateColumnIndexMap();
+        table.populateTable();
+        assertNotNull("The table should pick up its zone map", table.getZoneMap());
+
+        BitSet blocks = zoneMap.candidateBlocks(
+            CCJSqlParserUtil.parseCondExpression("orders.orderkey >= " + (rowCount - 5) + " AND totalprice < 1000"),
+            table.getColumnIndexMap());
+        assertEquals("Only the second block holds the wanted keys", 1, blocks.cardinality());
+        assertTrue(blocks.get(1));
+
+        blocks = zoneMap.candidateBlocks(
+            CCJSqlParserUtil.parseCondExpression("orderkey < 3 OR orderdate > DATE '1995-03-20'"),
+            table.getColumnIndexMap());
+        assertEquals("A date range spanning every block keeps them all", 2, blocks.cardinality());
+
+        blocks = zoneMap.candidateBlocks(
+            CCJSqlParserUtil.parseCondExpression("orderdate >= DATE '1996-01-01' OR comment = 'no such comment'"),
+            table.getColumnIndexMap());
+        assertTrue("No block holds a later date or a comment beyond the block range", blocks.isEmpty());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testRejectsDecimalBeyondScale() throws IOException {
+        try (FileWriter writer = new FileWriter(dataFile)) {
+            writer.write("1|1.234|1995-03-10|comment|\n");
+        }
+        new ColumnarTableWriter("orders", columns).write(dataFile, testDataDir);
+    }
+
+    private static ColumnDefinition column(String name, String type) {
+        ColDataType colDataType = new ColDataType();
+        colDataType.setDataType(type);
+        ColumnDefinition columnDefinition = new ColumnDefinition();
+        columnDefinition.setColumnName(name);
+        columnDefinition.setColDataType(colDataType);
+        return columnDefinition;
+    }
+}
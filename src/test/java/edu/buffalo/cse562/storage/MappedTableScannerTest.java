@@ -0,0 +1,88 @@
+package edu.buffalo.cse562.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MappedTableScannerTest {
+    private File testFile;
+
+    @Before
+    public void setUp() throws IOException {
+        testFile = new File("src/test/resources/testdata", "scanner.tbl");
+        testFile.getParentFile().mkdirs();
+        try (FileWriter writer = new FileWriter(testFile)) {
+            writer.write("1|-12.50|AIR|first row|\n");
+            writer.write("22|3.25|TRUCK|second row|\r\n");
+            writer.write("\n");
+            writer.write("333|100|MAIL|no trailing pipe");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        testFile.delete();
+    }
+
+    @Test
+    public void testFieldSlices() throws IOException {
+        try (MappedTableScanner scanner = new MappedTableScanner(testFile, 4)) {
+            assertTrue(scanner.next());
+            assertEquals(4, scanner.fieldCount());
+            assertEquals(1L, scanner.parseLong(0));
+            assertEquals(-12.5, scanner.parseDouble(1), 0.0);
+            assertTrue(scanner.fieldEquals(2, "AIR".getBytes(StandardCharsets.US_ASCII)));
+            assertFalse(scanner.fieldEquals(2, "MAIL".getBytes(StandardCharsets.US_ASCII)));
+            assertEquals("first row", scanner.getString(3));
+            assertEquals(0, scanner.fieldOffset(0));
+            assertEquals(1, scanner.fieldLength(0));
+
+            assertTrue(scanner.next());
+            assertEquals(22L, scanner.parseLong(0));
+            assertEquals("Carriage return should not be part of the row", "22|3.25|TRUCK|second row|",
+                scanner.getLine());
+
+            assertTrue("Blank lines should be skipped", scanner.next());
+            assertEquals(333L, scanner.parseLong(0));
+            assertEquals("no trailing pipe", scanner.getString(3));
+
+            assertFalse(scanner.next());
+        }
+    }
+
+    @Test
+    public void testRowsSpanningWindows() throws IOException {
+        int rows = 0;
+        long sum = 0;
+        // A window smaller than two rows forces a remap at nearly every row
+        try (MappedTableScanner scanner = new MappedTableScanner(testFile, 0, -1, 4, 32)) {
+            while (scanner.next()) {
+                rows++;
+                sum += scanner.parseLong(0);
+            }
+        }
+        assertEquals(3, rows);
+        assertEquals(356L, sum);
+    }
+
+    @Test
+    public void testByteRange() throws IOException {
+        long secondRow = "1|-12.50|AIR|first row|\n".length();
+        try (MappedTableScanner scanner = new MappedTableScanner(testFile, 0, secondRow, 4)) {
+            assertTrue(scanner.next());
+            assertEquals(1L, scanner.parseLong(0));
+            assertFalse("Rows starting at or after the end offset belong to the next range", scanner.next());
+        }
+        try (MappedTableScanner scanner = new MappedTableScanner(testFile, secondRow, -1, 4)) {
+            assertTrue(scanner.next());
+            assertEquals(22L, scanner.parseLong(0));
+        }
+    }
+}
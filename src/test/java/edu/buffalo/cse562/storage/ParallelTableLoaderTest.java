@@ -0,0 +1,91 @@
+package edu.buffalo.cse562.storage;
+
+import edu.buffalo.cse562.model.DataType;
+import edu.buffalo.cse562.model.Table;
+import edu.buffalo.cse562.model.Tuple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelTableLoaderTest {
+    private File testFile;
+    private int rowCount;
+
+    @Before
+    public void setUp() throws IOException {
+        testFile = new File("src/test/resources/testdata", "parallel.tbl");
+        testFile.getParentFile().mkdirs();
+
+        // Roughly 6MB, large enough to be split across workers
+        rowCount = 150000;
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(testFile))) {
+            for (int i = 0; i < rowCount; i++) {
+                writer.write(i + "|" + (i % 100) + ".25|1994-05-17|row number " + i + "|\n");
+            }
+        }
+        assertTrue(testFile.length() > ParallelTableLoader.MIN_PARALLEL_FILE_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        testFile.delete();
+    }
+
+    @Test
+    public void testRangesEndOnNewlines() throws IOException {
+        List<long[]> ranges = ParallelTableLoader.splitRanges(testFile, 7);
+        assertTrue("File should be split", ranges.size() > 1);
+        assertEquals(0L, ranges.get(0)[0]);
+        assertEquals(testFile.length(), ranges.get(ranges.size() - 1)[1]);
+
+        try (RandomAccessFile file = new RandomAccessFile(testFile, "r")) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                if (i > 0) {
+                    assertEquals("Ranges should be contiguous", ranges.get(i - 1)[1], range[0]);
+                }
+                file.seek(range[1] - 1);
+                assertEquals("Range should end on a newline", '\n', file.read());
+            }
+        }
+    }
+
+    @Test
+    public void testLoadPreservesFileOrder() throws IOException {
+        ArrayList<String> lines = ParallelTableLoader.loadLines(testFile, 4);
+        assertEquals(rowCount, lines.size());
+        assertEquals("0|0.25|1994-05-17|row number 0|", lines.get(0));
+        assertEquals((rowCount - 1) + "|" + ((rowCount - 1) % 100) + ".25|1994-05-17|row number " + (rowCount - 1) + "|",
+            lines.get(rowCount - 1));
+
+        DataType[] types = {DataType.INT, DataType.DECIMAL, DataType.DATE, DataType.STRING};
+        ArrayList<Tuple> rows = ParallelTableLoader.loadRows(testFile, types);
+        assertEquals(rowCount, rows.size());
+        for (int i = 0; i < rows.size(); i += 997) {
+            assertEquals(i, rows.get(i).getLong(0));
+            assertEquals("row number " + i, rows.get(i).getString(3));
+        }
+    }
+
+    @Test
+    public void testPopulateAll() throws IOException {
+        Table first = new Table("first", 4, testFile, testFile.getParentFile());
+        Table second = new Table("second", 4, testFile, testFile.getParentFile());
+
+        ParallelTableLoader.populateAll(Arrays.asList(first, second));
+
+        assertEquals(rowCount, first.getTuples().size());
+        assertEquals(rowCount, second.getTuples().size());
+    }
+}
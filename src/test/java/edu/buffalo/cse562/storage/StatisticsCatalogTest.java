@@ -0,0 +1,102 @@
+package edu.buffalo.cse562.storage;
+
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class StatisticsCatalogTest {
+    private File testDataDir;
+    private File dataFile;
+    private ArrayList<ColumnDefinition> columns;
+
+    @Before
+    public void setUp() throws IOException {
+        testDataDir = new File("src/test/resources/testdata/statistics");
+        testDataDir.mkdirs();
+        dataFile = new File(testDataDir, "part.tbl");
+
+        columns = new ArrayList<>();
+        columns.add(column("partkey", "INT"));
+        columns.add(column("retailprice", "DECIMAL"));
+        columns.add(column("shipdate", "DATE"));
+        columns.add(column("brand", "CHAR"));
+        columns.add(column("comment", "VARCHAR"));
+
+        try (FileWriter writer = new FileWriter(dataFile)) {
+            for (int i = 0; i < 2000; i++) {
+                // More distinct comments than a dictionary holds, so the column is stored plain
+                String comment = i % 100 == 0 ? "" : "comment " + i;
+                writer.write(i + "|" + (i % 10) + ".50|1995-01-" + (10 + i % 10) + "|Brand#" + (i % 5) + "|"
+                    + comment + "|\n");
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = testDataDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        testDataDir.delete();
+    }
+
+    @Test
+    public void testBuildAndLoadStatistics() throws IOException {
+        new ColumnarTableWriter("part", columns).write(dataFile, testDataDir);
+        StatisticsCatalog.build(testDataDir, "part", columns);
+        assertTrue(TableStatistics.file(testDataDir, "part").isFile());
+
+        StatisticsCatalog catalog = StatisticsCatalog.load(testDataDir);
+        assertEquals(2000, catalog.getRowCount("PART"));
+        assertEquals(-1, catalog.getRowCount("lineitem"));
+        assertNull(catalog.getColumn("part", "nosuchcolumn"));
+
+        ColumnStatistics partkey = catalog.getColumn("part", "part.partkey");
+        assertEquals(2000, partkey.getDistinctCount());
+        assertEquals(0, partkey.getMin());
+        assertEquals(1999, partkey.getMax());
+        assertEquals(ColumnStatistics.HISTOGRAM_BUCKETS + 1, partkey.getHistogramBounds().length);
+        assertEquals(0.1, partkey.rangeSelectivity(200, 399), 0.02);
+        assertEquals(0.0, partkey.rangeSelectivity(3000, 4000), 0.0);
+        assertEquals(0.0005, partkey.equalitySelectivity(), 1e-9);
+
+        ColumnStatistics price = catalog.getColumn("part", "retailprice");
+        assertEquals(10, price.getDistinctCount());
+        assertEquals("Decimals should be unscaled", 950, price.getMax());
+
+        ColumnStatistics shipdate = catalog.getColumn("part", "shipdate");
+        assertEquals(10, shipdate.getDistinctCount());
+        assertEquals(LocalDate.of(1995, 1, 10).toEpochDay(), shipdate.getMin());
+
+        ColumnStatistics brand = catalog.getColumn("part", "brand");
+        assertEquals(5, brand.getDistinctCount());
+        assertEquals("Brand#0", brand.getMinString());
+        assertEquals("Brand#4", brand.getMaxString());
+
+        ColumnStatistics comment = catalog.getColumn("part", "comment");
+        assertEquals("Empty strings count as nulls", 20, comment.getNullCount());
+        assertEquals("Plain strings are counted by hash", 1981, comment.getDistinctCount());
+    }
+
+    private static ColumnDefinition column(String name, String type) {
+        ColDataType colDataType = new ColDataType();
+        colDataType.setDataType(type);
+        ColumnDefinition columnDefinition = new ColumnDefinition();
+        columnDefinition.setColumnName(name);
+        columnDefinition.setColDataType(colDataType);
+        return columnDefinition;
+    }
+}
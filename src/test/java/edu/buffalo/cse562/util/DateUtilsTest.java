@@ -0,0 +1,46 @@
+package edu.buffalo.cse562.util;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class DateUtilsTest {
+    @Test
+    public void testLiteralForms() throws JSQLParserException {
+        int expected = (int) LocalDate.of(1994, 1, 1).toEpochDay();
+        assertEquals(expected, DateUtils.literalEpochDay("{d '1994-01-01'}"));
+        assertEquals(expected, DateUtils.literalEpochDay("date('1994-01-01')"));
+
+        assertEquals(Integer.valueOf(expected), fold("DATE '1994-01-01'"));
+        assertEquals(Integer.valueOf(expected), fold("{d '1994-01-01'}"));
+        assertEquals(Integer.valueOf(expected), fold("DATE('1994-01-01')"));
+        assertEquals(Integer.valueOf(expected), fold("'1994-01-01'"));
+        assertNull("Strings that are not dates should not fold", fold("'AIR'"));
+        assertNull("Columns are not constants", fold("lineitem.shipdate"));
+    }
+
+    @Test
+    public void testIntervalArithmetic() throws JSQLParserException {
+        assertEquals(Integer.valueOf((int) LocalDate.of(1994, 4, 1).toEpochDay()),
+            fold("DATE '1994-01-01' + INTERVAL '3' MONTH"));
+        assertEquals(Integer.valueOf((int) LocalDate.of(1998, 9, 2).toEpochDay()),
+            fold("date '1998-12-01' - interval '90' day"));
+        assertEquals(Integer.valueOf((int) LocalDate.of(1996, 1, 1).toEpochDay()),
+            fold("date('1995-01-01') + interval '1' year"));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("1995-03-15", DateUtils.format(DateUtils.toEpochDay("1995-03-15")));
+    }
+
+    private static Integer fold(String expression) throws JSQLParserException {
+        Expression parsed = CCJSqlParserUtil.parseExpression(expression);
+        return DateUtils.fold(parsed);
+    }
+}
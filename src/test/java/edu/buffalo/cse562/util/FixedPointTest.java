@@ -0,0 +1,51 @@
+package edu.buffalo.cse562.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedPointTest {
+    @Test
+    public void testArithmetic() {
+        // 12.50 + 0.125 at scales 2 and 3
+        assertEquals(12625L, FixedPoint.add(1250, 2, 125, 3));
+        assertEquals(12375L, FixedPoint.subtract(1250, 2, 125, 3));
+        // 12.50 * 0.95 = 11.8750 at scale 4
+        assertEquals(118750L, FixedPoint.multiply(1250, 95));
+        // 10.00 / 3 rounded to scale 2
+        assertEquals(333L, FixedPoint.divide(1000, 2, 3, 0, 2));
+        assertEquals(-334L, FixedPoint.divide(-1001, 2, 3, 0, 2));
+        assertEquals(125L, FixedPoint.rescale(12450, 4, 2));
+    }
+
+    @Test
+    public void testSumsAreExact() {
+        long sum = 0;
+        double doubleSum = 0;
+        for (int i = 0; i < 1000; i++) {
+            sum = FixedPoint.add(sum, 2, 10, 2);
+            doubleSum += 0.10;
+        }
+        StringBuilder sb = new StringBuilder();
+        FixedPoint.append(sb, sum, 2);
+        assertEquals("100.00", sb.toString());
+        assertNotEquals("Doubles drift where scaled longs do not", 100.0, doubleSum, 0.0);
+    }
+
+    @Test
+    public void testFormatAndCompare() {
+        StringBuilder sb = new StringBuilder();
+        FixedPoint.append(sb, -5, 2);
+        sb.append('|');
+        FixedPoint.append(sb, 100005, 4);
+        assertEquals("-0.05|10.0005", sb.toString());
+
+        assertEquals(0, FixedPoint.compare(150, 2, 15, 1));
+        assertTrue(FixedPoint.compare(149, 2, 15, 1) < 0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflowIsDetected() {
+        FixedPoint.multiply(Long.MAX_VALUE / 2, 3);
+    }
+}